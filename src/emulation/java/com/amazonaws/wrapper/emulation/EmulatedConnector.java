@@ -0,0 +1,101 @@
+package com.amazonaws.wrapper.emulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.wrapper.model.AsyncEc2Connector;
+import com.amazonaws.wrapper.model.MultiRegionEc2Connector;
+import com.amazonaws.wrapper.service.Ec2CallMeter;
+
+/**
+ * Connector to in-process emulation of amazon EC2, one emulated EC2 per region. Calls are metered like calls of real clients. Pass it to
+ * resources instead of AmazonServices to run code and benchmarks without amazon account
+ */
+public class EmulatedConnector implements AsyncEc2Connector, MultiRegionEc2Connector {
+
+    public final static String DEFAULT_REGION = "us-east-1";
+
+    private final EmulationProfile profile;
+
+    private final ConcurrentMap<String, EmulatedEc2> emulations = new ConcurrentHashMap<String, EmulatedEc2>();
+
+    private final ConcurrentMap<String, AmazonEC2> clients = new ConcurrentHashMap<String, AmazonEC2>();
+
+    private final List<String> regions = new ArrayList<String>();
+
+    private final ExecutorService executor;
+
+    public EmulatedConnector(EmulationProfile profile, String... regions) {
+        this.profile = profile;
+        for (String region : regions) {
+            this.regions.add(region);
+        }
+        this.executor = Executors.newFixedThreadPool(Math.max(4, this.regions.size()));
+    }
+
+    public EmulatedConnector() {
+        this(new EmulationProfile());
+    }
+
+    public EmulationProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Emulated EC2 of region, created on first use
+     */
+    public EmulatedEc2 getEmulation(String region) {
+        EmulatedEc2 emulation = emulations.get(region);
+        return emulation != null ? emulation : createEmulation(region);
+    }
+
+    private synchronized EmulatedEc2 createEmulation(String region) {
+        EmulatedEc2 emulation = emulations.get(region);
+        if (emulation == null) {
+            emulation = new EmulatedEc2(profile);
+            clients.put(region, Ec2CallMeter.wrap(emulation.client()));
+            emulations.put(region, emulation);
+        }
+        return emulation;
+    }
+
+    @Override
+    public AmazonEC2 getAmazonEC2() {
+        return getAmazonEC2(regions.isEmpty() ? DEFAULT_REGION : regions.get(0));
+    }
+
+    @Override
+    public AmazonEC2 getAmazonEC2(String region) {
+        AmazonEC2 client = clients.get(region);
+        if (client == null) {
+            createEmulation(region);
+            client = clients.get(region);
+        }
+        return client;
+    }
+
+    @Override
+    public List<String> getRegions() {
+        return regions;
+    }
+
+    @Override
+    public String getUserId() {
+        return profile.getOwnerId();
+    }
+
+    @Override
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+}
@@ -0,0 +1,1360 @@
+package com.amazonaws.wrapper.emulation;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonServiceException.ErrorType;
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.services.ec2.model.AllocateAddressRequest;
+import com.amazonaws.services.ec2.model.AllocateAddressResult;
+import com.amazonaws.services.ec2.model.Address;
+import com.amazonaws.services.ec2.model.AssociateAddressRequest;
+import com.amazonaws.services.ec2.model.AssociateAddressResult;
+import com.amazonaws.services.ec2.model.AttachVolumeRequest;
+import com.amazonaws.services.ec2.model.AttachVolumeResult;
+import com.amazonaws.services.ec2.model.AuthorizeSecurityGroupIngressRequest;
+import com.amazonaws.services.ec2.model.BlockDeviceMapping;
+import com.amazonaws.services.ec2.model.CreateImageRequest;
+import com.amazonaws.services.ec2.model.CreateImageResult;
+import com.amazonaws.services.ec2.model.CreateSecurityGroupRequest;
+import com.amazonaws.services.ec2.model.CreateSecurityGroupResult;
+import com.amazonaws.services.ec2.model.CreateSnapshotRequest;
+import com.amazonaws.services.ec2.model.CreateSnapshotResult;
+import com.amazonaws.services.ec2.model.CreateSubnetRequest;
+import com.amazonaws.services.ec2.model.CreateSubnetResult;
+import com.amazonaws.services.ec2.model.CreateTagsRequest;
+import com.amazonaws.services.ec2.model.CreateVolumeRequest;
+import com.amazonaws.services.ec2.model.CreateVolumeResult;
+import com.amazonaws.services.ec2.model.CreateVpcRequest;
+import com.amazonaws.services.ec2.model.CreateVpcResult;
+import com.amazonaws.services.ec2.model.DeleteSecurityGroupRequest;
+import com.amazonaws.services.ec2.model.DeleteSnapshotRequest;
+import com.amazonaws.services.ec2.model.DeleteSubnetRequest;
+import com.amazonaws.services.ec2.model.DeleteTagsRequest;
+import com.amazonaws.services.ec2.model.DeleteVolumeRequest;
+import com.amazonaws.services.ec2.model.DeleteVpcRequest;
+import com.amazonaws.services.ec2.model.DeregisterImageRequest;
+import com.amazonaws.services.ec2.model.DescribeAddressesRequest;
+import com.amazonaws.services.ec2.model.DescribeAddressesResult;
+import com.amazonaws.services.ec2.model.DescribeImagesRequest;
+import com.amazonaws.services.ec2.model.DescribeImagesResult;
+import com.amazonaws.services.ec2.model.DescribeInstancesRequest;
+import com.amazonaws.services.ec2.model.DescribeInstancesResult;
+import com.amazonaws.services.ec2.model.DescribeSecurityGroupsRequest;
+import com.amazonaws.services.ec2.model.DescribeSecurityGroupsResult;
+import com.amazonaws.services.ec2.model.DescribeSnapshotsRequest;
+import com.amazonaws.services.ec2.model.DescribeSnapshotsResult;
+import com.amazonaws.services.ec2.model.DescribeSubnetsRequest;
+import com.amazonaws.services.ec2.model.DescribeSubnetsResult;
+import com.amazonaws.services.ec2.model.DescribeVolumesRequest;
+import com.amazonaws.services.ec2.model.DescribeVolumesResult;
+import com.amazonaws.services.ec2.model.DescribeVpcsRequest;
+import com.amazonaws.services.ec2.model.DescribeVpcsResult;
+import com.amazonaws.services.ec2.model.DetachVolumeRequest;
+import com.amazonaws.services.ec2.model.DetachVolumeResult;
+import com.amazonaws.services.ec2.model.DisassociateAddressRequest;
+import com.amazonaws.services.ec2.model.EbsInstanceBlockDevice;
+import com.amazonaws.services.ec2.model.GroupIdentifier;
+import com.amazonaws.services.ec2.model.Image;
+import com.amazonaws.services.ec2.model.Instance;
+import com.amazonaws.services.ec2.model.InstanceBlockDeviceMapping;
+import com.amazonaws.services.ec2.model.InstanceState;
+import com.amazonaws.services.ec2.model.InstanceStateChange;
+import com.amazonaws.services.ec2.model.IpPermission;
+import com.amazonaws.services.ec2.model.Placement;
+import com.amazonaws.services.ec2.model.RebootInstancesRequest;
+import com.amazonaws.services.ec2.model.RegisterImageRequest;
+import com.amazonaws.services.ec2.model.RegisterImageResult;
+import com.amazonaws.services.ec2.model.ReleaseAddressRequest;
+import com.amazonaws.services.ec2.model.Reservation;
+import com.amazonaws.services.ec2.model.RevokeSecurityGroupIngressRequest;
+import com.amazonaws.services.ec2.model.RunInstancesRequest;
+import com.amazonaws.services.ec2.model.RunInstancesResult;
+import com.amazonaws.services.ec2.model.SecurityGroup;
+import com.amazonaws.services.ec2.model.Snapshot;
+import com.amazonaws.services.ec2.model.StartInstancesRequest;
+import com.amazonaws.services.ec2.model.StartInstancesResult;
+import com.amazonaws.services.ec2.model.StopInstancesRequest;
+import com.amazonaws.services.ec2.model.StopInstancesResult;
+import com.amazonaws.services.ec2.model.Subnet;
+import com.amazonaws.services.ec2.model.Tag;
+import com.amazonaws.services.ec2.model.TerminateInstancesRequest;
+import com.amazonaws.services.ec2.model.TerminateInstancesResult;
+import com.amazonaws.services.ec2.model.Volume;
+import com.amazonaws.services.ec2.model.VolumeAttachment;
+import com.amazonaws.services.ec2.model.Vpc;
+import com.amazonaws.wrapper.service.TokenBucket;
+
+/**
+ * In-memory amazon EC2 of one region. Emulates instances, volumes, snapshots, images, elastic IPs, VPCs, subnets and security groups with their
+ * state transitions and amazon error codes. Every request waits for latency of emulation profile, may fail with RequestLimitExceeded, and
+ * created resources are not visible to describe and tag requests until visibility lag passes. Use client() as AmazonEC2, unsupported actions
+ * fail with "UnsupportedOperation"
+ */
+public class EmulatedEc2 implements InvocationHandler {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(EmulatedEc2.class);
+
+    private final static String DEFAULT_GROUP_NAME = "default";
+
+    private final EmulationProfile profile;
+
+    private final Random random;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final AtomicLong throttled = new AtomicLong();
+
+    /*
+     * Handlers of AmazonEC2 methods, found by name and request type
+     */
+    private final Map<String, Method> handlers = new ConcurrentHashMap<String, Method>();
+
+    private TokenBucket bucket;
+
+    private double bucketRate;
+
+    /*
+     * Emulated resources by id (elastic IPs by public ip), guarded by this
+     */
+    private final Map<String, Record<Instance>> instances = new LinkedHashMap<String, Record<Instance>>();
+    private final Map<String, Record<Volume>> volumes = new LinkedHashMap<String, Record<Volume>>();
+    private final Map<String, Record<Snapshot>> snapshots = new LinkedHashMap<String, Record<Snapshot>>();
+    private final Map<String, Record<Image>> images = new LinkedHashMap<String, Record<Image>>();
+    private final Map<String, Record<Address>> addresses = new LinkedHashMap<String, Record<Address>>();
+    private final Map<String, Record<Vpc>> vpcs = new LinkedHashMap<String, Record<Vpc>>();
+    private final Map<String, Record<Subnet>> subnets = new LinkedHashMap<String, Record<Subnet>>();
+    private final Map<String, Record<SecurityGroup>> securityGroups = new LinkedHashMap<String, Record<SecurityGroup>>();
+
+    public EmulatedEc2(EmulationProfile profile) {
+        this.profile = profile;
+        this.random = new Random(profile.getSeed());
+        SecurityGroup defaultGroup = new SecurityGroup().withGroupId(newId("sg")).withGroupName(DEFAULT_GROUP_NAME)
+                .withDescription("default group").withOwnerId(profile.getOwnerId());
+        securityGroups.put(defaultGroup.getGroupId(), new Record<SecurityGroup>(defaultGroup, 0, null));
+    }
+
+    /**
+     * Return AmazonEC2 backed by this emulation
+     */
+    public AmazonEC2 client() {
+        return (AmazonEC2) Proxy.newProxyInstance(AmazonEC2.class.getClassLoader(), new Class<?>[] { AmazonEC2.class }, this);
+    }
+
+    public EmulationProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Number of received requests
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Number of requests failed with RequestLimitExceeded
+     */
+    public long getThrottledCount() {
+        return throttled.get();
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String action = method.getName();
+        if (method.getDeclaringClass() == Object.class) {
+            return method.invoke(this, args);
+        }
+        if (action.startsWith("set") || action.equals("shutdown") || action.equals("getCachedResponseMetadata")) {
+            return null;
+        }
+        requests.incrementAndGet();
+        long latency = profile.getLatency(action).nextNanos(random);
+        if (latency > 0) {
+            LockSupport.parkNanos(latency);
+        }
+        throttle(action);
+        Method handler = handlerOf(action);
+        if (handler == null) {
+            throw error(400, "UnsupportedOperation", action + " is not emulated");
+        }
+        try {
+            Object request = args == null || args.length == 0 ? handler.getParameterTypes()[0].getDeclaredConstructor().newInstance() : args[0];
+            return handler.invoke(this, request);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Method handlerOf(String action) {
+        Method handler = handlers.get(action);
+        if (handler == null) {
+            for (Method candidate : EmulatedEc2.class.getDeclaredMethods()) {
+                if (candidate.getName().equals(action) && candidate.getParameterTypes().length == 1) {
+                    candidate.setAccessible(true);
+                    handler = candidate;
+                    handlers.put(action, handler);
+                    break;
+                }
+            }
+        }
+        return handler;
+    }
+
+    private void throttle(String action) {
+        boolean limited = profile.getThrottleRate() > 0 && random.nextDouble() < profile.getThrottleRate();
+        if (!limited && profile.getRequestsPerSecond() > 0) {
+            limited = !bucketOf(profile.getRequestsPerSecond()).tryAcquire();
+        }
+        if (limited) {
+            throttled.incrementAndGet();
+            LOGGER.debug("Throttling " + action);
+            throw error(503, "RequestLimitExceeded", "Request limit exceeded.");
+        }
+    }
+
+    private synchronized TokenBucket bucketOf(double rate) {
+        if (bucket == null || bucketRate != rate) {
+            bucket = new TokenBucket(rate, Math.max(1, rate));
+            bucketRate = rate;
+        }
+        return bucket;
+    }
+
+    // ---------------------------------------------------------------- instances
+
+    @SuppressWarnings("unused")
+    private synchronized RunInstancesResult runInstances(RunInstancesRequest request) {
+        long now = System.currentTimeMillis();
+        if (request.getImageId() == null) {
+            throw error(400, "MissingParameter", "The request must contain the parameter ImageId");
+        }
+        if (!request.getImageId().startsWith("ami-")) {
+            throw error(400, "InvalidAMIID.Malformed", "Invalid id: \"" + request.getImageId() + "\"");
+        }
+        Record<Image> image = images.get(request.getImageId());
+        if (image != null && (!image.isVisible(now) || !"available".equals(image.advance(now)))) {
+            throw error(400, "InvalidAMIID.Unavailable", "AMI '" + request.getImageId() + "' is not available");
+        }
+        int minCount = request.getMinCount() == null ? 1 : request.getMinCount();
+        int maxCount = request.getMaxCount() == null ? minCount : request.getMaxCount();
+        if (minCount < 1 || maxCount < minCount) {
+            throw error(400, "InvalidParameterValue", "MinCount must be positive and must not exceed MaxCount");
+        }
+        String vpcId = null;
+        String subnetId = blankToNull(request.getSubnetId());
+        if (subnetId != null) {
+            vpcId = find(subnets, subnetId, "InvalidSubnetID.NotFound", now).model.getVpcId();
+        }
+        List<GroupIdentifier> groups = new ArrayList<GroupIdentifier>();
+        for (String groupId : request.getSecurityGroupIds()) {
+            if (blankToNull(groupId) != null) {
+                SecurityGroup group = find(securityGroups, groupId, "InvalidGroup.NotFound", now).model;
+                groups.add(new GroupIdentifier().withGroupId(group.getGroupId()).withGroupName(group.getGroupName()));
+            }
+        }
+        for (String groupName : request.getSecurityGroups()) {
+            SecurityGroup group = groupByName(groupName, vpcId, now);
+            groups.add(new GroupIdentifier().withGroupId(group.getGroupId()).withGroupName(group.getGroupName()));
+        }
+        if (groups.isEmpty()) {
+            SecurityGroup group = groupByName(DEFAULT_GROUP_NAME, null, now);
+            groups.add(new GroupIdentifier().withGroupId(group.getGroupId()).withGroupName(group.getGroupName()));
+        }
+        for (BlockDeviceMapping mapping : request.getBlockDeviceMappings()) {
+            if (mapping.getEbs() != null && mapping.getEbs().getSnapshotId() != null) {
+                find(snapshots, mapping.getEbs().getSnapshotId(), "InvalidSnapshot.NotFound", now);
+            }
+        }
+        String reservationId = newId("r");
+        Reservation reservation = new Reservation().withReservationId(reservationId).withOwnerId(profile.getOwnerId());
+        for (int i = 0; i < maxCount; i++) {
+            long address = sequence.incrementAndGet();
+            Instance instance = new Instance().withInstanceId(newId("i")).withImageId(request.getImageId())
+                    .withInstanceType(request.getInstanceType() == null ? "m1.small" : request.getInstanceType()).withKeyName(request.getKeyName())
+                    .withLaunchTime(new Date(now)).withPlacement(new Placement(profile.getAvailabilityZone())).withSubnetId(subnetId).withVpcId(vpcId)
+                    .withPrivateIpAddress(maxCount == 1 && blankToNull(request.getPrivateIpAddress()) != null ? request.getPrivateIpAddress() : ip(10, address))
+                    .withPublicIpAddress(ip(54, address)).withAmiLaunchIndex(i).withArchitecture("x86_64").withRootDeviceType("ebs")
+                    .withRootDeviceName("/dev/sda1").withVirtualizationType("hvm").withHypervisor("xen").withStateTransitionReason("")
+                    .withSecurityGroups(new ArrayList<GroupIdentifier>(groups));
+            instance.setPrivateDnsName("ip-" + instance.getPrivateIpAddress().replace('.', '-') + ".ec2.internal");
+            Record<Instance> record = new Record<Instance>(instance, now + profile.getVisibilityLagMillis(), "pending");
+            record.reservationId = reservationId;
+            record.then(now + profile.getInstanceBootMillis(), "running");
+            instances.put(instance.getInstanceId(), record);
+            for (BlockDeviceMapping mapping : request.getBlockDeviceMappings()) {
+                if (mapping.getEbs() != null) {
+                    attachAtLaunch(record, mapping, now);
+                }
+            }
+            reservation.getInstances().add(copyOfInstance(record, now));
+        }
+        LOGGER.debug("Launched " + maxCount + " instances of " + request.getImageId() + " in " + reservationId);
+        return new RunInstancesResult().withReservation(reservation);
+    }
+
+    private void attachAtLaunch(Record<Instance> instance, BlockDeviceMapping mapping, long now) {
+        Integer size = mapping.getEbs().getVolumeSize();
+        if (size == null && mapping.getEbs().getSnapshotId() != null) {
+            size = snapshots.get(mapping.getEbs().getSnapshotId()).model.getVolumeSize();
+        }
+        boolean deleteOnTermination = mapping.getEbs().getDeleteOnTermination() == null || mapping.getEbs().getDeleteOnTermination();
+        Volume volume = new Volume().withVolumeId(newId("vol")).withSize(size == null ? 8 : size).withSnapshotId(mapping.getEbs().getSnapshotId())
+                .withAvailabilityZone(profile.getAvailabilityZone()).withCreateTime(new Date(now)).withVolumeType("standard");
+        volume.getAttachments().add(
+                new VolumeAttachment().withVolumeId(volume.getVolumeId()).withInstanceId(instance.model.getInstanceId())
+                        .withDevice(mapping.getDeviceName()).withState("attached").withAttachTime(new Date(now))
+                        .withDeleteOnTermination(deleteOnTermination));
+        volumes.put(volume.getVolumeId(), new Record<Volume>(volume, instance.visibleAt, "in-use"));
+        instance.model.getBlockDeviceMappings().add(
+                new InstanceBlockDeviceMapping().withDeviceName(mapping.getDeviceName()).withEbs(
+                        new EbsInstanceBlockDevice().withVolumeId(volume.getVolumeId()).withStatus("attached").withAttachTime(new Date(now))
+                                .withDeleteOnTermination(deleteOnTermination)));
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized DescribeInstancesResult describeInstances(DescribeInstancesRequest request) {
+        long now = System.currentTimeMillis();
+        Map<String, Reservation> reservations = new LinkedHashMap<String, Reservation>();
+        for (Record<Instance> record : visible(instances, request.getInstanceIds(), "InvalidInstanceID.NotFound", now)) {
+            Instance instance = copyOfInstance(record, now);
+            if (filtersOf(instance).matches(request.getFilters())) {
+                Reservation reservation = reservations.get(record.reservationId);
+                if (reservation == null) {
+                    reservation = new Reservation().withReservationId(record.reservationId).withOwnerId(profile.getOwnerId());
+                    reservations.put(record.reservationId, reservation);
+                }
+                reservation.getInstances().add(instance);
+            }
+        }
+        return new DescribeInstancesResult().withReservations(reservations.values());
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized StopInstancesResult stopInstances(StopInstancesRequest request) {
+        long now = System.currentTimeMillis();
+        List<InstanceStateChange> changes = new ArrayList<InstanceStateChange>();
+        for (Record<Instance> record : existing(instances, request.getInstanceIds(), "InvalidInstanceID.NotFound", now)) {
+            String previous = record.state;
+            if (previous.equals("shutting-down") || previous.equals("terminated")) {
+                throw error(400, "IncorrectInstanceState", "The instance '" + record.model.getInstanceId() + "' is not in a state from which it can be stopped.");
+            }
+            if (previous.equals("pending") || previous.equals("running")) {
+                record.change("stopping").then(now + profile.getInstanceStopMillis(), "stopped");
+            }
+            changes.add(change(record, previous, now));
+        }
+        return new StopInstancesResult().withStoppingInstances(changes);
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized StartInstancesResult startInstances(StartInstancesRequest request) {
+        long now = System.currentTimeMillis();
+        List<InstanceStateChange> changes = new ArrayList<InstanceStateChange>();
+        for (Record<Instance> record : existing(instances, request.getInstanceIds(), "InvalidInstanceID.NotFound", now)) {
+            String previous = record.state;
+            if (!previous.equals("stopped") && !previous.equals("pending") && !previous.equals("running")) {
+                throw error(400, "IncorrectInstanceState", "The instance '" + record.model.getInstanceId() + "' is not in a state from which it can be started.");
+            }
+            if (previous.equals("stopped")) {
+                record.change("pending").then(now + profile.getInstanceBootMillis(), "running");
+            }
+            changes.add(change(record, previous, now));
+        }
+        return new StartInstancesResult().withStartingInstances(changes);
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized void rebootInstances(RebootInstancesRequest request) {
+        long now = System.currentTimeMillis();
+        for (Record<Instance> record : existing(instances, request.getInstanceIds(), "InvalidInstanceID.NotFound", now)) {
+            if (!record.state.equals("running")) {
+                throw error(400, "IncorrectInstanceState", "The instance '" + record.model.getInstanceId() + "' is not in a state from which it can be rebooted.");
+            }
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized TerminateInstancesResult terminateInstances(TerminateInstancesRequest request) {
+        long now = System.currentTimeMillis();
+        List<InstanceStateChange> changes = new ArrayList<InstanceStateChange>();
+        for (Record<Instance> record : existing(instances, request.getInstanceIds(), "InvalidInstanceID.NotFound", now)) {
+            String previous = record.state;
+            if (!previous.equals("shutting-down") && !previous.equals("terminated")) {
+                long terminatedAt = now + profile.getInstanceTerminateMillis();
+                record.change("shutting-down").then(terminatedAt, "terminated").then(terminatedAt + profile.getTerminatedVisibleMillis(), null);
+                releaseInstanceResources(record.model.getInstanceId(), now);
+            }
+            changes.add(change(record, previous, now));
+        }
+        return new TerminateInstancesResult().withTerminatingInstances(changes);
+    }
+
+    private void releaseInstanceResources(String instanceId, long now) {
+        Iterator<Record<Volume>> volumeIterator = volumes.values().iterator();
+        while (volumeIterator.hasNext()) {
+            Record<Volume> volume = volumeIterator.next();
+            VolumeAttachment attachment = volume.model.getAttachments().isEmpty() ? null : volume.model.getAttachments().get(0);
+            if (attachment != null && instanceId.equals(attachment.getInstanceId())) {
+                if (Boolean.TRUE.equals(attachment.getDeleteOnTermination())) {
+                    volumeIterator.remove();
+                } else {
+                    volume.model.getAttachments().clear();
+                    volume.change("available");
+                }
+            }
+        }
+        for (Record<Address> address : addresses.values()) {
+            if (instanceId.equals(address.model.getInstanceId())) {
+                address.model.setInstanceId(null);
+                address.model.setAssociationId(null);
+            }
+        }
+    }
+
+    private InstanceStateChange change(Record<Instance> record, String previous, long now) {
+        return new InstanceStateChange().withInstanceId(record.model.getInstanceId()).withPreviousState(instanceState(previous))
+                .withCurrentState(instanceState(record.advance(now)));
+    }
+
+    // ---------------------------------------------------------------- images
+
+    @SuppressWarnings("unused")
+    private synchronized CreateImageResult createImage(CreateImageRequest request) {
+        long now = System.currentTimeMillis();
+        Record<Instance> instance = find(instances, request.getInstanceId(), "InvalidInstanceID.NotFound", now);
+        if (!instance.state.equals("running") && !instance.state.equals("stopped")) {
+            throw error(400, "IncorrectInstanceState", "The instance '" + request.getInstanceId() + "' is not in a state from which it can be imaged.");
+        }
+        Image image = newImage(request.getName(), request.getDescription(), now);
+        images.put(image.getImageId(), new Record<Image>(image, now + profile.getVisibilityLagMillis(), "pending").then(
+                now + profile.getImageMillis(), "available"));
+        return new CreateImageResult().withImageId(image.getImageId());
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized RegisterImageResult registerImage(RegisterImageRequest request) {
+        long now = System.currentTimeMillis();
+        Image image = newImage(request.getName(), request.getDescription(), now);
+        if (request.getArchitecture() != null) {
+            image.setArchitecture(request.getArchitecture());
+        }
+        images.put(image.getImageId(), new Record<Image>(image, now + profile.getVisibilityLagMillis(), "available"));
+        return new RegisterImageResult().withImageId(image.getImageId());
+    }
+
+    private Image newImage(String name, String description, long now) {
+        if (name == null) {
+            throw error(400, "MissingParameter", "The request must contain the parameter Name");
+        }
+        for (Record<Image> existing : images.values()) {
+            if (existing.model.getName().equals(name)) {
+                throw error(400, "InvalidAMIName.Duplicate", "AMI name " + name + " is already in use by AMI " + existing.model.getImageId());
+            }
+        }
+        return new Image().withImageId(newId("ami")).withName(name).withDescription(description).withOwnerId(profile.getOwnerId())
+                .withPublic(false).withArchitecture("x86_64").withImageType("machine").withRootDeviceType("ebs").withRootDeviceName("/dev/sda1")
+                .withVirtualizationType("hvm").withHypervisor("xen").withImageLocation(profile.getOwnerId() + "/" + name);
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized DescribeImagesResult describeImages(DescribeImagesRequest request) {
+        long now = System.currentTimeMillis();
+        List<Image> found = new ArrayList<Image>();
+        for (Record<Image> record : visible(images, request.getImageIds(), "InvalidAMIID.NotFound", now)) {
+            Image image = copyOfImage(record, now);
+            if (ownedBy(image.getOwnerId(), request.getOwners()) && filtersOf(image).matches(request.getFilters())) {
+                found.add(image);
+            }
+        }
+        return new DescribeImagesResult().withImages(found);
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized void deregisterImage(DeregisterImageRequest request) {
+        long now = System.currentTimeMillis();
+        find(images, request.getImageId(), "InvalidAMIID.NotFound", now);
+        images.remove(request.getImageId());
+    }
+
+    // ---------------------------------------------------------------- snapshots
+
+    @SuppressWarnings("unused")
+    private synchronized CreateSnapshotResult createSnapshot(CreateSnapshotRequest request) {
+        long now = System.currentTimeMillis();
+        Volume volume = find(volumes, request.getVolumeId(), "InvalidVolume.NotFound", now).model;
+        Snapshot snapshot = new Snapshot().withSnapshotId(newId("snap")).withVolumeId(volume.getVolumeId()).withVolumeSize(volume.getSize())
+                .withDescription(request.getDescription()).withOwnerId(profile.getOwnerId()).withStartTime(new Date(now));
+        Record<Snapshot> record = new Record<Snapshot>(snapshot, now + profile.getVisibilityLagMillis(), "pending");
+        record.startedAt = now;
+        record.completeAt = now + profile.getSnapshotMillis();
+        record.then(record.completeAt, "completed");
+        snapshots.put(snapshot.getSnapshotId(), record);
+        return new CreateSnapshotResult().withSnapshot(copyOfSnapshot(record, now));
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized DescribeSnapshotsResult describeSnapshots(DescribeSnapshotsRequest request) {
+        long now = System.currentTimeMillis();
+        List<Snapshot> found = new ArrayList<Snapshot>();
+        for (Record<Snapshot> record : visible(snapshots, request.getSnapshotIds(), "InvalidSnapshot.NotFound", now)) {
+            Snapshot snapshot = copyOfSnapshot(record, now);
+            if (ownedBy(snapshot.getOwnerId(), request.getOwnerIds()) && filtersOf(snapshot).matches(request.getFilters())) {
+                found.add(snapshot);
+            }
+        }
+        return new DescribeSnapshotsResult().withSnapshots(found);
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized void deleteSnapshot(DeleteSnapshotRequest request) {
+        long now = System.currentTimeMillis();
+        find(snapshots, request.getSnapshotId(), "InvalidSnapshot.NotFound", now);
+        snapshots.remove(request.getSnapshotId());
+    }
+
+    // ---------------------------------------------------------------- volumes
+
+    @SuppressWarnings("unused")
+    private synchronized CreateVolumeResult createVolume(CreateVolumeRequest request) {
+        long now = System.currentTimeMillis();
+        Integer size = request.getSize();
+        if (request.getSnapshotId() != null) {
+            Snapshot snapshot = find(snapshots, request.getSnapshotId(), "InvalidSnapshot.NotFound", now).model;
+            size = size == null ? snapshot.getVolumeSize() : size;
+        }
+        if (size == null) {
+            throw error(400, "MissingParameter", "The request must contain the parameter size or snapshotId");
+        }
+        Volume volume = new Volume().withVolumeId(newId("vol")).withSize(size).withSnapshotId(request.getSnapshotId()).withAvailabilityZone(
+                request.getAvailabilityZone() == null ? profile.getAvailabilityZone() : request.getAvailabilityZone()).withCreateTime(new Date(now))
+                .withVolumeType(request.getVolumeType() == null ? "standard" : request.getVolumeType());
+        Record<Volume> record = new Record<Volume>(volume, now + profile.getVisibilityLagMillis(), "creating").then(
+                now + profile.getVolumeCreateMillis(), "available");
+        volumes.put(volume.getVolumeId(), record);
+        return new CreateVolumeResult().withVolume(copyOfVolume(record, now));
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized AttachVolumeResult attachVolume(AttachVolumeRequest request) {
+        long now = System.currentTimeMillis();
+        Record<Volume> volume = find(volumes, request.getVolumeId(), "InvalidVolume.NotFound", now);
+        Record<Instance> instance = find(instances, request.getInstanceId(), "InvalidInstanceID.NotFound", now);
+        if (!volume.state.equals("available")) {
+            throw error(400, "IncorrectState", "vol '" + request.getVolumeId() + "' is not 'available'.");
+        }
+        VolumeAttachment attachment = new VolumeAttachment().withVolumeId(request.getVolumeId()).withInstanceId(request.getInstanceId())
+                .withDevice(request.getDevice()).withState("attached").withAttachTime(new Date(now)).withDeleteOnTermination(false);
+        volume.model.getAttachments().add(attachment);
+        volume.change("in-use");
+        instance.model.getBlockDeviceMappings().add(
+                new InstanceBlockDeviceMapping().withDeviceName(request.getDevice()).withEbs(
+                        new EbsInstanceBlockDevice().withVolumeId(request.getVolumeId()).withStatus("attached").withAttachTime(new Date(now))
+                                .withDeleteOnTermination(false)));
+        return new AttachVolumeResult().withAttachment(copyOf(attachment));
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized DetachVolumeResult detachVolume(DetachVolumeRequest request) {
+        long now = System.currentTimeMillis();
+        Record<Volume> volume = find(volumes, request.getVolumeId(), "InvalidVolume.NotFound", now);
+        if (volume.model.getAttachments().isEmpty()) {
+            throw error(400, "IncorrectState", "Volume '" + request.getVolumeId() + "' is in the 'available' state.");
+        }
+        VolumeAttachment attachment = copyOf(volume.model.getAttachments().get(0)).withState("detached");
+        volume.model.getAttachments().clear();
+        volume.change("available");
+        Record<Instance> instance = instances.get(attachment.getInstanceId());
+        if (instance != null) {
+            Iterator<InstanceBlockDeviceMapping> mappings = instance.model.getBlockDeviceMappings().iterator();
+            while (mappings.hasNext()) {
+                if (request.getVolumeId().equals(mappings.next().getEbs().getVolumeId())) {
+                    mappings.remove();
+                }
+            }
+        }
+        return new DetachVolumeResult().withAttachment(attachment);
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized DescribeVolumesResult describeVolumes(DescribeVolumesRequest request) {
+        long now = System.currentTimeMillis();
+        List<Volume> found = new ArrayList<Volume>();
+        for (Record<Volume> record : visible(volumes, request.getVolumeIds(), "InvalidVolume.NotFound", now)) {
+            Volume volume = copyOfVolume(record, now);
+            if (filtersOf(volume).matches(request.getFilters())) {
+                found.add(volume);
+            }
+        }
+        return new DescribeVolumesResult().withVolumes(found);
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized void deleteVolume(DeleteVolumeRequest request) {
+        long now = System.currentTimeMillis();
+        Record<Volume> volume = find(volumes, request.getVolumeId(), "InvalidVolume.NotFound", now);
+        if (!volume.model.getAttachments().isEmpty()) {
+            throw error(400, "VolumeInUse", "Volume " + request.getVolumeId() + " is currently attached to "
+                    + volume.model.getAttachments().get(0).getInstanceId());
+        }
+        volumes.remove(request.getVolumeId());
+    }
+
+    // ---------------------------------------------------------------- elastic IPs
+
+    @SuppressWarnings("unused")
+    private synchronized AllocateAddressResult allocateAddress(AllocateAddressRequest request) {
+        long now = System.currentTimeMillis();
+        Address address = new Address().withPublicIp(ip(107, sequence.incrementAndGet())).withDomain(
+                request.getDomain() == null ? "standard" : request.getDomain());
+        if (address.getDomain().equals("vpc")) {
+            address.setAllocationId(newId("eipalloc"));
+        }
+        addresses.put(address.getPublicIp(), new Record<Address>(address, now + profile.getVisibilityLagMillis(), null));
+        return new AllocateAddressResult().withPublicIp(address.getPublicIp()).withDomain(address.getDomain()).withAllocationId(
+                address.getAllocationId());
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized AssociateAddressResult associateAddress(AssociateAddressRequest request) {
+        long now = System.currentTimeMillis();
+        Record<Address> address = addressOf(request.getPublicIp(), request.getAllocationId(), now);
+        Record<Instance> instance = find(instances, request.getInstanceId(), "InvalidInstanceID.NotFound", now);
+        if (instance.state.equals("shutting-down") || instance.state.equals("terminated")) {
+            throw error(400, "IncorrectInstanceState", "The instance '" + request.getInstanceId() + "' is not in a valid state for this operation.");
+        }
+        if (address.model.getInstanceId() != null && !Boolean.TRUE.equals(request.getAllowReassociation())
+                && address.model.getDomain().equals("vpc")) {
+            throw error(400, "Resource.AlreadyAssociated", "resource " + address.model.getAllocationId() + " is already associated");
+        }
+        address.model.setInstanceId(request.getInstanceId());
+        address.model.setPrivateIpAddress(instance.model.getPrivateIpAddress());
+        if (address.model.getDomain().equals("vpc")) {
+            address.model.setAssociationId(newId("eipassoc"));
+        }
+        instance.model.setPublicIpAddress(address.model.getPublicIp());
+        return new AssociateAddressResult().withAssociationId(address.model.getAssociationId());
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized void disassociateAddress(DisassociateAddressRequest request) {
+        long now = System.currentTimeMillis();
+        Record<Address> address = null;
+        if (request.getAssociationId() != null) {
+            for (Record<Address> candidate : addresses.values()) {
+                if (request.getAssociationId().equals(candidate.model.getAssociationId()) && candidate.isVisible(now)) {
+                    address = candidate;
+                }
+            }
+            if (address == null) {
+                throw error(400, "InvalidAssociationID.NotFound", "The association ID '" + request.getAssociationId() + "' does not exist");
+            }
+        } else {
+            address = addressOf(request.getPublicIp(), null, now);
+        }
+        address.model.setInstanceId(null);
+        address.model.setAssociationId(null);
+        address.model.setPrivateIpAddress(null);
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized void releaseAddress(ReleaseAddressRequest request) {
+        long now = System.currentTimeMillis();
+        Record<Address> address = addressOf(request.getPublicIp(), request.getAllocationId(), now);
+        if (address.model.getAssociationId() != null) {
+            throw error(400, "InvalidIPAddress.InUse", "Address " + address.model.getPublicIp() + " is in use.");
+        }
+        addresses.remove(address.model.getPublicIp());
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized DescribeAddressesResult describeAddresses(DescribeAddressesRequest request) {
+        long now = System.currentTimeMillis();
+        for (String allocationId : request.getAllocationIds()) {
+            addressOf(null, allocationId, now);
+        }
+        List<Address> found = new ArrayList<Address>();
+        for (Record<Address> record : visible(addresses, request.getPublicIps(), "InvalidAddress.NotFound", now)) {
+            Address address = copyOfAddress(record);
+            if ((request.getAllocationIds().isEmpty() || request.getAllocationIds().contains(address.getAllocationId()))
+                    && filtersOf(address).matches(request.getFilters())) {
+                found.add(address);
+            }
+        }
+        return new DescribeAddressesResult().withAddresses(found);
+    }
+
+    private Record<Address> addressOf(String publicIp, String allocationId, long now) {
+        if (allocationId != null) {
+            for (Record<Address> record : addresses.values()) {
+                if (allocationId.equals(record.model.getAllocationId()) && record.isVisible(now)) {
+                    return record;
+                }
+            }
+            throw error(400, "InvalidAllocationID.NotFound", "The allocation ID '" + allocationId + "' does not exist");
+        }
+        return find(addresses, publicIp, "InvalidAddress.NotFound", now);
+    }
+
+    // ---------------------------------------------------------------- VPCs and subnets
+
+    @SuppressWarnings("unused")
+    private synchronized CreateVpcResult createVpc(CreateVpcRequest request) {
+        long now = System.currentTimeMillis();
+        Vpc vpc = new Vpc().withVpcId(newId("vpc")).withCidrBlock(request.getCidrBlock() == null ? "10.0.0.0/16" : request.getCidrBlock())
+                .withInstanceTenancy(request.getInstanceTenancy() == null ? "default" : request.getInstanceTenancy()).withDhcpOptionsId("default")
+                .withIsDefault(false);
+        Record<Vpc> record = new Record<Vpc>(vpc, now + profile.getVisibilityLagMillis(), "pending").then(now + profile.getVpcCreateMillis(),
+                "available");
+        vpcs.put(vpc.getVpcId(), record);
+        return new CreateVpcResult().withVpc(copyOfVpc(record, now));
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized DescribeVpcsResult describeVpcs(DescribeVpcsRequest request) {
+        long now = System.currentTimeMillis();
+        List<Vpc> found = new ArrayList<Vpc>();
+        for (Record<Vpc> record : visible(vpcs, request.getVpcIds(), "InvalidVpcID.NotFound", now)) {
+            Vpc vpc = copyOfVpc(record, now);
+            if (filtersOf(vpc).matches(request.getFilters())) {
+                found.add(vpc);
+            }
+        }
+        return new DescribeVpcsResult().withVpcs(found);
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized void deleteVpc(DeleteVpcRequest request) {
+        long now = System.currentTimeMillis();
+        find(vpcs, request.getVpcId(), "InvalidVpcID.NotFound", now);
+        for (Record<Subnet> subnet : subnets.values()) {
+            if (request.getVpcId().equals(subnet.model.getVpcId())) {
+                throw error(400, "DependencyViolation", "The vpc '" + request.getVpcId() + "' has dependencies and cannot be deleted.");
+            }
+        }
+        for (Record<SecurityGroup> group : securityGroups.values()) {
+            if (request.getVpcId().equals(group.model.getVpcId()) && !group.model.getGroupName().equals(DEFAULT_GROUP_NAME)) {
+                throw error(400, "DependencyViolation", "The vpc '" + request.getVpcId() + "' has dependencies and cannot be deleted.");
+            }
+        }
+        vpcs.remove(request.getVpcId());
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized CreateSubnetResult createSubnet(CreateSubnetRequest request) {
+        long now = System.currentTimeMillis();
+        find(vpcs, request.getVpcId(), "InvalidVpcID.NotFound", now);
+        String cidr = request.getCidrBlock() == null ? "10.0." + subnets.size() % 256 + ".0/24" : request.getCidrBlock();
+        Subnet subnet = new Subnet().withSubnetId(newId("subnet")).withVpcId(request.getVpcId()).withCidrBlock(cidr).withAvailabilityZone(
+                request.getAvailabilityZone() == null ? profile.getAvailabilityZone() : request.getAvailabilityZone()).withAvailableIpAddressCount(251)
+                .withDefaultForAz(false).withMapPublicIpOnLaunch(false);
+        Record<Subnet> record = new Record<Subnet>(subnet, now + profile.getVisibilityLagMillis(), "pending").then(now + profile.getVpcCreateMillis(),
+                "available");
+        subnets.put(subnet.getSubnetId(), record);
+        return new CreateSubnetResult().withSubnet(copyOfSubnet(record, now));
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized DescribeSubnetsResult describeSubnets(DescribeSubnetsRequest request) {
+        long now = System.currentTimeMillis();
+        List<Subnet> found = new ArrayList<Subnet>();
+        for (Record<Subnet> record : visible(subnets, request.getSubnetIds(), "InvalidSubnetID.NotFound", now)) {
+            Subnet subnet = copyOfSubnet(record, now);
+            if (filtersOf(subnet).matches(request.getFilters())) {
+                found.add(subnet);
+            }
+        }
+        return new DescribeSubnetsResult().withSubnets(found);
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized void deleteSubnet(DeleteSubnetRequest request) {
+        long now = System.currentTimeMillis();
+        find(subnets, request.getSubnetId(), "InvalidSubnetID.NotFound", now);
+        for (Record<Instance> instance : instances.values()) {
+            if (request.getSubnetId().equals(instance.model.getSubnetId()) && !instance.advance(now).equals("terminated")) {
+                throw error(400, "DependencyViolation", "The subnet '" + request.getSubnetId() + "' has dependencies and cannot be deleted.");
+            }
+        }
+        subnets.remove(request.getSubnetId());
+    }
+
+    // ---------------------------------------------------------------- security groups
+
+    @SuppressWarnings("unused")
+    private synchronized CreateSecurityGroupResult createSecurityGroup(CreateSecurityGroupRequest request) {
+        long now = System.currentTimeMillis();
+        if (request.getGroupName() == null) {
+            throw error(400, "MissingParameter", "The request must contain the parameter groupName");
+        }
+        if (request.getVpcId() != null) {
+            find(vpcs, request.getVpcId(), "InvalidVpcID.NotFound", now);
+        }
+        for (Record<SecurityGroup> existing : securityGroups.values()) {
+            if (existing.model.getGroupName().equals(request.getGroupName()) && equal(existing.model.getVpcId(), request.getVpcId())) {
+                throw error(400, "InvalidGroup.Duplicate", "The security group '" + request.getGroupName() + "' already exists");
+            }
+        }
+        SecurityGroup group = new SecurityGroup().withGroupId(newId("sg")).withGroupName(request.getGroupName()).withDescription(
+                request.getDescription()).withVpcId(request.getVpcId()).withOwnerId(profile.getOwnerId());
+        securityGroups.put(group.getGroupId(), new Record<SecurityGroup>(group, now + profile.getVisibilityLagMillis(), null));
+        return new CreateSecurityGroupResult().withGroupId(group.getGroupId());
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized void deleteSecurityGroup(DeleteSecurityGroupRequest request) {
+        long now = System.currentTimeMillis();
+        SecurityGroup group = request.getGroupId() != null ? find(securityGroups, request.getGroupId(), "InvalidGroup.NotFound", now).model
+                : groupByName(request.getGroupName(), null, now);
+        if (group.getGroupName().equals(DEFAULT_GROUP_NAME)) {
+            throw error(400, "CannotDelete", "the specified group: \"" + group.getGroupId() + "\" name: \"default\" cannot be deleted by a user");
+        }
+        for (Record<Instance> instance : instances.values()) {
+            if (!instance.advance(now).equals("terminated")) {
+                for (GroupIdentifier used : instance.model.getSecurityGroups()) {
+                    if (used.getGroupId().equals(group.getGroupId())) {
+                        throw error(400, "DependencyViolation", "resource " + group.getGroupId() + " has a dependent object");
+                    }
+                }
+            }
+        }
+        securityGroups.remove(group.getGroupId());
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized DescribeSecurityGroupsResult describeSecurityGroups(DescribeSecurityGroupsRequest request) {
+        long now = System.currentTimeMillis();
+        for (String groupName : request.getGroupNames()) {
+            groupByName(groupName, null, now);
+        }
+        List<SecurityGroup> found = new ArrayList<SecurityGroup>();
+        for (Record<SecurityGroup> record : visible(securityGroups, request.getGroupIds(), "InvalidGroup.NotFound", now)) {
+            SecurityGroup group = copyOfSecurityGroup(record);
+            if ((request.getGroupNames().isEmpty() || request.getGroupNames().contains(group.getGroupName()))
+                    && filtersOf(group).matches(request.getFilters())) {
+                found.add(group);
+            }
+        }
+        return new DescribeSecurityGroupsResult().withSecurityGroups(found);
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized void authorizeSecurityGroupIngress(AuthorizeSecurityGroupIngressRequest request) {
+        long now = System.currentTimeMillis();
+        SecurityGroup group = request.getGroupId() != null ? find(securityGroups, request.getGroupId(), "InvalidGroup.NotFound", now).model
+                : groupByName(request.getGroupName(), null, now);
+        List<IpPermission> requested = permissionsOf(request.getIpPermissions(), request.getIpProtocol(), request.getFromPort(),
+                request.getToPort(), request.getCidrIp());
+        for (IpPermission permission : requested) {
+            IpPermission existing = permissionLike(group.getIpPermissions(), permission);
+            for (String range : permission.getIpRanges()) {
+                if (existing != null && existing.getIpRanges().contains(range)) {
+                    throw error(400, "InvalidPermission.Duplicate", "the specified rule \"peer: " + range + ", " + permission.getIpProtocol()
+                            + ", from port: " + permission.getFromPort() + ", to port: " + permission.getToPort() + ", ALLOW\" already exists");
+                }
+            }
+        }
+        for (IpPermission permission : requested) {
+            IpPermission existing = permissionLike(group.getIpPermissions(), permission);
+            if (existing == null) {
+                group.getIpPermissions().add(
+                        new IpPermission().withIpProtocol(permission.getIpProtocol()).withFromPort(permission.getFromPort()).withToPort(
+                                permission.getToPort()).withIpRanges(new ArrayList<String>(permission.getIpRanges())));
+            } else {
+                existing.getIpRanges().addAll(permission.getIpRanges());
+            }
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized void revokeSecurityGroupIngress(RevokeSecurityGroupIngressRequest request) {
+        long now = System.currentTimeMillis();
+        SecurityGroup group = request.getGroupId() != null ? find(securityGroups, request.getGroupId(), "InvalidGroup.NotFound", now).model
+                : groupByName(request.getGroupName(), null, now);
+        List<IpPermission> requested = permissionsOf(request.getIpPermissions(), request.getIpProtocol(), request.getFromPort(),
+                request.getToPort(), request.getCidrIp());
+        for (IpPermission permission : requested) {
+            IpPermission existing = permissionLike(group.getIpPermissions(), permission);
+            if (existing == null || !existing.getIpRanges().containsAll(permission.getIpRanges())) {
+                throw error(400, "InvalidPermission.NotFound", "The specified rule does not exist in this security group.");
+            }
+        }
+        for (IpPermission permission : requested) {
+            IpPermission existing = permissionLike(group.getIpPermissions(), permission);
+            existing.getIpRanges().removeAll(permission.getIpRanges());
+            if (existing.getIpRanges().isEmpty()) {
+                group.getIpPermissions().remove(existing);
+            }
+        }
+    }
+
+    private static List<IpPermission> permissionsOf(List<IpPermission> permissions, String protocol, Integer fromPort, Integer toPort, String cidr) {
+        if (!permissions.isEmpty()) {
+            return permissions;
+        }
+        List<IpPermission> single = new ArrayList<IpPermission>();
+        single.add(new IpPermission().withIpProtocol(protocol).withFromPort(fromPort).withToPort(toPort).withIpRanges(cidr == null ? "0.0.0.0/0" : cidr));
+        return single;
+    }
+
+    private static IpPermission permissionLike(List<IpPermission> permissions, IpPermission permission) {
+        for (IpPermission existing : permissions) {
+            if (equal(existing.getIpProtocol(), permission.getIpProtocol()) && equal(existing.getFromPort(), permission.getFromPort())
+                    && equal(existing.getToPort(), permission.getToPort())) {
+                return existing;
+            }
+        }
+        return null;
+    }
+
+    private SecurityGroup groupByName(String groupName, String vpcId, long now) {
+        for (Record<SecurityGroup> record : securityGroups.values()) {
+            if (record.model.getGroupName().equals(groupName) && record.isVisible(now) && (vpcId == null || equal(vpcId, record.model.getVpcId()))) {
+                return record.model;
+            }
+        }
+        throw error(400, "InvalidGroup.NotFound", "The security group '" + groupName + "' does not exist");
+    }
+
+    // ---------------------------------------------------------------- tags
+
+    @SuppressWarnings("unused")
+    private synchronized void createTags(CreateTagsRequest request) {
+        long now = System.currentTimeMillis();
+        List<List<Tag>> targets = tagsOf(request.getResources(), now);
+        for (List<Tag> tags : targets) {
+            for (Tag tag : request.getTags()) {
+                removeTag(tags, tag.getKey(), null);
+                tags.add(new Tag(tag.getKey(), tag.getValue() == null ? "" : tag.getValue()));
+            }
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private synchronized void deleteTags(DeleteTagsRequest request) {
+        long now = System.currentTimeMillis();
+        List<List<Tag>> targets = tagsOf(request.getResources(), now);
+        for (List<Tag> tags : targets) {
+            for (Tag tag : request.getTags()) {
+                removeTag(tags, tag.getKey(), tag.getValue());
+            }
+        }
+    }
+
+    /*
+     * Tags of all resources, fails before any change if one of resources doesn't exist
+     */
+    private List<List<Tag>> tagsOf(List<String> resourceIds, long now) {
+        List<List<Tag>> targets = new ArrayList<List<Tag>>();
+        for (String id : resourceIds) {
+            targets.add(taggable(id, now).tags);
+        }
+        return targets;
+    }
+
+    private Record<?> taggable(String id, long now) {
+        if (id.startsWith("i-")) {
+            return find(instances, id, "InvalidInstanceID.NotFound", now);
+        }
+        if (id.startsWith("vol-")) {
+            return find(volumes, id, "InvalidVolume.NotFound", now);
+        }
+        if (id.startsWith("snap-")) {
+            return find(snapshots, id, "InvalidSnapshot.NotFound", now);
+        }
+        if (id.startsWith("ami-")) {
+            return find(images, id, "InvalidAMIID.NotFound", now);
+        }
+        if (id.startsWith("vpc-")) {
+            return find(vpcs, id, "InvalidVpcID.NotFound", now);
+        }
+        if (id.startsWith("subnet-")) {
+            return find(subnets, id, "InvalidSubnetID.NotFound", now);
+        }
+        if (id.startsWith("sg-")) {
+            return find(securityGroups, id, "InvalidGroup.NotFound", now);
+        }
+        throw error(400, "InvalidID", "The ID '" + id + "' is not valid");
+    }
+
+    private static void removeTag(List<Tag> tags, String key, String value) {
+        Iterator<Tag> iterator = tags.iterator();
+        while (iterator.hasNext()) {
+            Tag tag = iterator.next();
+            if (tag.getKey().equals(key) && (value == null || value.equals(tag.getValue()))) {
+                iterator.remove();
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- copies and filters
+
+    private Instance copyOfInstance(Record<Instance> record, long now) {
+        Instance model = record.model;
+        String state = record.advance(now);
+        boolean running = state.equals("running");
+        List<InstanceBlockDeviceMapping> mappings = new ArrayList<InstanceBlockDeviceMapping>();
+        for (InstanceBlockDeviceMapping mapping : model.getBlockDeviceMappings()) {
+            EbsInstanceBlockDevice ebs = mapping.getEbs();
+            mappings.add(new InstanceBlockDeviceMapping().withDeviceName(mapping.getDeviceName()).withEbs(
+                    new EbsInstanceBlockDevice().withVolumeId(ebs.getVolumeId()).withStatus(ebs.getStatus()).withAttachTime(ebs.getAttachTime())
+                            .withDeleteOnTermination(ebs.getDeleteOnTermination())));
+        }
+        List<GroupIdentifier> groups = new ArrayList<GroupIdentifier>();
+        for (GroupIdentifier group : model.getSecurityGroups()) {
+            groups.add(new GroupIdentifier().withGroupId(group.getGroupId()).withGroupName(group.getGroupName()));
+        }
+        return new Instance().withInstanceId(model.getInstanceId()).withImageId(model.getImageId()).withState(instanceState(state))
+                .withInstanceType(model.getInstanceType()).withKeyName(model.getKeyName()).withLaunchTime(model.getLaunchTime())
+                .withPlacement(new Placement(model.getPlacement().getAvailabilityZone())).withSubnetId(model.getSubnetId())
+                .withVpcId(model.getVpcId()).withPrivateIpAddress(model.getPrivateIpAddress()).withPrivateDnsName(model.getPrivateDnsName())
+                .withPublicIpAddress(running ? model.getPublicIpAddress() : null)
+                .withPublicDnsName(running ? "ec2-" + model.getPublicIpAddress().replace('.', '-') + ".compute-1.amazonaws.com" : "")
+                .withAmiLaunchIndex(model.getAmiLaunchIndex()).withArchitecture(model.getArchitecture()).withRootDeviceType(model.getRootDeviceType())
+                .withRootDeviceName(model.getRootDeviceName()).withVirtualizationType(model.getVirtualizationType())
+                .withHypervisor(model.getHypervisor()).withStateTransitionReason(model.getStateTransitionReason()).withSecurityGroups(groups)
+                .withBlockDeviceMappings(mappings).withTags(copyOf(record.tags));
+    }
+
+    private static Filters filtersOf(Instance instance) {
+        Filters filters = new Filters().with("instance-id", instance.getInstanceId()).with("image-id", instance.getImageId())
+                .with("instance-state-name", instance.getState().getName()).with("instance-state-code", instance.getState().getCode())
+                .with("instance-type", instance.getInstanceType()).with("key-name", instance.getKeyName())
+                .with("availability-zone", instance.getPlacement().getAvailabilityZone()).with("subnet-id", instance.getSubnetId())
+                .with("vpc-id", instance.getVpcId()).with("private-ip-address", instance.getPrivateIpAddress())
+                .with("ip-address", instance.getPublicIpAddress()).with("private-dns-name", instance.getPrivateDnsName())
+                .with("dns-name", instance.getPublicDnsName()).with("architecture", instance.getArchitecture());
+        for (GroupIdentifier group : instance.getSecurityGroups()) {
+            filters.with("group-id", group.getGroupId()).with("group-name", group.getGroupName());
+        }
+        for (InstanceBlockDeviceMapping mapping : instance.getBlockDeviceMappings()) {
+            filters.with("block-device-mapping.volume-id", mapping.getEbs().getVolumeId()).with("block-device-mapping.device-name",
+                    mapping.getDeviceName());
+        }
+        return filters.withTags(instance.getTags());
+    }
+
+    private static InstanceState instanceState(String name) {
+        int code = 0;
+        if (name.equals("running")) {
+            code = 16;
+        } else if (name.equals("shutting-down")) {
+            code = 32;
+        } else if (name.equals("terminated")) {
+            code = 48;
+        } else if (name.equals("stopping")) {
+            code = 64;
+        } else if (name.equals("stopped")) {
+            code = 80;
+        }
+        return new InstanceState().withCode(code).withName(name);
+    }
+
+    private Image copyOfImage(Record<Image> record, long now) {
+        Image model = record.model;
+        return new Image().withImageId(model.getImageId()).withName(model.getName()).withDescription(model.getDescription())
+                .withOwnerId(model.getOwnerId()).withPublic(model.getPublic()).withState(record.advance(now)).withArchitecture(model.getArchitecture())
+                .withImageType(model.getImageType()).withRootDeviceType(model.getRootDeviceType()).withRootDeviceName(model.getRootDeviceName())
+                .withVirtualizationType(model.getVirtualizationType()).withHypervisor(model.getHypervisor())
+                .withImageLocation(model.getImageLocation()).withTags(copyOf(record.tags));
+    }
+
+    private static Filters filtersOf(Image image) {
+        return new Filters().with("image-id", image.getImageId()).with("name", image.getName()).with("description", image.getDescription())
+                .with("owner-id", image.getOwnerId()).with("is-public", image.getPublic()).with("state", image.getState())
+                .with("architecture", image.getArchitecture()).with("image-type", image.getImageType())
+                .with("root-device-type", image.getRootDeviceType()).withTags(image.getTags());
+    }
+
+    private Snapshot copyOfSnapshot(Record<Snapshot> record, long now) {
+        Snapshot model = record.model;
+        String state = record.advance(now);
+        int progress = 100;
+        if (!state.equals("completed") && record.completeAt > record.startedAt) {
+            progress = (int) Math.min(99, (now - record.startedAt) * 100 / (record.completeAt - record.startedAt));
+        }
+        return new Snapshot().withSnapshotId(model.getSnapshotId()).withVolumeId(model.getVolumeId()).withVolumeSize(model.getVolumeSize())
+                .withDescription(model.getDescription()).withOwnerId(model.getOwnerId()).withStartTime(model.getStartTime()).withState(state)
+                .withProgress(progress + "%").withTags(copyOf(record.tags));
+    }
+
+    private static Filters filtersOf(Snapshot snapshot) {
+        return new Filters().with("snapshot-id", snapshot.getSnapshotId()).with("volume-id", snapshot.getVolumeId())
+                .with("volume-size", snapshot.getVolumeSize()).with("description", snapshot.getDescription()).with("owner-id", snapshot.getOwnerId())
+                .with("status", snapshot.getState()).with("progress", snapshot.getProgress()).withTags(snapshot.getTags());
+    }
+
+    private Volume copyOfVolume(Record<Volume> record, long now) {
+        Volume model = record.model;
+        List<VolumeAttachment> attachments = new ArrayList<VolumeAttachment>();
+        for (VolumeAttachment attachment : model.getAttachments()) {
+            attachments.add(copyOf(attachment));
+        }
+        return new Volume().withVolumeId(model.getVolumeId()).withSize(model.getSize()).withSnapshotId(model.getSnapshotId())
+                .withAvailabilityZone(model.getAvailabilityZone()).withCreateTime(model.getCreateTime()).withVolumeType(model.getVolumeType())
+                .withState(record.advance(now)).withAttachments(attachments).withTags(copyOf(record.tags));
+    }
+
+    private static VolumeAttachment copyOf(VolumeAttachment attachment) {
+        return new VolumeAttachment().withVolumeId(attachment.getVolumeId()).withInstanceId(attachment.getInstanceId())
+                .withDevice(attachment.getDevice()).withState(attachment.getState()).withAttachTime(attachment.getAttachTime())
+                .withDeleteOnTermination(attachment.getDeleteOnTermination());
+    }
+
+    private static Filters filtersOf(Volume volume) {
+        Filters filters = new Filters().with("volume-id", volume.getVolumeId()).with("size", volume.getSize())
+                .with("snapshot-id", volume.getSnapshotId()).with("availability-zone", volume.getAvailabilityZone())
+                .with("status", volume.getState()).with("volume-type", volume.getVolumeType());
+        for (VolumeAttachment attachment : volume.getAttachments()) {
+            filters.with("attachment.instance-id", attachment.getInstanceId()).with("attachment.device", attachment.getDevice())
+                    .with("attachment.status", attachment.getState()).with("attachment.delete-on-termination", attachment.getDeleteOnTermination());
+        }
+        return filters.withTags(volume.getTags());
+    }
+
+    private static Address copyOfAddress(Record<Address> record) {
+        Address model = record.model;
+        return new Address().withPublicIp(model.getPublicIp()).withAllocationId(model.getAllocationId()).withAssociationId(
+                model.getAssociationId()).withDomain(model.getDomain()).withInstanceId(model.getInstanceId()).withPrivateIpAddress(
+                model.getPrivateIpAddress());
+    }
+
+    private static Filters filtersOf(Address address) {
+        return new Filters().with("public-ip", address.getPublicIp()).with("allocation-id", address.getAllocationId())
+                .with("association-id", address.getAssociationId()).with("domain", address.getDomain()).with("instance-id", address.getInstanceId())
+                .with("private-ip-address", address.getPrivateIpAddress());
+    }
+
+    private Vpc copyOfVpc(Record<Vpc> record, long now) {
+        Vpc model = record.model;
+        return new Vpc().withVpcId(model.getVpcId()).withCidrBlock(model.getCidrBlock()).withInstanceTenancy(model.getInstanceTenancy())
+                .withDhcpOptionsId(model.getDhcpOptionsId()).withIsDefault(model.getIsDefault()).withState(record.advance(now))
+                .withTags(copyOf(record.tags));
+    }
+
+    private static Filters filtersOf(Vpc vpc) {
+        return new Filters().with("vpc-id", vpc.getVpcId()).with("cidr", vpc.getCidrBlock()).with("state", vpc.getState())
+                .with("dhcp-options-id", vpc.getDhcpOptionsId()).with("isDefault", vpc.getIsDefault()).withTags(vpc.getTags());
+    }
+
+    private Subnet copyOfSubnet(Record<Subnet> record, long now) {
+        Subnet model = record.model;
+        return new Subnet().withSubnetId(model.getSubnetId()).withVpcId(model.getVpcId()).withCidrBlock(model.getCidrBlock())
+                .withAvailabilityZone(model.getAvailabilityZone()).withAvailableIpAddressCount(model.getAvailableIpAddressCount())
+                .withDefaultForAz(model.getDefaultForAz()).withMapPublicIpOnLaunch(model.getMapPublicIpOnLaunch()).withState(record.advance(now))
+                .withTags(copyOf(record.tags));
+    }
+
+    private static Filters filtersOf(Subnet subnet) {
+        return new Filters().with("subnet-id", subnet.getSubnetId()).with("vpc-id", subnet.getVpcId()).with("cidr", subnet.getCidrBlock())
+                .with("availability-zone", subnet.getAvailabilityZone()).with("state", subnet.getState())
+                .with("available-ip-address-count", subnet.getAvailableIpAddressCount()).withTags(subnet.getTags());
+    }
+
+    private static SecurityGroup copyOfSecurityGroup(Record<SecurityGroup> record) {
+        SecurityGroup model = record.model;
+        List<IpPermission> permissions = new ArrayList<IpPermission>();
+        for (IpPermission permission : model.getIpPermissions()) {
+            permissions.add(new IpPermission().withIpProtocol(permission.getIpProtocol()).withFromPort(permission.getFromPort())
+                    .withToPort(permission.getToPort()).withIpRanges(new ArrayList<String>(permission.getIpRanges())));
+        }
+        return new SecurityGroup().withGroupId(model.getGroupId()).withGroupName(model.getGroupName()).withDescription(model.getDescription())
+                .withVpcId(model.getVpcId()).withOwnerId(model.getOwnerId()).withIpPermissions(permissions).withTags(copyOf(record.tags));
+    }
+
+    private static Filters filtersOf(SecurityGroup group) {
+        Filters filters = new Filters().with("group-id", group.getGroupId()).with("group-name", group.getGroupName())
+                .with("description", group.getDescription()).with("vpc-id", group.getVpcId()).with("owner-id", group.getOwnerId());
+        for (IpPermission permission : group.getIpPermissions()) {
+            filters.with("ip-permission.protocol", permission.getIpProtocol()).with("ip-permission.from-port", permission.getFromPort())
+                    .with("ip-permission.to-port", permission.getToPort());
+            for (String range : permission.getIpRanges()) {
+                filters.with("ip-permission.cidr", range);
+            }
+        }
+        return filters.withTags(group.getTags());
+    }
+
+    private static List<Tag> copyOf(List<Tag> tags) {
+        List<Tag> copy = new ArrayList<Tag>(tags.size());
+        for (Tag tag : tags) {
+            copy.add(new Tag(tag.getKey(), tag.getValue()));
+        }
+        return copy;
+    }
+
+    // ---------------------------------------------------------------- lookups
+
+    /*
+     * Visible resource with given id, expired resources are removed
+     */
+    private static <T> Record<T> find(Map<String, Record<T>> records, String id, String notFoundCode, long now) {
+        Record<T> record = id == null ? null : records.get(id);
+        if (record != null && record.advance(now) == Record.REMOVED) {
+            records.remove(id);
+            record = null;
+        }
+        if (record == null || !record.isVisible(now)) {
+            throw error(400, notFoundCode, "The ID '" + id + "' does not exist");
+        }
+        return record;
+    }
+
+    /*
+     * Visible resources with given ids, all resources if ids are empty
+     */
+    private static <T> List<Record<T>> visible(Map<String, Record<T>> records, Collection<String> ids, String notFoundCode, long now) {
+        if (ids != null && !ids.isEmpty()) {
+            return existing(records, ids, notFoundCode, now);
+        }
+        List<Record<T>> found = new ArrayList<Record<T>>();
+        Iterator<Record<T>> iterator = records.values().iterator();
+        while (iterator.hasNext()) {
+            Record<T> record = iterator.next();
+            if (record.advance(now) == Record.REMOVED) {
+                iterator.remove();
+            } else if (record.isVisible(now)) {
+                found.add(record);
+            }
+        }
+        return found;
+    }
+
+    private static <T> List<Record<T>> existing(Map<String, Record<T>> records, Collection<String> ids, String notFoundCode, long now) {
+        List<Record<T>> found = new ArrayList<Record<T>>();
+        for (String id : ids) {
+            found.add(find(records, id, notFoundCode, now));
+        }
+        return found;
+    }
+
+    private boolean ownedBy(String ownerId, List<String> owners) {
+        if (owners == null || owners.isEmpty()) {
+            return true;
+        }
+        return owners.contains(ownerId) || (owners.contains("self") && ownerId.equals(profile.getOwnerId()));
+    }
+
+    private String newId(String prefix) {
+        return String.format("%s-%08x", prefix, sequence.incrementAndGet());
+    }
+
+    private static String ip(int first, long number) {
+        return first + "." + (number >> 16 & 255) + "." + (number >> 8 & 255) + "." + (number & 255);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value;
+    }
+
+    private static boolean equal(Object first, Object second) {
+        return first == null ? second == null : first.equals(second);
+    }
+
+    static AmazonServiceException error(int status, String code, String message) {
+        AmazonServiceException error = new AmazonServiceException(message);
+        error.setStatusCode(status);
+        error.setErrorCode(code);
+        error.setServiceName("AmazonEC2");
+        error.setErrorType(status >= 500 ? ErrorType.Service : ErrorType.Client);
+        return error;
+    }
+
+    /**
+     * Emulated resource: amazon model, its state with planned transitions and tags
+     *
+     * @param <T>
+     *            - amazon model
+     */
+    private static class Record<T> {
+
+        /*
+         * State of removed resource
+         */
+        static final String REMOVED = "removed";
+
+        final T model;
+
+        /*
+         * Time when resource becomes visible to describe and tag requests
+         */
+        final long visibleAt;
+
+        final List<Tag> tags = new ArrayList<Tag>();
+
+        /*
+         * Planned transitions, null state means that resource disappears
+         */
+        final LinkedList<Object[]> steps = new LinkedList<Object[]>();
+
+        String state;
+
+        String reservationId;
+
+        long startedAt;
+
+        long completeAt;
+
+        Record(T model, long visibleAt, String state) {
+            this.model = model;
+            this.visibleAt = visibleAt;
+            this.state = state;
+        }
+
+        boolean isVisible(long now) {
+            return now >= visibleAt;
+        }
+
+        /**
+         * Move to new state at given time
+         */
+        Record<T> then(long at, String next) {
+            steps.add(new Object[] { at, next });
+            return this;
+        }
+
+        /**
+         * Move to new state now, planned transitions are dropped
+         */
+        Record<T> change(String next) {
+            steps.clear();
+            state = next;
+            return this;
+        }
+
+        /**
+         * Apply transitions planned before now
+         *
+         * @return actual state
+         */
+        String advance(long now) {
+            while (!steps.isEmpty() && (Long) steps.getFirst()[0] <= now) {
+                String next = (String) steps.removeFirst()[1];
+                state = next == null ? REMOVED : next;
+            }
+            return state;
+        }
+
+    }
+
+}
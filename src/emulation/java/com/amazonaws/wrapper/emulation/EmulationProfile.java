@@ -0,0 +1,199 @@
+package com.amazonaws.wrapper.emulation;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Behaviour of emulated amazon: request latency, throttling, eventual consistency and duration of state transitions. Defaults answer
+ * immediately, never throttle and make every change visible at once
+ */
+public class EmulationProfile {
+
+    private volatile LatencyDistribution latency = LatencyDistribution.none();
+
+    /*
+     * Latency of particular actions, for example "runInstances"
+     */
+    private final Map<String, LatencyDistribution> actionLatency = new ConcurrentHashMap<String, LatencyDistribution>();
+
+    /*
+     * Share of requests failed with RequestLimitExceeded (0 - never, 1 - always)
+     */
+    private volatile double throttleRate;
+
+    /*
+     * Requests per second above which requests fail with RequestLimitExceeded (0 - unlimited)
+     */
+    private volatile double requestsPerSecond;
+
+    /*
+     * How long created resources are not visible to describe and tag requests
+     */
+    private volatile long visibilityLagMillis;
+
+    /*
+     * Duration of state transitions
+     */
+    private volatile long instanceBootMillis;
+    private volatile long instanceStopMillis;
+    private volatile long instanceTerminateMillis;
+    private volatile long volumeCreateMillis;
+    private volatile long snapshotMillis;
+    private volatile long imageMillis;
+    private volatile long vpcCreateMillis;
+
+    /*
+     * How long terminated instances are still described
+     */
+    private volatile long terminatedVisibleMillis = 60 * 60 * 1000;
+
+    private volatile String ownerId = "123456789012";
+
+    private volatile String availabilityZone = "us-east-1a";
+
+    private volatile long seed = System.nanoTime();
+
+    public LatencyDistribution getLatency(String action) {
+        LatencyDistribution distribution = actionLatency.get(action);
+        return distribution == null ? latency : distribution;
+    }
+
+    /**
+     * Set latency of all actions without own latency
+     */
+    public void setLatency(LatencyDistribution latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Set latency of one action
+     * 
+     * @param action
+     *            - name of AmazonEC2 method, for example "describeInstances"
+     */
+    public void setLatency(String action, LatencyDistribution latency) {
+        actionLatency.put(action, latency);
+    }
+
+    public double getThrottleRate() {
+        return throttleRate;
+    }
+
+    public void setThrottleRate(double throttleRate) {
+        if (throttleRate < 0 || throttleRate > 1) {
+            throw new IllegalArgumentException("Throttle rate must be in [0, 1]");
+        }
+        this.throttleRate = throttleRate;
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    public void setRequestsPerSecond(double requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    public long getVisibilityLagMillis() {
+        return visibilityLagMillis;
+    }
+
+    public void setVisibilityLagMillis(long visibilityLagMillis) {
+        this.visibilityLagMillis = visibilityLagMillis;
+    }
+
+    public long getInstanceBootMillis() {
+        return instanceBootMillis;
+    }
+
+    public void setInstanceBootMillis(long instanceBootMillis) {
+        this.instanceBootMillis = instanceBootMillis;
+    }
+
+    public long getInstanceStopMillis() {
+        return instanceStopMillis;
+    }
+
+    public void setInstanceStopMillis(long instanceStopMillis) {
+        this.instanceStopMillis = instanceStopMillis;
+    }
+
+    public long getInstanceTerminateMillis() {
+        return instanceTerminateMillis;
+    }
+
+    public void setInstanceTerminateMillis(long instanceTerminateMillis) {
+        this.instanceTerminateMillis = instanceTerminateMillis;
+    }
+
+    public long getVolumeCreateMillis() {
+        return volumeCreateMillis;
+    }
+
+    public void setVolumeCreateMillis(long volumeCreateMillis) {
+        this.volumeCreateMillis = volumeCreateMillis;
+    }
+
+    public long getSnapshotMillis() {
+        return snapshotMillis;
+    }
+
+    public void setSnapshotMillis(long snapshotMillis) {
+        this.snapshotMillis = snapshotMillis;
+    }
+
+    public long getImageMillis() {
+        return imageMillis;
+    }
+
+    public void setImageMillis(long imageMillis) {
+        this.imageMillis = imageMillis;
+    }
+
+    public long getVpcCreateMillis() {
+        return vpcCreateMillis;
+    }
+
+    public void setVpcCreateMillis(long vpcCreateMillis) {
+        this.vpcCreateMillis = vpcCreateMillis;
+    }
+
+    public long getTerminatedVisibleMillis() {
+        return terminatedVisibleMillis;
+    }
+
+    public void setTerminatedVisibleMillis(long terminatedVisibleMillis) {
+        this.terminatedVisibleMillis = terminatedVisibleMillis;
+    }
+
+    /**
+     * Account id of emulated user, owner of created snapshots, images and security groups
+     */
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public String getAvailabilityZone() {
+        return availabilityZone;
+    }
+
+    public void setAvailabilityZone(String availabilityZone) {
+        this.availabilityZone = availabilityZone;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Seed of random latency and throttling, same seed gives same sequence
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.amazonaws.wrapper.emulation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.services.ec2.model.Filter;
+import com.amazonaws.services.ec2.model.Tag;
+
+/**
+ * Evaluation of describe filters against attributes of emulated resource. Filters are joined with AND, values of one filter with OR, values may
+ * contain "*" and "?" wildcards
+ */
+class Filters {
+
+    private final Map<String, List<String>> attributes = new LinkedHashMap<String, List<String>>();
+
+    /**
+     * Add filterable attribute, null values are skipped
+     */
+    Filters with(String name, Object... values) {
+        List<String> list = attributes.get(name);
+        if (list == null) {
+            list = new ArrayList<String>();
+            attributes.put(name, list);
+        }
+        for (Object value : values) {
+            if (value != null) {
+                list.add(String.valueOf(value));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Add "tag:name", "tag-key" and "tag-value" attributes
+     */
+    Filters withTags(List<Tag> tags) {
+        for (Tag tag : tags) {
+            with("tag:" + tag.getKey(), tag.getValue());
+            with("tag-key", tag.getKey());
+            with("tag-value", tag.getValue());
+        }
+        return this;
+    }
+
+    boolean matches(List<Filter> filters) {
+        if (filters == null) {
+            return true;
+        }
+        for (Filter filter : filters) {
+            if (!matches(filter)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matches(Filter filter) {
+        List<String> actual = attributes.get(filter.getName());
+        if (actual == null) {
+            return false;
+        }
+        for (String expected : filter.getValues()) {
+            for (String value : actual) {
+                if (glob(expected, value)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    static boolean glob(String pattern, String value) {
+        return glob(pattern, 0, value, 0);
+    }
+
+    private static boolean glob(String pattern, int p, String value, int v) {
+        while (p < pattern.length()) {
+            char c = pattern.charAt(p);
+            if (c == '*') {
+                for (int i = v; i <= value.length(); i++) {
+                    if (glob(pattern, p + 1, value, i)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            if (v >= value.length() || (c != '?' && c != value.charAt(v))) {
+                return false;
+            }
+            p++;
+            v++;
+        }
+        return v == value.length();
+    }
+
+}
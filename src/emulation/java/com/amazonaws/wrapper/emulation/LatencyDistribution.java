@@ -0,0 +1,79 @@
+package com.amazonaws.wrapper.emulation;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distribution of latency of emulated amazon requests
+ */
+public abstract class LatencyDistribution {
+
+    /**
+     * Return latency of next request, nanoseconds
+     */
+    public abstract long nextNanos(Random random);
+
+    /**
+     * Requests are answered immediately
+     */
+    public static LatencyDistribution none() {
+        return fixed(0);
+    }
+
+    /**
+     * Every request takes same time
+     */
+    public static LatencyDistribution fixed(long millis) {
+        final long nanos = TimeUnit.MILLISECONDS.toNanos(millis);
+        return new LatencyDistribution() {
+
+            @Override
+            public long nextNanos(Random random) {
+                return nanos;
+            }
+
+            @Override
+            public String toString() {
+                return "fixed " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms";
+            }
+        };
+    }
+
+    /**
+     * Latency is uniformly distributed between minMillis and maxMillis
+     */
+    public static LatencyDistribution uniform(long minMillis, long maxMillis) {
+        if (minMillis < 0 || maxMillis < minMillis) {
+            throw new IllegalArgumentException("Latency bounds must not be negative and min must not exceed max");
+        }
+        final long min = TimeUnit.MILLISECONDS.toNanos(minMillis);
+        final long range = TimeUnit.MILLISECONDS.toNanos(maxMillis) - min;
+        return new LatencyDistribution() {
+
+            @Override
+            public long nextNanos(Random random) {
+                return min + (long) (random.nextDouble() * range);
+            }
+        };
+    }
+
+    /**
+     * Log-normal latency with given median and 99th percentile, it has long tail like latency of real amazon requests
+     */
+    public static LatencyDistribution logNormal(long medianMillis, long p99Millis) {
+        if (medianMillis <= 0 || p99Millis < medianMillis) {
+            throw new IllegalArgumentException("Median must be positive and must not exceed 99th percentile");
+        }
+        final double mu = Math.log(TimeUnit.MILLISECONDS.toNanos(medianMillis));
+        // 2.326 is 99th percentile of standard normal distribution
+        final double sigma = (Math.log(TimeUnit.MILLISECONDS.toNanos(p99Millis)) - mu) / 2.326;
+        return new LatencyDistribution() {
+
+            @Override
+            public long nextNanos(Random random) {
+                return (long) Math.exp(mu + sigma * random.nextGaussian());
+            }
+        };
+    }
+
+}
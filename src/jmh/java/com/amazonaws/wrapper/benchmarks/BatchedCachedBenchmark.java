@@ -0,0 +1,123 @@
+package com.amazonaws.wrapper.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.wrapper.cache.TtlDescribeCache;
+import com.amazonaws.wrapper.emulation.EmulatedConnector;
+import com.amazonaws.wrapper.emulation.LatencyDistribution;
+import com.amazonaws.wrapper.exception.ResourceDoesNotExistException;
+import com.amazonaws.wrapper.model.Ec2Instance;
+import com.amazonaws.wrapper.model.Ec2Resource;
+import com.amazonaws.wrapper.model.RefreshBatcher;
+
+/**
+ * Concurrent refresh and search with and without refresh batcher and describe cache, emulated amazon answers with given latency
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class BatchedCachedBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Amazon {
+
+        @Param({ "1000" })
+        public int size;
+
+        @Param({ "0", "1", "20" })
+        public long latencyMillis;
+
+        EmulatedConnector connector;
+
+        List<String> instanceIds;
+
+        @Setup
+        public void setUp() {
+            connector = new EmulatedConnector();
+            instanceIds = Emulation.launchInstances(connector, size);
+            connector.getProfile().setLatency(LatencyDistribution.fixed(latencyMillis));
+        }
+
+        @TearDown
+        public void tearDown() {
+            connector.shutdown();
+            Ec2Resource.setRefreshBatcher(Ec2Instance.class, null);
+            Ec2Resource.setDescribeCache(Ec2Instance.class, null);
+        }
+    }
+
+    /**
+     * Instance refreshed by one benchmark thread
+     */
+    @State(Scope.Thread)
+    public static class OwnInstance {
+
+        Ec2Instance instance;
+
+        @Setup
+        public void setUp(Amazon amazon) {
+            instance = Emulation.connect(amazon.connector, new Ec2Instance());
+            instance.setId(amazon.instanceIds.get((int) (Math.random() * amazon.size)));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Batched {
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Ec2Resource.setRefreshBatcher(Ec2Instance.class, new RefreshBatcher(1));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Cached {
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Ec2Resource.setDescribeCache(Ec2Instance.class, new TtlDescribeCache(60000, 100));
+        }
+    }
+
+    @Benchmark
+    public Ec2Instance refresh(OwnInstance own) throws ResourceDoesNotExistException {
+        own.instance.refresh();
+        return own.instance;
+    }
+
+    @Benchmark
+    public Ec2Instance refreshBatched(Batched batched, OwnInstance own) throws ResourceDoesNotExistException {
+        own.instance.refresh();
+        return own.instance;
+    }
+
+    @Benchmark
+    public List<Ec2Instance> getAll(OwnInstance own) {
+        return own.instance.getAll();
+    }
+
+    @Benchmark
+    public List<Ec2Instance> getAllCached(Cached cached, OwnInstance own) {
+        return own.instance.getAll();
+    }
+
+}
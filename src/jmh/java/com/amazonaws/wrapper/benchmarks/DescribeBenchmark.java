@@ -0,0 +1,102 @@
+package com.amazonaws.wrapper.benchmarks;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.amazonaws.wrapper.emulation.EmulatedConnector;
+import com.amazonaws.wrapper.model.Ec2Instance;
+import com.amazonaws.wrapper.model.Ec2Volume;
+
+/**
+ * Conversion of describe results to resource lists and local queries over them, emulated amazon answers without latency
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DescribeBenchmark {
+
+    @Param({ "100", "1000", "10000" })
+    public int size;
+
+    private EmulatedConnector connector;
+
+    private Ec2Instance instances;
+
+    private Ec2Volume volumes;
+
+    private List<Ec2Instance> described;
+
+    private Ec2Instance probe;
+
+    @Setup
+    public void setUp() {
+        connector = new EmulatedConnector();
+        Emulation.launchInstances(connector, size);
+        Emulation.createVolumes(connector, size);
+        instances = Emulation.connect(connector, new Ec2Instance());
+        volumes = Emulation.connect(connector, new Ec2Volume());
+        described = instances.getAll();
+        probe = described.get(size / 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        connector.shutdown();
+    }
+
+    @Benchmark
+    public List<Ec2Instance> instancesGetAll() {
+        return instances.getAll();
+    }
+
+    @Benchmark
+    public List<Ec2Volume> volumesGetAll() {
+        return volumes.getAll();
+    }
+
+    @Benchmark
+    public List<String> allIds() {
+        return instances.allIds();
+    }
+
+    @Benchmark
+    public List<Ec2Instance> getNotTagged() {
+        return instances.getNotTagged("Name");
+    }
+
+    @Benchmark
+    public List<Ec2Instance> getNotFiltered() {
+        return instances.getNotFiltered("tag-key", "Name");
+    }
+
+    @Benchmark
+    public void hashSetOfInstances(Blackhole blackhole) {
+        Set<Ec2Instance> set = new HashSet<Ec2Instance>(described);
+        blackhole.consume(set.contains(probe));
+    }
+
+    @Benchmark
+    public boolean listContains() {
+        return described.contains(probe);
+    }
+
+}
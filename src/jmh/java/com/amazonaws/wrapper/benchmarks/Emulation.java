@@ -0,0 +1,87 @@
+package com.amazonaws.wrapper.benchmarks;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.services.ec2.model.CreateTagsRequest;
+import com.amazonaws.services.ec2.model.CreateVolumeRequest;
+import com.amazonaws.services.ec2.model.Instance;
+import com.amazonaws.services.ec2.model.RunInstancesRequest;
+import com.amazonaws.services.ec2.model.Tag;
+import com.amazonaws.wrapper.emulation.EmulatedConnector;
+import com.amazonaws.wrapper.model.Ec2Resource;
+
+/**
+ * Emulated amazon of benchmarks
+ */
+public class Emulation {
+
+    private final static int TAG_CHUNK = 1000;
+
+    private Emulation() {
+    }
+
+    /**
+     * Connect resource to emulation, resources have no public setter of connector
+     */
+    public static <R extends Ec2Resource<?, ?>> R connect(EmulatedConnector connector, R resource) {
+        try {
+            Field field = Ec2Resource.class.getDeclaredField("ec2Connector");
+            field.setAccessible(true);
+            field.set(resource, connector);
+            return resource;
+        } catch (Exception e) {
+            throw new IllegalStateException("Can't connect resource", e);
+        }
+    }
+
+    /**
+     * Launch instances, every second one is tagged with Name
+     *
+     * @return ids of launched instances
+     */
+    public static List<String> launchInstances(EmulatedConnector connector, int count) {
+        List<String> ids = new ArrayList<String>();
+        if (count == 0) {
+            return ids;
+        }
+        AmazonEC2 amazonEC2 = connector.getAmazonEC2();
+        List<Instance> instances = amazonEC2.runInstances(
+                new RunInstancesRequest().withImageId("ami-00000001").withMinCount(count).withMaxCount(count)).getReservation().getInstances();
+        for (Instance instance : instances) {
+            ids.add(instance.getInstanceId());
+        }
+        tagEverySecond(amazonEC2, ids, "instance");
+        return ids;
+    }
+
+    /**
+     * Create volumes, every second one is tagged with Name
+     *
+     * @return ids of created volumes
+     */
+    public static List<String> createVolumes(EmulatedConnector connector, int count) {
+        AmazonEC2 amazonEC2 = connector.getAmazonEC2();
+        List<String> ids = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            ids.add(amazonEC2.createVolume(new CreateVolumeRequest().withSize(1 + i % 100)).getVolume().getVolumeId());
+        }
+        tagEverySecond(amazonEC2, ids, "volume");
+        return ids;
+    }
+
+    private static void tagEverySecond(AmazonEC2 amazonEC2, List<String> ids, String name) {
+        List<String> tagged = new ArrayList<String>();
+        for (int i = 0; i < ids.size(); i += 2) {
+            tagged.add(ids.get(i));
+        }
+        for (int from = 0; from < tagged.size(); from += TAG_CHUNK) {
+            List<String> chunk = tagged.subList(from, Math.min(tagged.size(), from + TAG_CHUNK));
+            amazonEC2.createTags(new CreateTagsRequest(new ArrayList<String>(chunk), Collections.singletonList(new Tag("Name", name))));
+        }
+    }
+
+}
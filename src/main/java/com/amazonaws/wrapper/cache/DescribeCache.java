@@ -0,0 +1,35 @@
+package com.amazonaws.wrapper.cache;
+
+import java.util.List;
+
+/**
+ * Cache for results of amazon "Describe" requests. One cache can be registered per resource type with
+ * Ec2Resource.setDescribeCache(type, cache)
+ */
+public interface DescribeCache {
+
+    /**
+     * Return cached result of describe request
+     * 
+     * @param key
+     *            - normalized describe request
+     * @return cached list of resources, null if there is no actual value for this key
+     */
+    List<?> get(DescribeKey key);
+
+    /**
+     * Store result of describe request
+     * 
+     * @param key
+     *            - normalized describe request
+     * @param result
+     *            - list of resources returned by amazon
+     */
+    void put(DescribeKey key, List<?> result);
+
+    /**
+     * Drop all cached results, calling after any resource of cached type was changed
+     */
+    void invalidateAll();
+
+}
@@ -0,0 +1,71 @@
+package com.amazonaws.wrapper.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.amazonaws.services.ec2.model.Filter;
+
+/**
+ * Key of describe request: resource type, amazon client that sends request and normalized set of filters. Order of filters and filter values
+ * doesn't matter, so "a=1,2 b=3" and "b=3 a=2,1" are equal keys
+ */
+public final class DescribeKey {
+
+    private final Class<?> type;
+
+    /*
+     * Compared by identity, so results of different accounts/regions never mix
+     */
+    private final Object client;
+
+    private final String filters;
+
+    public DescribeKey(Class<?> type, Object client, Filter... filters) {
+        this.type = type;
+        this.client = client;
+        this.filters = normalize(filters);
+    }
+
+    private static String normalize(Filter... filters) {
+        if (filters == null || filters.length == 0) {
+            return "";
+        }
+        List<String> normalized = new ArrayList<String>();
+        for (Filter filter : filters) {
+            List<String> values = new ArrayList<String>(filter.getValues());
+            Collections.sort(values);
+            normalized.add(filter.getName() + "=" + values);
+        }
+        Collections.sort(normalized);
+        return normalized.toString();
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public String getFilters() {
+        return filters;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (!(object instanceof DescribeKey)) {
+            return false;
+        }
+        DescribeKey other = (DescribeKey) object;
+        return type.equals(other.type) && client == other.client && filters.equals(other.filters);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * type.hashCode() + System.identityHashCode(client)) + filters.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return type.getSimpleName() + filters;
+    }
+
+}
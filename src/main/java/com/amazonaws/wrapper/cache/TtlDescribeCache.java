@@ -0,0 +1,98 @@
+package com.amazonaws.wrapper.cache;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Describe cache that holds results for fixed time and keeps at most maxEntries keys (least recently used key evicts first)
+ */
+public class TtlDescribeCache implements DescribeCache {
+
+    private final long ttlMillis;
+
+    private final Map<DescribeKey, CachedResult> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param ttlMillis
+     *            - how long result stays actual
+     * @param maxEntries
+     *            - max number of cached describe requests
+     */
+    public TtlDescribeCache(long ttlMillis, final int maxEntries) {
+        if (ttlMillis <= 0 || maxEntries <= 0) {
+            throw new IllegalArgumentException("TTL and max entries must be positive");
+        }
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<DescribeKey, CachedResult>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 4021389741178211593L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<DescribeKey, CachedResult> eldest) {
+                if (size() > maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public synchronized List<?> get(DescribeKey key) {
+        CachedResult entry = entries.get(key);
+        if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+            hits.incrementAndGet();
+            return entry.result;
+        }
+        if (entry != null) {
+            entries.remove(key);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    @Override
+    public synchronized void put(DescribeKey key, List<?> result) {
+        entries.put(key, new CachedResult(result, System.currentTimeMillis() + ttlMillis));
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private static class CachedResult {
+
+        private final List<?> result;
+        private final long expiresAt;
+
+        CachedResult(List<?> result, long expiresAt) {
+            this.result = result;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.amazonaws.wrapper.events;
+
+import com.amazonaws.wrapper.model.Ec2Resource;
+
+/**
+ * Listener of snapshots and images watched by completion tracker until they are completed or failed
+ */
+public interface CompletionListener<T extends Ec2Resource<?, ?>> {
+
+    /**
+     * Calling when progress of watched resource changes, images don't report progress
+     *
+     * @param resource
+     *            - resource with actual amazon model
+     * @param previousProgress
+     *            - percent before change, -1 for first observed progress
+     * @param progress
+     *            - new percent, 0..100
+     */
+    void progressChanged(T resource, int previousProgress, int progress);
+
+    /**
+     * Calling once when resource is completed, snapshot is in state "completed" or image is "available"
+     */
+    void completed(T resource);
+
+    /**
+     * Calling once when amazon failed to create resource or resource disappeared
+     *
+     * @param cause
+     *            - ResourceFailedException or ResourceDoesNotExistException
+     */
+    void failed(T resource, Exception cause);
+
+}
@@ -0,0 +1,22 @@
+package com.amazonaws.wrapper.events;
+
+import com.amazonaws.wrapper.model.Ec2Instance;
+
+/**
+ * Listener of instance state changes noticed by instance state poller
+ */
+public interface InstanceStateListener {
+
+    /**
+     * Calling when watched instance changes its state
+     * 
+     * @param instance
+     *            - instance with actual amazon model
+     * @param previousState
+     *            - state before change, null for first observed state
+     * @param state
+     *            - new state
+     */
+    void stateChanged(Ec2Instance instance, String previousState, String state);
+
+}
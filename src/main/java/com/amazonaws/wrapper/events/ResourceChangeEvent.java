@@ -0,0 +1,56 @@
+package com.amazonaws.wrapper.events;
+
+/**
+ * Change of amazon resource noticed between two inventory synchronizations
+ * 
+ * @param <T>
+ */
+public class ResourceChangeEvent<T> {
+
+    public enum Type {
+        ADDED, REMOVED, MODIFIED
+    }
+
+    private final Type type;
+
+    private final T previous;
+
+    private final T current;
+
+    public ResourceChangeEvent(Type type, T previous, T current) {
+        this.type = type;
+        this.previous = previous;
+        this.current = current;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Resource as it was on previous synchronization, null for added resources
+     */
+    public T getPrevious() {
+        return previous;
+    }
+
+    /**
+     * Resource as it is now, null for removed resources
+     */
+    public T getCurrent() {
+        return current;
+    }
+
+    /**
+     * Return changed resource: current one or previous one if resource was removed
+     */
+    public T getResource() {
+        return current != null ? current : previous;
+    }
+
+    @Override
+    public String toString() {
+        return type + ": " + getResource();
+    }
+
+}
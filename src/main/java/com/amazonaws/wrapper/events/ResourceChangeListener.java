@@ -0,0 +1,18 @@
+package com.amazonaws.wrapper.events;
+
+/**
+ * Listener of resource changes found by inventory synchronization
+ * 
+ * @param <T>
+ */
+public interface ResourceChangeListener<T> {
+
+    /**
+     * Calling for every added, removed or modified resource
+     * 
+     * @param event
+     *            - change of resource
+     */
+    void resourceChanged(ResourceChangeEvent<T> event);
+
+}
@@ -0,0 +1,20 @@
+package com.amazonaws.wrapper.events;
+
+/**
+ * Visitor for found resources, resources are passed one by one without building list of all of them. Amazon response they come from is held
+ * in memory as a whole
+ * 
+ * @param <T>
+ */
+public interface ResourceVisitor<T> {
+
+    /**
+     * Calling for every found resource
+     * 
+     * @param resource
+     *            - found resource
+     * @return true - to continue, false - to stop iteration
+     */
+    boolean visit(T resource);
+
+}
@@ -0,0 +1,78 @@
+package com.amazonaws.wrapper.exception;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+
+/**
+ * Classification of errors returned by amazon
+ */
+public class AmazonErrors {
+
+    public enum Kind {
+        /**
+         * Amazon limits request rate, request can be retried after backoff
+         */
+        THROTTLING,
+        /**
+         * Network problem or amazon internal error, request can be retried
+         */
+        TRANSIENT,
+        /**
+         * Requested resource doesn't exist (or its id is malformed)
+         */
+        NOT_FOUND,
+        /**
+         * Request is wrong, retrying doesn't help
+         */
+        PERMANENT
+    }
+
+    private AmazonErrors() {
+    }
+
+    public static Kind classify(Throwable error) {
+        if (error instanceof AmazonServiceException) {
+            AmazonServiceException serviceError = (AmazonServiceException) error;
+            String code = serviceError.getErrorCode() == null ? "" : serviceError.getErrorCode();
+            if (code.equals("RequestLimitExceeded") || code.startsWith("Throttling")) {
+                return Kind.THROTTLING;
+            }
+            if (code.endsWith(".NotFound") || code.endsWith(".Malformed")) {
+                return Kind.NOT_FOUND;
+            }
+            if (serviceError.getStatusCode() >= 500 || code.equals("InternalError") || code.equals("Unavailable")) {
+                return Kind.TRANSIENT;
+            }
+            return Kind.PERMANENT;
+        }
+        if (error instanceof RequestRateExceededException || error instanceof CircuitOpenException) {
+            // client side decisions, retrying them would defeat their purpose
+            return Kind.PERMANENT;
+        }
+        if (error instanceof AmazonClientException) {
+            return Kind.TRANSIENT;
+        }
+        return Kind.PERMANENT;
+    }
+
+    public static boolean isThrottling(Throwable error) {
+        return classify(error) == Kind.THROTTLING;
+    }
+
+    public static boolean isNotFound(Throwable error) {
+        return classify(error) == Kind.NOT_FOUND;
+    }
+
+    /**
+     * Request wasn't sent at all, it was rejected by client side rate limiter or circuit breaker
+     */
+    public static boolean isClientRejection(Throwable error) {
+        return error instanceof RequestRateExceededException || error instanceof CircuitOpenException;
+    }
+
+    public static boolean isRetryable(Throwable error) {
+        Kind kind = classify(error);
+        return kind == Kind.THROTTLING || kind == Kind.TRANSIENT;
+    }
+
+}
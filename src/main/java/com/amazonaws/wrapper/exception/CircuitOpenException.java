@@ -0,0 +1,16 @@
+package com.amazonaws.wrapper.exception;
+
+import com.amazonaws.AmazonClientException;
+
+/**
+ * Request was not sent to amazon because too many recent requests failed
+ */
+public class CircuitOpenException extends AmazonClientException {
+
+    private static final long serialVersionUID = -3920456215869025373L;
+
+    public CircuitOpenException(String action) {
+        super("Circuit is open, amazon is failing or throttling requests, [" + action + "] is not sent");
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.amazonaws.wrapper.exception;
+
+import com.amazonaws.AmazonClientException;
+
+/**
+ * Request was not sent to amazon because client side rate limit is exhausted
+ */
+public class RequestRateExceededException extends AmazonClientException {
+
+    private static final long serialVersionUID = 6211793526389401757L;
+
+    public RequestRateExceededException(String action) {
+        super("Client side request rate exceeded for [" + action + "]");
+    }
+
+}
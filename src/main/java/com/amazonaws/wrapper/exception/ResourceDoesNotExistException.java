@@ -8,4 +8,8 @@ public class ResourceDoesNotExistException extends Exception {
         super("Resource doesn't exist on Amazon Cloud [" + resourceId + "]");
     }
 
+    public ResourceDoesNotExistException(String resourceId, Throwable cause) {
+        super("Resource doesn't exist on Amazon Cloud [" + resourceId + "]", cause);
+    }
+
 }
@@ -0,0 +1,15 @@
+package com.amazonaws.wrapper.exception;
+
+/**
+ * Resource can't reach wanted state any more, for example instance was terminated while waiting for it to run, snapshot went to
+ * error state or image registration failed
+ */
+public class ResourceFailedException extends Exception {
+
+    private static final long serialVersionUID = 4418375200967154219L;
+
+    public ResourceFailedException(String resourceId, String state) {
+        super("Resource failed on Amazon Cloud [" + resourceId + "] in state [" + state + "]");
+    }
+
+}
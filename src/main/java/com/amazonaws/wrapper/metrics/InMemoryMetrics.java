@@ -0,0 +1,114 @@
+package com.amazonaws.wrapper.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics kept in memory of this process. Counters and timers are identified by name and tags, for example "ec2.call{action=describeVolumes,
+ * type=Volume, outcome=success}"
+ */
+public class InMemoryMetrics implements Metrics {
+
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+
+    private final ConcurrentMap<String, LatencyHistogram> timers = new ConcurrentHashMap<String, LatencyHistogram>();
+
+    @Override
+    public void increment(String name, String... tags) {
+        String key = keyOf(name, tags);
+        AtomicLong counter = counters.get(key);
+        if (counter == null) {
+            AtomicLong created = new AtomicLong();
+            counter = counters.putIfAbsent(key, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        counter.incrementAndGet();
+    }
+
+    @Override
+    public void recordTime(String name, long durationNanos, String... tags) {
+        String key = keyOf(name, tags);
+        LatencyHistogram timer = timers.get(key);
+        if (timer == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            timer = timers.putIfAbsent(key, created);
+            if (timer == null) {
+                timer = created;
+            }
+        }
+        timer.record(durationNanos);
+    }
+
+    /**
+     * Return value of counter
+     * 
+     * @return value or 0 if counter was never incremented
+     */
+    public long getCount(String name, String... tags) {
+        AtomicLong counter = counters.get(keyOf(name, tags));
+        return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * Return recorded durations of timer
+     * 
+     * @return snapshot or null if nothing was recorded
+     */
+    public TimerSnapshot getTimer(String name, String... tags) {
+        LatencyHistogram timer = timers.get(keyOf(name, tags));
+        return timer == null ? null : timer.snapshot();
+    }
+
+    /**
+     * Return values of all counters, sorted by key
+     */
+    public Map<String, Long> getCounters() {
+        Map<String, Long> snapshot = new TreeMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> counter : counters.entrySet()) {
+            snapshot.put(counter.getKey(), counter.getValue().get());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Return recorded durations of all timers, sorted by key
+     */
+    public Map<String, TimerSnapshot> getTimers() {
+        Map<String, TimerSnapshot> snapshot = new TreeMap<String, TimerSnapshot>();
+        for (Map.Entry<String, LatencyHistogram> timer : timers.entrySet()) {
+            snapshot.put(timer.getKey(), timer.getValue().snapshot());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Drop all counters and timers
+     */
+    public void reset() {
+        counters.clear();
+        timers.clear();
+    }
+
+    private static String keyOf(String name, String... tags) {
+        if (tags == null || tags.length == 0) {
+            return name;
+        }
+        if (tags.length % 2 != 0) {
+            throw new IllegalArgumentException("Tags must be pairs of name and value");
+        }
+        StringBuilder key = new StringBuilder(name).append('{');
+        for (int i = 0; i < tags.length; i += 2) {
+            if (i > 0) {
+                key.append(", ");
+            }
+            key.append(tags[i]).append('=').append(tags[i + 1]);
+        }
+        return key.append('}').toString();
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.amazonaws.wrapper.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of durations with microsecond resolution. Durations are counted in exponential buckets, every power of two is split to 8
+ * buckets, so percentiles are accurate within 12.5%
+ */
+public class LatencyHistogram {
+
+    /*
+     * Durations below this number of microseconds have own bucket
+     */
+    private final static int LINEAR_BUCKETS = 16;
+
+    private final static int SUB_BUCKETS = 8;
+
+    private final static int SUB_BUCKET_BITS = 3;
+
+    /*
+     * Enough for durations up to 2^62 microseconds
+     */
+    private final static int BUCKETS = LINEAR_BUCKETS + (62 - 4) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long durationNanos) {
+        long nanos = Math.max(0, durationNanos);
+        counts.incrementAndGet(bucketOf(nanos / 1000));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        long max;
+        do {
+            max = maxNanos.get();
+        } while (nanos > max && !maxNanos.compareAndSet(max, nanos));
+    }
+
+    /**
+     * Return current state of histogram, recording may continue while snapshot is taken
+     */
+    public TimerSnapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        long max = maxNanos.get();
+        return new TimerSnapshot(count.get(), totalNanos.get(), max, Math.min(max, percentile(copy, total, 0.5)), Math.min(max, percentile(copy,
+                total, 0.99)), Math.min(max, percentile(copy, total, 0.999)));
+    }
+
+    /*
+     * Upper bound of bucket that holds given percentile, nanoseconds
+     */
+    private static long percentile(long[] counts, long total, double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBoundOf(i) * 1000;
+            }
+        }
+        return upperBoundOf(counts.length - 1) * 1000;
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < LINEAR_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKETS - 1, LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + sub);
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+        int sub = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+}
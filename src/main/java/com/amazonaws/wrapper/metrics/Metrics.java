@@ -0,0 +1,30 @@
+package com.amazonaws.wrapper.metrics;
+
+/**
+ * Receiver of wrapper metrics. Tags are given as pairs of name and value, for example increment("ec2.retry", "action", "describeVolumes")
+ */
+public interface Metrics {
+
+    /**
+     * Add one to counter
+     * 
+     * @param name
+     *            - counter name
+     * @param tags
+     *            - pairs of tag name and tag value
+     */
+    public void increment(String name, String... tags);
+
+    /**
+     * Record duration of operation into timer
+     * 
+     * @param name
+     *            - timer name
+     * @param durationNanos
+     *            - duration of operation, nanoseconds
+     * @param tags
+     *            - pairs of tag name and tag value
+     */
+    public void recordTime(String name, long durationNanos, String... tags);
+
+}
@@ -0,0 +1,38 @@
+package com.amazonaws.wrapper.metrics;
+
+/**
+ * Holds metrics receiver used by whole wrapper, by default metrics are kept in memory
+ */
+public final class MetricsRegistry {
+
+    private final static Metrics NO_METRICS = new Metrics() {
+
+        @Override
+        public void increment(String name, String... tags) {
+        }
+
+        @Override
+        public void recordTime(String name, long durationNanos, String... tags) {
+        }
+    };
+
+    private static volatile Metrics metrics = new InMemoryMetrics();
+
+    private MetricsRegistry() {
+    }
+
+    public static Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Replace metrics receiver
+     * 
+     * @param receiver
+     *            - new receiver, null to stop recording metrics
+     */
+    public static void setMetrics(Metrics receiver) {
+        metrics = receiver == null ? NO_METRICS : receiver;
+    }
+
+}
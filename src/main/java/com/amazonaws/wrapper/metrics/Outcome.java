@@ -0,0 +1,45 @@
+package com.amazonaws.wrapper.metrics;
+
+import com.amazonaws.wrapper.exception.AmazonErrors;
+import com.amazonaws.wrapper.exception.ResourceDoesNotExistException;
+
+/**
+ * Outcome of amazon call or wrapper operation, used as "outcome" tag
+ */
+public enum Outcome {
+
+    SUCCESS, THROTTLED, NOT_FOUND, ERROR,
+
+    /**
+     * Operation failed part way, but its result is usable, for example fleet launched with less than max but at least min instances
+     */
+    PARTIAL;
+
+    /**
+     * Outcome of operation that failed with given error
+     */
+    public static Outcome of(Throwable error) {
+        if (error == null) {
+            return SUCCESS;
+        }
+        if (error instanceof ResourceDoesNotExistException) {
+            return NOT_FOUND;
+        }
+        switch (AmazonErrors.classify(error)) {
+        case THROTTLING:
+            return THROTTLED;
+        case NOT_FOUND:
+            return NOT_FOUND;
+        default:
+            return ERROR;
+        }
+    }
+
+    /**
+     * Tag value, for example "not-found"
+     */
+    public String tag() {
+        return name().toLowerCase().replace('_', '-');
+    }
+
+}
@@ -5,6 +5,33 @@ public class AdapterSettings {
     private boolean isEmulation;
     private String instancePrefix;
 
+    /*
+     * Client side rate limits of amazon EC2 requests, requests per second (0 - unlimited)
+     */
+    private double describeRequestsPerSecond;
+    private double mutateRequestsPerSecond;
+    private double tagRequestsPerSecond;
+    private int requestBurst = 10;
+    private boolean blockOnRateLimit = true;
+
+    /*
+     * Retries of throttled and transient failures (0 - no retries) and circuit breaker (circuitFailureRate 0 - no circuit breaker)
+     */
+    private int maxRetries = 3;
+    private long retryBaseDelayMillis = 100;
+    private long retryMaxDelayMillis = 20000;
+    private double circuitFailureRate = 0.5;
+    private int circuitWindow = 20;
+    private long circuitOpenMillis = 30000;
+
+    /*
+     * HTTP connection pool of every amazon client (0 - amazon sdk default), every region has own EC2 client, so up to maxConnections x regions
+     * connections can be open
+     */
+    private int maxConnections;
+    private int socketTimeoutMillis;
+    private int connectionTimeoutMillis;
+
     public boolean isEmulation() {
         return isEmulation;
     }
@@ -21,4 +48,126 @@ public class AdapterSettings {
         this.instancePrefix = instancePrefix;
     }
 
+    public double getDescribeRequestsPerSecond() {
+        return describeRequestsPerSecond;
+    }
+
+    public void setDescribeRequestsPerSecond(double describeRequestsPerSecond) {
+        this.describeRequestsPerSecond = describeRequestsPerSecond;
+    }
+
+    public double getMutateRequestsPerSecond() {
+        return mutateRequestsPerSecond;
+    }
+
+    public void setMutateRequestsPerSecond(double mutateRequestsPerSecond) {
+        this.mutateRequestsPerSecond = mutateRequestsPerSecond;
+    }
+
+    public double getTagRequestsPerSecond() {
+        return tagRequestsPerSecond;
+    }
+
+    public void setTagRequestsPerSecond(double tagRequestsPerSecond) {
+        this.tagRequestsPerSecond = tagRequestsPerSecond;
+    }
+
+    public int getRequestBurst() {
+        return requestBurst;
+    }
+
+    public void setRequestBurst(int requestBurst) {
+        this.requestBurst = requestBurst;
+    }
+
+    /**
+     * true - request waits until rate limit allows it, false - request fails with RequestRateExceededException
+     */
+    public boolean isBlockOnRateLimit() {
+        return blockOnRateLimit;
+    }
+
+    public void setBlockOnRateLimit(boolean blockOnRateLimit) {
+        this.blockOnRateLimit = blockOnRateLimit;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public long getRetryBaseDelayMillis() {
+        return retryBaseDelayMillis;
+    }
+
+    public void setRetryBaseDelayMillis(long retryBaseDelayMillis) {
+        this.retryBaseDelayMillis = retryBaseDelayMillis;
+    }
+
+    public long getRetryMaxDelayMillis() {
+        return retryMaxDelayMillis;
+    }
+
+    public void setRetryMaxDelayMillis(long retryMaxDelayMillis) {
+        this.retryMaxDelayMillis = retryMaxDelayMillis;
+    }
+
+    /**
+     * Share of failed requests among last circuitWindow requests that opens circuit
+     */
+    public double getCircuitFailureRate() {
+        return circuitFailureRate;
+    }
+
+    public void setCircuitFailureRate(double circuitFailureRate) {
+        this.circuitFailureRate = circuitFailureRate;
+    }
+
+    public int getCircuitWindow() {
+        return circuitWindow;
+    }
+
+    public void setCircuitWindow(int circuitWindow) {
+        this.circuitWindow = circuitWindow;
+    }
+
+    public long getCircuitOpenMillis() {
+        return circuitOpenMillis;
+    }
+
+    public void setCircuitOpenMillis(long circuitOpenMillis) {
+        this.circuitOpenMillis = circuitOpenMillis;
+    }
+
+    /**
+     * Max number of open HTTP connections of one amazon client, should not be less than number of threads calling amazon concurrently. Limit is
+     * not shared, default and every other region have own client and own pool
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getSocketTimeoutMillis() {
+        return socketTimeoutMillis;
+    }
+
+    public void setSocketTimeoutMillis(int socketTimeoutMillis) {
+        this.socketTimeoutMillis = socketTimeoutMillis;
+    }
+
+    public int getConnectionTimeoutMillis() {
+        return connectionTimeoutMillis;
+    }
+
+    public void setConnectionTimeoutMillis(int connectionTimeoutMillis) {
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+    }
+
 }
@@ -0,0 +1,124 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.wrapper.exception.AmazonErrors;
+
+/**
+ * Limits number of concurrent amazon requests of bulk operation. Every throttling response halves the limit and the request is retried after
+ * backoff unless client already retries it with retry policy, successful requests raise the limit back up to maxConcurrency one by one
+ */
+class AdaptiveThrottle {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(AdaptiveThrottle.class);
+
+    static final int MAX_RETRIES = 5;
+
+    static final long BASE_BACKOFF_MILLIS = 200;
+
+    private final static Random RANDOM = new Random();
+
+    private final int maxConcurrency;
+
+    private int concurrency;
+
+    private int inFlight;
+
+    private int successes;
+
+    private int throttled;
+
+    AdaptiveThrottle(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency must be positive");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.concurrency = maxConcurrency;
+    }
+
+    /**
+     * Blocks until number of running requests is under current limit
+     */
+    synchronized void acquire() throws InterruptedException {
+        while (inFlight >= concurrency) {
+            wait();
+        }
+        inFlight++;
+    }
+
+    synchronized void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * Runs amazon request, retrying it with exponential backoff while amazon throttles it
+     * 
+     * @param retry
+     *            - false if request is already retried by retry policy of client, throttling only lowers concurrency then
+     */
+    void execute(Runnable request, boolean retry) {
+        for (int attempt = 0;; attempt++) {
+            try {
+                request.run();
+                onSuccess();
+                return;
+            } catch (AmazonServiceException e) {
+                if (!isThrottling(e)) {
+                    throw e;
+                }
+                onThrottle();
+                if (!retry || attempt >= MAX_RETRIES) {
+                    throw e;
+                }
+                sleep(backoff(attempt));
+            }
+        }
+    }
+
+    synchronized int getConcurrency() {
+        return concurrency;
+    }
+
+    synchronized int getThrottledCount() {
+        return throttled;
+    }
+
+    private synchronized void onSuccess() {
+        if (concurrency < maxConcurrency && ++successes >= concurrency) {
+            concurrency++;
+            successes = 0;
+            notifyAll();
+        }
+    }
+
+    private synchronized void onThrottle() {
+        throttled++;
+        successes = 0;
+        concurrency = Math.max(1, concurrency / 2);
+        LOGGER.warn("Amazon throttles requests, concurrency lowered to " + concurrency);
+    }
+
+    private static long backoff(int attempt) {
+        long max = BASE_BACKOFF_MILLIS << attempt;
+        return max / 2 + (long) (RANDOM.nextDouble() * max / 2);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    static boolean isThrottling(AmazonServiceException e) {
+        return AmazonErrors.isThrottling(e);
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Connector that provides own executor for asynchronous resource operations (createAsync, deleteAsync, bulk delete, background tagging, ...).
+ * Resources of connectors that don't implement it run these operations on shared default executor
+ */
+public interface AsyncEc2Connector extends Ec2Connector {
+
+    /**
+     * Executor for asynchronous resource operations
+     */
+    public ExecutorService getExecutor();
+
+}
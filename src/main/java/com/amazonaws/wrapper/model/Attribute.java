@@ -0,0 +1,73 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Attribute of resource used by typed queries. Attribute with amazon filter name can be filtered by amazon, every attribute can be evaluated
+ * locally from amazon model of resource
+ *
+ * @param <O>
+ *            - resource class
+ */
+public abstract class Attribute<O> {
+
+    private final String name;
+
+    private final String filterName;
+
+    /**
+     * @param name
+     *            - attribute name used in logs and errors
+     * @param filterName
+     *            - amazon filter name, for example "instance-state-name", null if amazon can't filter by this attribute
+     */
+    protected Attribute(String name, String filterName) {
+        this.name = name;
+        this.filterName = filterName;
+    }
+
+    /**
+     * Return values of this attribute of resource, empty list if resource doesn't have it
+     */
+    public abstract List<String> valuesOf(O resource);
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Return amazon filter name or null if attribute is evaluated only locally
+     */
+    public String getFilterName() {
+        return filterName;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Helper for valuesOf(..): string values of not null objects, dates as milliseconds
+     */
+    protected static List<String> values(Object... values) {
+        if (values.length == 1) {
+            return values[0] == null ? Collections.<String> emptyList() : Collections.singletonList(valueOf(values[0]));
+        }
+        List<String> list = new ArrayList<String>(values.length);
+        for (Object value : values) {
+            if (value != null) {
+                list.add(valueOf(value));
+            }
+        }
+        return list;
+    }
+
+    private static String valueOf(Object value) {
+        return value instanceof Date ? String.valueOf(((Date) value).getTime()) : String.valueOf(value);
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.ec2.AmazonEC2;
+
+/**
+ * Base of pollers watching many resources with one background thread. Every tick subclass describes all watched resources, tick interval is
+ * minIntervalMillis while something changes and doubles up to maxIntervalMillis while nothing happens. Polling stops while nothing is
+ * watched. Subclasses guard their watches with lock of poller
+ */
+abstract class BackgroundPoller {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(BackgroundPoller.class);
+
+    /**
+     * Describes one chunk of ids in one region, unknown ids are skipped
+     */
+    interface Describer<T> {
+
+        Map<String, T> describe(AmazonEC2 ec2, List<String> ids);
+    }
+
+    private final Ec2Connector ec2Connector;
+
+    private final long minIntervalMillis;
+
+    private final long maxIntervalMillis;
+
+    private final ScheduledExecutorService scheduler;
+
+    private long intervalMillis;
+
+    private boolean scheduled;
+
+    BackgroundPoller(Ec2Connector ec2Connector, long minIntervalMillis, long maxIntervalMillis, final String threadName) {
+        if (minIntervalMillis <= 0 || maxIntervalMillis < minIntervalMillis) {
+            throw new IllegalArgumentException("Intervals must be positive and min interval must not exceed max interval");
+        }
+        this.ec2Connector = ec2Connector;
+        this.minIntervalMillis = minIntervalMillis;
+        this.maxIntervalMillis = maxIntervalMillis;
+        this.intervalMillis = minIntervalMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Describe watched resources once and apply results, called by poller thread without lock of poller
+     *
+     * @param notifications
+     *            - notifications of listeners, run after tick without lock of poller
+     * @return true if state or progress of any watched resource changed
+     */
+    abstract boolean poll(List<Runnable> notifications);
+
+    /**
+     * Return true if nothing is watched, called with lock of poller
+     */
+    abstract boolean isIdle();
+
+    /**
+     * Poll soon with min interval, called with lock of poller when resource is watched
+     */
+    void wake() {
+        intervalMillis = minIntervalMillis;
+        if (!scheduled) {
+            scheduled = true;
+            schedule(0);
+        }
+    }
+
+    boolean isStopped() {
+        return scheduler.isShutdown();
+    }
+
+    /**
+     * Stop poller thread, called with lock of poller
+     */
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Describe resources region by region with chunked requests, ids of resources in regions that were described are added to polled. Ids of
+     * region that can't be described are left out, so they are not taken for missing resources
+     */
+    <T> Map<String, T> describeAll(Collection<? extends Ec2Resource<?, ?>> resources, Describer<T> describer, Set<String> polled) {
+        Map<String, List<String>> byRegion = new LinkedHashMap<String, List<String>>();
+        for (Ec2Resource<?, ?> resource : resources) {
+            List<String> ids = byRegion.get(resource.getRegion());
+            if (ids == null) {
+                ids = new ArrayList<String>();
+                byRegion.put(resource.getRegion(), ids);
+            }
+            ids.add(resource.getId());
+        }
+        Map<String, T> described = new HashMap<String, T>();
+        for (Map.Entry<String, List<String>> region : byRegion.entrySet()) {
+            try {
+                AmazonEC2 ec2 = Ec2Resource.regionEc2(ec2Connector, region.getKey());
+                for (List<String> chunk : Ec2Resource.chunks(region.getValue(), Ec2Resource.MAX_IDS_PER_REQUEST)) {
+                    described.putAll(describer.describe(ec2, chunk));
+                }
+                polled.addAll(region.getValue());
+            } catch (RuntimeException e) {
+                LOGGER.error("Unable to poll region " + (region.getKey() == null ? "default" : region.getKey()) + ": " + e.getMessage(), e);
+            }
+        }
+        return described;
+    }
+
+    private void schedule(long delayMillis) {
+        if (scheduler.isShutdown()) {
+            return;
+        }
+        scheduler.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                tick();
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void tick() {
+        List<Runnable> notifications = new ArrayList<Runnable>();
+        boolean changed = false;
+        try {
+            changed = poll(notifications);
+        } catch (RuntimeException e) {
+            LOGGER.error("Polling failed: " + e.getMessage(), e);
+        }
+        synchronized (this) {
+            intervalMillis = changed ? minIntervalMillis : Math.min(maxIntervalMillis, intervalMillis * 2);
+            if (isIdle()) {
+                scheduled = false;
+            } else {
+                schedule(intervalMillis);
+            }
+        }
+        for (Runnable notification : notifications) {
+            notification.run();
+        }
+    }
+
+}
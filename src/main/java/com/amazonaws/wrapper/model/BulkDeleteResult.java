@@ -0,0 +1,92 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of bulk delete: status of every resource and exceptions of failed ones
+ * 
+ * @param <O>
+ *            - resource type
+ */
+public class BulkDeleteResult<O> {
+
+    public enum Status {
+        DELETED, SKIPPED, FAILED
+    }
+
+    private final Map<O, Status> statuses = new LinkedHashMap<O, Status>();
+
+    private final Map<O, Exception> failures = new LinkedHashMap<O, Exception>();
+
+    private int throttledCount;
+
+    synchronized void deleted(O resource) {
+        statuses.put(resource, Status.DELETED);
+    }
+
+    synchronized void skipped(O resource) {
+        statuses.put(resource, Status.SKIPPED);
+    }
+
+    synchronized void failed(O resource, Exception exception) {
+        statuses.put(resource, Status.FAILED);
+        failures.put(resource, exception);
+    }
+
+    synchronized void setThrottledCount(int throttledCount) {
+        this.throttledCount = throttledCount;
+    }
+
+    /**
+     * Return status of resource, null if it wasn't processed
+     */
+    public synchronized Status getStatus(O resource) {
+        return statuses.get(resource);
+    }
+
+    public List<O> getDeleted() {
+        return get(Status.DELETED);
+    }
+
+    /**
+     * Return resources that delete handler decided not to delete
+     */
+    public List<O> getSkipped() {
+        return get(Status.SKIPPED);
+    }
+
+    public List<O> getFailed() {
+        return get(Status.FAILED);
+    }
+
+    public synchronized Exception getFailure(O resource) {
+        return failures.get(resource);
+    }
+
+    /**
+     * Return how many times amazon throttled delete requests
+     */
+    public synchronized int getThrottledCount() {
+        return throttledCount;
+    }
+
+    private synchronized List<O> get(Status status) {
+        List<O> resources = new ArrayList<O>();
+        for (Map.Entry<O, Status> entry : statuses.entrySet()) {
+            if (entry.getValue() == status) {
+                resources.add(entry.getKey());
+            }
+        }
+        return resources;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "BulkDeleteResult: {deleted: " + getDeleted().size() + ", skipped: " + getSkipped().size() + ", failed: " + failures.size()
+                + ", throttled: " + throttledCount + "}";
+    }
+
+}
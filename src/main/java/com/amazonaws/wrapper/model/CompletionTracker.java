@@ -0,0 +1,417 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.services.ec2.model.DescribeImagesRequest;
+import com.amazonaws.services.ec2.model.DescribeSnapshotsRequest;
+import com.amazonaws.services.ec2.model.Filter;
+import com.amazonaws.services.ec2.model.Image;
+import com.amazonaws.services.ec2.model.Snapshot;
+import com.amazonaws.wrapper.events.CompletionListener;
+import com.amazonaws.wrapper.exception.ResourceDoesNotExistException;
+import com.amazonaws.wrapper.exception.ResourceFailedException;
+
+/**
+ * Watches pending snapshots and images with one background thread until they are completed. Every tick all watched snapshots and images are
+ * described with chunked DescribeSnapshots and DescribeImages requests in their regions, listeners are notified about snapshot progress and futures are
+ * completed when snapshot is completed or image is available, or failed when amazon gives up. Tick interval is minIntervalMillis while
+ * progress is changing and doubles up to maxIntervalMillis while nothing happens
+ */
+public class CompletionTracker extends BackgroundPoller {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(CompletionTracker.class);
+
+    public final static long DEFAULT_MIN_INTERVAL_MILLIS = 5000;
+    public final static long DEFAULT_MAX_INTERVAL_MILLIS = 60000;
+
+    /*
+     * Fresh snapshots and images may be invisible for a while, resource is reported as not existing only after this number of ticks
+     */
+    public final static int MAX_MISSES = 10;
+
+    private final Kind<Snapshot, Ec2Snapshot> snapshots = new Kind<Snapshot, Ec2Snapshot>() {
+
+        @Override
+        public Map<String, Snapshot> describe(AmazonEC2 ec2, List<String> ids) {
+            Map<String, Snapshot> described = new HashMap<String, Snapshot>();
+            // filter doesn't fail on unknown ids unlike withSnapshotIds(..), no owner as shared snapshots are tracked too
+            for (Snapshot snapshot : ec2.describeSnapshots(new DescribeSnapshotsRequest().withFilters(new Filter("snapshot-id", ids))).getSnapshots()) {
+                described.put(snapshot.getSnapshotId(), snapshot);
+            }
+            return described;
+        }
+
+        @Override
+        String stateOf(Snapshot model) {
+            return model.getState();
+        }
+
+        @Override
+        int progressOf(Snapshot model) {
+            String progress = model.getProgress();
+            if (progress == null) {
+                return -1;
+            }
+            progress = progress.trim();
+            if (progress.endsWith("%")) {
+                progress = progress.substring(0, progress.length() - 1);
+            }
+            try {
+                return Integer.parseInt(progress);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        @Override
+        boolean isCompleted(String state) {
+            return Ec2Snapshot.STATE_COMPLETED.equals(state);
+        }
+
+        @Override
+        boolean isFailed(String state) {
+            return Ec2Snapshot.STATE_ERROR.equals(state);
+        }
+    };
+
+    private final Kind<Image, Ec2Image> images = new Kind<Image, Ec2Image>() {
+
+        @Override
+        public Map<String, Image> describe(AmazonEC2 ec2, List<String> ids) {
+            Map<String, Image> described = new HashMap<String, Image>();
+            // filter doesn't fail on unknown ids unlike withImageIds(..), no owner as shared images are tracked too
+            for (Image image : ec2.describeImages(new DescribeImagesRequest().withFilters(new Filter("image-id", ids))).getImages()) {
+                described.put(image.getImageId(), image);
+            }
+            return described;
+        }
+
+        @Override
+        String stateOf(Image model) {
+            return model.getState();
+        }
+
+        @Override
+        int progressOf(Image model) {
+            return -1;
+        }
+
+        @Override
+        boolean isCompleted(String state) {
+            return Ec2Image.STATE_AVAILABLE.equals(state);
+        }
+
+        @Override
+        boolean isFailed(String state) {
+            return Ec2Image.STATE_FAILED.equals(state) || Ec2Image.STATE_DEREGISTERED.equals(state);
+        }
+    };
+
+    public CompletionTracker(Ec2Connector ec2Connector) {
+        this(ec2Connector, DEFAULT_MIN_INTERVAL_MILLIS, DEFAULT_MAX_INTERVAL_MILLIS);
+    }
+
+    public CompletionTracker(Ec2Connector ec2Connector, long minIntervalMillis, long maxIntervalMillis) {
+        super(ec2Connector, minIntervalMillis, maxIntervalMillis, "ec2-wrapper-completion-tracker");
+    }
+
+    /**
+     * Return future that completes when snapshot reaches state "completed". Future fails with ResourceFailedException if snapshot goes to
+     * error state, with ResourceDoesNotExistException if snapshot disappears and with IllegalStateException if tracker is already shut down
+     *
+     * @param snapshot
+     *            - snapshot to watch, its amazon model is updated on every tick
+     */
+    public Future<Ec2Snapshot> track(Ec2Snapshot snapshot) {
+        return track(snapshot, null);
+    }
+
+    /**
+     * Same as track(snapshot), listener is notified about every progress change and completion of snapshot
+     *
+     * @param listener
+     *            - listener or null
+     */
+    public synchronized Future<Ec2Snapshot> track(Ec2Snapshot snapshot, CompletionListener<Ec2Snapshot> listener) {
+        return watch(snapshots, snapshot, listener);
+    }
+
+    /**
+     * Return future that completes when image becomes available. Future fails with ResourceFailedException if image registration fails, with
+     * ResourceDoesNotExistException if image disappears and with IllegalStateException if tracker is already shut down
+     *
+     * @param image
+     *            - image to watch, its amazon model is updated on every tick
+     */
+    public Future<Ec2Image> track(Ec2Image image) {
+        return track(image, null);
+    }
+
+    /**
+     * Same as track(image), listener is notified about completion of image
+     *
+     * @param listener
+     *            - listener or null
+     */
+    public synchronized Future<Ec2Image> track(Ec2Image image, CompletionListener<Ec2Image> listener) {
+        return watch(images, image, listener);
+    }
+
+    /**
+     * Watch snapshots known only by ids, for example ones created by other process
+     *
+     * @return future of every snapshot by its id
+     */
+    public synchronized Map<String, Future<Ec2Snapshot>> trackSnapshots(Collection<String> snapshotIds, CompletionListener<Ec2Snapshot> listener) {
+        Map<String, Future<Ec2Snapshot>> futures = new LinkedHashMap<String, Future<Ec2Snapshot>>();
+        for (String id : snapshotIds) {
+            futures.put(id, watch(snapshots, new Ec2Snapshot(new Snapshot().withSnapshotId(id)), listener));
+        }
+        return futures;
+    }
+
+    /**
+     * Watch images known only by ids, for example ones registered by other process
+     *
+     * @return future of every image by its id
+     */
+    public synchronized Map<String, Future<Ec2Image>> trackImages(Collection<String> imageIds, CompletionListener<Ec2Image> listener) {
+        Map<String, Future<Ec2Image>> futures = new LinkedHashMap<String, Future<Ec2Image>>();
+        for (String id : imageIds) {
+            futures.put(id, watch(images, new Ec2Image(new Image().withImageId(id)), listener));
+        }
+        return futures;
+    }
+
+    /**
+     * Stop watching snapshot or image, waiting future is cancelled
+     */
+    public synchronized void untrack(Ec2Resource<?, ?> resource) {
+        Watch<?, ?> watch = resource instanceof Ec2Image ? images.watches.remove(resource.getId()) : snapshots.watches.remove(resource.getId());
+        if (watch != null) {
+            watch.future.cancel(false);
+        }
+    }
+
+    /**
+     * Number of watched snapshots and images
+     */
+    public synchronized int size() {
+        return snapshots.watches.size() + images.watches.size();
+    }
+
+    /**
+     * Stop polling, waiting futures are cancelled
+     */
+    public synchronized void shutdown() {
+        stop();
+        snapshots.cancelAll();
+        images.cancelAll();
+    }
+
+    private <T, O extends Ec2Resource<T, O>> Future<O> watch(Kind<T, O> kind, O resource, CompletionListener<O> listener) {
+        if (isStopped()) {
+            SettableFuture<O> future = new SettableFuture<O>();
+            future.fail(new IllegalStateException("Completion tracker is shut down"));
+            return future;
+        }
+        Watch<T, O> watch = kind.watches.get(resource.getId());
+        if (watch == null) {
+            watch = new Watch<T, O>(resource);
+            kind.watches.put(resource.getId(), watch);
+        }
+        if (listener != null) {
+            watch.listeners.add(listener);
+        }
+        wake();
+        return watch.future;
+    }
+
+    @Override
+    boolean isIdle() {
+        return snapshots.watches.isEmpty() && images.watches.isEmpty();
+    }
+
+    @Override
+    boolean poll(List<Runnable> notifications) {
+        List<Ec2Snapshot> watchedSnapshots;
+        List<Ec2Image> watchedImages;
+        synchronized (this) {
+            watchedSnapshots = snapshots.resources();
+            watchedImages = images.resources();
+        }
+        Set<String> polledSnapshots = new HashSet<String>();
+        Map<String, Snapshot> describedSnapshots = describeAll(watchedSnapshots, snapshots, polledSnapshots);
+        Set<String> polledImages = new HashSet<String>();
+        Map<String, Image> describedImages = describeAll(watchedImages, images, polledImages);
+        synchronized (this) {
+            boolean changed = snapshots.update(polledSnapshots, describedSnapshots, notifications);
+            changed |= images.update(polledImages, describedImages, notifications);
+            return changed;
+        }
+    }
+
+    /**
+     * Watched resources of one type and the way to describe them
+     */
+    private abstract static class Kind<T, O extends Ec2Resource<T, O>> implements Describer<T> {
+
+        final Map<String, Watch<T, O>> watches = new LinkedHashMap<String, Watch<T, O>>();
+
+        abstract String stateOf(T model);
+
+        /**
+         * Percent of completion or -1 if model doesn't report it
+         */
+        abstract int progressOf(T model);
+
+        abstract boolean isCompleted(String state);
+
+        abstract boolean isFailed(String state);
+
+        List<O> resources() {
+            List<O> resources = new ArrayList<O>();
+            for (Watch<T, O> watch : watches.values()) {
+                resources.add(watch.resource);
+            }
+            return resources;
+        }
+
+        /**
+         * Apply described models to watches, completed and failed watches are removed
+         *
+         * @return true if progress or state of any polled resource changed
+         */
+        boolean update(Set<String> polled, Map<String, T> described, List<Runnable> notifications) {
+            boolean changed = false;
+            for (Iterator<Watch<T, O>> iterator = watches.values().iterator(); iterator.hasNext();) {
+                Watch<T, O> watch = iterator.next();
+                String id = watch.resource.getId();
+                if (!polled.contains(id)) {
+                    continue;
+                }
+                T model = described.get(id);
+                if (model == null) {
+                    if (++watch.misses >= MAX_MISSES) {
+                        notifications.add(watch.failure(new ResourceDoesNotExistException(id)));
+                        iterator.remove();
+                    }
+                    continue;
+                }
+                watch.misses = 0;
+                watch.resource.doUpdate(model);
+                String state = stateOf(model);
+                int progress = progressOf(model);
+                if (isCompleted(state) && progress >= 0) {
+                    // amazon may report completed snapshot with stale progress
+                    progress = 100;
+                }
+                if (progress >= 0 && progress != watch.progress) {
+                    changed = true;
+                    notifications.add(watch.progress(watch.progress, progress));
+                    watch.progress = progress;
+                }
+                if (state != null && !state.equals(watch.state)) {
+                    changed = true;
+                    watch.state = state;
+                }
+                if (isCompleted(state)) {
+                    notifications.add(watch.completion());
+                    iterator.remove();
+                } else if (isFailed(state)) {
+                    notifications.add(watch.failure(new ResourceFailedException(id, state)));
+                    iterator.remove();
+                }
+            }
+            return changed;
+        }
+
+        void cancelAll() {
+            for (Watch<T, O> watch : watches.values()) {
+                watch.future.cancel(false);
+            }
+            watches.clear();
+        }
+    }
+
+    private static class Watch<T, O extends Ec2Resource<T, O>> {
+
+        private final O resource;
+        private final SettableFuture<O> future = new SettableFuture<O>();
+        private final List<CompletionListener<O>> listeners = new ArrayList<CompletionListener<O>>();
+        private String state;
+        private int progress = -1;
+        private int misses;
+
+        Watch(O resource) {
+            this.resource = resource;
+        }
+
+        Runnable progress(final int previousProgress, final int progress) {
+            final List<CompletionListener<O>> listeners = new ArrayList<CompletionListener<O>>(this.listeners);
+            return new Runnable() {
+
+                @Override
+                public void run() {
+                    for (CompletionListener<O> listener : listeners) {
+                        try {
+                            listener.progressChanged(resource, previousProgress, progress);
+                        } catch (RuntimeException e) {
+                            LOGGER.error(e.getMessage(), e);
+                        }
+                    }
+                }
+            };
+        }
+
+        Runnable completion() {
+            final List<CompletionListener<O>> listeners = new ArrayList<CompletionListener<O>>(this.listeners);
+            return new Runnable() {
+
+                @Override
+                public void run() {
+                    for (CompletionListener<O> listener : listeners) {
+                        try {
+                            listener.completed(resource);
+                        } catch (RuntimeException e) {
+                            LOGGER.error(e.getMessage(), e);
+                        }
+                    }
+                    future.set(resource);
+                }
+            };
+        }
+
+        Runnable failure(final Exception cause) {
+            final List<CompletionListener<O>> listeners = new ArrayList<CompletionListener<O>>(this.listeners);
+            return new Runnable() {
+
+                @Override
+                public void run() {
+                    for (CompletionListener<O> listener : listeners) {
+                        try {
+                            listener.failed(resource, cause);
+                        } catch (RuntimeException e) {
+                            LOGGER.error(e.getMessage(), e);
+                        }
+                    }
+                    future.fail(cause);
+                }
+            };
+        }
+    }
+
+}
@@ -0,0 +1,216 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.amazonaws.services.ec2.model.Filter;
+
+/**
+ * Condition of typed query. Conditions that amazon can evaluate are sent as describe filters, others are evaluated locally for every found
+ * resource. Equality follows amazon filter semantics wherever it is evaluated: "*" matches any characters, "?" matches one character and
+ * backslash escapes them, so condition means the same when it is sent to amazon and when it is evaluated locally
+ *
+ * @param <O>
+ *            - resource class
+ */
+public abstract class Condition<O> {
+
+    /**
+     * Evaluate condition locally
+     */
+    public abstract boolean matches(O resource);
+
+    /**
+     * Return amazon filter equal to this condition, null if amazon can't evaluate it
+     */
+    Filter toFilter() {
+        return null;
+    }
+
+    /**
+     * Attribute has one of values
+     */
+    public static <O> Condition<O> equalTo(final Attribute<O> attribute, String... values) {
+        return new EqualTo<O>(attribute, Arrays.asList(values));
+    }
+
+    /**
+     * Condition is false, always evaluated locally
+     */
+    public static <O> Condition<O> not(final Condition<O> condition) {
+        return new Condition<O>() {
+
+            @Override
+            public boolean matches(O resource) {
+                return !condition.matches(resource);
+            }
+
+            @Override
+            public String toString() {
+                return "not(" + condition + ")";
+            }
+        };
+    }
+
+    /**
+     * Any of conditions is true. Sent to amazon only if all conditions are equalities of the same attribute
+     */
+    public static <O> Condition<O> anyOf(List<Condition<O>> anyOf) {
+        final List<Condition<O>> conditions = new ArrayList<Condition<O>>(anyOf);
+        return new Condition<O>() {
+
+            @Override
+            public boolean matches(O resource) {
+                for (Condition<O> condition : conditions) {
+                    if (condition.matches(resource)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            Filter toFilter() {
+                List<String> values = new ArrayList<String>();
+                String name = null;
+                for (Condition<O> condition : conditions) {
+                    Filter filter = condition.toFilter();
+                    if (filter == null || (name != null && !name.equals(filter.getName()))) {
+                        return null;
+                    }
+                    name = filter.getName();
+                    values.addAll(filter.getValues());
+                }
+                return name == null ? null : new Filter(name, values);
+            }
+
+            @Override
+            public String toString() {
+                return "anyOf" + conditions;
+            }
+        };
+    }
+
+    /**
+     * Numeric attribute is between min and max inclusive, always evaluated locally. Resources without the attribute don't match
+     */
+    public static <O> Condition<O> between(final Attribute<O> attribute, final double min, final double max) {
+        return new Condition<O>() {
+
+            @Override
+            public boolean matches(O resource) {
+                for (String value : attribute.valuesOf(resource)) {
+                    double number = parse(value);
+                    if (number >= min && number <= max) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public String toString() {
+                return attribute + " between " + min + " and " + max;
+            }
+        };
+    }
+
+    /*
+     * Numeric value of attribute, amazon returns some numbers with units, for example snapshot progress "45%"
+     */
+    private static double parse(String value) {
+        String number = value.endsWith("%") ? value.substring(0, value.length() - 1) : value;
+        try {
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static class EqualTo<O> extends Condition<O> {
+
+        private final Attribute<O> attribute;
+
+        private final Set<String> values;
+
+        /*
+         * Values without wildcards, compared exactly
+         */
+        private final Set<String> exact = new HashSet<String>();
+
+        private final List<String> patterns = new ArrayList<String>();
+
+        EqualTo(Attribute<O> attribute, List<String> values) {
+            this.attribute = attribute;
+            this.values = new LinkedHashSet<String>(values);
+            for (String value : this.values) {
+                if (value.indexOf('*') < 0 && value.indexOf('?') < 0 && value.indexOf('\\') < 0) {
+                    exact.add(value);
+                } else {
+                    patterns.add(value);
+                }
+            }
+        }
+
+        @Override
+        public boolean matches(O resource) {
+            for (String value : attribute.valuesOf(resource)) {
+                if (exact.contains(value)) {
+                    return true;
+                }
+                for (String pattern : patterns) {
+                    if (wildcardMatch(pattern, 0, value, 0)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private static boolean wildcardMatch(String pattern, int p, String value, int v) {
+            while (p < pattern.length()) {
+                char c = pattern.charAt(p);
+                if (c == '*') {
+                    for (int i = v; i <= value.length(); i++) {
+                        if (wildcardMatch(pattern, p + 1, value, i)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+                if (c == '\\' && p + 1 < pattern.length()) {
+                    // escaped "*", "?" or backslash is literal
+                    c = pattern.charAt(++p);
+                } else if (c == '?') {
+                    if (v >= value.length()) {
+                        return false;
+                    }
+                    p++;
+                    v++;
+                    continue;
+                }
+                if (v >= value.length() || c != value.charAt(v)) {
+                    return false;
+                }
+                p++;
+                v++;
+            }
+            return v == value.length();
+        }
+
+        @Override
+        Filter toFilter() {
+            return attribute.getFilterName() == null ? null : new Filter(attribute.getFilterName(), new ArrayList<String>(values));
+        }
+
+        @Override
+        public String toString() {
+            return attribute + " in " + values;
+        }
+    }
+
+}
@@ -1,7 +1,11 @@
 package com.amazonaws.wrapper.model;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import org.slf4j.Logger;
@@ -20,6 +24,9 @@ import com.amazonaws.services.ec2.model.DescribeAddressesResult;
 import com.amazonaws.services.ec2.model.DisassociateAddressRequest;
 import com.amazonaws.services.ec2.model.Filter;
 import com.amazonaws.services.ec2.model.ReleaseAddressRequest;
+import com.amazonaws.services.ec2.model.Tag;
+import com.amazonaws.wrapper.events.ResourceVisitor;
+import com.amazonaws.wrapper.exception.AmazonErrors;
 import com.amazonaws.wrapper.exception.ResourceDoesNotExistException;
 
 /**
@@ -86,6 +93,35 @@ public class Ec2ElasticIP extends Ec2Resource<Address, Ec2ElasticIP> {
         return getResource().getPublicIp();
     }
 
+    @Override
+    protected Ec2ElasticIP wrap(Address model) {
+        return new Ec2ElasticIP(model);
+    }
+
+    @Override
+    protected String getModelId(Address model) {
+        return model.getPublicIp();
+    }
+
+    /**
+     * Return typed query of elastic IPs, describe requests are sent with connector and region of this resource
+     */
+    public ElasticIpQuery query() {
+        return new ElasticIpQuery(this);
+    }
+
+    @Override
+    protected List<Tag> getResourceTags() {
+        // amazon doesn't support tags for addresses
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<Ec2ElasticIP> getNotTagged(String name, String value) {
+        // model of address has no tags, so tags are matched by amazon
+        return value == null ? getNotFiltered("tag-key", name) : getNotFiltered("tag:" + name, value);
+    }
+
     @Override
     protected AmazonWebServiceRequest applyFiltersForRequest(Filter... filters) {
         return new DescribeAddressesRequest().withFilters(filters);
@@ -93,12 +129,19 @@ public class Ec2ElasticIP extends Ec2Resource<Address, Ec2ElasticIP> {
 
     @Override
     protected List<Ec2ElasticIP> processDescribe(AmazonEC2 amazonEC2, AmazonWebServiceRequest request) {
-        List<Ec2ElasticIP> acmElasticIPs = new ArrayList<Ec2ElasticIP>();
+        DescribeAddressesResult result = amazonEC2.describeAddresses(((DescribeAddressesRequest) request));
+        return lazyList(result.getAddresses());
+    }
+
+    @Override
+    protected boolean processDescribe(AmazonEC2 amazonEC2, AmazonWebServiceRequest request, ResourceVisitor<Ec2ElasticIP> visitor) {
         DescribeAddressesResult result = amazonEC2.describeAddresses(((DescribeAddressesRequest) request));
         for (Address address : result.getAddresses()) {
-            acmElasticIPs.add(new Ec2ElasticIP(address));
+            if (!visitor.visit(new Ec2ElasticIP(address))) {
+                return false;
+            }
         }
-        return acmElasticIPs;
+        return true;
     }
 
     @Override
@@ -106,11 +149,26 @@ public class Ec2ElasticIP extends Ec2Resource<Address, Ec2ElasticIP> {
         try {
             DescribeAddressesResult result = getEc2().describeAddresses(new DescribeAddressesRequest().withPublicIps(getId()));
             return result.getAddresses().get(0);
-        } catch (Exception ex) {
+        } catch (AmazonServiceException ex) {
+            if (!AmazonErrors.isNotFound(ex)) {
+                throw ex;
+            }
+            throw new ResourceDoesNotExistException(getId(), ex);
+        } catch (IndexOutOfBoundsException ex) {
             throw new ResourceDoesNotExistException(getId());
         }
     }
 
+    @Override
+    protected Map<String, Address> processDescribe(Collection<String> ids) {
+        Map<String, Address> addresses = new HashMap<String, Address>();
+        DescribeAddressesResult result = getEc2().describeAddresses(new DescribeAddressesRequest().withPublicIps(ids));
+        for (Address address : result.getAddresses()) {
+            addresses.put(address.getPublicIp(), address);
+        }
+        return addresses;
+    }
+
     public boolean isAssociated() {
         String instanceId = getResource().getInstanceId();
         return !(instanceId == null || instanceId.equals(""));
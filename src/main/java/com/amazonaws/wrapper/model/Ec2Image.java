@@ -1,9 +1,12 @@
 package com.amazonaws.wrapper.model;
 
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.AmazonWebServiceRequest;
 import com.amazonaws.services.ec2.AmazonEC2;
 import com.amazonaws.services.ec2.model.DeregisterImageRequest;
@@ -11,12 +14,20 @@ import com.amazonaws.services.ec2.model.DescribeImagesRequest;
 import com.amazonaws.services.ec2.model.DescribeImagesResult;
 import com.amazonaws.services.ec2.model.Filter;
 import com.amazonaws.services.ec2.model.Image;
+import com.amazonaws.services.ec2.model.Tag;
+import com.amazonaws.wrapper.events.ResourceVisitor;
+import com.amazonaws.wrapper.exception.AmazonErrors;
 import com.amazonaws.wrapper.exception.ResourceDoesNotExistException;
 
 import org.checkerframework.checker.objectconstruction.qual.CalledMethodsPredicate;
 
 public class Ec2Image extends Ec2Resource<Image, Ec2Image> {
 
+    public static final String STATE_PENDING = "pending";
+    public static final String STATE_AVAILABLE = "available";
+    public static final String STATE_FAILED = "failed";
+    public static final String STATE_DEREGISTERED = "deregistered";
+
     public Ec2Image(Image image) {
         super(image);
     }
@@ -46,6 +57,28 @@ public class Ec2Image extends Ec2Resource<Image, Ec2Image> {
         return getResource().getImageId();
     }
 
+    @Override
+    protected Ec2Image wrap(Image model) {
+        return new Ec2Image(model);
+    }
+
+    @Override
+    protected String getModelId(Image model) {
+        return model.getImageId();
+    }
+
+    /**
+     * Return typed query of images, describe requests are sent with connector and region of this resource
+     */
+    public ImageQuery query() {
+        return new ImageQuery(this);
+    }
+
+    @Override
+    protected List<Tag> getResourceTags() {
+        return getResource().getTags();
+    }
+
     @Override
     protected AmazonWebServiceRequest applyFiltersForRequest(Filter... filters) {
         return new DescribeImagesRequest().withFilters(filters);
@@ -53,12 +86,19 @@ public class Ec2Image extends Ec2Resource<Image, Ec2Image> {
 
     @Override
     protected List<Ec2Image> processDescribe(AmazonEC2 amazonEC2, @CalledMethodsPredicate("(withOwners || setOwners) || (withImageIds || setImageIds) || (withExecutableUsers || setExecutableUsers)") AmazonWebServiceRequest request) {
-        List<Ec2Image> images = new ArrayList<Ec2Image>();
+        DescribeImagesResult result = amazonEC2.describeImages(((DescribeImagesRequest) request));
+        return lazyList(result.getImages());
+    }
+
+    @Override
+    protected boolean processDescribe(AmazonEC2 amazonEC2, @CalledMethodsPredicate("(withOwners || setOwners) || (withImageIds || setImageIds) || (withExecutableUsers || setExecutableUsers)") AmazonWebServiceRequest request, ResourceVisitor<Ec2Image> visitor) {
         DescribeImagesResult result = amazonEC2.describeImages(((DescribeImagesRequest) request));
         for (Image image : result.getImages()) {
-            images.add(new Ec2Image(image));
+            if (!visitor.visit(new Ec2Image(image))) {
+                return false;
+            }
         }
-        return images;
+        return true;
     }
 
     @Override
@@ -66,13 +106,38 @@ public class Ec2Image extends Ec2Resource<Image, Ec2Image> {
         try {
             DescribeImagesResult result = getEc2().describeImages(new DescribeImagesRequest().withImageIds(getId()));
             return result.getImages().get(0);
-        } catch (Exception ex) {
+        } catch (AmazonServiceException ex) {
+            if (!AmazonErrors.isNotFound(ex)) {
+                throw ex;
+            }
+            throw new ResourceDoesNotExistException(getId(), ex);
+        } catch (IndexOutOfBoundsException ex) {
             throw new ResourceDoesNotExistException(getId());
         }
     }
 
+    @Override
+    protected Map<String, Image> processDescribe(Collection<String> ids) {
+        Map<String, Image> images = new HashMap<String, Image>();
+        DescribeImagesResult result = getEc2().describeImages(new DescribeImagesRequest().withImageIds(ids));
+        for (Image image : result.getImages()) {
+            images.put(image.getImageId(), image);
+        }
+        return images;
+    }
+
     public String getState() throws ResourceDoesNotExistException {
-        refresh();
+        return getState(ReadConsistency.STRONG);
+    }
+
+    /**
+     * Return state refreshed from amazon only if it is older than consistency allows
+     * 
+     * @param consistency
+     *            - acceptable age of state
+     */
+    public String getState(ReadConsistency consistency) throws ResourceDoesNotExistException {
+        refresh(consistency);
         return getResource().getState();
     }
 
@@ -3,20 +3,29 @@ package com.amazonaws.wrapper.model;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.AmazonWebServiceRequest;
 import com.amazonaws.services.ec2.AmazonEC2;
 import com.amazonaws.services.ec2.model.AuthorizeSecurityGroupIngressRequest;
 import com.amazonaws.services.ec2.model.BlockDeviceMapping;
 import com.amazonaws.services.ec2.model.CreateImageRequest;
 import com.amazonaws.services.ec2.model.CreateImageResult;
+import com.amazonaws.services.ec2.model.CreateTagsRequest;
 import com.amazonaws.services.ec2.model.DescribeInstancesRequest;
 import com.amazonaws.services.ec2.model.DescribeInstancesResult;
 import com.amazonaws.services.ec2.model.DescribeSecurityGroupsRequest;
@@ -34,7 +43,14 @@ import com.amazonaws.services.ec2.model.StopInstancesRequest;
 import com.amazonaws.services.ec2.model.Tag;
 import com.amazonaws.services.ec2.model.TerminateInstancesRequest;
 import com.amazonaws.wrapper.events.ResourceDeleteHandler;
+import com.amazonaws.wrapper.events.ResourceVisitor;
+import com.amazonaws.wrapper.exception.AmazonErrors;
 import com.amazonaws.wrapper.exception.ResourceDoesNotExistException;
+import com.amazonaws.wrapper.metrics.InMemoryMetrics;
+import com.amazonaws.wrapper.metrics.Metrics;
+import com.amazonaws.wrapper.metrics.MetricsRegistry;
+import com.amazonaws.wrapper.metrics.Outcome;
+import com.amazonaws.wrapper.metrics.TimerSnapshot;
 
 /**
  * Wrapper for amazon ec2 Instance
@@ -139,6 +155,55 @@ public class Ec2Instance extends Ec2Resource<Instance, Ec2Instance> {
 
     private RunInstancesResult createResult;
 
+    /*
+     * Fleet launch: max instances requested by one RunInstances request and tag shared by all instances of fleet
+     */
+    public final static int MAX_INSTANCES_PER_LAUNCH = 100;
+    public final static String FLEET_TAG = "fleet";
+
+    /*
+     * Tagging of just launched instance
+     */
+    static final int TAG_MAX_ATTEMPTS = 10;
+    static final long TAG_BASE_BACKOFF_MILLIS = 100;
+    static final long TAG_MAX_BACKOFF_MILLIS = 5000;
+
+    /*
+     * Timer of time between launch and Name tag in MetricsRegistry
+     */
+    public final static String LAUNCH_TO_TAGGED_TIMER = "wrapper.launch_to_tagged";
+
+    private final static Random TAG_RANDOM = new Random();
+
+    private volatile Future<Boolean> nameTagging;
+
+    private volatile long launchToTaggedMillis = -1;
+
+    /*
+     * Shared poller for waitForServerBoot(), null - every instance polls itself
+     */
+    private static volatile InstanceStatePoller statePoller;
+
+    /*
+     * Local inventory for lookups by ip, DNS and subnet, null - every lookup asks amazon
+     */
+    private static volatile InstanceInventory inventory;
+
+    /*
+     * Instances read by static isRunning(..)/isStopped(..), remembered wrappers are never refreshed, stale ones are replaced by fresh ones
+     */
+    static final int MAX_RECENT_INSTANCES = 10000;
+
+    private final static Map<String, Ec2Instance> RECENT_INSTANCES = new LinkedHashMap<String, Ec2Instance>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = -2281745117893502338L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Ec2Instance> eldest) {
+            return size() > MAX_RECENT_INSTANCES;
+        }
+    };
+
     /*
      * Volumes attach points and snapshots id for it
      */
@@ -206,48 +271,364 @@ public class Ec2Instance extends Ec2Resource<Instance, Ec2Instance> {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     protected void doCreateRequest(AmazonEC2 ec2, String description, Properties props, AdapterSettings settings) {
         this.settings = settings;
         if (getId().contains("ami-")) {
-            RunInstancesRequest request = new RunInstancesRequest().withInstanceType(props.getProperty(INIT_INSTANCE_TYPE, INSTANCE_TYPE_EXTRA_LARGE))
-                    .withSecurityGroupIds(props.getProperty(INIT_SEC_GROUP, "")).withImageId(getId());
-            if (!props.getProperty(INIT_PRIVATE_IP, "").trim().equals("")) {
-                request.withPrivateIpAddress(props.getProperty(INIT_PRIVATE_IP, ""));
-            }
-            request.withKeyName(props.getProperty(INIT_KEY_NAME, "common")).withSubnetId(props.getProperty(INIT_SUB_NET_ID, "")).withMaxCount(1)
-                    .withMinCount(1);
-            if (props.containsKey(INIT_BLOCK_DEVICE_MAP)) {
-                request.setBlockDeviceMappings((Collection<BlockDeviceMapping>) props.get("block-device-mapping"));
-            }
-            if (attachVolume.size() > 0) {
-                Collection<BlockDeviceMapping> blockDeviceMappings = new ArrayList<BlockDeviceMapping>();
-                for (String attachPoint : attachVolume.keySet()) {
-                    BlockDeviceMapping blockDeviceMapping = new BlockDeviceMapping();
-                    EbsBlockDevice blockDevice = new EbsBlockDevice();
-                    blockDevice.setDeleteOnTermination(true);
-                    blockDevice.setSnapshotId(attachVolume.get(attachPoint));
-                    blockDeviceMapping.setEbs(blockDevice);
-                    blockDeviceMapping.setDeviceName(attachPoint);
-                    blockDeviceMappings.add(blockDeviceMapping);
-                }
-                request.withBlockDeviceMappings(blockDeviceMappings);
-            }
+            RunInstancesRequest request = launchRequest(props).withMaxCount(1).withMinCount(1);
             RunInstancesResult result = ec2.runInstances(request);
             this.createResult = result;
             doUpdate(result.getReservation().getInstances().get(0));
-            try {
-                Thread.sleep(5000);
-                //will mark all started jobs with prefix
-                addTag("Name", getInstancePrefix() + description);
-            } catch (Exception e) {
-                // TODO: handle exception
-            }
+            //will mark all started jobs with prefix
+            nameTagging = tagInBackground("Name", getInstancePrefix() + description);
             // clean resources:
             attachVolume.clear();
         }
     }
 
+    /**
+     * Build RunInstances request of this template (AMI id, properties and snapshots attached by atttachSnapshot(..)) without instance counts
+     */
+    @SuppressWarnings("unchecked")
+    private RunInstancesRequest launchRequest(Properties props) {
+        RunInstancesRequest request = new RunInstancesRequest().withInstanceType(props.getProperty(INIT_INSTANCE_TYPE, INSTANCE_TYPE_EXTRA_LARGE))
+                .withSecurityGroupIds(props.getProperty(INIT_SEC_GROUP, "")).withImageId(getId());
+        if (!props.getProperty(INIT_PRIVATE_IP, "").trim().equals("")) {
+            request.withPrivateIpAddress(props.getProperty(INIT_PRIVATE_IP, ""));
+        }
+        request.withKeyName(props.getProperty(INIT_KEY_NAME, "common")).withSubnetId(props.getProperty(INIT_SUB_NET_ID, ""));
+        if (props.containsKey(INIT_BLOCK_DEVICE_MAP)) {
+            request.setBlockDeviceMappings((Collection<BlockDeviceMapping>) props.get("block-device-mapping"));
+        }
+        if (attachVolume.size() > 0) {
+            Collection<BlockDeviceMapping> blockDeviceMappings = new ArrayList<BlockDeviceMapping>();
+            for (String attachPoint : attachVolume.keySet()) {
+                BlockDeviceMapping blockDeviceMapping = new BlockDeviceMapping();
+                EbsBlockDevice blockDevice = new EbsBlockDevice();
+                blockDevice.setDeleteOnTermination(true);
+                blockDevice.setSnapshotId(attachVolume.get(attachPoint));
+                blockDeviceMapping.setEbs(blockDevice);
+                blockDeviceMapping.setDeviceName(attachPoint);
+                blockDeviceMappings.add(blockDeviceMapping);
+            }
+            request.withBlockDeviceMappings(blockDeviceMappings);
+        }
+        return request;
+    }
+
+    /**
+     * Launch count identical instances from this template, see launchFleet(minCount, maxCount, maxPerRequest, props, description)
+     */
+    public List<Ec2Instance> launchFleet(int count, Properties props, String description) {
+        return launchFleet(count, count, MAX_INSTANCES_PER_LAUNCH, props, description);
+    }
+
+    /**
+     * Launch fleet of identical instances from this template (its id is AMI id) with few RunInstances requests, each of them launches up to
+     * maxPerRequest instances. Launch stops when amazon launches less instances than requested. If launch fails before minCount instances are
+     * running, already launched instances are terminated, if it fails later the partial fleet is returned. Instances get FLEET_TAG with prefixed description and Name with indexed suffix
+     * ("description-1", "description-2", ...), tags are added in background, see getNameTagging() of every instance
+     * 
+     * @param minCount
+     *            - min number of instances, less is failure
+     * @param maxCount
+     *            - max number of instances
+     * @param maxPerRequest
+     *            - max number of instances requested by one RunInstances request
+     * @param props
+     *            - properties as for create(..)
+     * @param description
+     *            - description of instances, base of their names
+     * @return launched instances in launch order
+     */
+    public List<Ec2Instance> launchFleet(int minCount, int maxCount, int maxPerRequest, Properties props, String description) {
+        if (getId() == null || !getId().contains("ami-")) {
+            throw new IllegalArgumentException("Fleet template must have AMI id, but has " + getId());
+        }
+        if (minCount < 1 || maxCount < minCount || maxPerRequest < 1) {
+            throw new IllegalArgumentException("Invalid fleet size: min " + minCount + ", max " + maxCount + ", per request " + maxPerRequest);
+        }
+        long start = System.nanoTime();
+        Outcome outcome = Outcome.SUCCESS;
+        List<Ec2Instance> fleet = new ArrayList<Ec2Instance>();
+        try {
+            if (getCreateHandler() != null && !getCreateHandler().beforeCreate(this, getSettings().isEmulation())) {
+                return fleet;
+            }
+            this.settings = getSettings();
+            String name = getInstancePrefix() + description;
+            AmazonEC2 ec2 = getEc2();
+            try {
+                while (fleet.size() < maxCount) {
+                    int requested = Math.min(maxPerRequest, maxCount - fleet.size());
+                    int required = Math.max(1, Math.min(requested, minCount - fleet.size()));
+                    RunInstancesRequest request = launchRequest(props).withMinCount(required).withMaxCount(requested);
+                    List<Instance> launched = ec2.runInstances(request).getReservation().getInstances();
+                    for (Instance instance : launched) {
+                        Ec2Instance member = wrap(instance);
+                        member.setRegion(getRegion());
+                        fleet.add(member);
+                    }
+                    LOGGER.info("======> Launched " + launched.size() + " of " + requested + " requested instances of " + getId());
+                    if (launched.size() < requested) {
+                        break;
+                    }
+                }
+            } catch (RuntimeException exception) {
+                if (fleet.size() < minCount) {
+                    throw exception;
+                }
+                LOGGER.error("Fleet launch stopped after " + fleet.size() + " instances: " + exception.getMessage());
+                outcome = Outcome.PARTIAL;
+            }
+            if (!afterFleetLaunch(fleet, name)) {
+                outcome = Outcome.PARTIAL;
+            }
+            return fleet;
+        } catch (RuntimeException exception) {
+            outcome = Outcome.of(exception);
+            if (!fleet.isEmpty()) {
+                LOGGER.error("Fleet launch failed after " + fleet.size() + " instances, terminating them: " + exception.getMessage());
+                terminateLaunched(fleet);
+            }
+            if (getCreateHandler() != null) {
+                getCreateHandler().afterThrow(this, exception);
+            }
+            throw exception;
+        } finally {
+            recordOperation("launch_fleet", start, outcome);
+        }
+    }
+
+    /*
+     * Post-launch steps of full and partial fleet, every step runs even if previous one failed
+     * 
+     * @return false if tagging or create handler failed for some instance
+     */
+    private boolean afterFleetLaunch(List<Ec2Instance> fleet, String name) {
+        boolean done = true;
+        attachVolume.clear();
+        invalidateDescribeCache();
+        try {
+            tagFleet(fleet, name);
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to tag fleet " + idsOf(fleet) + ": " + e.getMessage(), e);
+            done = false;
+        }
+        if (getCreateHandler() != null) {
+            for (Ec2Instance member : fleet) {
+                try {
+                    getCreateHandler().afterCreate(member);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Create handler failed for fleet instance " + member.getId() + ": " + e.getMessage(), e);
+                    done = false;
+                }
+            }
+        }
+        return done;
+    }
+
+    private void terminateLaunched(List<Ec2Instance> fleet) {
+        try {
+            for (List<String> ids : chunks(idsOf(fleet), MAX_IDS_PER_REQUEST)) {
+                getEc2().terminateInstances(new TerminateInstancesRequest().withInstanceIds(ids));
+            }
+            invalidateDescribeCache();
+        } catch (AmazonServiceException e) {
+            LOGGER.error("Unable to terminate partially launched fleet " + idsOf(fleet) + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Tags fleet in background. FLEET_TAG is the same for all instances, so it is added with one CreateTags request per MAX_IDS_PER_REQUEST
+     * instances, retried while fresh instances are not visible. CreateTags can't set different values in one request, so Name tags with indexed
+     * suffix are sent after that in parallel, without retries as instances are already visible
+     */
+    private void tagFleet(final List<Ec2Instance> fleet, final String name) {
+        final long launchedAt = System.currentTimeMillis();
+        final List<SettableFuture<Boolean>> tagged = new ArrayList<SettableFuture<Boolean>>();
+        for (Ec2Instance member : fleet) {
+            SettableFuture<Boolean> future = new SettableFuture<Boolean>();
+            member.nameTagging = future;
+            tagged.add(future);
+        }
+        try {
+            submitFleetTagging(fleet, name, tagged, launchedAt);
+        } catch (RuntimeException e) {
+            for (SettableFuture<Boolean> future : tagged) {
+                future.set(false);
+            }
+            throw e;
+        }
+    }
+
+    private void submitFleetTagging(final List<Ec2Instance> fleet, final String name, final List<SettableFuture<Boolean>> tagged,
+            final long launchedAt) {
+        submit(new Callable<Object>() {
+
+            @Override
+            public Object call() {
+                if (!tagVisible(idsOf(fleet), new Tag(FLEET_TAG, name))) {
+                    for (SettableFuture<Boolean> future : tagged) {
+                        future.set(false);
+                    }
+                    return null;
+                }
+                for (int i = 0; i < fleet.size(); i++) {
+                    final Ec2Instance member = fleet.get(i);
+                    final SettableFuture<Boolean> future = tagged.get(i);
+                    final String indexed = name + "-" + (i + 1);
+                    try {
+                        submit(new Callable<Object>() {
+
+                            @Override
+                            public Object call() {
+                                try {
+                                    getEc2().createTags(new CreateTagsRequest().withResources(member.getId()).withTags(new Tag("Name", indexed)));
+                                    member.launchToTaggedMillis = System.currentTimeMillis() - launchedAt;
+                                    recordLaunchToTagged(member.launchToTaggedMillis);
+                                    future.set(true);
+                                } catch (RuntimeException e) {
+                                    LOGGER.warn("Unable to name instance " + member.getId() + ": " + e.getMessage());
+                                    future.set(false);
+                                }
+                                return null;
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Unable to schedule naming of instance " + member.getId() + ": " + e.getMessage());
+                        future.set(false);
+                    }
+                }
+                invalidateDescribeCache();
+                return null;
+            }
+        });
+    }
+
+    /*
+     * Add tag to just launched instances, retried with backoff while amazon answers "not found"
+     */
+    private boolean tagVisible(List<String> ids, Tag tag) {
+        for (List<String> chunk : chunks(ids, MAX_IDS_PER_REQUEST)) {
+            boolean done = false;
+            for (int attempt = 0; !done && attempt < TAG_MAX_ATTEMPTS; attempt++) {
+                try {
+                    getEc2().createTags(new CreateTagsRequest().withResources(chunk).withTags(tag));
+                    done = true;
+                } catch (AmazonServiceException e) {
+                    if (!AmazonErrors.isNotFound(e)) {
+                        LOGGER.warn("Unable to tag fleet: " + e.getMessage());
+                        return false;
+                    }
+                    try {
+                        Thread.sleep(tagBackoff(attempt));
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }
+            }
+            if (!done) {
+                LOGGER.warn("Fleet is not visible for tagging after " + TAG_MAX_ATTEMPTS + " attempts");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tags just launched instance in background. Fresh instance is not visible to CreateTags for some time, so request is retried with exponential
+     * backoff while amazon answers "not found"
+     * 
+     * @return future that becomes true when tag is added, false if instance wasn't tagged
+     */
+    private Future<Boolean> tagInBackground(final String name, final String value) {
+        final long launchedAt = System.currentTimeMillis();
+        return submit(new Callable<Boolean>() {
+
+            @Override
+            public Boolean call() {
+                for (int attempt = 0; attempt < TAG_MAX_ATTEMPTS; attempt++) {
+                    try {
+                        addTag(name, value);
+                        launchToTaggedMillis = System.currentTimeMillis() - launchedAt;
+                        recordLaunchToTagged(launchToTaggedMillis);
+                        LOGGER.debug("Instance " + getId() + " tagged " + launchToTaggedMillis + " ms after launch");
+                        return true;
+                    } catch (AmazonServiceException e) {
+                        if (!AmazonErrors.isNotFound(e)) {
+                            LOGGER.warn("Unable to tag instance " + getId() + ": " + e.getMessage());
+                            return false;
+                        }
+                    }
+                    try {
+                        Thread.sleep(tagBackoff(attempt));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }
+                LOGGER.warn("Instance " + getId() + " is not visible for tagging after " + TAG_MAX_ATTEMPTS + " attempts");
+                return false;
+            }
+        });
+    }
+
+    /*
+     * "Full jitter" backoff: random delay up to 100ms * 2^attempt, but not more than 5 seconds
+     */
+    private static long tagBackoff(int attempt) {
+        long max = Math.min(TAG_MAX_BACKOFF_MILLIS, TAG_BASE_BACKOFF_MILLIS << attempt);
+        return (long) (TAG_RANDOM.nextDouble() * max);
+    }
+
+    private static void recordLaunchToTagged(long millis) {
+        MetricsRegistry.getMetrics().recordTime(LAUNCH_TO_TAGGED_TIMER, TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private static TimerSnapshot launchToTagged() {
+        Metrics metrics = MetricsRegistry.getMetrics();
+        return metrics instanceof InMemoryMetrics ? ((InMemoryMetrics) metrics).getTimer(LAUNCH_TO_TAGGED_TIMER) : null;
+    }
+
+    /**
+     * Return future of Name tag of instance launched by create(..), it becomes true when tag is added
+     * 
+     * @return future or null if this instance wasn't launched by this object
+     */
+    public Future<Boolean> getNameTagging() {
+        return nameTagging;
+    }
+
+    /**
+     * Return time between launch and tagging of this instance
+     * 
+     * @return milliseconds or -1 if this instance is not tagged yet
+     */
+    public long getLaunchToTaggedMillis() {
+        return launchToTaggedMillis;
+    }
+
+    /**
+     * Return average time between launch and tagging of instances launched by this process, read from LAUNCH_TO_TAGGED_TIMER
+     * 
+     * @return milliseconds or 0 if there was no tagged launches or metrics are not kept in memory
+     */
+    public static long getAverageLaunchToTaggedMillis() {
+        TimerSnapshot timer = launchToTagged();
+        return timer == null ? 0 : TimeUnit.NANOSECONDS.toMillis(timer.getMeanNanos());
+    }
+
+    /**
+     * Return max time between launch and tagging of instances launched by this process, read from LAUNCH_TO_TAGGED_TIMER
+     * 
+     * @return milliseconds or 0 if there was no tagged launches or metrics are not kept in memory
+     */
+    public static long getMaxLaunchToTaggedMillis() {
+        TimerSnapshot timer = launchToTagged();
+        return timer == null ? 0 : TimeUnit.NANOSECONDS.toMillis(timer.getMaxNanos());
+    }
+
     private String getInstancePrefix() {
         String username = System.getenv("USERNAME") == null ? "" : System.getenv("USERNAME") + "_";
         return settings.getInstancePrefix().concat(username);
@@ -258,6 +639,28 @@ public class Ec2Instance extends Ec2Resource<Instance, Ec2Instance> {
         return getResource().getInstanceId();
     }
 
+    @Override
+    protected Ec2Instance wrap(Instance model) {
+        return new Ec2Instance(model);
+    }
+
+    @Override
+    protected String getModelId(Instance model) {
+        return model.getInstanceId();
+    }
+
+    /**
+     * Return typed query of instances, describe requests are sent with connector and region of this resource
+     */
+    public InstanceQuery query() {
+        return new InstanceQuery(this);
+    }
+
+    @Override
+    protected List<Tag> getResourceTags() {
+        return getResource().getTags();
+    }
+
     @Override
     protected AmazonWebServiceRequest applyFiltersForRequest(Filter... filters) {
         return new DescribeInstancesRequest().withFilters(filters);
@@ -265,14 +668,25 @@ public class Ec2Instance extends Ec2Resource<Instance, Ec2Instance> {
 
     @Override
     protected List<Ec2Instance> processDescribe(AmazonEC2 amazonEC2, AmazonWebServiceRequest request) {
-        List<Ec2Instance> instances = new ArrayList<Ec2Instance>();
+        List<Instance> instances = new ArrayList<Instance>();
+        DescribeInstancesResult result = amazonEC2.describeInstances((DescribeInstancesRequest) request);
+        for (Reservation reservation : result.getReservations()) {
+            instances.addAll(reservation.getInstances());
+        }
+        return lazyList(instances);
+    }
+
+    @Override
+    protected boolean processDescribe(AmazonEC2 amazonEC2, AmazonWebServiceRequest request, ResourceVisitor<Ec2Instance> visitor) {
         DescribeInstancesResult result = amazonEC2.describeInstances((DescribeInstancesRequest) request);
         for (Reservation reservation : result.getReservations()) {
             for (Instance instance : reservation.getInstances()) {
-                instances.add(new Ec2Instance(instance));
+                if (!visitor.visit(new Ec2Instance(instance))) {
+                    return false;
+                }
             }
         }
-        return instances;
+        return true;
     }
 
     @Override
@@ -281,13 +695,29 @@ public class Ec2Instance extends Ec2Resource<Instance, Ec2Instance> {
             DescribeInstancesResult result = getEc2().describeInstances(new DescribeInstancesRequest().withInstanceIds(getId()));
             List<Reservation> reservations = result.getReservations();
             return reservations.get(0).getInstances().get(0);
-        } catch (Exception e) {
-            LOGGER.warn(e.getMessage());
+        } catch (AmazonServiceException e) {
+            if (!AmazonErrors.isNotFound(e)) {
+                throw e;
+            }
+            throw new ResourceDoesNotExistException(getId(), e);
+        } catch (IndexOutOfBoundsException e) {
             throw new ResourceDoesNotExistException(getId());
         }
 
     }
 
+    @Override
+    protected Map<String, Instance> processDescribe(Collection<String> ids) {
+        Map<String, Instance> instances = new HashMap<String, Instance>();
+        DescribeInstancesResult result = getEc2().describeInstances(new DescribeInstancesRequest().withInstanceIds(ids));
+        for (Reservation reservation : result.getReservations()) {
+            for (Instance instance : reservation.getInstances()) {
+                instances.put(instance.getInstanceId(), instance);
+            }
+        }
+        return instances;
+    }
+
     /**
      * Return all instances running in provided sub-network
      * 
@@ -296,6 +726,10 @@ public class Ec2Instance extends Ec2Resource<Instance, Ec2Instance> {
      * @return
      */
     public static List<Ec2Instance> fromSubNetwork(String subNetwork) {
+        InstanceInventory actual = inventory;
+        if (actual != null) {
+            return actual.getBySubnet(subNetwork);
+        }
         return new Ec2Instance().getFiltered("subnet-id", subNetwork);
     }
 
@@ -309,6 +743,19 @@ public class Ec2Instance extends Ec2Resource<Instance, Ec2Instance> {
         new Ec2Instance().delete(instances, handler);
     }
 
+    /**
+     * Deletes all provided instances in parallel
+     * 
+     * @param instances
+     * @param handler
+     * @param maxConcurrency
+     *            - max number of concurrent terminate requests
+     * @return status of every instance
+     */
+    public static BulkDeleteResult<Ec2Instance> deleteAll(List<Ec2Instance> instances, ResourceDeleteHandler<Ec2Instance> handler, int maxConcurrency) {
+        return new Ec2Instance().delete(instances, handler, maxConcurrency);
+    }
+
     /**
      * Return instance with provided private ip adress
      * 
@@ -317,6 +764,10 @@ public class Ec2Instance extends Ec2Resource<Instance, Ec2Instance> {
      * @return ACMInstance or null if there is no machine with private ip
      */
     public static Ec2Instance getWithPrivateIp(String ip) {
+        InstanceInventory actual = inventory;
+        if (actual != null) {
+            return actual.getByPrivateIp(ip);
+        }
         List<Ec2Instance> instances = new Ec2Instance().getFiltered("private-ip-address", ip);
         if (instances.size() == 1) {
             return instances.get(0);
@@ -326,6 +777,10 @@ public class Ec2Instance extends Ec2Resource<Instance, Ec2Instance> {
     }
 
     public static Ec2Instance getWithPublicDNS(String dns) {
+        InstanceInventory actual = inventory;
+        if (actual != null) {
+            return actual.getByPublicDNS(dns);
+        }
         List<Ec2Instance> instances = new Ec2Instance().getFiltered("dns-name", dns);
         if (instances.size() == 1) {
             return instances.get(0);
@@ -395,7 +850,18 @@ public class Ec2Instance extends Ec2Resource<Instance, Ec2Instance> {
      * @return
      */
     public String getState() throws ResourceDoesNotExistException {
-        refresh();
+        return getState(ReadConsistency.STRONG);
+    }
+
+    /**
+     * Get machine state: pending, running, shutting-down, terminated refresh state from amazon only if it is older than consistency allows
+     * 
+     * @param consistency
+     *            - acceptable age of state
+     * @return
+     */
+    public String getState(ReadConsistency consistency) throws ResourceDoesNotExistException {
+        refresh(consistency);
         return getResource().getState().getName();
     }
 
@@ -430,19 +896,249 @@ public class Ec2Instance extends Ec2Resource<Instance, Ec2Instance> {
     public void stop() throws ResourceDoesNotExistException {
         if (getState().equals(STATE_RUNNING)) {
             getEc2().stopInstances(new StopInstancesRequest().withInstanceIds(getResourceId()));
+            invalidateDescribeCache();
         }
     }
 
     public void start() throws ResourceDoesNotExistException {
         if (getState().equals(STATE_STOPPED)) {
             getEc2().startInstances(new StartInstancesRequest().withInstanceIds(getResourceId()));
+            invalidateDescribeCache();
         }
     }
 
     public void reboot() throws ResourceDoesNotExistException {
         if (getState().equals(STATE_RUNNING)) {
             getEc2().rebootInstances(new RebootInstancesRequest().withInstanceIds(getResourceId()));
+            invalidateDescribeCache();
+        }
+    }
+
+    /**
+     * Asynchronous version of stop()
+     * 
+     * @return future of this instance
+     */
+    public Future<Ec2Instance> stopAsync() {
+        return submit(new Callable<Ec2Instance>() {
+
+            @Override
+            public Ec2Instance call() throws Exception {
+                stop();
+                return Ec2Instance.this;
+            }
+        });
+    }
+
+    /**
+     * Asynchronous version of start()
+     * 
+     * @return future of this instance
+     */
+    public Future<Ec2Instance> startAsync() {
+        return submit(new Callable<Ec2Instance>() {
+
+            @Override
+            public Ec2Instance call() throws Exception {
+                start();
+                return Ec2Instance.this;
+            }
+        });
+    }
+
+    /**
+     * Asynchronous version of reboot()
+     * 
+     * @return future of this instance
+     */
+    public Future<Ec2Instance> rebootAsync() {
+        return submit(new Callable<Ec2Instance>() {
+
+            @Override
+            public Ec2Instance call() throws Exception {
+                reboot();
+                return Ec2Instance.this;
+            }
+        });
+    }
+
+    /**
+     * Asynchronous version of capture(name, description)
+     * 
+     * @return future of created image id (null if machine is not running)
+     */
+    public Future<String> captureAsync(final String name, final String description) {
+        return submit(new Callable<String>() {
+
+            @Override
+            public String call() throws Exception {
+                return capture(name, description);
+            }
+        });
+    }
+
+    /**
+     * Stops all running instances from list with one describe and chunked multi-instance stop requests per region
+     * 
+     * @param instances
+     *            - instances to stop
+     * @return instances that was running and got stop request
+     */
+    public static List<Ec2Instance> stopAll(List<Ec2Instance> instances) {
+        return sendAll(instances, new BatchRequest() {
+
+            @Override
+            void send(AmazonEC2 ec2, List<String> ids) {
+                ec2.stopInstances(new StopInstancesRequest().withInstanceIds(ids));
+            }
+        }, STATE_RUNNING);
+    }
+
+    /**
+     * Starts all stopped instances from list with one describe and chunked multi-instance start requests per region
+     * 
+     * @param instances
+     *            - instances to start
+     * @return instances that was stopped and got start request
+     */
+    public static List<Ec2Instance> startAll(List<Ec2Instance> instances) {
+        return sendAll(instances, new BatchRequest() {
+
+            @Override
+            void send(AmazonEC2 ec2, List<String> ids) {
+                ec2.startInstances(new StartInstancesRequest().withInstanceIds(ids));
+            }
+        }, STATE_STOPPED);
+    }
+
+    /**
+     * Reboots all running instances from list with one describe and chunked multi-instance reboot requests per region
+     * 
+     * @param instances
+     *            - instances to reboot
+     * @return instances that was running and got reboot request
+     */
+    public static List<Ec2Instance> rebootAll(List<Ec2Instance> instances) {
+        return sendAll(instances, new BatchRequest() {
+
+            @Override
+            void send(AmazonEC2 ec2, List<String> ids) {
+                ec2.rebootInstances(new RebootInstancesRequest().withInstanceIds(ids));
+            }
+        }, STATE_RUNNING);
+    }
+
+    /**
+     * Terminates all instances from list with chunked multi-instance terminate requests per region. Delete handlers are not called, use
+     * deleteAll(..) for it
+     * 
+     * @param instances
+     *            - instances to terminate
+     * @return instances that was not already terminated and got terminate request
+     */
+    public static List<Ec2Instance> terminateAll(List<Ec2Instance> instances) {
+        return sendAll(instances, new BatchRequest() {
+
+            @Override
+            void send(AmazonEC2 ec2, List<String> ids) {
+                ec2.terminateInstances(new TerminateInstancesRequest().withInstanceIds(ids));
+            }
+        }, STATE_PENDING, STATE_RUNNING, STATE_STOPPING, STATE_STOPPED);
+    }
+
+    /**
+     * Multi-instance request of stopAll(..), startAll(..), ...
+     */
+    private abstract static class BatchRequest {
+
+        abstract void send(AmazonEC2 ec2, List<String> ids);
+    }
+
+    /**
+     * Sends request for instances in any of given states, instances of every region are described and changed with client of their region
+     * 
+     * @return instances that got request
+     */
+    private static List<Ec2Instance> sendAll(List<Ec2Instance> instances, BatchRequest request, String... states) {
+        List<Ec2Instance> sent = new ArrayList<Ec2Instance>();
+        for (List<Ec2Instance> regional : byRegion(instances).values()) {
+            List<Ec2Instance> matching = inState(regional, states);
+            if (matching.isEmpty()) {
+                continue;
+            }
+            try {
+                AmazonEC2 ec2 = matching.get(0).getEc2();
+                for (List<String> ids : chunks(idsOf(matching), MAX_IDS_PER_REQUEST)) {
+                    request.send(ec2, ids);
+                }
+                sent.addAll(matching);
+            } finally {
+                matching.get(0).invalidateDescribeCache();
+            }
         }
+        return sent;
+    }
+
+    /**
+     * Instances grouped by region in order of their first appearance, null key is default region of connector
+     */
+    private static Map<String, List<Ec2Instance>> byRegion(List<Ec2Instance> instances) {
+        Map<String, List<Ec2Instance>> regions = new LinkedHashMap<String, List<Ec2Instance>>();
+        for (Ec2Instance instance : instances) {
+            List<Ec2Instance> regional = regions.get(instance.getRegion());
+            if (regional == null) {
+                regional = new ArrayList<Ec2Instance>();
+                regions.put(instance.getRegion(), regional);
+            }
+            regional.add(instance);
+        }
+        return regions;
+    }
+
+    /**
+     * Refreshes instances of one region with chunked multi-instance describe requests and returns ones in any of given states. Instances that
+     * doesn't exist anymore are skipped
+     */
+    private static List<Ec2Instance> inState(List<Ec2Instance> instances, String... states) {
+        List<Ec2Instance> result = new ArrayList<Ec2Instance>();
+        if (instances.isEmpty()) {
+            return result;
+        }
+        Map<String, Instance> described = new HashMap<String, Instance>();
+        Ec2Instance requester = instances.get(0);
+        for (List<String> ids : chunks(idsOf(instances), MAX_IDS_PER_REQUEST)) {
+            try {
+                described.putAll(requester.processDescribe(ids));
+            } catch (AmazonServiceException e) {
+                if (!AmazonErrors.isNotFound(e)) {
+                    throw e;
+                }
+                // one unknown id fails whole request
+                LOGGER.warn("Batched describe failed, describing instances one by one: " + e.getMessage());
+                for (String id : ids) {
+                    try {
+                        described.putAll(requester.processDescribe(Collections.singleton(id)));
+                    } catch (AmazonServiceException ex) {
+                        if (!AmazonErrors.isNotFound(ex)) {
+                            throw ex;
+                        }
+                        LOGGER.warn(ex.getMessage());
+                    }
+                }
+            }
+        }
+        for (Ec2Instance instance : instances) {
+            Instance amazonInstance = described.get(instance.getId());
+            if (amazonInstance == null) {
+                LOGGER.warn("Instance doesn't exist on Amazon: " + instance.getId());
+                continue;
+            }
+            instance.doUpdate(amazonInstance);
+            if (Arrays.asList(states).contains(amazonInstance.getState().getName())) {
+                result.add(instance);
+            }
+        }
+        return result;
     }
 
     //TODO Stopped machines also can capture
@@ -549,9 +1245,37 @@ public class Ec2Instance extends Ec2Resource<Instance, Ec2Instance> {
     }
 
     /**
-     * Suspend execution until server boot
+     * Suspend execution until server boot. If instance state poller was registered by setStatePoller(..) instance is watched by it instead of own
+     * polling loop
      */
     public void waitForServerBoot() {
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            doWaitForServerBoot();
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            recordOperation("waitForServerBoot", start, failure);
+        }
+    }
+
+    private void doWaitForServerBoot() {
+        InstanceStatePoller poller = statePoller;
+        if (poller != null && getResource().getState().getName().equals(Ec2Instance.STATE_PENDING)) {
+            try {
+                // poller watches one wrapper per id, it may be other wrapper of this instance
+                Ec2Instance reached = poller.waitFor(this, STATE_RUNNING, STATE_STOPPING, STATE_STOPPED, STATE_SHUTDOWN, STATE_TERMINATED).get();
+                if (reached != this) {
+                    doUpdate(copyOfModel(reached.getResource()));
+                }
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                LOGGER.warn(e.getCause().getMessage());
+            }
+        }
         while (getResource().getState().getName().equals(Ec2Instance.STATE_PENDING)) {
             try {
                 Thread.sleep(5000);
@@ -567,6 +1291,34 @@ public class Ec2Instance extends Ec2Resource<Instance, Ec2Instance> {
         }
     }
 
+    /**
+     * Register shared state poller, waitForServerBoot() of all instances will use it
+     * 
+     * @param poller
+     *            - poller to use, null to poll every instance separately
+     */
+    public static void setStatePoller(InstanceStatePoller poller) {
+        statePoller = poller;
+    }
+
+    public static InstanceStatePoller getStatePoller() {
+        return statePoller;
+    }
+
+    /**
+     * Register instance inventory, getWithPrivateIp(..), getWithPublicDNS(..) and fromSubNetwork(..) will read it instead of amazon
+     * 
+     * @param instanceInventory
+     *            - inventory to use, null to ask amazon on every lookup
+     */
+    public static void setInventory(InstanceInventory instanceInventory) {
+        inventory = instanceInventory;
+    }
+
+    public static InstanceInventory getInventory() {
+        return inventory;
+    }
+
     /**
      * Return name of this instance
      * 
@@ -598,8 +1350,15 @@ public class Ec2Instance extends Ec2Resource<Instance, Ec2Instance> {
      * Whatever or not this instance exists and running on Amazon AWS
      */
     public boolean isRunning() {
+        return isRunning(ReadConsistency.STRONG);
+    }
+
+    /**
+     * Whatever or not this instance exists and running on Amazon AWS, state can be as old as consistency allows
+     */
+    public boolean isRunning(ReadConsistency consistency) {
         try {
-            return STATE_RUNNING.equals(getState());
+            return STATE_RUNNING.equals(getState(consistency));
         } catch (ResourceDoesNotExistException e) {
             return false;
         }
@@ -609,8 +1368,15 @@ public class Ec2Instance extends Ec2Resource<Instance, Ec2Instance> {
      * Whatever or not this instance exists and stopped on Amazon AWS
      */
     public boolean isStopped() {
+        return isStopped(ReadConsistency.STRONG);
+    }
+
+    /**
+     * Whatever or not this instance exists and stopped on Amazon AWS, state can be as old as consistency allows
+     */
+    public boolean isStopped(ReadConsistency consistency) {
         try {
-            return STATE_STOPPED.equals(getState());
+            return STATE_STOPPED.equals(getState(consistency));
         } catch (ResourceDoesNotExistException e) {
             return false;
         }
@@ -637,9 +1403,22 @@ public class Ec2Instance extends Ec2Resource<Instance, Ec2Instance> {
     }
 
     public static boolean isRunning(String instanceId) {
+        return isRunning(instanceId, ReadConsistency.STRONG);
+    }
+
+    /**
+     * Whatever instance is running, state can be as old as consistency allows. Instances read by this method are remembered, so repeated checks of
+     * the same instance are served locally while state is fresh enough
+     * 
+     * @param instanceId
+     * @param consistency
+     *            - acceptable age of state
+     * @return
+     */
+    public static boolean isRunning(String instanceId, ReadConsistency consistency) {
         Validate.notEmpty(instanceId);
         try {
-            return new Ec2Instance(instanceId, false).isRunning();
+            return STATE_RUNNING.equals(recentState(instanceId, consistency));
         } catch (ResourceDoesNotExistException e) {
             return false;
         }
@@ -652,14 +1431,50 @@ public class Ec2Instance extends Ec2Resource<Instance, Ec2Instance> {
      * @return
      */
     public static boolean isStopped(String instanceId) {
+        return isStopped(instanceId, ReadConsistency.STRONG);
+    }
+
+    /**
+     * Whatever instance is stopped, state can be as old as consistency allows
+     * 
+     * @param instanceId
+     * @param consistency
+     *            - acceptable age of state
+     * @return
+     */
+    public static boolean isStopped(String instanceId, ReadConsistency consistency) {
         Validate.notEmpty(instanceId);
         try {
-            return new Ec2Instance(instanceId, false).isStopped();
+            return STATE_STOPPED.equals(recentState(instanceId, consistency));
         } catch (ResourceDoesNotExistException e) {
             return false;
         }
     }
 
+    /**
+     * Return state of remembered instance if it is fresh enough, otherwise describe instance into new wrapper. Strong reads neither use state
+     * nor update remembered instances, so concurrent readers never update the same wrapper. New wrapper is a copy of remembered one, if there
+     * is any, so it keeps its connector and region
+     */
+    private static String recentState(String instanceId, ReadConsistency consistency) throws ResourceDoesNotExistException {
+        Ec2Instance recent;
+        synchronized (RECENT_INSTANCES) {
+            recent = RECENT_INSTANCES.get(instanceId);
+        }
+        if (consistency != ReadConsistency.STRONG && recent != null && recent.isFresh(consistency)) {
+            return recent.getResource().getState().getName();
+        }
+        Ec2Instance instance = recent != null ? recent.copy() : new Ec2Instance();
+        instance.setId(instanceId);
+        String state = instance.getState(ReadConsistency.STRONG);
+        if (consistency != ReadConsistency.STRONG) {
+            synchronized (RECENT_INSTANCES) {
+                RECENT_INSTANCES.put(instanceId, instance);
+            }
+        }
+        return state;
+    }
+
     @Override
     public String toString() {
         return "CMInstance: {id: " + getId() + ", host: " + getHost() + "}";
@@ -0,0 +1,256 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.ec2.model.Filter;
+import com.amazonaws.services.ec2.model.Tag;
+import com.amazonaws.wrapper.events.ResourceVisitor;
+
+/**
+ * Typed query of resources of one type. Conditions that amazon can evaluate are sent with describe request as filters, the rest is evaluated
+ * locally while found resources are passed one by one, so resources that don't match are never collected. Conditions are joined with AND
+ *
+ * @param <O>
+ *            - resource class
+ * @param <Q>
+ *            - actual query class
+ */
+public abstract class Ec2Query<O extends Ec2Resource<?, O>, Q extends Ec2Query<O, Q>> {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(Ec2Query.class);
+
+    /*
+     * Resource used to send describe requests, defines connector and region
+     */
+    private final O prototype;
+
+    private final List<Filter> filters = new ArrayList<Filter>();
+
+    private final Set<String> filterNames = new HashSet<String>();
+
+    private final List<Condition<O>> localConditions = new ArrayList<Condition<O>>();
+
+    private volatile QueryStats stats;
+
+    protected Ec2Query(O prototype) {
+        this.prototype = prototype;
+    }
+
+    /**
+     * Return this query as its actual class
+     */
+    protected abstract Q self();
+
+    /**
+     * Add condition, it is sent to amazon if amazon can evaluate it and there is no other filter with the same name yet
+     */
+    public Q where(Condition<O> condition) {
+        Filter filter = condition.toFilter();
+        if (filter != null && filterNames.add(filter.getName())) {
+            filters.add(filter);
+        } else {
+            localConditions.add(condition);
+        }
+        return self();
+    }
+
+    /**
+     * Attribute has one of values
+     */
+    public Q where(Attribute<O> attribute, String... values) {
+        return where(Condition.equalTo(attribute, values));
+    }
+
+    /**
+     * Attribute has none of values, evaluated locally
+     */
+    public Q whereNot(Attribute<O> attribute, String... values) {
+        return where(Condition.not(Condition.equalTo(attribute, values)));
+    }
+
+    /**
+     * Numeric attribute is between min and max inclusive, evaluated locally
+     */
+    public Q between(Attribute<O> attribute, double min, double max) {
+        return where(Condition.between(attribute, min, max));
+    }
+
+    /**
+     * Any of conditions is true
+     */
+    public Q anyOf(List<Condition<O>> conditions) {
+        return where(Condition.anyOf(conditions));
+    }
+
+    /**
+     * Resource has tag with one of values, with any value if no values are given. Values may contain "*" and "?" wildcards
+     */
+    public Q tagged(String name, String... values) {
+        if (values.length == 0) {
+            return where(Condition.equalTo(tagKey(), name));
+        }
+        return where(Condition.equalTo(tag(name), values));
+    }
+
+    /**
+     * Resource doesn't have tag with given name, evaluated locally
+     */
+    public Q notTagged(String name) {
+        return where(Condition.not(Condition.equalTo(tagKey(), name)));
+    }
+
+    /**
+     * Return attribute of values of tag with given name
+     */
+    public Attribute<O> tag(final String name) {
+        return new Attribute<O>("tag:" + name, "tag:" + name) {
+
+            @Override
+            public List<String> valuesOf(O resource) {
+                List<String> values = new ArrayList<String>();
+                for (Tag tag : resource.getTags()) {
+                    if (tag.getKey().equals(name)) {
+                        values.add(tag.getValue());
+                    }
+                }
+                return values;
+            }
+        };
+    }
+
+    private Attribute<O> tagKey() {
+        return new Attribute<O>("tag-key", "tag-key") {
+
+            @Override
+            public List<String> valuesOf(O resource) {
+                List<String> keys = new ArrayList<String>();
+                for (Tag tag : resource.getTags()) {
+                    keys.add(tag.getKey());
+                }
+                return keys;
+            }
+        };
+    }
+
+    /**
+     * Pass matching resources to visitor one by one
+     *
+     * @param visitor
+     *            - visitor of matching resources, it can stop iteration by returning false
+     */
+    public void forEach(final ResourceVisitor<O> visitor) {
+        final QueryStats current = new QueryStats(filters.size(), localConditions.size());
+        stats = current;
+        prototype.forEach(new ResourceVisitor<O>() {
+
+            @Override
+            public boolean visit(O resource) {
+                boolean match = matches(resource);
+                current.scanned(match);
+                return !match || visitor.visit(resource);
+            }
+        }, filters());
+        LOGGER.debug(current.toString());
+    }
+
+    /**
+     * Return all matching resources
+     */
+    public List<O> list() {
+        if (localConditions.isEmpty()) {
+            // amazon evaluates everything, result is not copied
+            List<O> found = prototype.getFiltered(filters());
+            QueryStats current = new QueryStats(filters.size(), 0);
+            current.scanned(found.size());
+            stats = current;
+            return found;
+        }
+        final List<O> found = new ArrayList<O>();
+        forEach(new ResourceVisitor<O>() {
+
+            @Override
+            public boolean visit(O resource) {
+                found.add(resource);
+                return true;
+            }
+        });
+        return found;
+    }
+
+    /**
+     * Return first matching resource or null
+     */
+    public O first() {
+        final List<O> found = new ArrayList<O>(1);
+        forEach(new ResourceVisitor<O>() {
+
+            @Override
+            public boolean visit(O resource) {
+                found.add(resource);
+                return false;
+            }
+        });
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * Return number of matching resources, resources are not created if amazon evaluates all conditions
+     */
+    public int count() {
+        if (localConditions.isEmpty()) {
+            int count = prototype.count(filters());
+            QueryStats current = new QueryStats(filters.size(), 0);
+            current.scanned(count);
+            stats = current;
+            return count;
+        }
+        final int[] count = new int[1];
+        forEach(new ResourceVisitor<O>() {
+
+            @Override
+            public boolean visit(O resource) {
+                count[0]++;
+                return true;
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * Return statistics of last execution of this query, null if it wasn't executed
+     */
+    public QueryStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Return filters sent to amazon
+     */
+    public Filter[] filters() {
+        return filters.toArray(new Filter[filters.size()]);
+    }
+
+    /**
+     * Whatever resource matches conditions evaluated locally
+     */
+    public boolean matches(O resource) {
+        for (Condition<O> condition : localConditions) {
+            if (!condition.matches(resource)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ": {filters: " + filters + ", local: " + localConditions + "}";
+    }
+
+}
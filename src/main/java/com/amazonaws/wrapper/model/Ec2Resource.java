@@ -1,8 +1,28 @@
 package com.amazonaws.wrapper.model;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,9 +33,15 @@ import com.amazonaws.services.ec2.model.CreateTagsRequest;
 import com.amazonaws.services.ec2.model.DeleteTagsRequest;
 import com.amazonaws.services.ec2.model.Filter;
 import com.amazonaws.services.ec2.model.Tag;
+import com.amazonaws.wrapper.cache.DescribeCache;
+import com.amazonaws.wrapper.cache.DescribeKey;
 import com.amazonaws.wrapper.events.ResourceCreateHandler;
 import com.amazonaws.wrapper.events.ResourceDeleteHandler;
+import com.amazonaws.wrapper.events.ResourceVisitor;
 import com.amazonaws.wrapper.exception.ResourceDoesNotExistException;
+import com.amazonaws.wrapper.metrics.MetricsRegistry;
+import com.amazonaws.wrapper.metrics.Outcome;
+import com.amazonaws.wrapper.service.Ec2RetryPolicy;
 
 import org.checkerframework.checker.objectconstruction.qual.CalledMethodsPredicate;
 
@@ -31,6 +57,54 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(Ec2Resource.class);
 
+    /*
+     * Max number of resource ids sent in one multi-resource request
+     */
+    public final static int MAX_IDS_PER_REQUEST = 200;
+
+    /*
+     * Timer of wrapper operations (create, delete, refresh, ...) in MetricsRegistry
+     */
+    public final static String OPERATION_TIMER = "wrapper.operation";
+
+    /*
+     * Describe caches registered per resource type, types without cache always call amazon
+     */
+    private final static Map<Class<?>, DescribeCache> DESCRIBE_CACHES = new ConcurrentHashMap<Class<?>, DescribeCache>();
+
+    /*
+     * Refresh batchers registered per resource type, types without batcher refresh one by one
+     */
+    private final static Map<Class<?>, RefreshBatcher> REFRESH_BATCHERS = new ConcurrentHashMap<Class<?>, RefreshBatcher>();
+
+    /*
+     * Describe requests being sent now, concurrent identical requests wait for them instead of sending own request
+     */
+    private final static ConcurrentHashMap<DescribeKey, InFlightDescribe> IN_FLIGHT_DESCRIBES = new ConcurrentHashMap<DescribeKey, InFlightDescribe>();
+
+    /*
+     * Incremented by every invalidation of resource type, results of describes sent before invalidation are not cached. Changed and compared
+     * together with describe cache under DESCRIBE_LOCK
+     */
+    private final static ConcurrentHashMap<Class<?>, AtomicLong> DESCRIBE_VERSIONS = new ConcurrentHashMap<Class<?>, AtomicLong>();
+
+    private final static Object DESCRIBE_LOCK = new Object();
+
+    private final static AtomicLong DEDUPLICATED_DESCRIBES = new AtomicLong();
+
+    /*
+     * Threads of default executor of asynchronous operations, used by connectors that don't implement AsyncEc2Connector
+     */
+    public final static int DEFAULT_EXECUTOR_THREADS = 16;
+
+    private static ExecutorService defaultExecutor;
+
+    /*
+     * Runs region queries of getByRegion(..). Callers often run on executor of connector and block until queries finish, so queries can't be
+     * submitted to that executor. Queries never wait for other tasks, unbounded pool can't deadlock
+     */
+    private static ExecutorService regionExecutor;
+
     /*
      * Amazon ec2 connector - holds AWS related objects 
      */
@@ -49,9 +123,14 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
     private ResourceCreateHandler<O> createHandler;
 
     /*
-     * Amazon model
+     * Amazon model, volatile as pollers update it from their threads
+     */
+    private volatile T resource;
+
+    /*
+     * When amazon model was loaded, milliseconds
      */
-    private T resource;
+    private volatile long updatedAt;
 
     /**
      * Set amazon conector
@@ -79,10 +158,15 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
      * For example:
      * ACMSnapshot snapshot = new ACMSnapshot("volume-id").create; 
      */
-    private String uniqueId;
+    private volatile String uniqueId;
 
     private AdapterSettings settings;
 
+    /*
+     * Amazon region of this resource, null - default region of connector
+     */
+    private volatile String region;
+
     //Constructor
     public void setId(String id) {
         this.uniqueId = id;
@@ -98,6 +182,45 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
         return this.uniqueId;
     }
 
+    /**
+     * Return amazon region of this resource
+     * 
+     * @return region name, for example "eu-west-1", or null if resource is in default region of connector
+     */
+    public String getRegion() {
+        return region;
+    }
+
+    /**
+     * Set amazon region of this resource, all requests of this resource (and searches made with it) are sent to that region
+     * 
+     * @param region
+     *            - region name or null for default region of connector
+     */
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    /**
+     * Return amazon ec2 client of region of this resource
+     */
+    private AmazonEC2 getRegionEc2() {
+        return regionEc2(getEc2Connector(), region);
+    }
+
+    /**
+     * Return amazon ec2 client of region, null region is default region of connector
+     */
+    static AmazonEC2 regionEc2(Ec2Connector connector, String region) {
+        if (region == null) {
+            return connector.getAmazonEC2();
+        }
+        if (!(connector instanceof MultiRegionEc2Connector)) {
+            throw new IllegalStateException("Connector " + connector.getClass().getName() + " doesn't support regions, can't reach region " + region);
+        }
+        return ((MultiRegionEc2Connector) connector).getAmazonEC2(region);
+    }
+
     /**
      * Return amazon ec2 connector
      * 
@@ -107,7 +230,7 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
      */
     protected AmazonEC2 getEc2() {
         if (this.uniqueId != null) {
-            return getEc2Connector().getAmazonEC2();
+            return getRegionEc2();
         } else {
             LOGGER.error("You cant use amazonEC2 requests unless you specify id for resource");
             throw new RuntimeException("You cant use amazonEC2 requests unless you specify id for resource");
@@ -123,6 +246,7 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
     public void addTag(String name, String value) {
         CreateTagsRequest request = new CreateTagsRequest().withResources(uniqueId).withTags(new Tag(name, value));
         getEc2().createTags(request);
+        invalidateDescribeCache();
     }
 
     /**
@@ -134,6 +258,7 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
     public void deleteTag(String name, String value) {
         DeleteTagsRequest request = new DeleteTagsRequest().withResources(uniqueId).withTags(new Tag(name, value));
         getEc2().deleteTags(request);
+        invalidateDescribeCache();
     }
 
     /**
@@ -141,7 +266,8 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
      */
     public void deleteTagFromAll(String name, String value) {
         DeleteTagsRequest request = new DeleteTagsRequest().withTags(new Tag(name, value)).withResources(allIds());
-        getEc2Connector().getAmazonEC2().deleteTags(request);
+        getRegionEc2().deleteTags(request);
+        invalidateDescribeCache();
     }
 
     /**
@@ -151,6 +277,7 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
      */
     protected void doUpdate(T resource) {
         this.resource = resource;
+        this.updatedAt = System.currentTimeMillis();
         this.uniqueId = getResourceId();
     }
 
@@ -162,8 +289,9 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
      *             if this resource = null if you have this error check if it has uniq id and than call refresh method
      */
     protected T getResource() {
-        if (resource != null) {
-            return resource;
+        T model = resource;
+        if (model != null) {
+            return model;
         }
         LOGGER.error("You cant use amazonEC2 requests unless you specify id for resource");
         throw new RuntimeException("Cant reach resource, try refresh() first");
@@ -197,6 +325,13 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
      */
     abstract protected void doCreateRequest(AmazonEC2 ec2, String description, Properties props, AdapterSettings settings);
 
+    /**
+     * This method must return tags of underground amazon model
+     * 
+     * @return tags of amazon model
+     */
+    abstract protected List<Tag> getResourceTags();
+
     /**
      * This method must return id of underground amazon model
      * 
@@ -204,6 +339,35 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
      */
     abstract protected String getResourceId();
 
+    /**
+     * This method must wrap amazon model found by describe request into new resource of this type
+     * 
+     * @param model
+     *            - amazon model
+     * @return resource holding model
+     */
+    abstract protected O wrap(T model);
+
+    /**
+     * This method must return id of given amazon model, the same id as getResourceId() of resource wrapping it
+     * 
+     * @param model
+     *            - amazon model
+     * @return id of amazon model
+     */
+    abstract protected String getModelId(T model);
+
+    /**
+     * Return list of resources for amazon models found by describe request, models are wrapped only when list elements are accessed
+     * 
+     * @param models
+     *            - found amazon models
+     * @return lazy list of resources
+     */
+    protected List<O> lazyList(List<T> models) {
+        return new ResourceListView<T, O>(this, models);
+    }
+
     /**
      * Override this method to implement creating of concrete "Describe" request with filters
      * 
@@ -224,6 +388,20 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
      */
     abstract protected List<O> processDescribe(AmazonEC2 amazonEC2, @CalledMethodsPredicate("(withOwners || setOwners) || (withImageIds || setImageIds) || (withExecutableUsers || setExecutableUsers)") AmazonWebServiceRequest request);
 
+    /**
+     * Must implement logic of sending request and passing found objects to visitor one by one, without building list of wrappers. Amazon
+     * response is read whole, describe requests of this api have no paging
+     * 
+     * @param amazonEC2
+     *            - amazon AWS service
+     * @param request
+     *            - request to send to amazon
+     * @param visitor
+     *            - visitor for found objects
+     * @return false if visitor stopped iteration, true otherwise
+     */
+    abstract protected boolean processDescribe(AmazonEC2 amazonEC2, @CalledMethodsPredicate("(withOwners || setOwners) || (withImageIds || setImageIds) || (withExecutableUsers || setExecutableUsers)") AmazonWebServiceRequest request, ResourceVisitor<O> visitor);
+
     /**
      * Override this method for getting info of this object from amazon use getEC2() and getId() to implement this behavior
      * 
@@ -231,6 +409,15 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
      */
     abstract protected T processDescribe() throws ResourceDoesNotExistException;
 
+    /**
+     * Override this method for getting info of several objects of this type with one request use getEC2() to implement this behavior
+     * 
+     * @param ids
+     *            - amazon ids of resources
+     * @return found amazon models by their ids
+     */
+    abstract protected Map<String, T> processDescribe(Collection<String> ids);
+
     /**
      * Return all objects of this type from amazon
      * 
@@ -238,7 +425,7 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
      */
     public List<O> getAll() {
         // TRUE POSITIVE: gets everything w/o regard for AMI sniping
-        return processDescribe(getEc2Connector().getAmazonEC2(), applyFiltersForRequest());
+        return describe();
     }
 
     /**
@@ -252,7 +439,7 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
      */
     public List<O> getFiltered(String key, String... values) {
         // ESH POSITIVE: doesn't guarantee that the right filters are passed, wraps the API
-        return processDescribe(getEc2Connector().getAmazonEC2(), applyFiltersForRequest(new Filter().withName(key).withValues(values)));
+        return describe(new Filter().withName(key).withValues(values));
     }
 
     /**
@@ -264,7 +451,276 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
      */
     public List<O> getFiltered(Filter... filters) {
         // ESH POSITIVE: doesn't guarantee that the right filters are passed, wraps the API
-        return processDescribe(getEc2Connector().getAmazonEC2(), applyFiltersForRequest(filters));
+        return describe(filters);
+    }
+
+    /**
+     * Return all objects of this type from all regions of connector. Regions are searched in parallel, so it takes about as long as search in the
+     * slowest region, every found object has its region. Connectors that don't implement MultiRegionEc2Connector have no regions
+     * 
+     * @param filters
+     *            array of amazon filters to apply
+     * @return objects from all regions, grouped by region in order of connector regions
+     */
+    public List<O> getAllInRegions(Filter... filters) {
+        List<O> merged = new ArrayList<O>();
+        for (List<O> found : getByRegion(filters).values()) {
+            merged.addAll(found);
+        }
+        return merged;
+    }
+
+    /**
+     * Search objects of this type in all regions of connector in parallel
+     * 
+     * @param filters
+     *            array of amazon filters to apply
+     * @return found objects by region name
+     * @throws RuntimeException
+     *             first error of failed region, after all regions are finished
+     */
+    public Map<String, List<O>> getByRegion(final Filter... filters) {
+        Map<String, Future<List<O>>> futures = new LinkedHashMap<String, Future<List<O>>>();
+        Ec2Connector connector = getEc2Connector();
+        List<String> regions = connector instanceof MultiRegionEc2Connector ? ((MultiRegionEc2Connector) connector).getRegions()
+                : Collections.<String> emptyList();
+        for (final String name : regions) {
+            futures.put(name, regionExecutor().submit(new Callable<List<O>>() {
+
+                @Override
+                public List<O> call() {
+                    return describe(name, filters);
+                }
+            }));
+        }
+        Map<String, List<O>> result = new LinkedHashMap<String, List<O>>();
+        Throwable failure = null;
+        for (Map.Entry<String, Future<List<O>>> future : futures.entrySet()) {
+            try {
+                result.put(future.getKey(), future.getValue().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                LOGGER.error("Search in region " + future.getKey() + " failed: " + e.getCause().getMessage());
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure != null) {
+            throw new RuntimeException(failure);
+        }
+        return result;
+    }
+
+    /**
+     * Pass all objects of this type witch filtered with filters to visitor. Unlike getFiltered(..) it doesn't build list of found objects, visitor
+     * can stop iteration by returning false. Describe requests of this api have no paging (no NextToken), so whole amazon response is held in
+     * memory during iteration, only resources wrapping its models are created one by one
+     * 
+     * @param visitor
+     *            - visitor for found objects
+     * @param filters
+     *            array of amazon filters to apply
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(final ResourceVisitor<O> visitor, Filter... filters) {
+        AmazonEC2 amazonEC2 = getRegionEc2();
+        DescribeCache cache = DESCRIBE_CACHES.get(getClass());
+        List<O> cached = cache == null ? null : (List<O>) cache.get(new DescribeKey(getClass(), amazonEC2, filters));
+        if (cached == null) {
+            final String current = region;
+            if (current != null) {
+                // ESH POSITIVE: doesn't guarantee that the right filters are passed, wraps the API
+                processDescribe(amazonEC2, applyFiltersForRequest(filters), new ResourceVisitor<O>() {
+
+                    @Override
+                    public boolean visit(O resource) {
+                        resource.setRegion(current);
+                        return visitor.visit(resource);
+                    }
+                });
+                return;
+            }
+            // ESH POSITIVE: doesn't guarantee that the right filters are passed, wraps the API
+            processDescribe(amazonEC2, applyFiltersForRequest(filters), visitor);
+            return;
+        }
+        for (O o : detached(cached)) {
+            if (!visitor.visit(o)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sends describe request with given filters or takes its result from describe cache of this type if it was registered. If identical request
+     * (same type, client and filters) is already being sent by other thread, waits for its result instead of sending own request. Callers sharing
+     * result get own resources with own copies of amazon models
+     * 
+     * @param filters
+     *            - filters to be used with request
+     * @return list of actual objects, caller can modify it
+     */
+    private List<O> describe(Filter... filters) {
+        return describe(region, filters);
+    }
+
+    /**
+     * Sends describe request to given region, found objects get this region
+     * 
+     * @param region
+     *            - region name or null for default region of connector
+     * @param filters
+     *            - filters to be used with request
+     * @return list of actual objects, caller can modify it
+     */
+    @SuppressWarnings("unchecked")
+    private List<O> describe(String region, Filter... filters) {
+        AmazonEC2 amazonEC2 = regionEc2(getEc2Connector(), region);
+        DescribeCache cache = DESCRIBE_CACHES.get(getClass());
+        DescribeKey key = new DescribeKey(getClass(), amazonEC2, filters);
+        if (cache != null) {
+            List<O> cached = (List<O>) cache.get(key);
+            if (cached != null) {
+                return detached(cached);
+            }
+        }
+        InFlightDescribe call = new InFlightDescribe();
+        for (;;) {
+            InFlightDescribe inFlight = IN_FLIGHT_DESCRIBES.putIfAbsent(key, call);
+            if (inFlight == null) {
+                break;
+            }
+            if (inFlight.join()) {
+                DEDUPLICATED_DESCRIBES.incrementAndGet();
+                return detached((List<O>) awaitDescribe(inFlight.result));
+            }
+            // request completed meanwhile, its result can't be shared any more
+            IN_FLIGHT_DESCRIBES.remove(key, inFlight);
+        }
+        long version = describeVersion(getClass()).get();
+        try {
+            // ESH POSITIVE: doesn't guarantee that the right filters are passed, wraps the API
+            List<O> result = processDescribe(amazonEC2, applyFiltersForRequest(filters));
+            if (region != null) {
+                setRegion(result, region);
+            }
+            boolean cached = false;
+            if (cache != null) {
+                synchronized (DESCRIBE_LOCK) {
+                    // resources changed while request was sent, result may be stale
+                    if (describeVersion(getClass()).get() == version) {
+                        cache.put(key, result);
+                        cached = true;
+                    }
+                }
+            }
+            call.result.set(result);
+            // shared result is never given out, every caller gets own resources
+            return call.close() || cached ? detached(result) : result;
+        } catch (RuntimeException e) {
+            call.result.fail(e);
+            call.close();
+            throw e;
+        } catch (Error e) {
+            call.result.fail(e);
+            call.close();
+            throw e;
+        } finally {
+            IN_FLIGHT_DESCRIBES.remove(key, call);
+        }
+    }
+
+    private static AtomicLong describeVersion(Class<?> type) {
+        AtomicLong version = DESCRIBE_VERSIONS.get(type);
+        if (version == null) {
+            AtomicLong created = new AtomicLong();
+            version = DESCRIBE_VERSIONS.putIfAbsent(type, created);
+            if (version == null) {
+                version = created;
+            }
+        }
+        return version;
+    }
+
+    /*
+     * Copy of shared describe result with own resources, their models are copied when they are accessed
+     */
+    @SuppressWarnings("unchecked")
+    private static <E extends Ec2Resource<?, ?>> List<E> detached(List<E> list) {
+        if (list instanceof ResourceListView) {
+            return (List<E>) ((ResourceListView<?, ?>) list).detached();
+        }
+        List<E> copy = new ArrayList<E>(list.size());
+        for (E resource : list) {
+            copy.add((E) resource.copy());
+        }
+        return copy;
+    }
+
+    private static <E extends Ec2Resource<?, ?>> void setRegion(List<E> list, String region) {
+        if (list instanceof ResourceListView) {
+            ((ResourceListView<?, ?>) list).setRegion(region);
+            return;
+        }
+        for (E e : list) {
+            e.setRegion(region);
+        }
+    }
+
+    /*
+     * Ids of resources, lazy lists return them without wrapping their models
+     */
+    static List<String> idsOf(List<? extends Ec2Resource<?, ?>> list) {
+        if (list instanceof ResourceListView) {
+            return ((ResourceListView<?, ?>) list).ids();
+        }
+        List<String> ids = new ArrayList<String>(list.size());
+        for (Ec2Resource<?, ?> resource : list) {
+            ids.add(resource.getId());
+        }
+        return ids;
+    }
+
+    private static List<?> awaitDescribe(SettableFuture<List<?>> inFlight) {
+        try {
+            return inFlight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Drop cached describe results of this resource type, must be called after any change of resource on amazon. Describe requests of this type
+     * sent before the change are not shared with later callers any more
+     */
+    protected void invalidateDescribeCache() {
+        for (DescribeKey key : IN_FLIGHT_DESCRIBES.keySet()) {
+            if (key.getType() == getClass()) {
+                IN_FLIGHT_DESCRIBES.remove(key);
+            }
+        }
+        synchronized (DESCRIBE_LOCK) {
+            describeVersion(getClass()).incrementAndGet();
+            DescribeCache cache = DESCRIBE_CACHES.get(getClass());
+            if (cache != null) {
+                cache.invalidateAll();
+            }
+        }
     }
 
     /**
@@ -286,12 +742,19 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
      * @return
      */
     public List<String> allIds() {
-        List<O> list = getAll();
-        List<String> ids = new ArrayList<String>();
-        for (O o : list) {
-            ids.add(o.getId());
-        }
-        return ids;
+        // ids are taken from amazon models, resources are not created
+        return idsOf(describe());
+    }
+
+    /**
+     * Return number of objects of this type witch filtered with filters, resources are not created
+     * 
+     * @param filters
+     *            array of amazon filters to apply
+     * @return number of found objects
+     */
+    public int count(Filter... filters) {
+        return describe(filters).size();
     }
 
     /**
@@ -300,14 +763,91 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
      * @param name
      *            - tag name
      * @param value
-     *            - tag value
+     *            - tag value, may contain amazon wildcards "*" and "?"
      * @return all objects that is not tagged with provided values
      */
-    public List<O> getNotTagged(String name, String value) {
-        List<O> tagged = getTagged(name, value);
-        List<O> all = getAll();
-        all.removeAll(tagged);
-        return all;
+    public List<O> getNotTagged(final String name, final String value) {
+        if (value != null && (value.indexOf('*') >= 0 || value.indexOf('?') >= 0)) {
+            // wildcards are matched by amazon
+            return getNotFiltered("tag:" + name, value);
+        }
+        final List<O> notTagged = new ArrayList<O>();
+        // one describe, tags are checked locally
+        forEach(new ResourceVisitor<O>() {
+
+            @Override
+            public boolean visit(O resource) {
+                if (!resource.hasTag(name, value)) {
+                    notTagged.add(resource);
+                }
+                return true;
+            }
+        });
+        return notTagged;
+    }
+
+    /**
+     * Returns all resources that doesn't have tag with provided name and any value
+     * 
+     * @param name
+     *            - tag name
+     * @return all objects without tag
+     */
+    public List<O> getNotTagged(String name) {
+        return getNotTagged(name, null);
+    }
+
+    /**
+     * Returns all resources of this type that doesn't match "key=value" filter. Matching resources are found by amazon and excluded by id, so it
+     * works with any amazon filter key
+     * 
+     * @param key
+     *            - amazon filer key
+     * @param values
+     *            - key value
+     * @return all objects that doesn't match filter
+     */
+    public List<O> getNotFiltered(String key, String... values) {
+        final Set<String> excluded = new HashSet<String>(idsOf(describe(new Filter().withName(key).withValues(values))));
+        final List<O> notFiltered = new ArrayList<O>();
+        forEach(new ResourceVisitor<O>() {
+
+            @Override
+            public boolean visit(O resource) {
+                if (!excluded.contains(resource.getId())) {
+                    notFiltered.add(resource);
+                }
+                return true;
+            }
+        });
+        return notFiltered;
+    }
+
+    /**
+     * Return tags of this resource
+     * 
+     * @return tags, empty list if resource is not tagged or its type doesn't support tags
+     */
+    public List<Tag> getTags() {
+        List<Tag> tags = getResourceTags();
+        return tags == null ? Collections.<Tag> emptyList() : tags;
+    }
+
+    /**
+     * Whatever this resource has tag
+     * 
+     * @param name
+     *            - tag name
+     * @param value
+     *            - tag value, null for any value
+     */
+    public boolean hasTag(String name, String value) {
+        for (Tag tag : getTags()) {
+            if (tag.getKey().equals(name) && (value == null || value.equals(tag.getValue()))) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -318,32 +858,143 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
      */
     public void refresh() throws ResourceDoesNotExistException {
         if (this.uniqueId != null) {
-            doUpdate(processDescribe());
+            long start = System.nanoTime();
+            Throwable failure = null;
+            try {
+                doUpdate(describeThis());
+            } catch (ResourceDoesNotExistException e) {
+                failure = e;
+                throw e;
+            } catch (RuntimeException e) {
+                failure = e;
+                throw e;
+            } finally {
+                recordOperation("refresh", start, failure);
+            }
         } else {
             throw new RuntimeException("You cant use amazonEC2 requests unless you specify id resource");
         }
     }
 
+    /**
+     * Return new resource holding deep copy of amazon model of this one, changes of either model don't affect the other
+     */
+    O copy() {
+        O copy = wrap(copyOfModel(getResource()));
+        Ec2Resource<T, O> target = copy;
+        target.ec2Connector = ec2Connector;
+        target.settings = settings;
+        target.region = region;
+        return copy;
+    }
+
+    /*
+     * Amazon models have no copy constructors, but all of them are serializable
+     */
+    @SuppressWarnings("unchecked")
+    static <M> M copyOfModel(M model) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(model);
+            out.close();
+            return (M) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to copy amazon model " + model, e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Unable to copy amazon model " + model, e);
+        }
+    }
+
+    /**
+     * Whatever this resource differs from its previous version, by default compares amazon models (state, tags, attachments, ...)
+     * 
+     * @param previous
+     *            - previously loaded version of this resource
+     * @return true if resource was changed on amazon
+     */
+    protected boolean isModified(O previous) {
+        return !getResource().equals(previous.getResource());
+    }
+
+    /**
+     * Synchronize resource with amazon only if its model is older than read consistency allows
+     * 
+     * @param consistency
+     *            - acceptable age of model
+     */
+    public void refresh(ReadConsistency consistency) throws ResourceDoesNotExistException {
+        if (!isFresh(consistency)) {
+            refresh();
+        }
+    }
+
+    /**
+     * Whatever loaded model is not older than read consistency allows
+     */
+    boolean isFresh(ReadConsistency consistency) {
+        return resource != null && consistency.accepts(updatedAt);
+    }
+
+    /**
+     * Describe this resource alone or together with concurrent refreshes if refresh batcher was registered for this type
+     */
+    @SuppressWarnings("unchecked")
+    private T describeThis() throws ResourceDoesNotExistException {
+        RefreshBatcher batcher = REFRESH_BATCHERS.get(getClass());
+        if (batcher == null) {
+            return processDescribe();
+        }
+        return (T) batcher.load(this, getEc2());
+    }
+
     /**
      * Delete this resource from amazon If it was set delete handler (by setDeleteHandler) it will call beforeDelete(resource) method for check if this objects
      * need to be deleted
      */
-    @SuppressWarnings("unchecked")
     public void delete() throws Exception {
+        deleteThrottled(null);
+    }
+
+    /**
+     * Delete logic of delete(), if throttle is given delete request is retried while amazon throttles it
+     * 
+     * @return false if delete handler decided not to delete this resource
+     */
+    @SuppressWarnings("unchecked")
+    boolean deleteThrottled(AdaptiveThrottle throttle) throws Exception {
+        long start = System.nanoTime();
+        Throwable failure = null;
         try {
             if ((getDeleteHandler() == null) || getDeleteHandler().beforeDelete((O) this, settings.isEmulation())) {
-                doDeleteRequest();
+                if (throttle == null) {
+                    doDeleteRequest();
+                } else {
+                    throttle.execute(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            doDeleteRequest();
+                        }
+                    }, !Ec2RetryPolicy.isRetrying(getRegionEc2()));
+                }
+                invalidateDescribeCache();
                 //	this.uniqueId = null;
                 if (getDeleteHandler() != null) {
                     getDeleteHandler().afterDelete((O) this);
                 }
+                return true;
             }
+            return false;
         } catch (Exception exception) {
+            failure = exception;
             if (getDeleteHandler() != null) {
                 getDeleteHandler().afterThrow((O) this, exception);
             } else
                 LOGGER.error(exception.getMessage());
             throw exception;
+        } finally {
+            recordOperation("delete", start, failure);
         }
     }
 
@@ -378,6 +1029,160 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
         }
     }
 
+    /**
+     * Delete list of objects in parallel with given delete handler. At most maxConcurrency resources are deleting at the same time, if amazon throttles
+     * requests concurrency is lowered and throttled requests are retried
+     * 
+     * @param resources
+     *            - list of resources to be deleted
+     * @param event
+     *            - handler that will automatically calls for all objects
+     * @param maxConcurrency
+     *            - max number of concurrent delete requests
+     * @return status of every resource
+     */
+    public BulkDeleteResult<O> delete(List<O> resources, ResourceDeleteHandler<O> event, int maxConcurrency) {
+        applyDeleteHandlerForAll(event, resources);
+        final AdaptiveThrottle throttle = new AdaptiveThrottle(maxConcurrency);
+        final BulkDeleteResult<O> result = new BulkDeleteResult<O>();
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        try {
+            for (final O acmResource : resources) {
+                throttle.acquire();
+                futures.add(submit(new Callable<Object>() {
+
+                    @Override
+                    public Object call() {
+                        try {
+                            if (acmResource.deleteThrottled(throttle)) {
+                                result.deleted(acmResource);
+                            } else {
+                                result.skipped(acmResource);
+                            }
+                        } catch (Exception e) {
+                            result.failed(acmResource, e);
+                        } finally {
+                            throttle.release();
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            //Actually this case is unreachable, task catches all exceptions
+            LOGGER.error(e.getMessage(), e);
+        }
+        result.setThrottledCount(throttle.getThrottledCount());
+        LOGGER.info(result.toString());
+        return result;
+    }
+
+    /**
+     * Asynchronous version of refresh(), runs on executor of amazon connector
+     * 
+     * @return future of this resource, it fails with ResourceDoesNotExistException if resource doesn't exist
+     */
+    @SuppressWarnings("unchecked")
+    public Future<O> refreshAsync() {
+        return submit(new Callable<O>() {
+
+            @Override
+            public O call() throws Exception {
+                refresh();
+                return (O) Ec2Resource.this;
+            }
+        });
+    }
+
+    /**
+     * Asynchronous version of delete(), delete handler is called as for delete()
+     * 
+     * @return future of this resource
+     */
+    @SuppressWarnings("unchecked")
+    public Future<O> deleteAsync() {
+        return submit(new Callable<O>() {
+
+            @Override
+            public O call() throws Exception {
+                delete();
+                return (O) Ec2Resource.this;
+            }
+        });
+    }
+
+    /**
+     * Asynchronous version of create(properties, description), create handler is called as for create(..)
+     * 
+     * @return future of this resource
+     */
+    @SuppressWarnings("unchecked")
+    public Future<O> createAsync(final Properties properties, final String description) {
+        return submit(new Callable<O>() {
+
+            @Override
+            public O call() throws Exception {
+                create(properties, description);
+                return (O) Ec2Resource.this;
+            }
+        });
+    }
+
+    /**
+     * Submits task to executor of amazon connector, or to shared default executor if connector doesn't provide one
+     */
+    protected <V> Future<V> submit(Callable<V> task) {
+        return getExecutor().submit(task);
+    }
+
+    ExecutorService getExecutor() {
+        Ec2Connector connector = getEc2Connector();
+        if (connector instanceof AsyncEc2Connector) {
+            return ((AsyncEc2Connector) connector).getExecutor();
+        }
+        return defaultExecutor();
+    }
+
+    private static synchronized ExecutorService defaultExecutor() {
+        if (defaultExecutor == null) {
+            defaultExecutor = Executors.newFixedThreadPool(DEFAULT_EXECUTOR_THREADS, new ThreadFactory() {
+
+                private final AtomicInteger counter = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ec2-wrapper-default-async-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return defaultExecutor;
+    }
+
+    private static synchronized ExecutorService regionExecutor() {
+        if (regionExecutor == null) {
+            regionExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+                private final AtomicInteger counter = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ec2-wrapper-region-query-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return regionExecutor;
+    }
+
     /**
      * Creates this resource in amazon aws
      * 
@@ -388,25 +1193,54 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
      */
     @SuppressWarnings("unchecked")
     public void create(Properties properties, String description) {
+        long start = System.nanoTime();
+        Throwable failure = null;
         try {
             if ((getCreateHandler() == null) || getCreateHandler().beforeCreate((O) this, settings.isEmulation())) {
-                doCreateRequest(getEc2Connector().getAmazonEC2(), description, properties, settings);
+                doCreateRequest(getRegionEc2(), description, properties, settings);
+                invalidateDescribeCache();
                 refresh();
                 if (getCreateHandler() != null) {
                     getCreateHandler().afterCreate((O) this);
                 }
             }
         } catch (RuntimeException exception) {
+            failure = exception;
             if (getCreateHandler() != null) {
                 getCreateHandler().afterThrow((O) this, exception);
             } else
                 LOGGER.error(exception.getMessage(), exception);
             throw exception;
         } catch (ResourceDoesNotExistException e) {
+            failure = e;
             LOGGER.error(e.getMessage(), e);
+        } finally {
+            recordOperation("create", start, failure);
         }
     }
 
+    /**
+     * Record duration of wrapper operation of this resource into OPERATION_TIMER
+     * 
+     * @param operation
+     *            - operation name, for example "create"
+     * @param startNanos
+     *            - System.nanoTime() when operation started
+     * @param failure
+     *            - error of operation or null if it succeeded
+     */
+    protected void recordOperation(String operation, long startNanos, Throwable failure) {
+        recordOperation(operation, startNanos, Outcome.of(failure));
+    }
+
+    /**
+     * Record duration of wrapper operation of this resource into OPERATION_TIMER with given outcome
+     */
+    protected void recordOperation(String operation, long startNanos, Outcome outcome) {
+        MetricsRegistry.getMetrics().recordTime(OPERATION_TIMER, System.nanoTime() - startNanos, "operation", operation, "type",
+                getClass().getSimpleName(), "outcome", outcome.tag());
+    }
+
     //TODO AFTER DELETE LOGIC BROKEN!!!
     @Override
     public boolean equals(Object object) {
@@ -472,7 +1306,76 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
         return createHandler;
     }
 
+    /**
+     * Register describe cache for resource type, getAll(), getFiltered(..) and getTagged(..) of this type will use it
+     * 
+     * @param type
+     *            - resource class, for example Ec2Instance.class
+     * @param cache
+     *            - cache to use, null to disable caching for this type
+     */
+    public static void setDescribeCache(Class<? extends Ec2Resource<?, ?>> type, DescribeCache cache) {
+        if (cache == null) {
+            DESCRIBE_CACHES.remove(type);
+        } else {
+            DESCRIBE_CACHES.put(type, cache);
+        }
+    }
+
+    /**
+     * Return describe cache registered for resource type
+     * 
+     * @param type
+     *            - resource class
+     * @return registered cache or null
+     */
+    public static DescribeCache getDescribeCache(Class<? extends Ec2Resource<?, ?>> type) {
+        return DESCRIBE_CACHES.get(type);
+    }
+
+    /**
+     * Number of describe requests that were not sent because identical request was already being sent
+     */
+    public static long getDeduplicatedDescribeCount() {
+        return DEDUPLICATED_DESCRIBES.get();
+    }
+
+    /**
+     * Register refresh batcher for resource type, concurrent refresh() calls of this type will be sent as one request
+     * 
+     * @param type
+     *            - resource class, for example Ec2Instance.class
+     * @param batcher
+     *            - batcher to use, null to disable batching for this type
+     */
+    public static void setRefreshBatcher(Class<? extends Ec2Resource<?, ?>> type, RefreshBatcher batcher) {
+        if (batcher == null) {
+            REFRESH_BATCHERS.remove(type);
+        } else {
+            REFRESH_BATCHERS.put(type, batcher);
+        }
+    }
+
+    /**
+     * Return refresh batcher registered for resource type
+     * 
+     * @param type
+     *            - resource class
+     * @return registered batcher or null
+     */
+    public static RefreshBatcher getRefreshBatcher(Class<? extends Ec2Resource<?, ?>> type) {
+        return REFRESH_BATCHERS.get(type);
+    }
+
     //Static helper methods
+    protected static <E> List<List<E>> chunks(List<E> list, int size) {
+        List<List<E>> chunks = new ArrayList<List<E>>();
+        for (int from = 0; from < list.size(); from += size) {
+            chunks.add(list.subList(from, Math.min(list.size(), from + size)));
+        }
+        return chunks;
+    }
+
     protected static <T extends Ec2Resource<?, T>> void applyDeleteHandlerForAll(ResourceDeleteHandler<T> event, List<T> resources) {
         for (T t : resources) {
             t.setDeleteHandler(event);
@@ -485,8 +1388,43 @@ public abstract class Ec2Resource<T, O extends Ec2Resource<T, O>> {
         }
     }
 
+    AdapterSettings getSettings() {
+        return settings;
+    }
+
     private Ec2Connector getEc2Connector() {
         return ec2Connector;
     }
 
+    /*
+     * Describe request sent by one caller, other callers can join it until it completes
+     */
+    private static class InFlightDescribe {
+
+        final SettableFuture<List<?>> result = new SettableFuture<List<?>>();
+
+        private boolean closed;
+
+        private int followers;
+
+        /**
+         * @return false if request already completed and its result can't be shared
+         */
+        synchronized boolean join() {
+            if (closed) {
+                return false;
+            }
+            followers++;
+            return true;
+        }
+
+        /**
+         * @return true if result is shared with other callers
+         */
+        synchronized boolean close() {
+            closed = true;
+            return followers > 0;
+        }
+    }
+
 }
@@ -1,12 +1,15 @@
 package com.amazonaws.wrapper.model;
 
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.AmazonWebServiceRequest;
 import com.amazonaws.services.ec2.AmazonEC2;
 import com.amazonaws.services.ec2.model.CreateSecurityGroupRequest;
@@ -17,6 +20,9 @@ import com.amazonaws.services.ec2.model.DescribeSecurityGroupsResult;
 import com.amazonaws.services.ec2.model.Filter;
 import com.amazonaws.services.ec2.model.IpPermission;
 import com.amazonaws.services.ec2.model.SecurityGroup;
+import com.amazonaws.services.ec2.model.Tag;
+import com.amazonaws.wrapper.events.ResourceVisitor;
+import com.amazonaws.wrapper.exception.AmazonErrors;
 import com.amazonaws.wrapper.exception.ResourceDoesNotExistException;
 
 public class Ec2SecurityGroup extends Ec2Resource<SecurityGroup, Ec2SecurityGroup> {
@@ -64,6 +70,28 @@ public class Ec2SecurityGroup extends Ec2Resource<SecurityGroup, Ec2SecurityGrou
         return getResource().getGroupId();
     }
 
+    @Override
+    protected Ec2SecurityGroup wrap(SecurityGroup model) {
+        return new Ec2SecurityGroup(model);
+    }
+
+    @Override
+    protected String getModelId(SecurityGroup model) {
+        return model.getGroupId();
+    }
+
+    /**
+     * Return typed query of security groups, describe requests are sent with connector and region of this resource
+     */
+    public SecurityGroupQuery query() {
+        return new SecurityGroupQuery(this);
+    }
+
+    @Override
+    protected List<Tag> getResourceTags() {
+        return getResource().getTags();
+    }
+
     @Override
     protected AmazonWebServiceRequest applyFiltersForRequest(Filter... filters) {
         return new DescribeSecurityGroupsRequest().withFilters(filters);
@@ -71,13 +99,19 @@ public class Ec2SecurityGroup extends Ec2Resource<SecurityGroup, Ec2SecurityGrou
 
     @Override
     protected List<Ec2SecurityGroup> processDescribe(AmazonEC2 amazonEC2, AmazonWebServiceRequest request) {
-        List<Ec2SecurityGroup> securityGroups = new ArrayList<Ec2SecurityGroup>();
+        DescribeSecurityGroupsResult result = amazonEC2.describeSecurityGroups(((DescribeSecurityGroupsRequest) request));
+        return lazyList(result.getSecurityGroups());
+    }
 
+    @Override
+    protected boolean processDescribe(AmazonEC2 amazonEC2, AmazonWebServiceRequest request, ResourceVisitor<Ec2SecurityGroup> visitor) {
         DescribeSecurityGroupsResult result = amazonEC2.describeSecurityGroups(((DescribeSecurityGroupsRequest) request));
         for (SecurityGroup group : result.getSecurityGroups()) {
-            securityGroups.add(new Ec2SecurityGroup(group));
+            if (!visitor.visit(new Ec2SecurityGroup(group))) {
+                return false;
+            }
         }
-        return securityGroups;
+        return true;
     }
 
     @Override
@@ -85,11 +119,26 @@ public class Ec2SecurityGroup extends Ec2Resource<SecurityGroup, Ec2SecurityGrou
         try {
             List<SecurityGroup> securityGroups = getEc2().describeSecurityGroups(new DescribeSecurityGroupsRequest().withGroupIds(getId())).getSecurityGroups();
             return securityGroups.get(0);
-        } catch (Exception ex) {
+        } catch (AmazonServiceException ex) {
+            if (!AmazonErrors.isNotFound(ex)) {
+                throw ex;
+            }
+            throw new ResourceDoesNotExistException(getId(), ex);
+        } catch (IndexOutOfBoundsException ex) {
             throw new ResourceDoesNotExistException(getId());
         }
     }
 
+    @Override
+    protected Map<String, SecurityGroup> processDescribe(Collection<String> ids) {
+        Map<String, SecurityGroup> securityGroups = new HashMap<String, SecurityGroup>();
+        DescribeSecurityGroupsResult result = getEc2().describeSecurityGroups(new DescribeSecurityGroupsRequest().withGroupIds(ids));
+        for (SecurityGroup group : result.getSecurityGroups()) {
+            securityGroups.put(group.getGroupId(), group);
+        }
+        return securityGroups;
+    }
+
     public static List<Ec2SecurityGroup> getAllSecurityGroups() {
         return new Ec2SecurityGroup().getAll();
     }
@@ -1,11 +1,14 @@
 package com.amazonaws.wrapper.model;
 
-import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.AmazonWebServiceRequest;
 import com.amazonaws.services.ec2.AmazonEC2;
 import com.amazonaws.services.ec2.model.CreateSnapshotRequest;
@@ -15,7 +18,10 @@ import com.amazonaws.services.ec2.model.DescribeSnapshotsRequest;
 import com.amazonaws.services.ec2.model.DescribeSnapshotsResult;
 import com.amazonaws.services.ec2.model.Filter;
 import com.amazonaws.services.ec2.model.Snapshot;
+import com.amazonaws.services.ec2.model.Tag;
 import com.amazonaws.wrapper.events.ResourceDeleteHandler;
+import com.amazonaws.wrapper.events.ResourceVisitor;
+import com.amazonaws.wrapper.exception.AmazonErrors;
 import com.amazonaws.wrapper.exception.ResourceDoesNotExistException;
 
 /**
@@ -28,6 +34,7 @@ public class Ec2Snapshot extends Ec2Resource<Snapshot, Ec2Snapshot> {
 
     public static final String STATE_PENDING = "pending";
     public static final String STATE_COMPLETED = "completed";
+    public static final String STATE_ERROR = "error";
 
     public Ec2Snapshot() {
     }
@@ -62,6 +69,28 @@ public class Ec2Snapshot extends Ec2Resource<Snapshot, Ec2Snapshot> {
         return getResource().getSnapshotId();
     }
 
+    @Override
+    protected Ec2Snapshot wrap(Snapshot model) {
+        return new Ec2Snapshot(model);
+    }
+
+    @Override
+    protected String getModelId(Snapshot model) {
+        return model.getSnapshotId();
+    }
+
+    /**
+     * Return typed query of snapshots, describe requests are sent with connector and region of this resource
+     */
+    public SnapshotQuery query() {
+        return new SnapshotQuery(this);
+    }
+
+    @Override
+    protected List<Tag> getResourceTags() {
+        return getResource().getTags();
+    }
+
     @Override
     protected AmazonWebServiceRequest applyFiltersForRequest(Filter... filters) {
         return new DescribeSnapshotsRequest().withFilters(filters);
@@ -69,12 +98,19 @@ public class Ec2Snapshot extends Ec2Resource<Snapshot, Ec2Snapshot> {
 
     @Override
     protected List<Ec2Snapshot> processDescribe(AmazonEC2 amazonEC2, AmazonWebServiceRequest request) {
-        List<Ec2Snapshot> snapshots = new ArrayList<Ec2Snapshot>();
+        DescribeSnapshotsResult result = amazonEC2.describeSnapshots(((DescribeSnapshotsRequest) request).withOwnerIds(getUserId()));
+        return lazyList(result.getSnapshots());
+    }
+
+    @Override
+    protected boolean processDescribe(AmazonEC2 amazonEC2, AmazonWebServiceRequest request, ResourceVisitor<Ec2Snapshot> visitor) {
         DescribeSnapshotsResult result = amazonEC2.describeSnapshots(((DescribeSnapshotsRequest) request).withOwnerIds(getUserId()));
         for (Snapshot snapshot : result.getSnapshots()) {
-            snapshots.add(new Ec2Snapshot(snapshot));
+            if (!visitor.visit(new Ec2Snapshot(snapshot))) {
+                return false;
+            }
         }
-        return snapshots;
+        return true;
     }
 
     @Override
@@ -82,11 +118,26 @@ public class Ec2Snapshot extends Ec2Resource<Snapshot, Ec2Snapshot> {
         try {
             DescribeSnapshotsResult result = getEc2().describeSnapshots(new DescribeSnapshotsRequest().withSnapshotIds(getId()));
             return result.getSnapshots().get(0);
-        } catch (Exception ex) {
+        } catch (AmazonServiceException ex) {
+            if (!AmazonErrors.isNotFound(ex)) {
+                throw ex;
+            }
+            throw new ResourceDoesNotExistException(getId(), ex);
+        } catch (IndexOutOfBoundsException ex) {
             throw new ResourceDoesNotExistException(getId());
         }
     }
 
+    @Override
+    protected Map<String, Snapshot> processDescribe(Collection<String> ids) {
+        Map<String, Snapshot> snapshots = new HashMap<String, Snapshot>();
+        DescribeSnapshotsResult result = getEc2().describeSnapshots(new DescribeSnapshotsRequest().withSnapshotIds(ids));
+        for (Snapshot snapshot : result.getSnapshots()) {
+            snapshots.put(snapshot.getSnapshotId(), snapshot);
+        }
+        return snapshots;
+    }
+
     public Integer getSize() {
         return getResource().getVolumeSize();
     }
@@ -100,7 +151,17 @@ public class Ec2Snapshot extends Ec2Resource<Snapshot, Ec2Snapshot> {
     }
 
     public String getState() throws ResourceDoesNotExistException {
-        refresh();
+        return getState(ReadConsistency.STRONG);
+    }
+
+    /**
+     * Return state refreshed from amazon only if it is older than consistency allows
+     * 
+     * @param consistency
+     *            - acceptable age of state
+     */
+    public String getState(ReadConsistency consistency) throws ResourceDoesNotExistException {
+        refresh(consistency);
         return getResource().getState();
     }
 
@@ -114,6 +175,19 @@ public class Ec2Snapshot extends Ec2Resource<Snapshot, Ec2Snapshot> {
         new Ec2Snapshot().delete(acmSnapshots, handler);
     }
 
+    /**
+     * Deletes all provided snapshots in parallel
+     * 
+     * @param acmSnapshots
+     * @param handler
+     * @param maxConcurrency
+     *            - max number of concurrent delete requests
+     * @return status of every snapshot
+     */
+    public static BulkDeleteResult<Ec2Snapshot> deleteAll(List<Ec2Snapshot> acmSnapshots, ResourceDeleteHandler<Ec2Snapshot> handler, int maxConcurrency) {
+        return new Ec2Snapshot().delete(acmSnapshots, handler, maxConcurrency);
+    }
+
     public static List<Ec2Snapshot> getAllSnapshots() {
         return new Ec2Snapshot().getAll();
     }
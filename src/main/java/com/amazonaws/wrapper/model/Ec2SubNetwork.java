@@ -1,12 +1,15 @@
 package com.amazonaws.wrapper.model;
 
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.AmazonWebServiceRequest;
 import com.amazonaws.services.ec2.AmazonEC2;
 import com.amazonaws.services.ec2.model.CreateSubnetRequest;
@@ -16,6 +19,9 @@ import com.amazonaws.services.ec2.model.DescribeSubnetsRequest;
 import com.amazonaws.services.ec2.model.DescribeSubnetsResult;
 import com.amazonaws.services.ec2.model.Filter;
 import com.amazonaws.services.ec2.model.Subnet;
+import com.amazonaws.services.ec2.model.Tag;
+import com.amazonaws.wrapper.events.ResourceVisitor;
+import com.amazonaws.wrapper.exception.AmazonErrors;
 import com.amazonaws.wrapper.exception.ResourceDoesNotExistException;
 
 public class Ec2SubNetwork extends Ec2Resource<Subnet, Ec2SubNetwork> {
@@ -60,6 +66,28 @@ public class Ec2SubNetwork extends Ec2Resource<Subnet, Ec2SubNetwork> {
         return getResource().getSubnetId();
     }
 
+    @Override
+    protected Ec2SubNetwork wrap(Subnet model) {
+        return new Ec2SubNetwork(model);
+    }
+
+    @Override
+    protected String getModelId(Subnet model) {
+        return model.getSubnetId();
+    }
+
+    /**
+     * Return typed query of subnets, describe requests are sent with connector and region of this resource
+     */
+    public SubnetQuery query() {
+        return new SubnetQuery(this);
+    }
+
+    @Override
+    protected List<Tag> getResourceTags() {
+        return getResource().getTags();
+    }
+
     @Override
     protected AmazonWebServiceRequest applyFiltersForRequest(Filter... filters) {
         return new DescribeSubnetsRequest().withFilters(filters);
@@ -67,13 +95,19 @@ public class Ec2SubNetwork extends Ec2Resource<Subnet, Ec2SubNetwork> {
 
     @Override
     protected List<Ec2SubNetwork> processDescribe(AmazonEC2 amazonEC2, AmazonWebServiceRequest request) {
-        List<Ec2SubNetwork> subNets = new ArrayList<Ec2SubNetwork>();
+        DescribeSubnetsResult result = amazonEC2.describeSubnets(((DescribeSubnetsRequest) request));
+        return lazyList(result.getSubnets());
+    }
 
+    @Override
+    protected boolean processDescribe(AmazonEC2 amazonEC2, AmazonWebServiceRequest request, ResourceVisitor<Ec2SubNetwork> visitor) {
         DescribeSubnetsResult result = amazonEC2.describeSubnets(((DescribeSubnetsRequest) request));
         for (Subnet subnet : result.getSubnets()) {
-            subNets.add(new Ec2SubNetwork(subnet));
+            if (!visitor.visit(new Ec2SubNetwork(subnet))) {
+                return false;
+            }
         }
-        return subNets;
+        return true;
     }
 
     @Override
@@ -81,11 +115,26 @@ public class Ec2SubNetwork extends Ec2Resource<Subnet, Ec2SubNetwork> {
         try {
             List<Subnet> subnetworks = getEc2().describeSubnets(new DescribeSubnetsRequest().withSubnetIds(getId())).getSubnets();
             return subnetworks.get(0);
-        } catch (Exception ex) {
+        } catch (AmazonServiceException ex) {
+            if (!AmazonErrors.isNotFound(ex)) {
+                throw ex;
+            }
+            throw new ResourceDoesNotExistException(getId(), ex);
+        } catch (IndexOutOfBoundsException ex) {
             throw new ResourceDoesNotExistException(getId());
         }
     }
 
+    @Override
+    protected Map<String, Subnet> processDescribe(Collection<String> ids) {
+        Map<String, Subnet> subNets = new HashMap<String, Subnet>();
+        DescribeSubnetsResult result = getEc2().describeSubnets(new DescribeSubnetsRequest().withSubnetIds(ids));
+        for (Subnet subnet : result.getSubnets()) {
+            subNets.put(subnet.getSubnetId(), subnet);
+        }
+        return subNets;
+    }
+
     public static List<Ec2SubNetwork> getAllSubnets() {
         return new Ec2SubNetwork().getAll();
     }
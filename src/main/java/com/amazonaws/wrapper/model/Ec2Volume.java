@@ -1,9 +1,12 @@
 package com.amazonaws.wrapper.model;
 
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.AmazonWebServiceRequest;
 import com.amazonaws.services.ec2.AmazonEC2;
 import com.amazonaws.services.ec2.model.CreateSnapshotRequest;
@@ -11,7 +14,10 @@ import com.amazonaws.services.ec2.model.DeleteVolumeRequest;
 import com.amazonaws.services.ec2.model.DescribeVolumesRequest;
 import com.amazonaws.services.ec2.model.DescribeVolumesResult;
 import com.amazonaws.services.ec2.model.Filter;
+import com.amazonaws.services.ec2.model.Tag;
 import com.amazonaws.services.ec2.model.Volume;
+import com.amazonaws.wrapper.events.ResourceVisitor;
+import com.amazonaws.wrapper.exception.AmazonErrors;
 import com.amazonaws.wrapper.exception.ResourceDoesNotExistException;
 
 public class Ec2Volume extends Ec2Resource<Volume, Ec2Volume> {
@@ -43,6 +49,28 @@ public class Ec2Volume extends Ec2Resource<Volume, Ec2Volume> {
         return getResource().getVolumeId();
     }
 
+    @Override
+    protected Ec2Volume wrap(Volume model) {
+        return new Ec2Volume(model);
+    }
+
+    @Override
+    protected String getModelId(Volume model) {
+        return model.getVolumeId();
+    }
+
+    /**
+     * Return typed query of volumes, describe requests are sent with connector and region of this resource
+     */
+    public VolumeQuery query() {
+        return new VolumeQuery(this);
+    }
+
+    @Override
+    protected List<Tag> getResourceTags() {
+        return getResource().getTags();
+    }
+
     @Override
     protected AmazonWebServiceRequest applyFiltersForRequest(Filter... filters) {
         return new DescribeVolumesRequest().withFilters(filters);
@@ -50,12 +78,19 @@ public class Ec2Volume extends Ec2Resource<Volume, Ec2Volume> {
 
     @Override
     protected List<Ec2Volume> processDescribe(AmazonEC2 amazonEC2, AmazonWebServiceRequest request) {
-        List<Ec2Volume> volumes = new ArrayList<Ec2Volume>();
+        DescribeVolumesResult result = amazonEC2.describeVolumes((DescribeVolumesRequest) request);
+        return lazyList(result.getVolumes());
+    }
+
+    @Override
+    protected boolean processDescribe(AmazonEC2 amazonEC2, AmazonWebServiceRequest request, ResourceVisitor<Ec2Volume> visitor) {
         DescribeVolumesResult result = amazonEC2.describeVolumes((DescribeVolumesRequest) request);
         for (Volume volume : result.getVolumes()) {
-            volumes.add(new Ec2Volume(volume));
+            if (!visitor.visit(new Ec2Volume(volume))) {
+                return false;
+            }
         }
-        return volumes;
+        return true;
     }
 
     public Ec2Snapshot takeSnapshot(String description) {
@@ -71,11 +106,26 @@ public class Ec2Volume extends Ec2Resource<Volume, Ec2Volume> {
         try {
             DescribeVolumesResult result = getEc2().describeVolumes(new DescribeVolumesRequest().withVolumeIds(getId()));
             return result.getVolumes().get(0);
-        } catch (Exception ex) {
+        } catch (AmazonServiceException ex) {
+            if (!AmazonErrors.isNotFound(ex)) {
+                throw ex;
+            }
+            throw new ResourceDoesNotExistException(getId(), ex);
+        } catch (IndexOutOfBoundsException ex) {
             throw new ResourceDoesNotExistException(getId());
         }
     }
 
+    @Override
+    protected Map<String, Volume> processDescribe(Collection<String> ids) {
+        Map<String, Volume> volumes = new HashMap<String, Volume>();
+        DescribeVolumesResult result = getEc2().describeVolumes(new DescribeVolumesRequest().withVolumeIds(ids));
+        for (Volume volume : result.getVolumes()) {
+            volumes.put(volume.getVolumeId(), volume);
+        }
+        return volumes;
+    }
+
     public static List<Ec2Volume> getAllAvailable() {
         return new Ec2Volume().getFiltered("status", "available");
     }
@@ -1,12 +1,15 @@
 package com.amazonaws.wrapper.model;
 
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.AmazonWebServiceRequest;
 import com.amazonaws.services.ec2.AmazonEC2;
 import com.amazonaws.services.ec2.model.CreateVpcRequest;
@@ -15,7 +18,10 @@ import com.amazonaws.services.ec2.model.DeleteVpcRequest;
 import com.amazonaws.services.ec2.model.DescribeVpcsRequest;
 import com.amazonaws.services.ec2.model.DescribeVpcsResult;
 import com.amazonaws.services.ec2.model.Filter;
+import com.amazonaws.services.ec2.model.Tag;
 import com.amazonaws.services.ec2.model.Vpc;
+import com.amazonaws.wrapper.events.ResourceVisitor;
+import com.amazonaws.wrapper.exception.AmazonErrors;
 import com.amazonaws.wrapper.exception.ResourceDoesNotExistException;
 
 public class Ec2Vpc extends Ec2Resource<Vpc, Ec2Vpc> {
@@ -56,6 +62,28 @@ public class Ec2Vpc extends Ec2Resource<Vpc, Ec2Vpc> {
         return getResource().getVpcId();
     }
 
+    @Override
+    protected Ec2Vpc wrap(Vpc model) {
+        return new Ec2Vpc(model);
+    }
+
+    @Override
+    protected String getModelId(Vpc model) {
+        return model.getVpcId();
+    }
+
+    /**
+     * Return typed query of VPCs, describe requests are sent with connector and region of this resource
+     */
+    public VpcQuery query() {
+        return new VpcQuery(this);
+    }
+
+    @Override
+    protected List<Tag> getResourceTags() {
+        return getResource().getTags();
+    }
+
     @Override
     protected AmazonWebServiceRequest applyFiltersForRequest(Filter... filters) {
         return new DescribeVpcsRequest().withFilters(filters);
@@ -63,13 +91,19 @@ public class Ec2Vpc extends Ec2Resource<Vpc, Ec2Vpc> {
 
     @Override
     protected List<Ec2Vpc> processDescribe(AmazonEC2 amazonEC2, AmazonWebServiceRequest request) {
-        List<Ec2Vpc> vpcs = new ArrayList<Ec2Vpc>();
+        DescribeVpcsResult result = amazonEC2.describeVpcs(((DescribeVpcsRequest) request));
+        return lazyList(result.getVpcs());
+    }
 
+    @Override
+    protected boolean processDescribe(AmazonEC2 amazonEC2, AmazonWebServiceRequest request, ResourceVisitor<Ec2Vpc> visitor) {
         DescribeVpcsResult result = amazonEC2.describeVpcs(((DescribeVpcsRequest) request));
         for (Vpc vpc : result.getVpcs()) {
-            vpcs.add(new Ec2Vpc(vpc));
+            if (!visitor.visit(new Ec2Vpc(vpc))) {
+                return false;
+            }
         }
-        return vpcs;
+        return true;
     }
 
     @Override
@@ -77,11 +111,26 @@ public class Ec2Vpc extends Ec2Resource<Vpc, Ec2Vpc> {
         try {
             List<Vpc> vpcs = getEc2().describeVpcs(new DescribeVpcsRequest().withVpcIds(getId())).getVpcs();
             return vpcs.get(0);
-        } catch (Exception ex) {
+        } catch (AmazonServiceException ex) {
+            if (!AmazonErrors.isNotFound(ex)) {
+                throw ex;
+            }
+            throw new ResourceDoesNotExistException(getId(), ex);
+        } catch (IndexOutOfBoundsException ex) {
             throw new ResourceDoesNotExistException(getId());
         }
     }
 
+    @Override
+    protected Map<String, Vpc> processDescribe(Collection<String> ids) {
+        Map<String, Vpc> vpcs = new HashMap<String, Vpc>();
+        DescribeVpcsResult result = getEc2().describeVpcs(new DescribeVpcsRequest().withVpcIds(ids));
+        for (Vpc vpc : result.getVpcs()) {
+            vpcs.put(vpc.getVpcId(), vpc);
+        }
+        return vpcs;
+    }
+
     public static List<Ec2Vpc> getAllVpcs() {
         return new Ec2Vpc().getAll();
     }
@@ -0,0 +1,91 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.List;
+
+/**
+ * Typed query of elastic IPs, for example new Ec2ElasticIP().query().domain("vpc").unassociated().list()
+ */
+public class ElasticIpQuery extends Ec2Query<Ec2ElasticIP, ElasticIpQuery> {
+
+    public final static Attribute<Ec2ElasticIP> PUBLIC_IP = new Attribute<Ec2ElasticIP>("public-ip", "public-ip") {
+
+        @Override
+        public List<String> valuesOf(Ec2ElasticIP address) {
+            return values(address.getResource().getPublicIp());
+        }
+    };
+
+    public final static Attribute<Ec2ElasticIP> DOMAIN = new Attribute<Ec2ElasticIP>("domain", "domain") {
+
+        @Override
+        public List<String> valuesOf(Ec2ElasticIP address) {
+            return values(address.getResource().getDomain());
+        }
+    };
+
+    public final static Attribute<Ec2ElasticIP> INSTANCE_ID = new Attribute<Ec2ElasticIP>("instance-id", "instance-id") {
+
+        @Override
+        public List<String> valuesOf(Ec2ElasticIP address) {
+            return values(address.getResource().getInstanceId() == null || address.getResource().getInstanceId().isEmpty() ? null : address.getResource().getInstanceId());
+        }
+    };
+
+    public final static Attribute<Ec2ElasticIP> ALLOCATION_ID = new Attribute<Ec2ElasticIP>("allocation-id", "allocation-id") {
+
+        @Override
+        public List<String> valuesOf(Ec2ElasticIP address) {
+            return values(address.getResource().getAllocationId());
+        }
+    };
+
+    public final static Attribute<Ec2ElasticIP> ASSOCIATION_ID = new Attribute<Ec2ElasticIP>("association-id", "association-id") {
+
+        @Override
+        public List<String> valuesOf(Ec2ElasticIP address) {
+            return values(address.getResource().getAssociationId());
+        }
+    };
+
+    public ElasticIpQuery(Ec2ElasticIP prototype) {
+        super(prototype);
+    }
+
+    @Override
+    protected ElasticIpQuery self() {
+        return this;
+    }
+
+    /**
+     * Address is in one of domains, "standard" or "vpc"
+     */
+    public ElasticIpQuery domain(String... domains) {
+        return where(DOMAIN, domains);
+    }
+
+    /**
+     * Address is associated with one of instances
+     */
+    public ElasticIpQuery associatedWith(String... instanceIds) {
+        return where(INSTANCE_ID, instanceIds);
+    }
+
+    /**
+     * Address is not associated with any instance, evaluated locally
+     */
+    public ElasticIpQuery unassociated() {
+        return where(new Condition<Ec2ElasticIP>() {
+
+            @Override
+            public boolean matches(Ec2ElasticIP address) {
+                return INSTANCE_ID.valuesOf(address).isEmpty();
+            }
+
+            @Override
+            public String toString() {
+                return "unassociated";
+            }
+        });
+    }
+
+}
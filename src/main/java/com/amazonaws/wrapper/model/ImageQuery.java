@@ -0,0 +1,96 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.List;
+
+/**
+ * Typed query of images, for example new Ec2Image().query().state("available").named("build-*").list()
+ */
+public class ImageQuery extends Ec2Query<Ec2Image, ImageQuery> {
+
+    public final static Attribute<Ec2Image> IMAGE_ID = new Attribute<Ec2Image>("image-id", "image-id") {
+
+        @Override
+        public List<String> valuesOf(Ec2Image image) {
+            return values(image.getResource().getImageId());
+        }
+    };
+
+    public final static Attribute<Ec2Image> NAME = new Attribute<Ec2Image>("name", "name") {
+
+        @Override
+        public List<String> valuesOf(Ec2Image image) {
+            return values(image.getResource().getName());
+        }
+    };
+
+    public final static Attribute<Ec2Image> STATE = new Attribute<Ec2Image>("state", "state") {
+
+        @Override
+        public List<String> valuesOf(Ec2Image image) {
+            return values(image.getResource().getState());
+        }
+    };
+
+    public final static Attribute<Ec2Image> OWNER_ID = new Attribute<Ec2Image>("owner-id", "owner-id") {
+
+        @Override
+        public List<String> valuesOf(Ec2Image image) {
+            return values(image.getResource().getOwnerId());
+        }
+    };
+
+    public final static Attribute<Ec2Image> IS_PUBLIC = new Attribute<Ec2Image>("is-public", "is-public") {
+
+        @Override
+        public List<String> valuesOf(Ec2Image image) {
+            return values(image.getResource().getPublic());
+        }
+    };
+
+    public final static Attribute<Ec2Image> ARCHITECTURE = new Attribute<Ec2Image>("architecture", "architecture") {
+
+        @Override
+        public List<String> valuesOf(Ec2Image image) {
+            return values(image.getResource().getArchitecture());
+        }
+    };
+
+    public final static Attribute<Ec2Image> ROOT_DEVICE_TYPE = new Attribute<Ec2Image>("root-device-type", "root-device-type") {
+
+        @Override
+        public List<String> valuesOf(Ec2Image image) {
+            return values(image.getResource().getRootDeviceType());
+        }
+    };
+
+    public ImageQuery(Ec2Image prototype) {
+        super(prototype);
+    }
+
+    @Override
+    protected ImageQuery self() {
+        return this;
+    }
+
+    /**
+     * Image is in one of states, for example "available"
+     */
+    public ImageQuery state(String... states) {
+        return where(STATE, states);
+    }
+
+    /**
+     * Image has one of names, amazon accepts "*" and "?" wildcards
+     */
+    public ImageQuery named(String... names) {
+        return where(NAME, names);
+    }
+
+    /**
+     * Image belongs to one of owners
+     */
+    public ImageQuery ownedBy(String... ownerIds) {
+        return where(OWNER_ID, ownerIds);
+    }
+
+}
@@ -0,0 +1,297 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.ec2.model.DescribeInstancesRequest;
+import com.amazonaws.services.ec2.model.Filter;
+import com.amazonaws.services.ec2.model.Tag;
+import com.amazonaws.wrapper.events.ResourceVisitor;
+
+/**
+ * In-memory copy of all instances with hash indexes by id, private ip, public DNS, subnet, VPC and tags. Inventory is synchronized with amazon
+ * every syncIntervalMillis in background, lookups never return data older than maxStalenessMillis (inventory is synchronized first). If that
+ * synchronization fails, lookups serve stale data and next attempt is made after backoff. Lookups of single instance that miss the index ask
+ * amazon, lookups by ip or DNS shared by several instances return null
+ */
+public class InstanceInventory {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(InstanceInventory.class);
+
+    private final Ec2Connector ec2Connector;
+
+    private final long syncIntervalMillis;
+
+    private final long maxStalenessMillis;
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile Index index = new Index(0);
+
+    /*
+     * Lookups don't synchronize stale inventory before this time after failed synchronization
+     */
+    private volatile long nextSyncAttempt;
+
+    private long syncBackoffMillis;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+
+    /**
+     * @param ec2Connector
+     *            - connector to describe instances with
+     * @param syncIntervalMillis
+     *            - interval of background synchronization
+     * @param maxStalenessMillis
+     *            - max age of data returned by lookups
+     */
+    public InstanceInventory(Ec2Connector ec2Connector, long syncIntervalMillis, long maxStalenessMillis) {
+        if (syncIntervalMillis <= 0 || maxStalenessMillis < syncIntervalMillis) {
+            throw new IllegalArgumentException("Sync interval must be positive and not greater than max staleness");
+        }
+        this.ec2Connector = ec2Connector;
+        this.syncIntervalMillis = syncIntervalMillis;
+        this.maxStalenessMillis = maxStalenessMillis;
+    }
+
+    /**
+     * Start background synchronization
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ec2-wrapper-instance-inventory");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    sync();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Unable to synchronize instance inventory: " + e.getMessage(), e);
+                }
+            }
+        }, 0, syncIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Load all instances from amazon and rebuild indexes
+     */
+    public void sync() {
+        final Index fresh = new Index(System.currentTimeMillis());
+        new Ec2Instance().processDescribe(ec2Connector.getAmazonEC2(), new DescribeInstancesRequest(), new ResourceVisitor<Ec2Instance>() {
+
+            @Override
+            public boolean visit(Ec2Instance instance) {
+                fresh.add(instance);
+                return true;
+            }
+        });
+        index = fresh;
+        syncs.incrementAndGet();
+        LOGGER.debug("Instance inventory synchronized: " + fresh.byId.size() + " instances");
+    }
+
+    public Ec2Instance get(String instanceId) {
+        Ec2Instance instance = actualIndex().byId.get(instanceId);
+        return instance != null ? hit(instance) : fromAmazon("instance-id", instanceId);
+    }
+
+    public Ec2Instance getByPrivateIp(String ip) {
+        List<Ec2Instance> instances = actualIndex().byPrivateIp.get(ip);
+        return instances != null ? hit(instances) : fromAmazon("private-ip-address", ip);
+    }
+
+    public Ec2Instance getByPublicDNS(String dns) {
+        List<Ec2Instance> instances = actualIndex().byPublicDns.get(dns);
+        return instances != null ? hit(instances) : fromAmazon("dns-name", dns);
+    }
+
+    public List<Ec2Instance> getBySubnet(String subnetId) {
+        return list(actualIndex().bySubnet.get(subnetId));
+    }
+
+    public List<Ec2Instance> getByVpc(String vpcId) {
+        return list(actualIndex().byVpc.get(vpcId));
+    }
+
+    /**
+     * Return instances tagged with name, value
+     * 
+     * @param value
+     *            - tag value, null for any value
+     */
+    public List<Ec2Instance> getByTag(String name, String value) {
+        Index actual = actualIndex();
+        return list(value == null ? actual.byTagKey.get(name) : actual.byTag.get(new Tag(name, value)));
+    }
+
+    public List<Ec2Instance> getAll() {
+        return copies(actualIndex().byId.values());
+    }
+
+    /**
+     * Age of inventory data, milliseconds
+     */
+    public long getAge() {
+        return System.currentTimeMillis() - index.syncedAt;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getSyncCount() {
+        return syncs.get();
+    }
+
+    private Index actualIndex() {
+        Index actual = index;
+        if (System.currentTimeMillis() - actual.syncedAt <= maxStalenessMillis) {
+            return actual;
+        }
+        if (actual.syncedAt > 0 && System.currentTimeMillis() < nextSyncAttempt) {
+            return actual;
+        }
+        synchronized (this) {
+            // other thread could synchronize inventory or fail to do it while we were waiting
+            long now = System.currentTimeMillis();
+            if (now - index.syncedAt <= maxStalenessMillis || (index.syncedAt > 0 && now < nextSyncAttempt)) {
+                return index;
+            }
+            try {
+                sync();
+                syncBackoffMillis = 0;
+            } catch (RuntimeException e) {
+                if (index.syncedAt == 0) {
+                    // nothing to serve
+                    throw e;
+                }
+                syncBackoffMillis = syncBackoffMillis == 0 ? syncIntervalMillis : Math.min(maxStalenessMillis, syncBackoffMillis * 2);
+                nextSyncAttempt = System.currentTimeMillis() + syncBackoffMillis;
+                LOGGER.warn("Unable to synchronize instance inventory, serving data of age " + getAge() + " ms: " + e.getMessage());
+            }
+            return index;
+        }
+    }
+
+    private Ec2Instance hit(Ec2Instance instance) {
+        hits.incrementAndGet();
+        return instance.copy();
+    }
+
+    /*
+     * Ip or DNS shared by several instances doesn't identify instance
+     */
+    private Ec2Instance hit(List<Ec2Instance> instances) {
+        hits.incrementAndGet();
+        return instances.size() == 1 ? instances.get(0).copy() : null;
+    }
+
+    private Ec2Instance fromAmazon(String key, String value) {
+        misses.incrementAndGet();
+        List<Ec2Instance> instances = new Ec2Instance().processDescribe(ec2Connector.getAmazonEC2(), new DescribeInstancesRequest().withFilters(new Filter(
+                key, Collections.singletonList(value))));
+        return instances.size() == 1 ? instances.get(0) : null;
+    }
+
+    private List<Ec2Instance> list(List<Ec2Instance> instances) {
+        hits.incrementAndGet();
+        return instances == null ? new ArrayList<Ec2Instance>() : copies(instances);
+    }
+
+    /*
+     * Callers get copies, refreshing or changing them must not change indexed instances
+     */
+    private static List<Ec2Instance> copies(Collection<Ec2Instance> instances) {
+        List<Ec2Instance> copies = new ArrayList<Ec2Instance>(instances.size());
+        for (Ec2Instance instance : instances) {
+            copies.add(instance.copy());
+        }
+        return copies;
+    }
+
+    /*
+     * Immutable after synchronization, replaced as a whole. Indexed instances are never handed out
+     */
+    private static class Index {
+
+        private final long syncedAt;
+        private final Map<String, Ec2Instance> byId = new HashMap<String, Ec2Instance>();
+        private final Map<String, List<Ec2Instance>> byPrivateIp = new HashMap<String, List<Ec2Instance>>();
+        private final Map<String, List<Ec2Instance>> byPublicDns = new HashMap<String, List<Ec2Instance>>();
+        private final Map<String, List<Ec2Instance>> bySubnet = new HashMap<String, List<Ec2Instance>>();
+        private final Map<String, List<Ec2Instance>> byVpc = new HashMap<String, List<Ec2Instance>>();
+        private final Map<Tag, List<Ec2Instance>> byTag = new HashMap<Tag, List<Ec2Instance>>();
+        private final Map<String, List<Ec2Instance>> byTagKey = new HashMap<String, List<Ec2Instance>>();
+
+        Index(long syncedAt) {
+            this.syncedAt = syncedAt;
+        }
+
+        void add(Ec2Instance instance) {
+            byId.put(instance.getId(), instance);
+            addIfPresent(byPrivateIp, instance.getPrivateIp(), instance);
+            addIfPresent(byPublicDns, instance.getPublicDNS(), instance);
+            addTo(bySubnet, instance.getAmazonInstance().getSubnetId(), instance);
+            addTo(byVpc, instance.getAmazonInstance().getVpcId(), instance);
+            for (Tag tag : instance.getTags()) {
+                addTo(byTag, tag, instance);
+                addTo(byTagKey, tag.getKey(), instance);
+            }
+        }
+
+        private static void addIfPresent(Map<String, List<Ec2Instance>> index, String key, Ec2Instance instance) {
+            if (key != null && !key.isEmpty()) {
+                addTo(index, key, instance);
+            }
+        }
+
+        private static <K> void addTo(Map<K, List<Ec2Instance>> index, K key, Ec2Instance instance) {
+            if (key == null) {
+                return;
+            }
+            List<Ec2Instance> instances = index.get(key);
+            if (instances == null) {
+                instances = new ArrayList<Ec2Instance>();
+                index.put(key, instances);
+            }
+            instances.add(instance);
+        }
+    }
+
+}
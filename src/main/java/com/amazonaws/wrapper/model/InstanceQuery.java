@@ -0,0 +1,180 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.amazonaws.services.ec2.model.GroupIdentifier;
+
+/**
+ * Typed query of instances, for example new Ec2Instance().query().state("running").inSubnet(id).notTagged("Name").list()
+ */
+public class InstanceQuery extends Ec2Query<Ec2Instance, InstanceQuery> {
+
+    public final static Attribute<Ec2Instance> INSTANCE_ID = new Attribute<Ec2Instance>("instance-id", "instance-id") {
+
+        @Override
+        public List<String> valuesOf(Ec2Instance instance) {
+            return values(instance.getResource().getInstanceId());
+        }
+    };
+
+    public final static Attribute<Ec2Instance> STATE = new Attribute<Ec2Instance>("instance-state-name", "instance-state-name") {
+
+        @Override
+        public List<String> valuesOf(Ec2Instance instance) {
+            return values(instance.getResource().getState() == null ? null : instance.getResource().getState().getName());
+        }
+    };
+
+    public final static Attribute<Ec2Instance> INSTANCE_TYPE = new Attribute<Ec2Instance>("instance-type", "instance-type") {
+
+        @Override
+        public List<String> valuesOf(Ec2Instance instance) {
+            return values(instance.getResource().getInstanceType());
+        }
+    };
+
+    public final static Attribute<Ec2Instance> IMAGE_ID = new Attribute<Ec2Instance>("image-id", "image-id") {
+
+        @Override
+        public List<String> valuesOf(Ec2Instance instance) {
+            return values(instance.getResource().getImageId());
+        }
+    };
+
+    public final static Attribute<Ec2Instance> KEY_NAME = new Attribute<Ec2Instance>("key-name", "key-name") {
+
+        @Override
+        public List<String> valuesOf(Ec2Instance instance) {
+            return values(instance.getResource().getKeyName());
+        }
+    };
+
+    public final static Attribute<Ec2Instance> PRIVATE_IP = new Attribute<Ec2Instance>("private-ip-address", "private-ip-address") {
+
+        @Override
+        public List<String> valuesOf(Ec2Instance instance) {
+            return values(instance.getResource().getPrivateIpAddress());
+        }
+    };
+
+    public final static Attribute<Ec2Instance> PUBLIC_IP = new Attribute<Ec2Instance>("ip-address", "ip-address") {
+
+        @Override
+        public List<String> valuesOf(Ec2Instance instance) {
+            return values(instance.getResource().getPublicIpAddress());
+        }
+    };
+
+    public final static Attribute<Ec2Instance> PUBLIC_DNS = new Attribute<Ec2Instance>("dns-name", "dns-name") {
+
+        @Override
+        public List<String> valuesOf(Ec2Instance instance) {
+            return values(instance.getResource().getPublicDnsName());
+        }
+    };
+
+    public final static Attribute<Ec2Instance> SUBNET_ID = new Attribute<Ec2Instance>("subnet-id", "subnet-id") {
+
+        @Override
+        public List<String> valuesOf(Ec2Instance instance) {
+            return values(instance.getResource().getSubnetId());
+        }
+    };
+
+    public final static Attribute<Ec2Instance> VPC_ID = new Attribute<Ec2Instance>("vpc-id", "vpc-id") {
+
+        @Override
+        public List<String> valuesOf(Ec2Instance instance) {
+            return values(instance.getResource().getVpcId());
+        }
+    };
+
+    public final static Attribute<Ec2Instance> AVAILABILITY_ZONE = new Attribute<Ec2Instance>("availability-zone", "availability-zone") {
+
+        @Override
+        public List<String> valuesOf(Ec2Instance instance) {
+            return values(instance.getResource().getPlacement() == null ? null : instance.getResource().getPlacement().getAvailabilityZone());
+        }
+    };
+
+    public final static Attribute<Ec2Instance> GROUP_ID = new Attribute<Ec2Instance>("group-id", "group-id") {
+
+        @Override
+        public List<String> valuesOf(Ec2Instance instance) {
+            List<String> ids = new ArrayList<String>();
+            for (GroupIdentifier group : instance.getResource().getSecurityGroups()) {
+                ids.add(group.getGroupId());
+            }
+            return ids;
+        }
+    };
+
+    public final static Attribute<Ec2Instance> LAUNCH_TIME = new Attribute<Ec2Instance>("launch-time (milliseconds)", null) {
+
+        @Override
+        public List<String> valuesOf(Ec2Instance instance) {
+            return values(instance.getResource().getLaunchTime());
+        }
+    };
+
+    public InstanceQuery(Ec2Instance prototype) {
+        super(prototype);
+    }
+
+    @Override
+    protected InstanceQuery self() {
+        return this;
+    }
+
+    /**
+     * Instance is in one of states, for example "running"
+     */
+    public InstanceQuery state(String... states) {
+        return where(STATE, states);
+    }
+
+    /**
+     * Instance has one of types
+     */
+    public InstanceQuery type(String... types) {
+        return where(INSTANCE_TYPE, types);
+    }
+
+    /**
+     * Instance is in one of subnets
+     */
+    public InstanceQuery inSubnet(String... subnetIds) {
+        return where(SUBNET_ID, subnetIds);
+    }
+
+    /**
+     * Instance is in one of VPCs
+     */
+    public InstanceQuery inVpc(String... vpcIds) {
+        return where(VPC_ID, vpcIds);
+    }
+
+    /**
+     * Instance has one of private ips
+     */
+    public InstanceQuery privateIp(String... ips) {
+        return where(PRIVATE_IP, ips);
+    }
+
+    /**
+     * Instance is in one of security groups
+     */
+    public InstanceQuery inGroup(String... groupIds) {
+        return where(GROUP_ID, groupIds);
+    }
+
+    /**
+     * Instance was launched between from and to inclusive, evaluated locally
+     */
+    public InstanceQuery launchedBetween(Date from, Date to) {
+        return between(LAUNCH_TIME, from.getTime(), to.getTime());
+    }
+
+}
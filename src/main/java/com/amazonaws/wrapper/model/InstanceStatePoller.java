@@ -0,0 +1,254 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.services.ec2.model.DescribeInstancesRequest;
+import com.amazonaws.services.ec2.model.DescribeInstancesResult;
+import com.amazonaws.services.ec2.model.Filter;
+import com.amazonaws.services.ec2.model.Instance;
+import com.amazonaws.services.ec2.model.Reservation;
+import com.amazonaws.wrapper.events.InstanceStateListener;
+import com.amazonaws.wrapper.exception.ResourceDoesNotExistException;
+import com.amazonaws.wrapper.exception.ResourceFailedException;
+
+/**
+ * Watches states of many instances with one background thread. Every tick all watched instances are described with chunked DescribeInstances
+ * requests in their regions, waiting futures are completed and listeners are notified about state changes. Tick interval is minIntervalMillis
+ * while states are changing and doubles up to maxIntervalMillis while nothing happens
+ */
+public class InstanceStatePoller extends BackgroundPoller {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(InstanceStatePoller.class);
+
+    public final static long DEFAULT_MIN_INTERVAL_MILLIS = 1000;
+    public final static long DEFAULT_MAX_INTERVAL_MILLIS = 15000;
+
+    /*
+     * Fresh instances may be invisible for a while, instance is reported as not existing only after this number of ticks
+     */
+    public final static int MAX_MISSES = 10;
+
+    private final static Describer<Instance> INSTANCES = new Describer<Instance>() {
+
+        @Override
+        public Map<String, Instance> describe(AmazonEC2 ec2, List<String> ids) {
+            Map<String, Instance> described = new HashMap<String, Instance>();
+            // filter doesn't fail on unknown ids unlike withInstanceIds(..)
+            DescribeInstancesResult result = ec2.describeInstances(new DescribeInstancesRequest().withFilters(new Filter("instance-id", ids)));
+            for (Reservation reservation : result.getReservations()) {
+                for (Instance instance : reservation.getInstances()) {
+                    described.put(instance.getInstanceId(), instance);
+                }
+            }
+            return described;
+        }
+    };
+
+    private final Map<String, Watch> watches = new LinkedHashMap<String, Watch>();
+
+    public InstanceStatePoller(Ec2Connector ec2Connector) {
+        this(ec2Connector, DEFAULT_MIN_INTERVAL_MILLIS, DEFAULT_MAX_INTERVAL_MILLIS);
+    }
+
+    public InstanceStatePoller(Ec2Connector ec2Connector, long minIntervalMillis, long maxIntervalMillis) {
+        super(ec2Connector, minIntervalMillis, maxIntervalMillis, "ec2-wrapper-state-poller");
+    }
+
+    /**
+     * Return future that completes when instance reaches one of given states. Future fails with ResourceDoesNotExistException if instance
+     * disappears, with ResourceFailedException if instance is terminated (or shutting down) and can't reach given states any more and with
+     * IllegalStateException if poller is already shut down
+     * 
+     * @param instance
+     *            - instance to watch, its amazon model is updated on every tick
+     * @param states
+     *            - expected states, for example Ec2Instance.STATE_RUNNING
+     */
+    public synchronized Future<Ec2Instance> waitFor(Ec2Instance instance, String... states) {
+        SettableFuture<Ec2Instance> future = new SettableFuture<Ec2Instance>();
+        if (isStopped()) {
+            future.fail(new IllegalStateException("Instance state poller is shut down"));
+            return future;
+        }
+        watch(instance).targets.add(new Target(new HashSet<String>(Arrays.asList(states)), future));
+        return future;
+    }
+
+    /**
+     * Notify listener about every state change of instance until unwatch(..)
+     */
+    public synchronized void addListener(Ec2Instance instance, InstanceStateListener listener) {
+        watch(instance).listeners.add(listener);
+    }
+
+    /**
+     * Stop watching instance, waiting futures are cancelled
+     */
+    public synchronized void unwatch(Ec2Instance instance) {
+        Watch watch = watches.remove(instance.getId());
+        if (watch != null) {
+            for (Target target : watch.targets) {
+                target.future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Number of watched instances
+     */
+    public synchronized int size() {
+        return watches.size();
+    }
+
+    /**
+     * Stop polling, waiting futures are cancelled
+     */
+    public synchronized void shutdown() {
+        stop();
+        for (Watch watch : watches.values()) {
+            for (Target target : watch.targets) {
+                target.future.cancel(false);
+            }
+        }
+        watches.clear();
+    }
+
+    private Watch watch(Ec2Instance instance) {
+        Watch watch = watches.get(instance.getId());
+        if (watch == null) {
+            watch = new Watch(instance);
+            watches.put(instance.getId(), watch);
+        }
+        // new instance in pending state will change soon
+        wake();
+        return watch;
+    }
+
+    @Override
+    boolean isIdle() {
+        return watches.isEmpty();
+    }
+
+    @Override
+    boolean poll(List<Runnable> notifications) {
+        List<Ec2Instance> instances = new ArrayList<Ec2Instance>();
+        synchronized (this) {
+            for (Watch watch : watches.values()) {
+                instances.add(watch.instance);
+            }
+        }
+        Set<String> polled = new HashSet<String>();
+        Map<String, Instance> described = describeAll(instances, INSTANCES, polled);
+        synchronized (this) {
+            boolean changed = false;
+            for (Iterator<Watch> iterator = watches.values().iterator(); iterator.hasNext();) {
+                Watch watch = iterator.next();
+                String id = watch.instance.getId();
+                if (!polled.contains(id)) {
+                    continue;
+                }
+                Instance amazonInstance = described.get(id);
+                if (amazonInstance == null) {
+                    if (++watch.misses >= MAX_MISSES) {
+                        for (Target target : watch.targets) {
+                            target.future.fail(new ResourceDoesNotExistException(id));
+                        }
+                        iterator.remove();
+                    }
+                    continue;
+                }
+                watch.misses = 0;
+                watch.instance.doUpdate(amazonInstance);
+                String state = amazonInstance.getState().getName();
+                if (!state.equals(watch.state)) {
+                    changed = true;
+                    notifications.add(notification(watch, watch.state, state));
+                    watch.state = state;
+                }
+                for (Iterator<Target> targets = watch.targets.iterator(); targets.hasNext();) {
+                    Target target = targets.next();
+                    if (target.states.contains(state) || target.future.isDone()) {
+                        target.future.set(watch.instance);
+                        targets.remove();
+                    } else if (!canReach(state, target.states)) {
+                        target.future.fail(new ResourceFailedException(id, state));
+                        targets.remove();
+                    }
+                }
+                if (watch.targets.isEmpty() && watch.listeners.isEmpty()) {
+                    iterator.remove();
+                }
+            }
+            return changed;
+        }
+    }
+
+    /*
+     * Terminated instance stays terminated, shutting down instance can only be terminated
+     */
+    private static boolean canReach(String state, Set<String> states) {
+        if (state.equals(Ec2Instance.STATE_TERMINATED)) {
+            return false;
+        }
+        if (state.equals(Ec2Instance.STATE_SHUTDOWN)) {
+            return states.contains(Ec2Instance.STATE_TERMINATED);
+        }
+        return true;
+    }
+
+    private static Runnable notification(Watch watch, final String previousState, final String state) {
+        final Ec2Instance instance = watch.instance;
+        final List<InstanceStateListener> listeners = new ArrayList<InstanceStateListener>(watch.listeners);
+        return new Runnable() {
+
+            @Override
+            public void run() {
+                for (InstanceStateListener listener : listeners) {
+                    try {
+                        listener.stateChanged(instance, previousState, state);
+                    } catch (RuntimeException e) {
+                        LOGGER.error(e.getMessage(), e);
+                    }
+                }
+            }
+        };
+    }
+
+    private static class Watch {
+
+        private final Ec2Instance instance;
+        private final List<Target> targets = new ArrayList<Target>();
+        private final List<InstanceStateListener> listeners = new ArrayList<InstanceStateListener>();
+        private String state;
+        private int misses;
+
+        Watch(Ec2Instance instance) {
+            this.instance = instance;
+        }
+    }
+
+    private static class Target {
+
+        private final Set<String> states;
+        private final SettableFuture<Ec2Instance> future;
+
+        Target(Set<String> states, SettableFuture<Ec2Instance> future) {
+            this.states = states;
+            this.future = future;
+        }
+    }
+
+}
@@ -0,0 +1,170 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.wrapper.events.ResourceChangeEvent;
+import com.amazonaws.wrapper.events.ResourceChangeListener;
+import com.amazonaws.wrapper.events.ResourceVisitor;
+
+/**
+ * Keeps last known set of resources of one type and on every synchronization reports added, removed and modified resources to listeners.
+ * Resource is modified if its amazon model changed (state, tags, attachments, ...). First synchronization reports all resources as added.
+ * Previous versions are kept as private copies of amazon models, so changes of known resources made by their users (refresh, ...) don't hide
+ * changes on amazon. Listeners are notified outside of inventory lock, in order of synchronizations
+ * 
+ * For example: new InventorySync&lt;Ec2Volume&gt;(new Ec2Volume()).sync();
+ * 
+ * @param <O>
+ *            - resource type
+ */
+public class InventorySync<O extends Ec2Resource<?, O>> {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(InventorySync.class);
+
+    private final O prototype;
+
+    private final List<ResourceChangeListener<O>> listeners = new CopyOnWriteArrayList<ResourceChangeListener<O>>();
+
+    private Map<String, O> known = new HashMap<String, O>();
+
+    /*
+     * Copies of known resources, never given out before they are replaced
+     */
+    private Map<String, O> snapshots = new HashMap<String, O>();
+
+    /*
+     * Keeps order of notifications of concurrent synchronizations
+     */
+    private final Object notificationLock = new Object();
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param prototype
+     *            - any resource of synchronized type, it is used for describe requests
+     */
+    public InventorySync(O prototype) {
+        this.prototype = prototype;
+    }
+
+    public void addListener(ResourceChangeListener<O> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ResourceChangeListener<O> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Load all resources from amazon, compare them with previous synchronization and notify listeners
+     * 
+     * @return found changes
+     */
+    public List<ResourceChangeEvent<O>> sync() {
+        synchronized (notificationLock) {
+            List<ResourceChangeEvent<O>> changes = findChanges();
+            for (ResourceChangeEvent<O> change : changes) {
+                for (ResourceChangeListener<O> listener : listeners) {
+                    try {
+                        listener.resourceChanged(change);
+                    } catch (RuntimeException e) {
+                        LOGGER.error(e.getMessage(), e);
+                    }
+                }
+            }
+            return changes;
+        }
+    }
+
+    private synchronized List<ResourceChangeEvent<O>> findChanges() {
+        final Map<String, O> previous = snapshots;
+        final Map<String, O> current = new HashMap<String, O>(previous.size());
+        final Map<String, O> currentSnapshots = new HashMap<String, O>(previous.size());
+        final List<ResourceChangeEvent<O>> changes = new ArrayList<ResourceChangeEvent<O>>();
+        prototype.forEach(new ResourceVisitor<O>() {
+
+            @Override
+            public boolean visit(O resource) {
+                current.put(resource.getId(), resource);
+                O old = previous.get(resource.getId());
+                if (old == null) {
+                    changes.add(new ResourceChangeEvent<O>(ResourceChangeEvent.Type.ADDED, null, resource));
+                    currentSnapshots.put(resource.getId(), resource.copy());
+                } else if (resource.isModified(old)) {
+                    changes.add(new ResourceChangeEvent<O>(ResourceChangeEvent.Type.MODIFIED, old, resource));
+                    currentSnapshots.put(resource.getId(), resource.copy());
+                } else {
+                    currentSnapshots.put(resource.getId(), old);
+                }
+                return true;
+            }
+        });
+        for (Map.Entry<String, O> old : previous.entrySet()) {
+            if (!current.containsKey(old.getKey())) {
+                changes.add(new ResourceChangeEvent<O>(ResourceChangeEvent.Type.REMOVED, old.getValue(), null));
+            }
+        }
+        known = current;
+        snapshots = currentSnapshots;
+        LOGGER.debug(prototype.getClass().getSimpleName() + " inventory synchronized: " + current.size() + " resources, " + changes.size() + " changes");
+        return changes;
+    }
+
+    /**
+     * Return resources found by last synchronization
+     */
+    public synchronized List<O> getKnown() {
+        return new ArrayList<O>(known.values());
+    }
+
+    /**
+     * Start synchronization in background
+     * 
+     * @param intervalMillis
+     *            - delay between synchronizations
+     */
+    public synchronized void start(long intervalMillis) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ec2-wrapper-inventory-sync");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    sync();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Unable to synchronize inventory: " + e.getMessage(), e);
+                }
+            }
+        }, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+}
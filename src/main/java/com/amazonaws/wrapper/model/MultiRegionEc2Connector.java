@@ -0,0 +1,23 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.List;
+
+import com.amazonaws.services.ec2.AmazonEC2;
+
+/**
+ * Connector that provides clients of other amazon regions. Resources with region (setRegion(..)) and multi-region queries (getAllInRegions,
+ * getByRegion) need it, resources of other connectors work only with default region of getAmazonEC2()
+ */
+public interface MultiRegionEc2Connector extends Ec2Connector {
+
+    /**
+     * Client of given amazon region, for example "eu-west-1"
+     */
+    public AmazonEC2 getAmazonEC2(String region);
+
+    /**
+     * Regions searched by multi-region queries (getAllInRegions, getByRegion)
+     */
+    public List<String> getRegions();
+
+}
@@ -0,0 +1,81 @@
+package com.amazonaws.wrapper.model;
+
+/**
+ * Statistics of one execution of typed query: how many conditions were sent to amazon as filters, how many were evaluated locally and how many
+ * resources amazon returned compared to how many matched all conditions
+ */
+public class QueryStats {
+
+    private final int pushedConditions;
+
+    private final int localConditions;
+
+    private long scanned;
+
+    private long matched;
+
+    QueryStats(int pushedConditions, int localConditions) {
+        this.pushedConditions = pushedConditions;
+        this.localConditions = localConditions;
+    }
+
+    synchronized void scanned(boolean match) {
+        scanned++;
+        if (match) {
+            matched++;
+        }
+    }
+
+    synchronized void scanned(long count) {
+        scanned += count;
+        matched += count;
+    }
+
+    /**
+     * Number of conditions evaluated by amazon
+     */
+    public int getPushedConditions() {
+        return pushedConditions;
+    }
+
+    /**
+     * Number of conditions evaluated locally
+     */
+    public int getLocalConditions() {
+        return localConditions;
+    }
+
+    /**
+     * Number of resources returned by amazon
+     */
+    public synchronized long getScanned() {
+        return scanned;
+    }
+
+    /**
+     * Number of resources that matched all conditions
+     */
+    public synchronized long getMatched() {
+        return matched;
+    }
+
+    /**
+     * Number of resources returned by amazon and dropped by local conditions
+     */
+    public synchronized long getDiscarded() {
+        return scanned - matched;
+    }
+
+    /**
+     * Share of returned resources that matched, 1 when amazon evaluated all conditions
+     */
+    public synchronized double getSelectivity() {
+        return scanned == 0 ? 1 : (double) matched / scanned;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "QueryStats: {pushed: " + pushedConditions + ", local: " + localConditions + ", scanned: " + scanned + ", matched: " + matched + "}";
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.amazonaws.wrapper.model;
+
+/**
+ * Determines how old amazon model of resource can be for read operations like getState(consistency)
+ */
+public final class ReadConsistency {
+
+    /**
+     * Always read actual data from amazon
+     */
+    public static final ReadConsistency STRONG = new ReadConsistency(0);
+
+    /**
+     * Use already loaded model of any age, amazon is called only if resource was never loaded
+     */
+    public static final ReadConsistency CACHED_ONLY = new ReadConsistency(Long.MAX_VALUE);
+
+    private final long maxStalenessMillis;
+
+    private ReadConsistency(long maxStalenessMillis) {
+        this.maxStalenessMillis = maxStalenessMillis;
+    }
+
+    /**
+     * Accept model loaded not more than maxStalenessMillis ago
+     */
+    public static ReadConsistency maxStaleness(long maxStalenessMillis) {
+        if (maxStalenessMillis < 0) {
+            throw new IllegalArgumentException("Staleness must not be negative");
+        }
+        return new ReadConsistency(maxStalenessMillis);
+    }
+
+    /**
+     * @param updatedAt
+     *            - time when model was loaded, milliseconds
+     * @return true if model of this age can be used
+     */
+    boolean accepts(long updatedAt) {
+        return maxStalenessMillis == Long.MAX_VALUE || System.currentTimeMillis() - updatedAt < maxStalenessMillis;
+    }
+
+    public long getMaxStalenessMillis() {
+        return maxStalenessMillis;
+    }
+
+    @Override
+    public String toString() {
+        if (this == STRONG) {
+            return "STRONG";
+        }
+        return this == CACHED_ONLY ? "CACHED_ONLY" : "MAX_STALENESS(" + maxStalenessMillis + " ms)";
+    }
+
+}
@@ -0,0 +1,202 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.wrapper.exception.AmazonErrors;
+import com.amazonaws.wrapper.exception.ResourceDoesNotExistException;
+
+/**
+ * Coalesces refresh() calls of one resource type into "Describe" requests by list of ids. First caller opens a batch and waits for windowMillis
+ * (or until batch is full), all callers arriving in this window join the batch, then one request is sent and each caller gets its own resource.
+ * If request fails because of unknown id, ids are described one by one, any other error (throttling, open circuit, ...) is thrown to all callers
+ * of the batch. Callers refreshing the same id share one request, but only the first one gets the described model, others get copies of it.
+ * Note that a lone refresh() still waits the full windowMillis before its request is sent, so register batchers only for types refreshed
+ * concurrently. Register it with Ec2Resource.setRefreshBatcher(type, batcher)
+ */
+public class RefreshBatcher {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(RefreshBatcher.class);
+
+    /*
+     * Ec2 accepts up to 1000 ids, but keep requests reasonably small
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 200;
+
+    private final long windowMillis;
+
+    private final int maxBatchSize;
+
+    /*
+     * Open batches per amazon client
+     */
+    private final Map<Object, Batch> openBatches = new IdentityHashMap<Object, Batch>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong savedCalls = new AtomicLong();
+
+    public RefreshBatcher(long windowMillis) {
+        this(windowMillis, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param windowMillis
+     *            - how long first caller waits for others
+     * @param maxBatchSize
+     *            - max number of ids in one request
+     */
+    public RefreshBatcher(long windowMillis, int maxBatchSize) {
+        if (windowMillis < 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Window must not be negative and batch size must be positive");
+        }
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Return actual amazon model for given resource, sharing describe request with concurrent callers
+     */
+    Object load(Ec2Resource<?, ?> resource, Object client) throws ResourceDoesNotExistException {
+        String id = resource.getId();
+        requests.incrementAndGet();
+        Batch batch;
+        boolean leader = false;
+        synchronized (this) {
+            batch = openBatches.get(client);
+            if (batch == null) {
+                batch = new Batch();
+                openBatches.put(client, batch);
+                leader = true;
+            }
+            batch.ids.add(id);
+            if (batch.ids.size() >= maxBatchSize) {
+                openBatches.remove(client);
+                batch.full.countDown();
+            }
+        }
+        if (leader) {
+            try {
+                batch.full.await(windowMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                if (openBatches.get(client) == batch) {
+                    openBatches.remove(client);
+                }
+            }
+            execute(resource, batch);
+        } else {
+            try {
+                batch.done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+        RuntimeException failure = batch.failures.get(id);
+        if (failure != null) {
+            throw failure;
+        }
+        Object model = batch.results.get(id);
+        if (model == null) {
+            throw new ResourceDoesNotExistException(id);
+        }
+        // wrappers with same id must not share one mutable model
+        return batch.taken.add(id) ? model : Ec2Resource.copyOfModel(model);
+    }
+
+    private void execute(Ec2Resource<?, ?> resource, Batch batch) {
+        try {
+            batch.results = describe(resource, batch.ids);
+            batches.incrementAndGet();
+            savedCalls.addAndGet(batch.ids.size() - 1);
+        } catch (RuntimeException e) {
+            if (!AmazonErrors.isNotFound(e)) {
+                // throttling, open circuit, network problem - single requests would only make it worse
+                batch.failures = failAll(batch.ids, e);
+                return;
+            }
+            // one missing id fails whole request, so ask for every id separately
+            LOGGER.warn("Batched describe of " + batch.ids.size() + " resources failed, falling back to single requests: " + e.getMessage());
+            Map<String, Object> results = new HashMap<String, Object>();
+            Map<String, RuntimeException> failures = Collections.emptyMap();
+            Set<String> notAsked = new LinkedHashSet<String>(batch.ids);
+            for (String id : batch.ids) {
+                try {
+                    results.putAll(describe(resource, Collections.singleton(id)));
+                    notAsked.remove(id);
+                } catch (RuntimeException ex) {
+                    if (!AmazonErrors.isNotFound(ex)) {
+                        // stop at first real error, ids not asked yet fail with it too
+                        failures = failAll(notAsked, ex);
+                        break;
+                    }
+                    notAsked.remove(id);
+                    LOGGER.warn(ex.getMessage());
+                }
+            }
+            batch.results = results;
+            batch.failures = failures;
+        } finally {
+            batch.done.countDown();
+        }
+    }
+
+    private static Map<String, RuntimeException> failAll(Set<String> ids, RuntimeException failure) {
+        Map<String, RuntimeException> failures = new HashMap<String, RuntimeException>();
+        for (String id : ids) {
+            failures.put(id, failure);
+        }
+        return failures;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> describe(Ec2Resource<?, ?> resource, Set<String> ids) {
+        return (Map<String, Object>) resource.processDescribe(ids);
+    }
+
+    /**
+     * Number of refresh() calls served by this batcher
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Number of batched requests sent to amazon
+     */
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * Number of describe requests that was not sent thanks to batching
+     */
+    public long getSavedCallCount() {
+        return savedCalls.get();
+    }
+
+    private static class Batch {
+
+        private final Set<String> ids = new LinkedHashSet<String>();
+        private final Set<String> taken = Collections.synchronizedSet(new HashSet<String>());
+        private final CountDownLatch full = new CountDownLatch(1);
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Map<String, Object> results = Collections.emptyMap();
+        private volatile Map<String, RuntimeException> failures = Collections.emptyMap();
+    }
+
+}
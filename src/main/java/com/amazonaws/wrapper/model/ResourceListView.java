@@ -0,0 +1,190 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * List of resources found by describe request that wraps amazon models into resources only when they are accessed. size() and ids() don't
+ * create any resource, every model is wrapped at most once even if list is shared between threads. List can be modified, first modification
+ * copies it into ordinary list
+ *
+ * @param <T>
+ *            - Amazon java api model
+ * @param <O>
+ *            - resource class
+ */
+public class ResourceListView<T, O extends Ec2Resource<T, O>> extends AbstractList<O> implements RandomAccess {
+
+    private final Source<T, O> source;
+
+    /*
+     * Own copy of resources after first modification, null while list is a view of source
+     */
+    private List<O> modified;
+
+    ResourceListView(Ec2Resource<T, O> prototype, List<T> models) {
+        this(new Source<T, O>(prototype, models, false));
+    }
+
+    private ResourceListView(Source<T, O> source) {
+        this.source = source;
+    }
+
+    @Override
+    public O get(int index) {
+        return modified == null ? source.get(index) : modified.get(index);
+    }
+
+    @Override
+    public int size() {
+        return modified == null ? source.models.size() : modified.size();
+    }
+
+    @Override
+    public O set(int index, O element) {
+        return modify().set(index, element);
+    }
+
+    @Override
+    public void add(int index, O element) {
+        modify().add(index, element);
+        modCount++;
+    }
+
+    @Override
+    public O remove(int index) {
+        O removed = modify().remove(index);
+        modCount++;
+        return removed;
+    }
+
+    /**
+     * Return amazon ids of resources in this list without wrapping models
+     */
+    public List<String> ids() {
+        List<String> ids = new ArrayList<String>(size());
+        if (modified == null) {
+            for (T model : source.models) {
+                ids.add(source.prototype.getModelId(model));
+            }
+        } else {
+            for (O resource : modified) {
+                ids.add(resource.getId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Return list of the same resources with own wrappers and own copies of models, made when resources are accessed. Changes of resources of
+     * one list don't affect the other
+     */
+    List<O> detached() {
+        if (modified == null) {
+            Source<T, O> copy = new Source<T, O>(source.prototype, source.models, true);
+            copy.region = source.region;
+            return new ResourceListView<T, O>(copy);
+        }
+        List<O> copy = new ArrayList<O>(modified.size());
+        for (O resource : modified) {
+            copy.add(resource.copy());
+        }
+        return copy;
+    }
+
+    /**
+     * Set region of all resources of this list, including ones that are not wrapped yet
+     */
+    void setRegion(String region) {
+        if (modified == null) {
+            source.region = region;
+        }
+        for (int i = 0; i < size(); i++) {
+            if (modified != null || source.isWrapped(i)) {
+                get(i).setRegion(region);
+            }
+        }
+    }
+
+    private List<O> modify() {
+        if (modified == null) {
+            List<O> copy = new ArrayList<O>(size());
+            for (int i = 0; i < size(); i++) {
+                copy.add(source.get(i));
+            }
+            modified = copy;
+        }
+        return modified;
+    }
+
+    /**
+     * Models of one describe request and their resources, shared by all copies of list
+     */
+    private static class Source<T, O extends Ec2Resource<T, O>> {
+
+        final Ec2Resource<T, O> prototype;
+
+        final List<T> models;
+
+        /*
+         * Models are shared with other lists, resources wrap copies of them
+         */
+        final boolean copyModels;
+
+        volatile String region;
+
+        /*
+         * Created on first access to resource
+         */
+        private volatile AtomicReferenceArray<O> wrapped;
+
+        Source(Ec2Resource<T, O> prototype, List<T> models, boolean copyModels) {
+            this.prototype = prototype;
+            this.models = models;
+            this.copyModels = copyModels;
+        }
+
+        O get(int index) {
+            AtomicReferenceArray<O> resources = resources();
+            O resource = resources.get(index);
+            if (resource == null) {
+                // wrapping under lock, racing threads must not create wrappers (and copies of models) that are thrown away
+                synchronized (this) {
+                    resource = resources.get(index);
+                    if (resource == null) {
+                        T model = models.get(index);
+                        resource = prototype.wrap(copyModels ? Ec2Resource.copyOfModel(model) : model);
+                        if (region != null) {
+                            resource.setRegion(region);
+                        }
+                        resources.set(index, resource);
+                    }
+                }
+            }
+            return resource;
+        }
+
+        boolean isWrapped(int index) {
+            AtomicReferenceArray<O> resources = wrapped;
+            return resources != null && resources.get(index) != null;
+        }
+
+        private AtomicReferenceArray<O> resources() {
+            AtomicReferenceArray<O> resources = wrapped;
+            if (resources == null) {
+                synchronized (this) {
+                    resources = wrapped;
+                    if (resources == null) {
+                        resources = new AtomicReferenceArray<O>(models.size());
+                        wrapped = resources;
+                    }
+                }
+            }
+            return resources;
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.List;
+
+/**
+ * Typed query of security groups, for example new Ec2SecurityGroup().query().inVpc(id).named("web-*").list()
+ */
+public class SecurityGroupQuery extends Ec2Query<Ec2SecurityGroup, SecurityGroupQuery> {
+
+    public final static Attribute<Ec2SecurityGroup> GROUP_ID = new Attribute<Ec2SecurityGroup>("group-id", "group-id") {
+
+        @Override
+        public List<String> valuesOf(Ec2SecurityGroup group) {
+            return values(group.getResource().getGroupId());
+        }
+    };
+
+    public final static Attribute<Ec2SecurityGroup> GROUP_NAME = new Attribute<Ec2SecurityGroup>("group-name", "group-name") {
+
+        @Override
+        public List<String> valuesOf(Ec2SecurityGroup group) {
+            return values(group.getResource().getGroupName());
+        }
+    };
+
+    public final static Attribute<Ec2SecurityGroup> VPC_ID = new Attribute<Ec2SecurityGroup>("vpc-id", "vpc-id") {
+
+        @Override
+        public List<String> valuesOf(Ec2SecurityGroup group) {
+            return values(group.getResource().getVpcId());
+        }
+    };
+
+    public final static Attribute<Ec2SecurityGroup> DESCRIPTION = new Attribute<Ec2SecurityGroup>("description", "description") {
+
+        @Override
+        public List<String> valuesOf(Ec2SecurityGroup group) {
+            return values(group.getResource().getDescription());
+        }
+    };
+
+    public SecurityGroupQuery(Ec2SecurityGroup prototype) {
+        super(prototype);
+    }
+
+    @Override
+    protected SecurityGroupQuery self() {
+        return this;
+    }
+
+    /**
+     * Group has one of names, amazon accepts "*" and "?" wildcards
+     */
+    public SecurityGroupQuery named(String... names) {
+        return where(GROUP_NAME, names);
+    }
+
+    /**
+     * Group is in one of VPCs
+     */
+    public SecurityGroupQuery inVpc(String... vpcIds) {
+        return where(VPC_ID, vpcIds);
+    }
+
+}
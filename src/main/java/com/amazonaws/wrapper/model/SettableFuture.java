@@ -0,0 +1,90 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Future completed from outside by set(..) or fail(..)
+ * 
+ * @param <V>
+ */
+class SettableFuture<V> implements Future<V> {
+
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private volatile V value;
+
+    private volatile Throwable failure;
+
+    private volatile boolean cancelled;
+
+    /**
+     * @return false if future was already completed
+     */
+    synchronized boolean set(V value) {
+        if (isDone()) {
+            return false;
+        }
+        this.value = value;
+        done.countDown();
+        return true;
+    }
+
+    synchronized boolean fail(Throwable failure) {
+        if (isDone()) {
+            return false;
+        }
+        this.failure = failure;
+        done.countDown();
+        return true;
+    }
+
+    @Override
+    public synchronized boolean cancel(boolean mayInterruptIfRunning) {
+        if (isDone()) {
+            return false;
+        }
+        cancelled = true;
+        done.countDown();
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    @Override
+    public V get() throws InterruptedException, ExecutionException {
+        done.await();
+        return result();
+    }
+
+    @Override
+    public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (!done.await(timeout, unit)) {
+            throw new TimeoutException();
+        }
+        return result();
+    }
+
+    private V result() throws ExecutionException {
+        if (cancelled) {
+            throw new CancellationException();
+        }
+        if (failure != null) {
+            throw new ExecutionException(failure);
+        }
+        return value;
+    }
+
+}
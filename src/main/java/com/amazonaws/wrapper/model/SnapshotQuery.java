@@ -0,0 +1,97 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Typed query of snapshots of current user, for example new Ec2Snapshot().query().ofVolume(id).status("completed").list()
+ */
+public class SnapshotQuery extends Ec2Query<Ec2Snapshot, SnapshotQuery> {
+
+    public final static Attribute<Ec2Snapshot> SNAPSHOT_ID = new Attribute<Ec2Snapshot>("snapshot-id", "snapshot-id") {
+
+        @Override
+        public List<String> valuesOf(Ec2Snapshot snapshot) {
+            return values(snapshot.getResource().getSnapshotId());
+        }
+    };
+
+    public final static Attribute<Ec2Snapshot> VOLUME_ID = new Attribute<Ec2Snapshot>("volume-id", "volume-id") {
+
+        @Override
+        public List<String> valuesOf(Ec2Snapshot snapshot) {
+            return values(snapshot.getResource().getVolumeId());
+        }
+    };
+
+    public final static Attribute<Ec2Snapshot> STATUS = new Attribute<Ec2Snapshot>("status", "status") {
+
+        @Override
+        public List<String> valuesOf(Ec2Snapshot snapshot) {
+            return values(snapshot.getResource().getState());
+        }
+    };
+
+    public final static Attribute<Ec2Snapshot> VOLUME_SIZE = new Attribute<Ec2Snapshot>("volume-size", "volume-size") {
+
+        @Override
+        public List<String> valuesOf(Ec2Snapshot snapshot) {
+            return values(snapshot.getResource().getVolumeSize());
+        }
+    };
+
+    public final static Attribute<Ec2Snapshot> DESCRIPTION = new Attribute<Ec2Snapshot>("description", "description") {
+
+        @Override
+        public List<String> valuesOf(Ec2Snapshot snapshot) {
+            return values(snapshot.getResource().getDescription());
+        }
+    };
+
+    public final static Attribute<Ec2Snapshot> PROGRESS = new Attribute<Ec2Snapshot>("progress", "progress") {
+
+        @Override
+        public List<String> valuesOf(Ec2Snapshot snapshot) {
+            return values(snapshot.getResource().getProgress());
+        }
+    };
+
+    public final static Attribute<Ec2Snapshot> START_TIME = new Attribute<Ec2Snapshot>("start-time (milliseconds)", null) {
+
+        @Override
+        public List<String> valuesOf(Ec2Snapshot snapshot) {
+            return values(snapshot.getResource().getStartTime());
+        }
+    };
+
+    public SnapshotQuery(Ec2Snapshot prototype) {
+        super(prototype);
+    }
+
+    @Override
+    protected SnapshotQuery self() {
+        return this;
+    }
+
+    /**
+     * Snapshot is in one of states, for example "completed"
+     */
+    public SnapshotQuery status(String... states) {
+        return where(STATUS, states);
+    }
+
+    /**
+     * Snapshot was taken from one of volumes
+     */
+    public SnapshotQuery ofVolume(String... volumeIds) {
+        return where(VOLUME_ID, volumeIds);
+    }
+
+    /**
+     * Snapshot was started between from and to inclusive, evaluated locally
+     */
+    public SnapshotQuery startedBetween(Date from, Date to) {
+        return between(START_TIME, from.getTime(), to.getTime());
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.List;
+
+/**
+ * Typed query of subnets, for example new Ec2SubNetwork().query().inVpc(id).minFreeIps(16).list()
+ */
+public class SubnetQuery extends Ec2Query<Ec2SubNetwork, SubnetQuery> {
+
+    public final static Attribute<Ec2SubNetwork> SUBNET_ID = new Attribute<Ec2SubNetwork>("subnet-id", "subnet-id") {
+
+        @Override
+        public List<String> valuesOf(Ec2SubNetwork subnet) {
+            return values(subnet.getResource().getSubnetId());
+        }
+    };
+
+    public final static Attribute<Ec2SubNetwork> VPC_ID = new Attribute<Ec2SubNetwork>("vpc-id", "vpc-id") {
+
+        @Override
+        public List<String> valuesOf(Ec2SubNetwork subnet) {
+            return values(subnet.getResource().getVpcId());
+        }
+    };
+
+    public final static Attribute<Ec2SubNetwork> STATE = new Attribute<Ec2SubNetwork>("state", "state") {
+
+        @Override
+        public List<String> valuesOf(Ec2SubNetwork subnet) {
+            return values(subnet.getResource().getState());
+        }
+    };
+
+    public final static Attribute<Ec2SubNetwork> CIDR = new Attribute<Ec2SubNetwork>("cidr", "cidr") {
+
+        @Override
+        public List<String> valuesOf(Ec2SubNetwork subnet) {
+            return values(subnet.getResource().getCidrBlock());
+        }
+    };
+
+    public final static Attribute<Ec2SubNetwork> AVAILABILITY_ZONE = new Attribute<Ec2SubNetwork>("availability-zone", "availability-zone") {
+
+        @Override
+        public List<String> valuesOf(Ec2SubNetwork subnet) {
+            return values(subnet.getResource().getAvailabilityZone());
+        }
+    };
+
+    public final static Attribute<Ec2SubNetwork> AVAILABLE_IPS = new Attribute<Ec2SubNetwork>("available-ip-address-count", "available-ip-address-count") {
+
+        @Override
+        public List<String> valuesOf(Ec2SubNetwork subnet) {
+            return values(subnet.getResource().getAvailableIpAddressCount());
+        }
+    };
+
+    public SubnetQuery(Ec2SubNetwork prototype) {
+        super(prototype);
+    }
+
+    @Override
+    protected SubnetQuery self() {
+        return this;
+    }
+
+    /**
+     * Subnet is in one of VPCs
+     */
+    public SubnetQuery inVpc(String... vpcIds) {
+        return where(VPC_ID, vpcIds);
+    }
+
+    /**
+     * Subnet is in one of availability zones
+     */
+    public SubnetQuery inZone(String... zones) {
+        return where(AVAILABILITY_ZONE, zones);
+    }
+
+    /**
+     * Subnet has at least given number of free addresses, evaluated locally
+     */
+    public SubnetQuery minFreeIps(int count) {
+        return between(AVAILABLE_IPS, count, Integer.MAX_VALUE);
+    }
+
+}
@@ -0,0 +1,314 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.services.ec2.model.CreateTagsRequest;
+import com.amazonaws.services.ec2.model.DeleteTagsRequest;
+import com.amazonaws.services.ec2.model.Tag;
+import com.amazonaws.wrapper.exception.AmazonErrors;
+
+/**
+ * Buffers tag changes of many resources and sends them as few CreateTags/DeleteTags requests as possible: resources with identical set of tag
+ * changes share one request. Changes are grouped by region of resource. Buffer is flushed windowMillis after first change or by flush()
+ */
+public class TagWriter {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(TagWriter.class);
+
+    private final Ec2Connector ec2Connector;
+
+    private final long windowMillis;
+
+    private final ScheduledExecutorService scheduler;
+
+    /*
+     * Pending changes per region of resource, null for default region of connector
+     */
+    private final Map<String, Changes> pending = new LinkedHashMap<String, Changes>();
+
+    /*
+     * One resource of every changed type, used for describe cache invalidation
+     */
+    private Map<Class<?>, Ec2Resource<?, ?>> changedTypes = new HashMap<Class<?>, Ec2Resource<?, ?>>();
+
+    private boolean flushScheduled;
+
+    /*
+     * Held by flush() from taking changes until they are written, so an older change never lands after a newer one. Changes are buffered under
+     * lock of writer meanwhile
+     */
+    private final Object flushLock = new Object();
+
+    private final AtomicLong changes = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+
+    /**
+     * @param ec2Connector
+     *            - connector to send requests with
+     * @param windowMillis
+     *            - how long changes are buffered before automatic flush
+     */
+    public TagWriter(Ec2Connector ec2Connector, long windowMillis) {
+        this.ec2Connector = ec2Connector;
+        this.windowMillis = windowMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ec2-wrapper-tag-writer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Buffer adding of tag to resource
+     */
+    public void addTag(Ec2Resource<?, ?> resource, String name, String value) {
+        change(resource, name, value, false);
+    }
+
+    /**
+     * Buffer deleting of tag from resource
+     * 
+     * @param value
+     *            - tag value, null to delete tag with any value
+     */
+    public void deleteTag(Ec2Resource<?, ?> resource, String name, String value) {
+        change(resource, name, value, true);
+    }
+
+    private synchronized void change(Ec2Resource<?, ?> resource, String name, String value, boolean delete) {
+        Changes regionChanges = changesOf(resource.getRegion());
+        String id = resource.getId();
+        // last change of tag wins
+        Map<String, String> cancelled = (delete ? regionChanges.creates : regionChanges.deletes).get(id);
+        if (cancelled != null) {
+            cancelled.remove(name);
+            if (cancelled.isEmpty()) {
+                (delete ? regionChanges.creates : regionChanges.deletes).remove(id);
+            }
+        }
+        regionChanges.put(id, name, value, delete);
+        changedTypes.put(resource.getClass(), resource);
+        changes.incrementAndGet();
+        scheduleFlush();
+    }
+
+    private Changes changesOf(String region) {
+        Changes regionChanges = pending.get(region);
+        if (regionChanges == null) {
+            regionChanges = new Changes();
+            pending.put(region, regionChanges);
+        }
+        return regionChanges;
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled && !scheduler.isShutdown()) {
+            flushScheduled = true;
+            scheduler.schedule(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        flush();
+                    } catch (RuntimeException e) {
+                        LOGGER.error("Unable to write tags: " + e.getMessage(), e);
+                    }
+                }
+            }, windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Send all buffered changes to amazon, every region with its own client. If a request fails, changes not sent yet stay buffered for next
+     * flush, failed request itself is kept only if it can be retried (throttling, transient error, client side rejection). Concurrent flushes
+     * run one after another, so flush() returns when all changes made before it are written
+     * 
+     * @throws RuntimeException
+     *             first error of amazon, remaining requests are not sent
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            doFlush();
+        }
+    }
+
+    private void doFlush() {
+        Map<String, Changes> regions;
+        Map<Class<?>, Ec2Resource<?, ?>> types;
+        synchronized (this) {
+            regions = new LinkedHashMap<String, Changes>(pending);
+            types = changedTypes;
+            pending.clear();
+            changedTypes = new HashMap<Class<?>, Ec2Resource<?, ?>>();
+            flushScheduled = false;
+        }
+        List<TagRequest> batch = new ArrayList<TagRequest>();
+        for (Map.Entry<String, Changes> region : regions.entrySet()) {
+            addRequests(batch, region.getKey(), region.getValue().deletes, true);
+            addRequests(batch, region.getKey(), region.getValue().creates, false);
+        }
+        int sent = 0;
+        try {
+            for (; sent < batch.size(); sent++) {
+                batch.get(sent).send();
+                requests.incrementAndGet();
+            }
+        } catch (RuntimeException e) {
+            boolean keepFailed = AmazonErrors.isRetryable(e) || AmazonErrors.isClientRejection(e);
+            restore(batch.subList(keepFailed ? sent : sent + 1, batch.size()), types);
+            throw e;
+        } finally {
+            for (Ec2Resource<?, ?> resource : types.values()) {
+                resource.invalidateDescribeCache();
+            }
+        }
+    }
+
+    /*
+     * Return unsent requests to buffer, changes made meanwhile win over them
+     */
+    private synchronized void restore(List<TagRequest> unsent, Map<Class<?>, Ec2Resource<?, ?>> types) {
+        if (unsent.isEmpty()) {
+            return;
+        }
+        for (TagRequest request : unsent) {
+            Changes regionChanges = changesOf(request.region);
+            for (String id : request.ids) {
+                for (Map.Entry<String, String> tag : request.tags.entrySet()) {
+                    if (!regionChanges.contains(id, tag.getKey())) {
+                        regionChanges.put(id, tag.getKey(), tag.getValue(), request.delete);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<Class<?>, Ec2Resource<?, ?>> type : types.entrySet()) {
+            if (!changedTypes.containsKey(type.getKey())) {
+                changedTypes.put(type.getKey(), type.getValue());
+            }
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * Flush buffered changes and stop background flushing
+     */
+    public void close() {
+        scheduler.shutdown();
+        flush();
+    }
+
+    private void addRequests(List<TagRequest> batch, String region, Map<String, Map<String, String>> changes, boolean delete) {
+        for (Map.Entry<Map<String, String>, List<String>> group : groupByTags(changes).entrySet()) {
+            for (List<String> ids : Ec2Resource.chunks(group.getValue(), Ec2Resource.MAX_IDS_PER_REQUEST)) {
+                batch.add(new TagRequest(region, delete, ids, group.getKey()));
+            }
+        }
+    }
+
+    private static Map<Map<String, String>, List<String>> groupByTags(Map<String, Map<String, String>> changes) {
+        Map<Map<String, String>, List<String>> groups = new LinkedHashMap<Map<String, String>, List<String>>();
+        for (Map.Entry<String, Map<String, String>> change : changes.entrySet()) {
+            List<String> ids = groups.get(change.getValue());
+            if (ids == null) {
+                ids = new ArrayList<String>();
+                groups.put(change.getValue(), ids);
+            }
+            ids.add(change.getKey());
+        }
+        return groups;
+    }
+
+    private static List<Tag> toTags(Map<String, String> tags) {
+        List<Tag> result = new ArrayList<Tag>();
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            result.add(new Tag(tag.getKey(), tag.getValue()));
+        }
+        return result;
+    }
+
+    /*
+     * Buffered changes of one region: resource id -> tag name -> value, for deletes null value means any value
+     */
+    private static class Changes {
+
+        final Map<String, Map<String, String>> creates = new LinkedHashMap<String, Map<String, String>>();
+
+        final Map<String, Map<String, String>> deletes = new LinkedHashMap<String, Map<String, String>>();
+
+        void put(String id, String name, String value, boolean delete) {
+            Map<String, Map<String, String>> target = delete ? deletes : creates;
+            Map<String, String> tags = target.get(id);
+            if (tags == null) {
+                tags = new LinkedHashMap<String, String>();
+                target.put(id, tags);
+            }
+            tags.put(name, value);
+        }
+
+        boolean contains(String id, String name) {
+            return (creates.containsKey(id) && creates.get(id).containsKey(name)) || (deletes.containsKey(id) && deletes.get(id).containsKey(name));
+        }
+    }
+
+    /*
+     * One CreateTags/DeleteTags request of flush
+     */
+    private class TagRequest {
+
+        final String region;
+
+        final boolean delete;
+
+        final List<String> ids;
+
+        final Map<String, String> tags;
+
+        TagRequest(String region, boolean delete, List<String> ids, Map<String, String> tags) {
+            this.region = region;
+            this.delete = delete;
+            this.ids = ids;
+            this.tags = tags;
+        }
+
+        void send() {
+            AmazonEC2 amazonEC2 = Ec2Resource.regionEc2(ec2Connector, region);
+            if (delete) {
+                amazonEC2.deleteTags(new DeleteTagsRequest().withResources(ids).withTags(toTags(tags)));
+            } else {
+                amazonEC2.createTags(new CreateTagsRequest().withResources(ids).withTags(toTags(tags)));
+            }
+        }
+    }
+
+    /**
+     * Number of buffered tag changes
+     */
+    public long getChangeCount() {
+        return changes.get();
+    }
+
+    /**
+     * Number of CreateTags/DeleteTags requests sent to amazon
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+}
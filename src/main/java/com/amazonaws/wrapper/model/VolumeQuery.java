@@ -0,0 +1,137 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.amazonaws.services.ec2.model.VolumeAttachment;
+
+/**
+ * Typed query of volumes, for example new Ec2Volume().query().status("available").sizeBetween(100, 500).list()
+ */
+public class VolumeQuery extends Ec2Query<Ec2Volume, VolumeQuery> {
+
+    public final static Attribute<Ec2Volume> VOLUME_ID = new Attribute<Ec2Volume>("volume-id", "volume-id") {
+
+        @Override
+        public List<String> valuesOf(Ec2Volume volume) {
+            return values(volume.getResource().getVolumeId());
+        }
+    };
+
+    public final static Attribute<Ec2Volume> STATUS = new Attribute<Ec2Volume>("status", "status") {
+
+        @Override
+        public List<String> valuesOf(Ec2Volume volume) {
+            return values(volume.getResource().getState());
+        }
+    };
+
+    public final static Attribute<Ec2Volume> SIZE = new Attribute<Ec2Volume>("size", "size") {
+
+        @Override
+        public List<String> valuesOf(Ec2Volume volume) {
+            return values(volume.getResource().getSize());
+        }
+    };
+
+    public final static Attribute<Ec2Volume> SNAPSHOT_ID = new Attribute<Ec2Volume>("snapshot-id", "snapshot-id") {
+
+        @Override
+        public List<String> valuesOf(Ec2Volume volume) {
+            return values(volume.getResource().getSnapshotId());
+        }
+    };
+
+    public final static Attribute<Ec2Volume> VOLUME_TYPE = new Attribute<Ec2Volume>("volume-type", "volume-type") {
+
+        @Override
+        public List<String> valuesOf(Ec2Volume volume) {
+            return values(volume.getResource().getVolumeType());
+        }
+    };
+
+    public final static Attribute<Ec2Volume> AVAILABILITY_ZONE = new Attribute<Ec2Volume>("availability-zone", "availability-zone") {
+
+        @Override
+        public List<String> valuesOf(Ec2Volume volume) {
+            return values(volume.getResource().getAvailabilityZone());
+        }
+    };
+
+    public final static Attribute<Ec2Volume> ATTACHED_INSTANCE_ID = new Attribute<Ec2Volume>("attachment.instance-id", "attachment.instance-id") {
+
+        @Override
+        public List<String> valuesOf(Ec2Volume volume) {
+            List<String> ids = new ArrayList<String>();
+            for (VolumeAttachment attachment : volume.getResource().getAttachments()) {
+                ids.add(attachment.getInstanceId());
+            }
+            return ids;
+        }
+    };
+
+    public final static Attribute<Ec2Volume> DEVICE = new Attribute<Ec2Volume>("attachment.device", "attachment.device") {
+
+        @Override
+        public List<String> valuesOf(Ec2Volume volume) {
+            List<String> devices = new ArrayList<String>();
+            for (VolumeAttachment attachment : volume.getResource().getAttachments()) {
+                devices.add(attachment.getDevice());
+            }
+            return devices;
+        }
+    };
+
+    public final static Attribute<Ec2Volume> CREATE_TIME = new Attribute<Ec2Volume>("create-time (milliseconds)", null) {
+
+        @Override
+        public List<String> valuesOf(Ec2Volume volume) {
+            return values(volume.getResource().getCreateTime());
+        }
+    };
+
+    public VolumeQuery(Ec2Volume prototype) {
+        super(prototype);
+    }
+
+    @Override
+    protected VolumeQuery self() {
+        return this;
+    }
+
+    /**
+     * Volume is in one of states, for example "available"
+     */
+    public VolumeQuery status(String... states) {
+        return where(STATUS, states);
+    }
+
+    /**
+     * Volume size is between min and max GiB inclusive, evaluated locally
+     */
+    public VolumeQuery sizeBetween(int min, int max) {
+        return between(SIZE, min, max);
+    }
+
+    /**
+     * Volume is attached to one of instances
+     */
+    public VolumeQuery attachedTo(String... instanceIds) {
+        return where(ATTACHED_INSTANCE_ID, instanceIds);
+    }
+
+    /**
+     * Volume is attached as one of devices
+     */
+    public VolumeQuery device(String... devices) {
+        return where(DEVICE, devices);
+    }
+
+    /**
+     * Volume was created from one of snapshots
+     */
+    public VolumeQuery fromSnapshot(String... snapshotIds) {
+        return where(SNAPSHOT_ID, snapshotIds);
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.List;
+
+/**
+ * Typed query of VPCs, for example new Ec2Vpc().query().state("available").tagged("env", "prod").list()
+ */
+public class VpcQuery extends Ec2Query<Ec2Vpc, VpcQuery> {
+
+    public final static Attribute<Ec2Vpc> VPC_ID = new Attribute<Ec2Vpc>("vpc-id", "vpc-id") {
+
+        @Override
+        public List<String> valuesOf(Ec2Vpc vpc) {
+            return values(vpc.getResource().getVpcId());
+        }
+    };
+
+    public final static Attribute<Ec2Vpc> STATE = new Attribute<Ec2Vpc>("state", "state") {
+
+        @Override
+        public List<String> valuesOf(Ec2Vpc vpc) {
+            return values(vpc.getResource().getState());
+        }
+    };
+
+    public final static Attribute<Ec2Vpc> CIDR = new Attribute<Ec2Vpc>("cidr", "cidr") {
+
+        @Override
+        public List<String> valuesOf(Ec2Vpc vpc) {
+            return values(vpc.getResource().getCidrBlock());
+        }
+    };
+
+    public final static Attribute<Ec2Vpc> DHCP_OPTIONS_ID = new Attribute<Ec2Vpc>("dhcp-options-id", "dhcp-options-id") {
+
+        @Override
+        public List<String> valuesOf(Ec2Vpc vpc) {
+            return values(vpc.getResource().getDhcpOptionsId());
+        }
+    };
+
+    public VpcQuery(Ec2Vpc prototype) {
+        super(prototype);
+    }
+
+    @Override
+    protected VpcQuery self() {
+        return this;
+    }
+
+    /**
+     * VPC is in one of states, for example "available"
+     */
+    public VpcQuery state(String... states) {
+        return where(STATE, states);
+    }
+
+    /**
+     * VPC has one of CIDR blocks
+     */
+    public VpcQuery cidr(String... cidrBlocks) {
+        return where(CIDR, cidrBlocks);
+    }
+
+}
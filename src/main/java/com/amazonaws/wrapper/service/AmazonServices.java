@@ -1,8 +1,22 @@
 package com.amazonaws.wrapper.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
 import com.amazonaws.services.cloudwatch.AmazonCloudWatchClient;
@@ -11,57 +25,294 @@ import com.amazonaws.services.ec2.AmazonEC2Client;
 import com.amazonaws.services.identitymanagement.AmazonIdentityManagement;
 import com.amazonaws.services.identitymanagement.AmazonIdentityManagementClient;
 import com.amazonaws.services.identitymanagement.model.User;
-import com.amazonaws.wrapper.model.Ec2Connector;
+import com.amazonaws.wrapper.model.AdapterSettings;
+import com.amazonaws.wrapper.model.AsyncEc2Connector;
+import com.amazonaws.wrapper.model.MultiRegionEc2Connector;
 
-public class AmazonServices implements Ec2Connector {
+public class AmazonServices implements AsyncEc2Connector, MultiRegionEc2Connector {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(AmazonServices.class);
 
+    public final static int DEFAULT_ASYNC_POOL_SIZE = 16;
+    public final static int DEFAULT_ASYNC_QUEUE_CAPACITY = 1000;
+
     private CredentialsProvider credentialsProvider;
 
-    private AmazonEC2 amazonEC2;
+    /*
+     * Clients are created once under lock of this object and then read without locking
+     */
+    private volatile AmazonEC2 amazonEC2;
+
+    /*
+     * Clients of other regions by region name, every region has own rate limiter and circuit breaker
+     */
+    private final Map<String, AmazonEC2> regionalEC2 = new ConcurrentHashMap<String, AmazonEC2>();
+
+    private volatile List<String> regions = Collections.emptyList();
+
+    private volatile AmazonIdentityManagement amazonIdentityManagementClient;
+
+    private volatile AmazonCloudWatch amazonCloudWatch;
+
+    private volatile User user;
+
+    private volatile AdapterSettings settings;
+
+    private volatile Ec2RateLimiter rateLimiter;
 
-    private AmazonIdentityManagement amazonIdentityManagementClient;
+    private volatile Ec2RetryPolicy retryPolicy;
 
-    private AmazonCloudWatch amazonCloudWatch;
+    private ExecutorService executor;
 
-    private User user;
+    private int asyncPoolSize = DEFAULT_ASYNC_POOL_SIZE;
+
+    private int asyncQueueCapacity = DEFAULT_ASYNC_QUEUE_CAPACITY;
 
     @Override
     public AmazonEC2 getAmazonEC2() {
-        if (amazonEC2 == null) {
-            amazonEC2 = createAmazonEC2Client();
+        AmazonEC2 client = amazonEC2;
+        if (client == null) {
+            synchronized (this) {
+                client = amazonEC2;
+                if (client == null) {
+                    rateLimiter = createRateLimiter();
+                    retryPolicy = createRetryPolicy();
+                    client = wrap(createAmazonEC2Client(), rateLimiter, retryPolicy);
+                    amazonEC2 = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    @Override
+    public AmazonEC2 getAmazonEC2(String region) {
+        AmazonEC2 client = regionalEC2.get(region);
+        if (client == null) {
+            synchronized (this) {
+                client = regionalEC2.get(region);
+                if (client == null) {
+                    AmazonEC2Client regionClient = createAmazonEC2Client();
+                    regionClient.setEndpoint(endpointOf(region));
+                    client = wrap(regionClient, createRateLimiter(), createRetryPolicy());
+                    regionalEC2.put(region, client);
+                }
+            }
         }
-        return amazonEC2;
+        return client;
+    }
+
+    /**
+     * Return regions searched by multi-region queries, empty by default
+     */
+    @Override
+    public List<String> getRegions() {
+        return regions;
+    }
+
+    /**
+     * Set regions searched by multi-region queries
+     * 
+     * @param regions
+     *            - region names, for example "us-east-1", "eu-west-1"
+     */
+    public void setRegions(String... regions) {
+        this.regions = Collections.unmodifiableList(new ArrayList<String>(Arrays.asList(regions)));
+    }
+
+    private static String endpointOf(String region) {
+        return region.startsWith("cn-") ? "ec2." + region + ".amazonaws.com.cn" : "ec2." + region + ".amazonaws.com";
     }
 
     public AmazonIdentityManagement getAmazonIdentityManagement() {
-        if (amazonIdentityManagementClient == null) {
-            amazonIdentityManagementClient = createAmazonIdentityMamagementClient();
+        AmazonIdentityManagement client = amazonIdentityManagementClient;
+        if (client == null) {
+            synchronized (this) {
+                client = amazonIdentityManagementClient;
+                if (client == null) {
+                    client = createAmazonIdentityMamagementClient();
+                    amazonIdentityManagementClient = client;
+                }
+            }
         }
-        return amazonIdentityManagementClient;
+        return client;
     }
 
     public AmazonCloudWatch getAmazonCloudWatchService() {
-        if (amazonCloudWatch == null) {
-            amazonCloudWatch = createAmazonCloudWatchClient();
+        AmazonCloudWatch client = amazonCloudWatch;
+        if (client == null) {
+            synchronized (this) {
+                client = amazonCloudWatch;
+                if (client == null) {
+                    client = createAmazonCloudWatchClient();
+                    amazonCloudWatch = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Return bounded executor for asynchronous operations, if its queue is full task runs in caller thread
+     */
+    @Override
+    public synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = createExecutor();
+        }
+        return executor;
+    }
+
+    public synchronized void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public void setAsyncPoolSize(int asyncPoolSize) {
+        this.asyncPoolSize = asyncPoolSize;
+    }
+
+    public void setAsyncQueueCapacity(int asyncQueueCapacity) {
+        this.asyncQueueCapacity = asyncQueueCapacity;
+    }
+
+    /**
+     * Stops executor of asynchronous operations, already submitted tasks will be completed
+     */
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
         }
-        return amazonCloudWatch;
+    }
+
+    private ExecutorService createExecutor() {
+        LOGGER.info("======> Creating executor for asynchronous operations, threads: " + asyncPoolSize + ", queue: " + asyncQueueCapacity);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(asyncPoolSize, asyncPoolSize, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(
+                asyncQueueCapacity), new ThreadFactory() {
+
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ec2-wrapper-async-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    public AdapterSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Settings must be set before first client is created, clients are not recreated
+     */
+    public void setSettings(AdapterSettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Return rate limiter of EC2 requests of default region
+     * 
+     * @return limiter or null if settings doesn't limit request rate
+     */
+    public Ec2RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Return retry policy of EC2 requests of default region
+     * 
+     * @return policy or null if settings doesn't retry requests
+     */
+    public Ec2RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /*
+     * Every retry passes rate limiter again, so retry wraps rate limited client. Meter wraps plain client and records every attempt
+     */
+    private static AmazonEC2 wrap(AmazonEC2 client, Ec2RateLimiter limiter, Ec2RetryPolicy policy) {
+        AmazonEC2 metered = Ec2CallMeter.wrap(client);
+        AmazonEC2 wrapped = limiter == null ? metered : limiter.wrap(metered);
+        return policy == null ? wrapped : policy.wrap(wrapped);
+    }
+
+    private Ec2RetryPolicy createRetryPolicy() {
+        if (!retryPolicyEnabled()) {
+            return null;
+        }
+        CircuitBreaker circuitBreaker = null;
+        if (settings.getCircuitFailureRate() > 0) {
+            circuitBreaker = new CircuitBreaker(settings.getCircuitFailureRate(), settings.getCircuitWindow(), settings.getCircuitOpenMillis());
+        }
+        return new Ec2RetryPolicy(Math.max(0, settings.getMaxRetries()), settings.getRetryBaseDelayMillis(), settings.getRetryMaxDelayMillis(),
+                circuitBreaker);
+    }
+
+    private boolean retryPolicyEnabled() {
+        return settings != null && (settings.getMaxRetries() > 0 || settings.getCircuitFailureRate() > 0);
+    }
+
+    private Ec2RateLimiter createRateLimiter() {
+        if (settings == null) {
+            return null;
+        }
+        Ec2RateLimiter limiter = new Ec2RateLimiter(settings.isBlockOnRateLimit());
+        boolean limited = false;
+        if (settings.getDescribeRequestsPerSecond() > 0) {
+            limiter.setLimit(Ec2RateLimiter.Category.DESCRIBE, settings.getDescribeRequestsPerSecond(), settings.getRequestBurst());
+            limited = true;
+        }
+        if (settings.getMutateRequestsPerSecond() > 0) {
+            limiter.setLimit(Ec2RateLimiter.Category.MUTATE, settings.getMutateRequestsPerSecond(), settings.getRequestBurst());
+            limited = true;
+        }
+        if (settings.getTagRequestsPerSecond() > 0) {
+            limiter.setLimit(Ec2RateLimiter.Category.TAG, settings.getTagRequestsPerSecond(), settings.getRequestBurst());
+            limited = true;
+        }
+        return limited ? limiter : null;
     }
 
     private AmazonCloudWatchClient createAmazonCloudWatchClient() {
         LOGGER.info("======> Creating Amazon Cloud Watch Client....");
-        return new AmazonCloudWatchClient(getAWSCredentials());
+        return new AmazonCloudWatchClient(getAWSCredentials(), createClientConfiguration());
     }
 
     private AmazonIdentityManagementClient createAmazonIdentityMamagementClient() {
         LOGGER.info("======> Creating Amazon Identity Management Client....");
-        return new AmazonIdentityManagementClient(getAWSCredentials());
+        return new AmazonIdentityManagementClient(getAWSCredentials(), createClientConfiguration());
     }
 
     private AmazonEC2Client createAmazonEC2Client() {
         LOGGER.info("======> Creating Amazon EC2 Client....");
-        return new AmazonEC2Client(getAWSCredentials());
+        ClientConfiguration configuration = createClientConfiguration();
+        if (retryPolicyEnabled()) {
+            // retry policy retries throttled and failed requests, sdk retries would multiply its attempts
+            configuration.setMaxErrorRetry(0);
+        }
+        return new AmazonEC2Client(getAWSCredentials(), configuration);
+    }
+
+    private ClientConfiguration createClientConfiguration() {
+        ClientConfiguration configuration = new ClientConfiguration();
+        if (settings == null) {
+            return configuration;
+        }
+        if (settings.getMaxConnections() > 0) {
+            configuration.setMaxConnections(settings.getMaxConnections());
+        }
+        if (settings.getSocketTimeoutMillis() > 0) {
+            configuration.setSocketTimeout(settings.getSocketTimeoutMillis());
+        }
+        if (settings.getConnectionTimeoutMillis() > 0) {
+            configuration.setConnectionTimeout(settings.getConnectionTimeoutMillis());
+        }
+        return configuration;
     }
 
     private AWSCredentials getAWSCredentials() {
@@ -74,11 +325,13 @@ public class AmazonServices implements Ec2Connector {
     }
 
     private User getUser() {
-        if (user == null) {
+        User current = user;
+        if (current == null) {
             LOGGER.debug("Fetching User from Amazon");
-            user = getAmazonIdentityManagement().getUser().getUser();
+            current = getAmazonIdentityManagement().getUser().getUser();
+            user = current;
         }
-        return user;
+        return current;
     }
 
 }
@@ -0,0 +1,142 @@
+package com.amazonaws.wrapper.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.wrapper.exception.CircuitOpenException;
+import com.amazonaws.wrapper.metrics.MetricsRegistry;
+
+/**
+ * Opens when share of failed calls among last windowSize calls reaches failureRate. Open circuit rejects calls for openMillis, then lets one
+ * trial call through: its success closes circuit, failure opens it again
+ */
+public class CircuitBreaker {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final double failureRate;
+
+    private final long openMillis;
+
+    /*
+     * Outcomes of last calls, true - failure
+     */
+    private final boolean[] window;
+
+    private int position;
+
+    private int calls;
+
+    private int failures;
+
+    private State state = State.CLOSED;
+
+    private long openedAt;
+
+    private int openCount;
+
+    public CircuitBreaker(double failureRate, int windowSize, long openMillis) {
+        if (failureRate <= 0 || failureRate > 1 || windowSize <= 0) {
+            throw new IllegalArgumentException("Failure rate must be in (0, 1] and window must be positive");
+        }
+        this.failureRate = failureRate;
+        this.window = new boolean[windowSize];
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Check that call can be sent
+     * 
+     * @throws CircuitOpenException
+     *             if circuit is open
+     */
+    public synchronized void before(String action) {
+        if (state == State.HALF_OPEN) {
+            // only one trial call at a time
+            throw new CircuitOpenException(action);
+        }
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMillis) {
+                throw new CircuitOpenException(action);
+            }
+            state = State.HALF_OPEN;
+            LOGGER.info("Circuit is half-open, sending trial request");
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            LOGGER.info("Circuit is closed");
+            state = State.CLOSED;
+            reset();
+        }
+        record(false);
+    }
+
+    /**
+     * Call was rejected before it reached amazon (rate limiter, ...), it says nothing about amazon health. Trial call of half-open circuit is
+     * released, so next call can try again
+     */
+    public synchronized void onSkipped() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && calls == window.length && failures >= failureRate * calls) {
+            open();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Number of times circuit was opened
+     */
+    public synchronized int getOpenCount() {
+        return openCount;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        openCount++;
+        MetricsRegistry.getMetrics().increment("ec2.circuit.open");
+        reset();
+        LOGGER.warn("Circuit is open for " + openMillis + " ms, too many failed amazon requests");
+    }
+
+    private void record(boolean failure) {
+        if (calls == window.length) {
+            if (window[position]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        window[position] = failure;
+        if (failure) {
+            failures++;
+        }
+        position = (position + 1) % window.length;
+    }
+
+    private void reset() {
+        calls = 0;
+        failures = 0;
+        position = 0;
+    }
+
+}
@@ -5,17 +5,24 @@ import com.amazonaws.auth.BasicAWSCredentials;
 
 public abstract class CredentialsProvider {
 
-    private AWSCredentials awsCredentials = null;
+    private volatile AWSCredentials awsCredentials = null;
 
     public abstract String getAWSKey();
 
     public abstract String getAWSSecretKey();
 
     public AWSCredentials getAwsCredentials() {
-        if (awsCredentials == null) {
-            awsCredentials = new BasicAWSCredentials(getAWSKey(), getAWSSecretKey());
+        AWSCredentials credentials = awsCredentials;
+        if (credentials == null) {
+            synchronized (this) {
+                credentials = awsCredentials;
+                if (credentials == null) {
+                    credentials = new BasicAWSCredentials(getAWSKey(), getAWSSecretKey());
+                    awsCredentials = credentials;
+                }
+            }
         }
-        return awsCredentials;
+        return credentials;
     }
 
 }
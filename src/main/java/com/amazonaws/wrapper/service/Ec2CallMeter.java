@@ -0,0 +1,70 @@
+package com.amazonaws.wrapper.service;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.wrapper.metrics.MetricsRegistry;
+import com.amazonaws.wrapper.metrics.Outcome;
+
+/**
+ * Records duration of every amazon EC2 request into "ec2.call" timer of MetricsRegistry, tagged by action, resource type and outcome. Wraps plain
+ * client, so every retry and throttled attempt is recorded
+ */
+public class Ec2CallMeter {
+
+    public final static String CALL_TIMER = "ec2.call";
+
+    /*
+     * Resource types as they appear in action names, checked in this order and first one contained in action name wins
+     */
+    private final static String[] RESOURCE_TYPES = { "SecurityGroup", "Subnet", "Vpc", "Snapshot", "Image", "Volume", "Address", "Instance", "Tags" };
+
+    private Ec2CallMeter() {
+    }
+
+    /**
+     * Return proxy of amazonEC2 that records duration of every request
+     */
+    public static AmazonEC2 wrap(final AmazonEC2 amazonEC2) {
+        return (AmazonEC2) Proxy.newProxyInstance(AmazonEC2.class.getClassLoader(), new Class<?>[] { AmazonEC2.class }, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (!Ec2RateLimiter.isRequest(method)) {
+                    try {
+                        return method.invoke(amazonEC2, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+                long start = System.nanoTime();
+                Throwable failure = null;
+                try {
+                    return method.invoke(amazonEC2, args);
+                } catch (InvocationTargetException e) {
+                    failure = e.getCause();
+                    throw failure;
+                } finally {
+                    MetricsRegistry.getMetrics().recordTime(CALL_TIMER, System.nanoTime() - start, "action", method.getName(), "type",
+                            resourceTypeOf(method.getName()), "outcome", Outcome.of(failure).tag());
+                }
+            }
+        });
+    }
+
+    /**
+     * Resource type of action, for example "Volume" for "describeVolumes"
+     */
+    static String resourceTypeOf(String action) {
+        for (String type : RESOURCE_TYPES) {
+            if (action.contains(type)) {
+                return type.equals("Tags") ? "Tag" : type;
+            }
+        }
+        return "Other";
+    }
+
+}
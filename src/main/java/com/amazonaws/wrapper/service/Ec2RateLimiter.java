@@ -0,0 +1,178 @@
+package com.amazonaws.wrapper.service;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.wrapper.exception.RequestRateExceededException;
+import com.amazonaws.wrapper.metrics.MetricsRegistry;
+
+/**
+ * Client side rate limiter for amazon EC2 requests with separate token bucket per action category. In blocking mode request waits for token, in
+ * non-blocking mode it fails with RequestRateExceededException
+ */
+public class Ec2RateLimiter {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(Ec2RateLimiter.class);
+
+    /**
+     * Action categories, amazon throttles them separately
+     */
+    public enum Category {
+        DESCRIBE, MUTATE, TAG
+    }
+
+    private final Map<Category, TokenBucket> buckets = new EnumMap<Category, TokenBucket>(Category.class);
+
+    private final Map<Category, Stats> stats = new EnumMap<Category, Stats>(Category.class);
+
+    private final boolean blocking;
+
+    /**
+     * @param blocking
+     *            - true to wait for token, false to fail fast
+     */
+    public Ec2RateLimiter(boolean blocking) {
+        this.blocking = blocking;
+        for (Category category : Category.values()) {
+            stats.put(category, new Stats());
+        }
+    }
+
+    /**
+     * Limit rate of category
+     * 
+     * @param category
+     * @param requestsPerSecond
+     *            - average rate
+     * @param burst
+     *            - max number of requests sent at once after idle period
+     */
+    public void setLimit(Category category, double requestsPerSecond, int burst) {
+        buckets.put(category, new TokenBucket(requestsPerSecond, burst));
+    }
+
+    /**
+     * Take token for action or fail if limiter is not blocking and there is no token
+     * 
+     * @param action
+     *            - name of AmazonEC2 method
+     */
+    public void acquire(String action) {
+        Category category = categoryOf(action);
+        TokenBucket bucket = buckets.get(category);
+        if (bucket == null) {
+            return;
+        }
+        Stats categoryStats = stats.get(category);
+        if (!blocking) {
+            if (!bucket.tryAcquire()) {
+                categoryStats.rejected.incrementAndGet();
+                MetricsRegistry.getMetrics().increment("ec2.rate_limit.rejected", "category", category.name());
+                throw new RequestRateExceededException(action);
+            }
+            categoryStats.acquired.incrementAndGet();
+            return;
+        }
+        try {
+            long waited = bucket.acquire();
+            categoryStats.acquired.incrementAndGet();
+            categoryStats.waitNanos.addAndGet(waited);
+            if (waited > 0) {
+                categoryStats.delayed.incrementAndGet();
+                MetricsRegistry.getMetrics().recordTime("ec2.rate_limit.wait", waited, "category", category.name());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestRateExceededException(action);
+        }
+    }
+
+    /**
+     * Return proxy of amazonEC2 that takes token before every request
+     */
+    public AmazonEC2 wrap(final AmazonEC2 amazonEC2) {
+        LOGGER.info("======> Limiting rate of Amazon EC2 requests: " + buckets.keySet());
+        return (AmazonEC2) Proxy.newProxyInstance(AmazonEC2.class.getClassLoader(), new Class<?>[] { AmazonEC2.class }, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (isRequest(method)) {
+                    acquire(method.getName());
+                }
+                try {
+                    return method.invoke(amazonEC2, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        });
+    }
+
+    /**
+     * Whatever method sends request to amazon (not a client configuration method)
+     */
+    static boolean isRequest(Method method) {
+        return method.getDeclaringClass() != Object.class && !method.getName().startsWith("set") && !method.getName().equals("shutdown")
+                && !method.getName().equals("getCachedResponseMetadata");
+    }
+
+    static Category categoryOf(String action) {
+        if (action.startsWith("describe")) {
+            return Category.DESCRIBE;
+        }
+        if (action.equals("createTags") || action.equals("deleteTags")) {
+            return Category.TAG;
+        }
+        return Category.MUTATE;
+    }
+
+    public boolean isBlocking() {
+        return blocking;
+    }
+
+    /**
+     * Number of requests that got token
+     */
+    public long getAcquiredCount(Category category) {
+        return stats.get(category).acquired.get();
+    }
+
+    /**
+     * Number of requests that had to wait for token
+     */
+    public long getDelayedCount(Category category) {
+        return stats.get(category).delayed.get();
+    }
+
+    /**
+     * Number of requests rejected in non-blocking mode
+     */
+    public long getRejectedCount(Category category) {
+        return stats.get(category).rejected.get();
+    }
+
+    /**
+     * Total time requests waited for token, milliseconds
+     */
+    public long getTotalWaitMillis(Category category) {
+        return stats.get(category).waitNanos.get() / 1000000;
+    }
+
+    private static class Stats {
+
+        private final AtomicLong acquired = new AtomicLong();
+        private final AtomicLong delayed = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+    }
+
+}
@@ -0,0 +1,161 @@
+package com.amazonaws.wrapper.service;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.wrapper.exception.AmazonErrors;
+import com.amazonaws.wrapper.metrics.MetricsRegistry;
+import com.amazonaws.wrapper.metrics.Outcome;
+
+/**
+ * Retries throttled failures of amazon EC2 requests and transient failures of "Describe" requests with exponential backoff and "decorrelated
+ * jitter": every delay is random between baseDelayMillis and three times previous delay, capped by maxDelayMillis. Transient failures of other
+ * requests are not retried, amazon may have executed the request and repeating runInstances, createVolume, ... would create second resource.
+ * Permanent errors and errors left after last retry are thrown as they are. Optional circuit breaker stops sending requests while amazon keeps
+ * failing, requests rejected by client side rate limiter are not counted by it
+ */
+public class Ec2RetryPolicy {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(Ec2RetryPolicy.class);
+
+    private final static Random RANDOM = new Random();
+
+    private final int maxRetries;
+
+    private final long baseDelayMillis;
+
+    private final long maxDelayMillis;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final AtomicLong retries = new AtomicLong();
+
+    /**
+     * @param maxRetries
+     *            - max number of retries of one request
+     * @param baseDelayMillis
+     *            - min delay before retry
+     * @param maxDelayMillis
+     *            - max delay before retry
+     * @param circuitBreaker
+     *            - circuit breaker or null
+     */
+    public Ec2RetryPolicy(int maxRetries, long baseDelayMillis, long maxDelayMillis, CircuitBreaker circuitBreaker) {
+        if (maxRetries < 0 || baseDelayMillis <= 0 || maxDelayMillis < baseDelayMillis) {
+            throw new IllegalArgumentException("Retries must not be negative, delays must be positive and base delay must not exceed max delay");
+        }
+        this.maxRetries = maxRetries;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Return proxy of amazonEC2 that retries failed requests
+     */
+    public AmazonEC2 wrap(final AmazonEC2 amazonEC2) {
+        LOGGER.info("======> Retrying Amazon EC2 requests up to " + maxRetries + " times");
+        return (AmazonEC2) Proxy.newProxyInstance(AmazonEC2.class.getClassLoader(), new Class<?>[] { AmazonEC2.class }, new RetryHandler(amazonEC2));
+    }
+
+    /**
+     * Whatever requests of amazonEC2 are retried by a retry policy, so callers should not retry them again
+     */
+    public static boolean isRetrying(AmazonEC2 amazonEC2) {
+        return Proxy.isProxyClass(amazonEC2.getClass()) && Proxy.getInvocationHandler(amazonEC2) instanceof RetryHandler;
+    }
+
+    private Object invokeWithRetries(AmazonEC2 amazonEC2, Method method, Object[] args) throws Throwable {
+        if (circuitBreaker != null) {
+            circuitBreaker.before(method.getName());
+        }
+        long delay = baseDelayMillis;
+        for (int attempt = 0;; attempt++) {
+            try {
+                Object result = method.invoke(amazonEC2, args);
+                if (circuitBreaker != null) {
+                    circuitBreaker.onSuccess();
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                boolean failed = AmazonErrors.isRetryable(cause);
+                // throttled request was not executed, transient failure may hide executed one
+                boolean retryable = isReadOnly(method) ? failed : AmazonErrors.isThrottling(cause);
+                if (circuitBreaker != null) {
+                    if (AmazonErrors.isClientRejection(cause)) {
+                        // request didn't reach amazon
+                        circuitBreaker.onSkipped();
+                    } else if (failed) {
+                        circuitBreaker.onFailure();
+                    } else {
+                        // amazon answered, it is healthy
+                        circuitBreaker.onSuccess();
+                    }
+                }
+                if (!retryable || attempt >= maxRetries) {
+                    throw cause;
+                }
+                if (circuitBreaker != null && circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+                    // circuit opened because of this failure, caller gets real cause
+                    throw cause;
+                }
+                delay = Math.min(maxDelayMillis, baseDelayMillis + (long) (RANDOM.nextDouble() * (delay * 3 - baseDelayMillis)));
+                retries.incrementAndGet();
+                MetricsRegistry.getMetrics().increment("ec2.retry", "action", method.getName(), "outcome", Outcome.of(cause).tag());
+                LOGGER.debug("Retrying " + method.getName() + " in " + delay + " ms: " + cause.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw cause;
+                }
+            }
+        }
+    }
+
+    private static boolean isReadOnly(Method method) {
+        return method.getName().startsWith("describe");
+    }
+
+    private class RetryHandler implements InvocationHandler {
+
+        private final AmazonEC2 amazonEC2;
+
+        RetryHandler(AmazonEC2 amazonEC2) {
+            this.amazonEC2 = amazonEC2;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!Ec2RateLimiter.isRequest(method)) {
+                try {
+                    return method.invoke(amazonEC2, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+            return invokeWithRetries(amazonEC2, method, args);
+        }
+    }
+
+    /**
+     * Number of retried requests
+     */
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+}
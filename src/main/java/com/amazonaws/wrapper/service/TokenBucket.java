@@ -0,0 +1,78 @@
+package com.amazonaws.wrapper.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket: permits requestsPerSecond on average with bursts up to capacity
+ */
+public class TokenBucket {
+
+    private final double requestsPerSecond;
+
+    private final double capacity;
+
+    private double tokens;
+
+    private long refilledAt = System.nanoTime();
+
+    public TokenBucket(double requestsPerSecond, double capacity) {
+        if (requestsPerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("Rate must be positive and capacity must be at least 1");
+        }
+        this.requestsPerSecond = requestsPerSecond;
+        this.capacity = capacity;
+        this.tokens = capacity;
+    }
+
+    /**
+     * Take token, waiting for it if bucket is empty. Interrupted caller doesn't take the token
+     * 
+     * @return waited time, nanoseconds
+     */
+    public long acquire() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            refill();
+            // reserve token now, so concurrent callers queue up behind us
+            tokens -= 1;
+            waitNanos = tokens >= 0 ? 0 : (long) (-tokens / requestsPerSecond * TimeUnit.SECONDS.toNanos(1));
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                // caller gives up, its reservation must not delay callers queued behind it
+                synchronized (this) {
+                    tokens += 1;
+                }
+                throw e;
+            }
+        }
+        return waitNanos;
+    }
+
+    /**
+     * Take token if it is available right now
+     * 
+     * @return false if bucket is empty
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * requestsPerSecond / TimeUnit.SECONDS.toNanos(1));
+        refilledAt = now;
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.amazonaws.wrapper.cache;
+
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.amazonaws.services.ec2.model.Filter;
+
+public class TtlDescribeCacheTest extends TestCase {
+
+    private final Object client = new Object();
+
+    public void testKeyIgnoresOrderOfFiltersAndValues() {
+        TtlDescribeCache cache = new TtlDescribeCache(60000, 10);
+        Filter a = new Filter("a", Arrays.asList("1", "2"));
+        Filter b = new Filter("b", Arrays.asList("3"));
+        List<String> result = Arrays.asList("i-1");
+        cache.put(new DescribeKey(String.class, client, a, b), result);
+
+        assertSame(result, cache.get(new DescribeKey(String.class, client, b, new Filter("a", Arrays.asList("2", "1")))));
+        assertNull(cache.get(new DescribeKey(Integer.class, client, a, b)));
+        assertNull(cache.get(new DescribeKey(String.class, new Object(), a, b)));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    public void testResultExpiresAfterTtl() throws Exception {
+        TtlDescribeCache cache = new TtlDescribeCache(50, 10);
+        DescribeKey key = new DescribeKey(String.class, client);
+        cache.put(key, Arrays.asList("i-1"));
+
+        assertNotNull(cache.get(key));
+        Thread.sleep(100);
+
+        assertNull(cache.get(key));
+        assertEquals(0, cache.size());
+    }
+
+    public void testLeastRecentlyUsedKeyIsEvicted() {
+        TtlDescribeCache cache = new TtlDescribeCache(60000, 2);
+        DescribeKey first = new DescribeKey(String.class, client, new Filter("id", Arrays.asList("1")));
+        DescribeKey second = new DescribeKey(String.class, client, new Filter("id", Arrays.asList("2")));
+        DescribeKey third = new DescribeKey(String.class, client, new Filter("id", Arrays.asList("3")));
+        cache.put(first, Arrays.asList("i-1"));
+        cache.put(second, Arrays.asList("i-2"));
+
+        // first becomes recently used, second is evicted
+        assertNotNull(cache.get(first));
+        cache.put(third, Arrays.asList("i-3"));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNotNull(cache.get(first));
+        assertNull(cache.get(second));
+        assertNotNull(cache.get(third));
+    }
+
+    public void testInvalidateAllDropsEveryResult() {
+        TtlDescribeCache cache = new TtlDescribeCache(60000, 10);
+        cache.put(new DescribeKey(String.class, client), Arrays.asList("i-1"));
+        cache.put(new DescribeKey(Integer.class, client), Arrays.asList("vol-1"));
+
+        cache.invalidateAll();
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get(new DescribeKey(String.class, client)));
+    }
+
+    public void testRejectsInvalidLimits() {
+        try {
+            new TtlDescribeCache(0, 10);
+            fail("Zero TTL accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new TtlDescribeCache(1000, 0);
+            fail("Zero max entries accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+}
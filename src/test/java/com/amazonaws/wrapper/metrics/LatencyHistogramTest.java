@@ -0,0 +1,81 @@
+package com.amazonaws.wrapper.metrics;
+
+import junit.framework.TestCase;
+
+public class LatencyHistogramTest extends TestCase {
+
+    public void testShortDurationsHaveOwnBuckets() throws Exception {
+        for (int micros = 0; micros < 16; micros++) {
+            assertEquals(micros, LatencyHistogram.bucketOf(micros));
+            assertEquals(micros, LatencyHistogram.upperBoundOf(micros));
+        }
+    }
+
+    public void testPowerOfTwoIsSplitToEightBuckets() throws Exception {
+        for (int exponent = 4; exponent < 40; exponent++) {
+            long power = 1L << exponent;
+            assertEquals(8, LatencyHistogram.bucketOf(power * 2) - LatencyHistogram.bucketOf(power));
+            // bucket starts where previous one ends
+            assertEquals(power - 1, LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(power) - 1));
+        }
+        assertEquals(16, LatencyHistogram.bucketOf(16));
+        assertEquals(16, LatencyHistogram.bucketOf(17));
+        assertEquals(17, LatencyHistogram.bucketOf(18));
+        assertEquals(17, LatencyHistogram.upperBoundOf(16));
+    }
+
+    public void testBucketsAreContiguousAndAccurate() throws Exception {
+        for (long micros = 0; micros < 200000; micros++) {
+            int bucket = LatencyHistogram.bucketOf(micros);
+            long upper = LatencyHistogram.upperBoundOf(bucket);
+            long lower = bucket == 0 ? 0 : LatencyHistogram.upperBoundOf(bucket - 1) + 1;
+            assertTrue(micros + " in bucket " + bucket, lower <= micros && micros <= upper);
+            assertTrue(micros + " in bucket " + bucket, upper - lower <= lower / 8);
+        }
+    }
+
+    public void testHugeDurationsFallIntoLastBucket() throws Exception {
+        int last = LatencyHistogram.bucketOf(Long.MAX_VALUE);
+
+        assertEquals(last, LatencyHistogram.bucketOf(Long.MAX_VALUE / 2));
+        assertTrue(LatencyHistogram.bucketOf(1L << 60) < last);
+    }
+
+    public void testPercentiles() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 1..1000 ms, 10 s outlier
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(millis * 1000000L);
+        }
+        histogram.record(10000 * 1000000L);
+
+        TimerSnapshot snapshot = histogram.snapshot();
+
+        assertEquals(1001, snapshot.getCount());
+        assertEquals(10000 * 1000000L, snapshot.getMaxNanos());
+        assertWithin(501 * 1000000L, snapshot.getP50Nanos());
+        assertWithin(991 * 1000000L, snapshot.getP99Nanos());
+        assertWithin(1000 * 1000000L, snapshot.getP999Nanos());
+    }
+
+    public void testPercentilesDoNotExceedMax() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000001);
+        histogram.record(-5);
+
+        TimerSnapshot snapshot = histogram.snapshot();
+
+        assertEquals(0, snapshot.getP50Nanos());
+        assertEquals(1000001, snapshot.getP99Nanos());
+        assertEquals(1000001, snapshot.getP999Nanos());
+        assertEquals(0, new LatencyHistogram().snapshot().getP99Nanos());
+    }
+
+    /*
+     * Percentile is upper bound of its bucket, at most 12.5% above actual value
+     */
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("Expected about " + expected + " but was " + actual, actual >= expected && actual <= expected + expected / 8);
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import com.amazonaws.AmazonServiceException;
+
+public class AdaptiveThrottleTest extends TestCase {
+
+    public void testRetriesThrottledRequest() throws Exception {
+        AdaptiveThrottle throttle = new AdaptiveThrottle(8);
+        AtomicInteger attempts = new AtomicInteger();
+
+        throttle.execute(throttledTimes(2, attempts), true);
+
+        assertEquals(3, attempts.get());
+        assertEquals(2, throttle.getThrottledCount());
+        assertEquals(2, throttle.getConcurrency());
+    }
+
+    public void testDoesNotRetryRequestOfRetryingClient() throws Exception {
+        AdaptiveThrottle throttle = new AdaptiveThrottle(8);
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            throttle.execute(throttledTimes(2, attempts), false);
+            fail("Throttled request succeeded");
+        } catch (AmazonServiceException e) {
+            assertEquals("RequestLimitExceeded", e.getErrorCode());
+        }
+
+        assertEquals(1, attempts.get());
+        // concurrency is lowered anyway
+        assertEquals(4, throttle.getConcurrency());
+    }
+
+    public void testDoesNotRetryOtherErrors() throws Exception {
+        AdaptiveThrottle throttle = new AdaptiveThrottle(8);
+        final AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            throttle.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    attempts.incrementAndGet();
+                    AmazonServiceException e = new AmazonServiceException("Volume is in use");
+                    e.setErrorCode("VolumeInUse");
+                    e.setStatusCode(400);
+                    throw e;
+                }
+            }, true);
+            fail("Failed request succeeded");
+        } catch (AmazonServiceException e) {
+            assertEquals("VolumeInUse", e.getErrorCode());
+        }
+
+        assertEquals(1, attempts.get());
+        assertEquals(8, throttle.getConcurrency());
+    }
+
+    private static Runnable throttledTimes(final int times, final AtomicInteger attempts) {
+        return new Runnable() {
+
+            @Override
+            public void run() {
+                if (attempts.incrementAndGet() <= times) {
+                    AmazonServiceException e = new AmazonServiceException("Request limit exceeded.");
+                    e.setErrorCode("RequestLimitExceeded");
+                    e.setStatusCode(503);
+                    throw e;
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,171 @@
+package com.amazonaws.wrapper.model;
+
+import java.lang.reflect.Field;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.wrapper.events.ResourceDeleteHandler;
+import com.amazonaws.wrapper.exception.ResourceDoesNotExistException;
+
+public class AsyncOperationsTest extends EmulationTestCase {
+
+    private ThreadPoolExecutor executor;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        executor = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "test-async");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        executor.shutdownNow();
+        super.tearDown();
+    }
+
+    public void testInstanceOperationsRunOnConnectorExecutor() throws Exception {
+        Ec2Instance instance = async(instance(launch(1).get(0).getId()));
+
+        assertSame(instance, instance.refreshAsync().get(5, TimeUnit.SECONDS));
+        assertEquals(Ec2Instance.STATE_RUNNING, instance.getResource().getState().getName());
+        assertNotNull(instance.captureAsync("image", "captured").get(5, TimeUnit.SECONDS));
+        assertSame(instance, instance.rebootAsync().get(5, TimeUnit.SECONDS));
+        assertSame(instance, instance.stopAsync().get(5, TimeUnit.SECONDS));
+        assertTrue(instance.isStopped());
+        assertSame(instance, instance.startAsync().get(5, TimeUnit.SECONDS));
+        assertFalse(instance.isStopped());
+
+        assertEquals(5, executor.getTaskCount());
+    }
+
+    public void testCreateAndDeleteRunOnConnectorExecutor() throws Exception {
+        Ec2Instance instance = async(instance("ami-00000001"));
+
+        assertSame(instance, instance.createAsync(new Properties(), "async").get(5, TimeUnit.SECONDS));
+        assertTrue(instance.getId().startsWith("i-"));
+        assertSame(instance, instance.deleteAsync().get(5, TimeUnit.SECONDS));
+        assertFalse(Ec2Instance.STATE_RUNNING.equals(instance.getState()));
+
+        // background Name tagging of created instance may run there too
+        assertTrue(executor.getTaskCount() >= 2);
+    }
+
+    public void testFailuresArriveFromGet() throws Exception {
+        Future<Ec2Instance> refreshed = async(instance("i-0000dead")).refreshAsync();
+        try {
+            refreshed.get(5, TimeUnit.SECONDS);
+            fail("Missing instance was refreshed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ResourceDoesNotExistException);
+        }
+
+        profile.setThrottleRate(1);
+        Future<Ec2Instance> created = async(instance("ami-00000001")).createAsync(new Properties(), "throttled");
+        try {
+            created.get(5, TimeUnit.SECONDS);
+            fail("Throttled instance was created");
+        } catch (ExecutionException e) {
+            assertEquals("RequestLimitExceeded", ((AmazonServiceException) e.getCause()).getErrorCode());
+        }
+        profile.setThrottleRate(0);
+
+        Ec2Volume missing = async(connect(new Ec2Volume()));
+        missing.setId("vol-0000dead");
+        try {
+            missing.deleteAsync().get(5, TimeUnit.SECONDS);
+            fail("Missing volume was deleted");
+        } catch (ExecutionException e) {
+            assertEquals("InvalidVolume.NotFound", ((AmazonServiceException) e.getCause()).getErrorCode());
+        }
+    }
+
+    public void testConnectorWithoutExecutorUsesDefaultExecutor() throws Exception {
+        final String[] thread = new String[1];
+        Ec2Instance instance = instance(launch(1).get(0).getId());
+        instance.setDeleteHandler(new ResourceDeleteHandler<Ec2Instance>() {
+
+            @Override
+            public boolean beforeDelete(Ec2Instance resource, boolean sendDataToAmazon) {
+                thread[0] = Thread.currentThread().getName();
+                return true;
+            }
+
+            @Override
+            public void afterDelete(Ec2Instance resource) {
+            }
+
+            @Override
+            public void afterThrow(Ec2Instance resource, Exception exception) {
+            }
+        });
+        // plain connector, emulated one provides executor
+        set(instance, new Ec2Connector() {
+
+            @Override
+            public AmazonEC2 getAmazonEC2() {
+                return ec2;
+            }
+
+            @Override
+            public String getUserId() {
+                return profile.getOwnerId();
+            }
+        });
+
+        instance.deleteAsync().get(5, TimeUnit.SECONDS);
+
+        assertTrue(thread[0], thread[0].startsWith("ec2-wrapper-default-async-"));
+        assertEquals(0, executor.getTaskCount());
+    }
+
+    /*
+     * Connect resource to emulation through connector with executor of this test
+     */
+    private <R extends Ec2Resource<?, ?>> R async(R resource) {
+        set(resource, new AsyncEc2Connector() {
+
+            @Override
+            public AmazonEC2 getAmazonEC2() {
+                return ec2;
+            }
+
+            @Override
+            public String getUserId() {
+                return profile.getOwnerId();
+            }
+
+            @Override
+            public ExecutorService getExecutor() {
+                return executor;
+            }
+        });
+        return resource;
+    }
+
+    private static void set(Ec2Resource<?, ?> resource, Ec2Connector connector) {
+        try {
+            Field field = Ec2Resource.class.getDeclaredField("ec2Connector");
+            field.setAccessible(true);
+            field.set(resource, connector);
+        } catch (Exception e) {
+            throw new IllegalStateException("Can't set connector", e);
+        }
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.amazonaws.wrapper.model;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.services.ec2.model.DeleteVolumeRequest;
+import com.amazonaws.services.ec2.model.Volume;
+import com.amazonaws.wrapper.events.ResourceDeleteHandler;
+
+public class BulkDeleteTest extends TestCase {
+
+    private final Set<String> volumeIds = Collections.synchronizedSet(new HashSet<String>());
+
+    /*
+     * Number of next delete requests amazon throttles
+     */
+    private final AtomicInteger throttles = new AtomicInteger();
+
+    public void testReportsEveryResource() throws Exception {
+        List<Ec2Volume> volumes = createVolumes(5);
+        final Ec2Volume kept = volumes.get(0);
+        Ec2Volume missing = connect(new Ec2Volume(new Volume().withVolumeId("vol-0000dead")));
+        volumes.add(missing);
+        final AtomicInteger deleted = new AtomicInteger();
+        final AtomicInteger thrown = new AtomicInteger();
+
+        BulkDeleteResult<Ec2Volume> result = connect(new Ec2Volume()).delete(volumes, new ResourceDeleteHandler<Ec2Volume>() {
+
+            @Override
+            public boolean beforeDelete(Ec2Volume resource, boolean sendDataToAmazon) {
+                return resource != kept;
+            }
+
+            @Override
+            public void afterDelete(Ec2Volume resource) {
+                deleted.incrementAndGet();
+            }
+
+            @Override
+            public void afterThrow(Ec2Volume resource, Exception exception) {
+                thrown.incrementAndGet();
+            }
+        }, 4);
+
+        // resources are reported in completion order
+        assertEquals(new HashSet<Ec2Volume>(volumes.subList(1, 5)), new HashSet<Ec2Volume>(result.getDeleted()));
+        assertEquals(Arrays.asList(kept), result.getSkipped());
+        assertEquals(Arrays.asList(missing), result.getFailed());
+        assertEquals("InvalidVolume.NotFound", ((AmazonServiceException) result.getFailure(missing)).getErrorCode());
+        assertEquals(4, deleted.get());
+        assertEquals(1, thrown.get());
+        assertEquals(Collections.singleton(kept.getId()), volumeIds);
+    }
+
+    public void testRetriesThrottledRequests() throws Exception {
+        List<Ec2Volume> volumes = createVolumes(30);
+        throttles.set(3);
+
+        BulkDeleteResult<Ec2Volume> result = connect(new Ec2Volume()).delete(volumes, null, 10);
+
+        assertEquals(30, result.getDeleted().size());
+        assertTrue(result.getFailed().isEmpty());
+        assertEquals(3, result.getThrottledCount());
+        assertTrue(volumeIds.isEmpty());
+    }
+
+    private List<Ec2Volume> createVolumes(int count) {
+        List<Ec2Volume> volumes = new ArrayList<Ec2Volume>();
+        for (int i = 0; i < count; i++) {
+            volumeIds.add("vol-" + i);
+            volumes.add(connect(new Ec2Volume(new Volume().withVolumeId("vol-" + i))));
+        }
+        return volumes;
+    }
+
+    /*
+     * Resources have no public setter of connector and settings
+     */
+    private <R extends Ec2Resource<?, ?>> R connect(R resource) {
+        final AmazonEC2 ec2 = stub();
+        set(resource, "ec2Connector", new Ec2Connector() {
+
+            @Override
+            public AmazonEC2 getAmazonEC2() {
+                return ec2;
+            }
+
+            @Override
+            public String getUserId() {
+                return "000000000000";
+            }
+        });
+        set(resource, "settings", new AdapterSettings());
+        return resource;
+    }
+
+    private static void set(Ec2Resource<?, ?> resource, String name, Object value) {
+        try {
+            Field field = Ec2Resource.class.getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(resource, value);
+        } catch (Exception e) {
+            throw new IllegalStateException("Can't set " + name, e);
+        }
+    }
+
+    /*
+     * Amazon that only deletes volumes
+     */
+    private AmazonEC2 stub() {
+        return (AmazonEC2) Proxy.newProxyInstance(AmazonEC2.class.getClassLoader(), new Class<?>[] { AmazonEC2.class }, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (!method.getName().equals("deleteVolume")) {
+                    throw new UnsupportedOperationException(method.getName());
+                }
+                if (throttles.getAndDecrement() > 0) {
+                    throw error("RequestLimitExceeded", 503);
+                }
+                if (!volumeIds.remove(((DeleteVolumeRequest) args[0]).getVolumeId())) {
+                    throw error("InvalidVolume.NotFound", 400);
+                }
+                return null;
+            }
+        });
+    }
+
+    private static AmazonServiceException error(String code, int status) {
+        AmazonServiceException e = new AmazonServiceException(code);
+        e.setErrorCode(code);
+        e.setStatusCode(status);
+        return e;
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.services.ec2.model.CreateSnapshotRequest;
+import com.amazonaws.services.ec2.model.CreateVolumeRequest;
+import com.amazonaws.wrapper.events.CompletionListener;
+
+public class CompletionTrackerTest extends EmulationTestCase {
+
+    private final static String OTHER_REGION = "eu-west-1";
+
+    private CompletionTracker tracker;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        profile.setSnapshotMillis(300);
+        tracker = new CompletionTracker(connector, 20, 100);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        tracker.shutdown();
+        super.tearDown();
+    }
+
+    public void testTracksSnapshotsInTheirRegions() throws Exception {
+        Ec2Snapshot local = snapshot(REGION);
+        // ids of emulated regions overlap, last of few remote snapshots is unknown in default region
+        snapshot(OTHER_REGION);
+        snapshot(OTHER_REGION);
+        Ec2Snapshot remote = snapshot(OTHER_REGION);
+
+        Future<Ec2Snapshot> localCompleted = tracker.track(local);
+        Future<Ec2Snapshot> remoteCompleted = tracker.track(remote);
+
+        assertEquals(Ec2Snapshot.STATE_COMPLETED, localCompleted.get(5, TimeUnit.SECONDS).getResource().getState());
+        assertEquals(Ec2Snapshot.STATE_COMPLETED, remoteCompleted.get(5, TimeUnit.SECONDS).getResource().getState());
+        assertEquals(0, tracker.size());
+    }
+
+    public void testTracksSnapshotsOfOtherOwners() throws Exception {
+        Ec2Snapshot shared = snapshot(REGION);
+        // tracking account is not owner of snapshot
+        profile.setOwnerId("999999999999");
+        final List<Integer> progress = new ArrayList<Integer>();
+
+        Future<Ec2Snapshot> completed = tracker.track(shared, new CompletionListener<Ec2Snapshot>() {
+
+            @Override
+            public void progressChanged(Ec2Snapshot resource, int previousProgress, int current) {
+                progress.add(current);
+            }
+
+            @Override
+            public void completed(Ec2Snapshot resource) {
+            }
+
+            @Override
+            public void failed(Ec2Snapshot resource, Exception cause) {
+            }
+        });
+
+        assertEquals(Ec2Snapshot.STATE_COMPLETED, completed.get(5, TimeUnit.SECONDS).getResource().getState());
+        assertEquals(Integer.valueOf(100), progress.get(progress.size() - 1));
+    }
+
+    public void testTrackAfterShutdownFailsImmediately() throws Exception {
+        Ec2Snapshot snapshot = snapshot(REGION);
+        tracker.shutdown();
+
+        Future<Ec2Snapshot> completed = tracker.track(snapshot);
+
+        assertTrue(completed.isDone());
+        try {
+            completed.get();
+            fail("Shut down tracker completed snapshot");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(0, tracker.size());
+    }
+
+    private Ec2Snapshot snapshot(String region) {
+        AmazonEC2 client = connector.getAmazonEC2(region);
+        String volumeId = client.createVolume(new CreateVolumeRequest().withSize(1)).getVolume().getVolumeId();
+        Ec2Snapshot snapshot = connect(new Ec2Snapshot(client.createSnapshot(new CreateSnapshotRequest().withVolumeId(volumeId)).getSnapshot()));
+        snapshot.setRegion(region);
+        return snapshot;
+    }
+
+}
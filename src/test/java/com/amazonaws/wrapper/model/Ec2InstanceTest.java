@@ -0,0 +1,261 @@
+package com.amazonaws.wrapper.model;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.services.ec2.model.CreateTagsRequest;
+import com.amazonaws.services.ec2.model.DescribeInstancesRequest;
+import com.amazonaws.services.ec2.model.Instance;
+import com.amazonaws.services.ec2.model.Reservation;
+import com.amazonaws.services.ec2.model.RunInstancesRequest;
+import com.amazonaws.services.ec2.model.Tag;
+import com.amazonaws.wrapper.events.ResourceCreateHandler;
+import com.amazonaws.wrapper.metrics.InMemoryMetrics;
+import com.amazonaws.wrapper.metrics.MetricsRegistry;
+import com.amazonaws.wrapper.metrics.TimerSnapshot;
+
+public class Ec2InstanceTest extends EmulationTestCase {
+
+    private final static String OTHER_REGION = "eu-west-1";
+
+    public void testStopAllSendsInstancesToTheirRegions() throws Exception {
+        List<Ec2Instance> instances = launch(3);
+        instances.addAll(launchIn(OTHER_REGION, 2));
+
+        List<Ec2Instance> stopped = Ec2Instance.stopAll(instances);
+
+        assertEquals(5, stopped.size());
+        assertEquals(3, countInState(REGION, Ec2Instance.STATE_STOPPING, Ec2Instance.STATE_STOPPED));
+        assertEquals(2, countInState(OTHER_REGION, Ec2Instance.STATE_STOPPING, Ec2Instance.STATE_STOPPED));
+    }
+
+    public void testTerminateAllSkipsUnknownInstances() throws Exception {
+        List<Ec2Instance> instances = launch(3);
+        instances.add(instance("i-0000dead"));
+
+        List<Ec2Instance> terminated = Ec2Instance.terminateAll(instances);
+
+        assertEquals(3, terminated.size());
+        assertEquals(3, countInState(REGION, Ec2Instance.STATE_SHUTDOWN, Ec2Instance.STATE_TERMINATED));
+    }
+
+    public void testThrottledDescribeIsNotRetriedPerInstance() throws Exception {
+        List<Ec2Instance> instances = launch(50);
+        profile.setThrottleRate(1);
+        long before = emulation().getRequestCount();
+
+        try {
+            Ec2Instance.rebootAll(instances);
+            fail("Throttled reboot succeeded");
+        } catch (AmazonServiceException e) {
+            assertEquals("RequestLimitExceeded", e.getErrorCode());
+        }
+        assertEquals(1, emulation().getRequestCount() - before);
+    }
+
+    public void testNotTaggedMatchesWildcards() throws Exception {
+        List<Ec2Instance> instances = launch(4);
+        tag(instances.get(0), "web-1");
+        tag(instances.get(1), "web-2");
+        tag(instances.get(2), "db");
+
+        List<Ec2Instance> notWeb = connect(new Ec2Instance()).getNotTagged("Role", "web*");
+        List<Ec2Instance> notDb = connect(new Ec2Instance()).getNotTagged("Role", "d?");
+        List<Ec2Instance> untagged = connect(new Ec2Instance()).getNotTagged("Role");
+
+        assertEquals(Arrays.asList(instances.get(2).getId(), instances.get(3).getId()), idsOf(notWeb));
+        assertEquals(Arrays.asList(instances.get(0).getId(), instances.get(1).getId(), instances.get(3).getId()), idsOf(notDb));
+        assertEquals(Arrays.asList(instances.get(3).getId()), idsOf(untagged));
+    }
+
+    public void testLaterChunkFailureKeepsTaggedPartialFleet() throws Exception {
+        CountingHandler handler = new CountingHandler(false);
+        Ec2Instance template = fleetTemplate(2, handler);
+        long partialBefore = launchFleetCount("partial");
+
+        List<Ec2Instance> fleet = template.launchFleet(2, 6, 2, new Properties(), "web");
+
+        assertEquals(2, fleet.size());
+        assertEquals(2, handler.created.get());
+        assertEquals(0, handler.thrown.get());
+        assertFleetTagged(fleet, "web");
+        assertEquals(partialBefore + 1, launchFleetCount("partial"));
+        assertEquals(2, countInState(REGION, Ec2Instance.STATE_PENDING, Ec2Instance.STATE_RUNNING));
+    }
+
+    public void testCreateHandlerFailureKeepsTaggedFleet() throws Exception {
+        CountingHandler handler = new CountingHandler(true);
+        Ec2Instance template = fleetTemplate(0, handler);
+        long partialBefore = launchFleetCount("partial");
+
+        List<Ec2Instance> fleet = template.launchFleet(3, 3, 2, new Properties(), "db");
+
+        assertEquals(3, fleet.size());
+        assertEquals(3, handler.created.get());
+        assertFleetTagged(fleet, "db");
+        assertEquals(partialBefore + 1, launchFleetCount("partial"));
+    }
+
+    public void testFailureBeforeMinCountTerminatesFleet() throws Exception {
+        CountingHandler handler = new CountingHandler(false);
+        Ec2Instance template = fleetTemplate(2, handler);
+
+        try {
+            template.launchFleet(4, 4, 2, new Properties(), "web");
+            fail("Fleet below min count launched");
+        } catch (AmazonServiceException e) {
+            assertEquals("InsufficientInstanceCapacity", e.getErrorCode());
+        }
+        assertEquals(0, handler.created.get());
+        assertEquals(1, handler.thrown.get());
+        assertEquals(2, countInState(REGION, Ec2Instance.STATE_SHUTDOWN, Ec2Instance.STATE_TERMINATED));
+    }
+
+    /*
+     * Fleet template whose n-th RunInstances request fails for lack of capacity, 0 for no failure
+     */
+    private Ec2Instance fleetTemplate(final int failingLaunch, ResourceCreateHandler<Ec2Instance> handler) throws Exception {
+        final AtomicInteger launches = new AtomicInteger();
+        final AmazonEC2 failing = (AmazonEC2) Proxy.newProxyInstance(AmazonEC2.class.getClassLoader(), new Class<?>[] { AmazonEC2.class },
+                new InvocationHandler() {
+
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (method.getName().equals("runInstances") && launches.incrementAndGet() == failingLaunch) {
+                            AmazonServiceException error = new AmazonServiceException("Insufficient capacity.");
+                            error.setErrorCode("InsufficientInstanceCapacity");
+                            error.setStatusCode(500);
+                            throw error;
+                        }
+                        try {
+                            return method.invoke(ec2, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+        Ec2Instance template = instance("ami-00000001");
+        Field field = Ec2Resource.class.getDeclaredField("ec2Connector");
+        field.setAccessible(true);
+        field.set(template, new Ec2Connector() {
+
+            @Override
+            public AmazonEC2 getAmazonEC2() {
+                return failing;
+            }
+
+            @Override
+            public String getUserId() {
+                return profile.getOwnerId();
+            }
+        });
+        template.setCreateHandler(handler);
+        return template;
+    }
+
+    private void assertFleetTagged(List<Ec2Instance> fleet, String description) throws Exception {
+        for (Ec2Instance member : fleet) {
+            assertNotNull(member.getNameTagging());
+            assertTrue(member.getNameTagging().get(5, TimeUnit.SECONDS));
+        }
+        for (int i = 0; i < fleet.size(); i++) {
+            Instance model = ec2.describeInstances(new DescribeInstancesRequest().withInstanceIds(fleet.get(i).getId())).getReservations().get(0)
+                    .getInstances().get(0);
+            assertTrue(tagValue(model, Ec2Instance.FLEET_TAG).endsWith(description));
+            assertTrue(tagValue(model, "Name").endsWith(description + "-" + (i + 1)));
+        }
+    }
+
+    private static String tagValue(Instance model, String key) {
+        for (Tag tag : model.getTags()) {
+            if (tag.getKey().equals(key)) {
+                return tag.getValue();
+            }
+        }
+        return "";
+    }
+
+    private static long launchFleetCount(String outcome) {
+        TimerSnapshot timer = ((InMemoryMetrics) MetricsRegistry.getMetrics()).getTimer(Ec2Resource.OPERATION_TIMER, "operation", "launch_fleet",
+                "type", "Ec2Instance", "outcome", outcome);
+        return timer == null ? 0 : timer.getCount();
+    }
+
+    private static class CountingHandler implements ResourceCreateHandler<Ec2Instance> {
+
+        private final boolean failing;
+
+        private final AtomicInteger created = new AtomicInteger();
+
+        private final AtomicInteger thrown = new AtomicInteger();
+
+        CountingHandler(boolean failing) {
+            this.failing = failing;
+        }
+
+        @Override
+        public boolean beforeCreate(Ec2Instance resource, boolean sendDataToAmazon) {
+            return true;
+        }
+
+        @Override
+        public void afterCreate(Ec2Instance resource) {
+            if (created.incrementAndGet() == 1 && failing) {
+                throw new IllegalStateException("Handler failed");
+            }
+        }
+
+        @Override
+        public void afterThrow(Ec2Instance resource, Exception exception) {
+            thrown.incrementAndGet();
+        }
+    }
+
+    private void tag(Ec2Instance instance, String role) {
+        ec2.createTags(new CreateTagsRequest().withResources(instance.getId()).withTags(new Tag("Role", role)));
+    }
+
+    private static List<String> idsOf(List<Ec2Instance> instances) {
+        List<String> ids = new ArrayList<String>();
+        for (Ec2Instance instance : instances) {
+            ids.add(instance.getId());
+        }
+        return ids;
+    }
+
+    private List<Ec2Instance> launchIn(String region, int count) {
+        List<Ec2Instance> launched = new ArrayList<Ec2Instance>();
+        for (Instance instance : connector.getAmazonEC2(region)
+                .runInstances(new RunInstancesRequest().withImageId("ami-00000001").withMinCount(count).withMaxCount(count)).getReservation()
+                .getInstances()) {
+            Ec2Instance wrapped = connect(new Ec2Instance(instance));
+            wrapped.setRegion(region);
+            launched.add(wrapped);
+        }
+        return launched;
+    }
+
+    private int countInState(String region, String... states) {
+        int count = 0;
+        for (Reservation reservation : connector.getAmazonEC2(region).describeInstances(new DescribeInstancesRequest()).getReservations()) {
+            for (Instance instance : reservation.getInstances()) {
+                if (Arrays.asList(states).contains(instance.getState().getName())) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+}
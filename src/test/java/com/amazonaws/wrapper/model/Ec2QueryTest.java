@@ -0,0 +1,140 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.amazonaws.services.ec2.model.CreateTagsRequest;
+import com.amazonaws.services.ec2.model.CreateVolumeRequest;
+import com.amazonaws.services.ec2.model.Tag;
+import com.amazonaws.wrapper.events.ResourceVisitor;
+
+public class Ec2QueryTest extends EmulationTestCase {
+
+    private List<String> ids;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        // sizes 1..6, names web-1, web-2, db-3, web-4, db-5, web*6
+        ids = new ArrayList<String>();
+        for (int i = 1; i <= 6; i++) {
+            String id = ec2.createVolume(new CreateVolumeRequest().withSize(i)).getVolume().getVolumeId();
+            String name = (i == 3 || i == 5 ? "db-" : i == 6 ? "web*" : "web-") + i;
+            ec2.createTags(new CreateTagsRequest().withResources(id).withTags(new Tag("Name", name)));
+            ids.add(id);
+        }
+    }
+
+    public void testPushedConditionsAreEvaluatedByAmazon() throws Exception {
+        VolumeQuery query = query().tagged("Name", "db-3", "db-5");
+
+        assertEquals(set(3, 5), idsOf(query.list()));
+        assertStats(query, 1, 0, 2, 2);
+        assertEquals(2, query.count());
+        assertStats(query, 1, 0, 2, 2);
+        assertEquals(1, query.filters().length);
+    }
+
+    public void testDuplicateFilterNameFallsBackToLocalEvaluation() throws Exception {
+        VolumeQuery query = query().tagged("Name", "web-1", "web-2", "db-3").tagged("Name", "db-3", "db-5");
+
+        assertEquals(set(3), idsOf(query.list()));
+        assertStats(query, 1, 1, 3, 1);
+        assertEquals(1, query.count());
+        assertEquals(1, query.filters().length);
+    }
+
+    public void testNegationRangeAndMixedAlternativesAreEvaluatedLocally() throws Exception {
+        List<Condition<Ec2Volume>> alternatives = new ArrayList<Condition<Ec2Volume>>();
+        alternatives.add(Condition.equalTo(VolumeQuery.SIZE, "1"));
+        alternatives.add(Condition.equalTo(query().tag("Name"), "db-5"));
+        VolumeQuery query = query().whereNot(VolumeQuery.SIZE, "2").between(VolumeQuery.SIZE, 1, 5).anyOf(alternatives);
+
+        assertEquals(0, query.filters().length);
+        assertEquals(set(1, 5), idsOf(query.list()));
+        assertStats(query, 0, 3, 6, 2);
+        assertEquals(2, query.count());
+    }
+
+    public void testAlternativesOfOneAttributeArePushed() throws Exception {
+        List<Condition<Ec2Volume>> alternatives = new ArrayList<Condition<Ec2Volume>>();
+        alternatives.add(Condition.equalTo(VolumeQuery.SIZE, "1"));
+        alternatives.add(Condition.equalTo(VolumeQuery.SIZE, "4"));
+        VolumeQuery query = query().anyOf(alternatives);
+
+        assertEquals(set(1, 4), idsOf(query.list()));
+        assertStats(query, 1, 0, 2, 2);
+    }
+
+    public void testFirstStopsScan() throws Exception {
+        VolumeQuery query = query().sizeBetween(2, 6);
+
+        Ec2Volume first = query.first();
+
+        assertEquals(ids.get(1), first.getId());
+        assertStats(query, 0, 1, 2, 1);
+        assertNull(query().sizeBetween(10, 20).first());
+    }
+
+    public void testForEachStopsWhenVisitorReturnsFalse() throws Exception {
+        VolumeQuery query = query().sizeBetween(1, 6);
+        final List<Ec2Volume> visited = new ArrayList<Ec2Volume>();
+
+        query.forEach(new ResourceVisitor<Ec2Volume>() {
+
+            @Override
+            public boolean visit(Ec2Volume volume) {
+                visited.add(volume);
+                return visited.size() < 3;
+            }
+        });
+
+        assertEquals(3, visited.size());
+        assertEquals(3, query.getStats().getScanned());
+    }
+
+    public void testWildcardsMatchTheSameLocallyAndInAmazon() throws Exception {
+        VolumeQuery pushed = query().tagged("Name", "web-?");
+        // second condition with the same filter name is evaluated locally
+        VolumeQuery local = query().tagged("Name", "*").tagged("Name", "web-?");
+
+        assertEquals(set(1, 2, 4), idsOf(pushed.list()));
+        assertEquals(set(1, 2, 4), idsOf(local.list()));
+        assertEquals(1, local.getStats().getLocalConditions());
+
+        // escaped wildcard is literal
+        assertEquals(set(6), idsOf(query().tagged("Name", "*").tagged("Name", "web\\*6").list()));
+        assertEquals(set(1, 2, 4, 6), idsOf(query().tagged("Name", "*").tagged("Name", "web*").list()));
+    }
+
+    public void testStatsAreNullBeforeExecution() throws Exception {
+        assertNull(query().status("available").getStats());
+    }
+
+    private VolumeQuery query() {
+        return connect(new Ec2Volume()).query();
+    }
+
+    private Set<String> set(int... sizes) {
+        Set<String> set = new HashSet<String>();
+        for (int size : sizes) {
+            set.add(ids.get(size - 1));
+        }
+        return set;
+    }
+
+    private static Set<String> idsOf(List<Ec2Volume> volumes) {
+        return new HashSet<String>(Ec2Resource.idsOf(volumes));
+    }
+
+    private static void assertStats(VolumeQuery query, int pushed, int local, long scanned, long matched) {
+        QueryStats stats = query.getStats();
+        assertEquals(stats.toString(), pushed, stats.getPushedConditions());
+        assertEquals(stats.toString(), local, stats.getLocalConditions());
+        assertEquals(stats.toString(), scanned, stats.getScanned());
+        assertEquals(stats.toString(), matched, stats.getMatched());
+    }
+
+}
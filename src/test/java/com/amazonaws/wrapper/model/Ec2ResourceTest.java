@@ -0,0 +1,154 @@
+package com.amazonaws.wrapper.model;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.services.ec2.model.RunInstancesRequest;
+import com.amazonaws.wrapper.cache.TtlDescribeCache;
+import com.amazonaws.wrapper.emulation.EmulatedConnector;
+import com.amazonaws.wrapper.emulation.LatencyDistribution;
+
+public class Ec2ResourceTest extends EmulationTestCase {
+
+    private final static String OTHER_REGION = "eu-west-1";
+
+    @Override
+    protected void tearDown() throws Exception {
+        Ec2Resource.setDescribeCache(Ec2Instance.class, null);
+        super.tearDown();
+    }
+
+    public void testConcurrentDescribesShareRequestButNotResources() throws Exception {
+        launch(3);
+        profile.setLatency("describeInstances", LatencyDistribution.fixed(200));
+        long before = emulation().getRequestCount();
+
+        List<List<Ec2Instance>> results = new ArrayList<List<Ec2Instance>>();
+        for (Future<List<Ec2Instance>> result : runConcurrently(getAll(10))) {
+            results.add(result.get());
+        }
+
+        assertEquals(1, emulation().getRequestCount() - before);
+        Map<Object, Boolean> seen = new IdentityHashMap<Object, Boolean>();
+        for (List<Ec2Instance> result : results) {
+            assertEquals(3, result.size());
+            for (Ec2Instance instance : result) {
+                assertNull("Resource shared between callers", seen.put(instance, true));
+                assertNull("Model shared between callers", seen.put(instance.getAmazonInstance(), true));
+            }
+        }
+    }
+
+    public void testCachedResultIsNotChangedByCallers() throws Exception {
+        launch(2);
+        Ec2Resource.setDescribeCache(Ec2Instance.class, new TtlDescribeCache(60000, 10));
+        Ec2Instance prototype = connect(new Ec2Instance());
+
+        List<Ec2Instance> first = prototype.getAll();
+        first.get(0).getAmazonInstance().setInstanceType("changed.locally");
+        first.get(1).setRegion("eu-west-1");
+        long before = emulation().getRequestCount();
+        List<Ec2Instance> second = prototype.getAll();
+
+        assertEquals(0, emulation().getRequestCount() - before);
+        assertFalse("changed.locally".equals(second.get(0).getAmazonInstance().getInstanceType()));
+        assertNull(second.get(1).getRegion());
+    }
+
+    public void testResultOfDescribeSentBeforeChangeIsNotCached() throws Exception {
+        final List<Ec2Instance> instances = launch(2);
+        Ec2Resource.setDescribeCache(Ec2Instance.class, new TtlDescribeCache(60000, 10));
+        profile.setLatency("describeInstances", LatencyDistribution.fixed(300));
+        Future<List<Ec2Instance>> old = runConcurrently(getAll(1)).get(0);
+        sleep(100);
+
+        // change of resource invalidates cache while describe is sent
+        instances.get(0).addTag("Role", "web");
+        assertEquals(2, old.get().size());
+        profile.setLatency("describeInstances", LatencyDistribution.none());
+        long before = emulation().getRequestCount();
+        List<Ec2Instance> actual = connect(new Ec2Instance()).getAll();
+
+        assertEquals(1, emulation().getRequestCount() - before);
+        assertTrue(actual.get(0).hasTag("Role", "web"));
+    }
+
+    public void testRegionQueriesFromConnectorThreadsDoNotDeadlock() throws Exception {
+        connector.shutdown();
+        connector = new EmulatedConnector(profile, REGION, OTHER_REGION);
+        for (String region : connector.getRegions()) {
+            connector.getAmazonEC2(region).runInstances(new RunInstancesRequest().withImageId("ami-00000001").withMinCount(1).withMaxCount(1));
+        }
+
+        // as many callers as threads of connector executor
+        List<Future<Map<String, List<Ec2Instance>>>> futures = new ArrayList<Future<Map<String, List<Ec2Instance>>>>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(connector.getExecutor().submit(new Callable<Map<String, List<Ec2Instance>>>() {
+
+                @Override
+                public Map<String, List<Ec2Instance>> call() throws Exception {
+                    return connect(new Ec2Instance()).getByRegion();
+                }
+            }));
+        }
+
+        for (Future<Map<String, List<Ec2Instance>>> future : futures) {
+            Map<String, List<Ec2Instance>> byRegion = future.get(5, TimeUnit.SECONDS);
+            assertEquals(Arrays.asList(REGION, OTHER_REGION), new ArrayList<String>(byRegion.keySet()));
+            assertEquals(OTHER_REGION, byRegion.get(OTHER_REGION).get(0).getRegion());
+        }
+    }
+
+    public void testConnectorWithoutRegions() throws Exception {
+        Ec2Instance instance = connect(new Ec2Instance());
+        Field field = Ec2Resource.class.getDeclaredField("ec2Connector");
+        field.setAccessible(true);
+        field.set(instance, new Ec2Connector() {
+
+            @Override
+            public AmazonEC2 getAmazonEC2() {
+                return ec2;
+            }
+
+            @Override
+            public String getUserId() {
+                return profile.getOwnerId();
+            }
+        });
+
+        assertTrue(instance.getByRegion().isEmpty());
+        instance.setRegion(OTHER_REGION);
+        try {
+            instance.getAll();
+            fail("Region reached without regional connector");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private List<Callable<List<Ec2Instance>>> getAll(int count) {
+        List<Callable<List<Ec2Instance>>> describes = new ArrayList<Callable<List<Ec2Instance>>>();
+        for (int i = 0; i < count; i++) {
+            describes.add(new Callable<List<Ec2Instance>>() {
+
+                @Override
+                public List<Ec2Instance> call() throws Exception {
+                    List<Ec2Instance> result = connect(new Ec2Instance()).getAll();
+                    // wrap all models
+                    new ArrayList<Ec2Instance>(result);
+                    return result;
+                }
+            });
+        }
+        return describes;
+    }
+
+}
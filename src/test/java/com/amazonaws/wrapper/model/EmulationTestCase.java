@@ -0,0 +1,129 @@
+package com.amazonaws.wrapper.model;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.services.ec2.model.Instance;
+import com.amazonaws.services.ec2.model.RunInstancesRequest;
+import com.amazonaws.wrapper.emulation.EmulatedConnector;
+import com.amazonaws.wrapper.emulation.EmulatedEc2;
+import com.amazonaws.wrapper.emulation.EmulationProfile;
+
+/**
+ * Base of tests running resources against in-process emulation of amazon ec2
+ */
+public abstract class EmulationTestCase extends TestCase {
+
+    protected final static String REGION = EmulatedConnector.DEFAULT_REGION;
+
+    protected EmulationProfile profile;
+
+    protected EmulatedConnector connector;
+
+    protected AmazonEC2 ec2;
+
+    protected AdapterSettings settings;
+
+    private ExecutorService threads;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        profile = new EmulationProfile();
+        connector = new EmulatedConnector(profile, REGION);
+        ec2 = connector.getAmazonEC2();
+        settings = new AdapterSettings();
+        settings.setInstancePrefix("test_");
+        threads = Executors.newCachedThreadPool();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        threads.shutdownNow();
+        connector.shutdown();
+        super.tearDown();
+    }
+
+    /**
+     * Connect resource to emulation, resources have no public setter of connector and settings
+     */
+    protected <R extends Ec2Resource<?, ?>> R connect(R resource) {
+        set(resource, "ec2Connector", connector);
+        set(resource, "settings", settings);
+        return resource;
+    }
+
+    protected EmulatedEc2 emulation() {
+        return connector.getEmulation(REGION);
+    }
+
+    /**
+     * Launch instances directly in emulation, without wrapper
+     */
+    protected List<Ec2Instance> launch(int count) {
+        List<Ec2Instance> launched = new ArrayList<Ec2Instance>();
+        for (Instance instance : ec2.runInstances(new RunInstancesRequest().withImageId("ami-00000001").withMinCount(count).withMaxCount(count))
+                .getReservation().getInstances()) {
+            launched.add(connect(new Ec2Instance(instance)));
+        }
+        return launched;
+    }
+
+    /**
+     * Resource known only by id, as if user created it with setId(..)
+     */
+    protected Ec2Instance instance(String id) {
+        Ec2Instance instance = connect(new Ec2Instance());
+        instance.setId(id);
+        return instance;
+    }
+
+    /**
+     * Run tasks in parallel, all of them start at the same moment
+     */
+    protected <V> List<Future<V>> runConcurrently(List<? extends Callable<V>> tasks) {
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<V>> futures = new ArrayList<Future<V>>();
+        for (final Callable<V> task : tasks) {
+            futures.add(threads.submit(new Callable<V>() {
+
+                @Override
+                public V call() throws Exception {
+                    start.await();
+                    return task.call();
+                }
+            }));
+        }
+        start.countDown();
+        return futures;
+    }
+
+    protected static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void set(Object target, String name, Object value) {
+        try {
+            Field field = Ec2Resource.class.getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (Exception e) {
+            throw new IllegalStateException("Can't set " + name, e);
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import com.amazonaws.services.ec2.model.RunInstancesRequest;
+import com.amazonaws.services.ec2.model.StopInstancesRequest;
+
+public class InstanceInventoryTest extends EmulationTestCase {
+
+    private InstanceInventory inventory;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        // synchronized only by lookups
+        inventory = new InstanceInventory(connector, 50, 100);
+    }
+
+    public void testLookupsShareOneSynchronization() throws Exception {
+        launch(5);
+        long before = emulation().getRequestCount();
+
+        for (Future<Integer> size : runConcurrently(getAll(20))) {
+            assertEquals(Integer.valueOf(5), size.get());
+        }
+
+        assertEquals(1, emulation().getRequestCount() - before);
+        assertEquals(1, inventory.getSyncCount());
+    }
+
+    public void testFailedSynchronizationServesStaleInventory() throws Exception {
+        // backoff long enough for all concurrent lookups to start within it
+        inventory = new InstanceInventory(connector, 500, 500);
+        launch(3);
+        inventory.sync();
+        sleep(550);
+        profile.setThrottleRate(1);
+        long before = emulation().getRequestCount();
+
+        for (Future<Integer> size : runConcurrently(getAll(20))) {
+            assertEquals(Integer.valueOf(3), size.get());
+        }
+
+        // one failed attempt, other lookups wait for backoff
+        assertEquals(1, emulation().getRequestCount() - before);
+        profile.setThrottleRate(0);
+        launch(1);
+        sleep(550);
+        assertEquals(4, inventory.getAll().size());
+    }
+
+    public void testFailedFirstSynchronizationFailsLookup() throws Exception {
+        profile.setThrottleRate(1);
+        try {
+            inventory.getAll();
+            fail("Lookup succeeded without inventory");
+        } catch (RuntimeException e) {
+            // expected, there is no stale inventory to serve
+        }
+    }
+
+    public void testSharedPrivateIpIsNotResolved() throws Exception {
+        String unique = launch(1).get(0).getPrivateIp();
+        for (int i = 0; i < 2; i++) {
+            ec2.runInstances(new RunInstancesRequest().withImageId("ami-00000001").withMinCount(1).withMaxCount(1).withPrivateIpAddress("10.1.1.1"));
+        }
+
+        assertNull(inventory.getByPrivateIp("10.1.1.1"));
+        assertEquals(unique, inventory.getByPrivateIp(unique).getPrivateIp());
+    }
+
+    public void testRefreshingLookupResultDoesNotChangeIndex() throws Exception {
+        String id = launch(1).get(0).getId();
+        InstanceInventory synced = new InstanceInventory(connector, 60000, 60000);
+        synced.sync();
+        ec2.stopInstances(new StopInstancesRequest().withInstanceIds(id));
+
+        Ec2Instance found = connect(synced.get(id));
+        found.refresh();
+        connect(synced.getAll().get(0)).refresh();
+
+        assertFalse(Ec2Instance.STATE_RUNNING.equals(found.getResource().getState().getName()));
+        assertEquals(Ec2Instance.STATE_RUNNING, synced.get(id).getResource().getState().getName());
+        assertNotSame(synced.get(id), synced.get(id));
+        assertEquals(1, synced.getSyncCount());
+    }
+
+    private List<Callable<Integer>> getAll(int count) {
+        List<Callable<Integer>> lookups = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < count; i++) {
+            lookups.add(new Callable<Integer>() {
+
+                @Override
+                public Integer call() throws Exception {
+                    return inventory.getAll().size();
+                }
+            });
+        }
+        return lookups;
+    }
+
+}
@@ -0,0 +1,131 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.services.ec2.model.Instance;
+import com.amazonaws.services.ec2.model.RunInstancesRequest;
+import com.amazonaws.services.ec2.model.TerminateInstancesRequest;
+import com.amazonaws.wrapper.exception.ResourceFailedException;
+
+public class InstanceStatePollerTest extends EmulationTestCase {
+
+    private final static String OTHER_REGION = "eu-west-1";
+
+    private InstanceStatePoller poller;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        profile.setInstanceBootMillis(300);
+        poller = new InstanceStatePoller(connector, 50, 200);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        poller.shutdown();
+        super.tearDown();
+    }
+
+    public void testConcurrentWaitsShareDescribes() throws Exception {
+        List<Ec2Instance> instances = launch(20);
+        long before = emulation().getRequestCount();
+
+        List<Callable<Ec2Instance>> waits = new ArrayList<Callable<Ec2Instance>>();
+        for (final Ec2Instance instance : instances) {
+            waits.add(new Callable<Ec2Instance>() {
+
+                @Override
+                public Ec2Instance call() throws Exception {
+                    return poller.waitFor(instance, Ec2Instance.STATE_RUNNING).get(5, TimeUnit.SECONDS);
+                }
+            });
+        }
+        for (Future<Ec2Instance> wait : runConcurrently(waits)) {
+            assertEquals(Ec2Instance.STATE_RUNNING, wait.get().getResource().getState().getName());
+        }
+
+        // one request per tick for all instances, not per instance
+        assertTrue(emulation().getRequestCount() - before < instances.size());
+        assertEquals(0, poller.size());
+    }
+
+    public void testWaitFailsWhenInstanceIsTerminated() throws Exception {
+        profile.setInstanceBootMillis(60000);
+        Ec2Instance instance = launch(1).get(0);
+        Future<Ec2Instance> running = poller.waitFor(instance, Ec2Instance.STATE_RUNNING);
+
+        ec2.terminateInstances(new TerminateInstancesRequest().withInstanceIds(instance.getId()));
+
+        try {
+            running.get(5, TimeUnit.SECONDS);
+            fail("Terminated instance reached running state");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ResourceFailedException);
+        }
+    }
+
+    public void testWaitForTerminationSurvivesShuttingDown() throws Exception {
+        profile.setInstanceTerminateMillis(300);
+        Ec2Instance instance = launch(1).get(0);
+        Future<Ec2Instance> terminated = poller.waitFor(instance, Ec2Instance.STATE_TERMINATED);
+
+        ec2.terminateInstances(new TerminateInstancesRequest().withInstanceIds(instance.getId()));
+
+        assertEquals(Ec2Instance.STATE_TERMINATED, terminated.get(5, TimeUnit.SECONDS).getResource().getState().getName());
+    }
+
+    public void testWaitsForInstancesInTheirRegions() throws Exception {
+        Ec2Instance local = launch(1).get(0);
+        // ids of emulated regions overlap, last of few remote instances is unknown in default region
+        Instance model = connector.getAmazonEC2(OTHER_REGION)
+                .runInstances(new RunInstancesRequest().withImageId("ami-00000001").withMinCount(3).withMaxCount(3)).getReservation().getInstances()
+                .get(2);
+        Ec2Instance remote = connect(new Ec2Instance(model));
+        remote.setRegion(OTHER_REGION);
+
+        Future<Ec2Instance> localRunning = poller.waitFor(local, Ec2Instance.STATE_RUNNING);
+        Future<Ec2Instance> remoteRunning = poller.waitFor(remote, Ec2Instance.STATE_RUNNING);
+
+        assertEquals(Ec2Instance.STATE_RUNNING, localRunning.get(5, TimeUnit.SECONDS).getResource().getState().getName());
+        assertEquals(Ec2Instance.STATE_RUNNING, remoteRunning.get(5, TimeUnit.SECONDS).getResource().getState().getName());
+    }
+
+    public void testWaitForServerBootUpdatesWaitingWrapper() throws Exception {
+        Ec2Instance watched = launch(1).get(0);
+        Ec2Instance other = connect(new Ec2Instance(Ec2Resource.copyOfModel(watched.getResource())));
+        Future<Ec2Instance> running = poller.waitFor(watched, Ec2Instance.STATE_RUNNING);
+        Ec2Instance.setStatePoller(poller);
+        try {
+            long start = System.currentTimeMillis();
+            other.waitForServerBoot();
+
+            // without the poller result it would poll on its own every 5 seconds
+            assertTrue(System.currentTimeMillis() - start < 4000);
+            assertEquals(Ec2Instance.STATE_RUNNING, other.getResource().getState().getName());
+            assertNotSame(running.get().getResource(), other.getResource());
+        } finally {
+            Ec2Instance.setStatePoller(null);
+        }
+    }
+
+    public void testWaitAfterShutdownFailsImmediately() throws Exception {
+        Ec2Instance instance = launch(1).get(0);
+        poller.shutdown();
+
+        Future<Ec2Instance> running = poller.waitFor(instance, Ec2Instance.STATE_RUNNING);
+
+        assertTrue(running.isDone());
+        try {
+            running.get();
+            fail("Shut down poller completed wait");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.services.ec2.model.StopInstancesRequest;
+import com.amazonaws.wrapper.events.ResourceChangeEvent;
+import com.amazonaws.wrapper.events.ResourceChangeListener;
+
+public class InventorySyncTest extends EmulationTestCase {
+
+    private InventorySync<Ec2Instance> inventory;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        inventory = new InventorySync<Ec2Instance>(connect(new Ec2Instance()));
+    }
+
+    public void testRefreshOfKnownResourceDoesNotHideChange() throws Exception {
+        launch(2);
+        assertEquals(2, inventory.sync().size());
+        Ec2Instance known = inventory.getKnown().get(0);
+        ec2.stopInstances(new StopInstancesRequest().withInstanceIds(known.getId()));
+
+        connect(known).refresh();
+        List<ResourceChangeEvent<Ec2Instance>> changes = inventory.sync();
+
+        assertEquals(1, changes.size());
+        assertEquals(ResourceChangeEvent.Type.MODIFIED, changes.get(0).getType());
+        assertEquals(known.getId(), changes.get(0).getResource().getId());
+        assertEquals(Ec2Instance.STATE_RUNNING, changes.get(0).getPrevious().getAmazonInstance().getState().getName());
+    }
+
+    public void testLocalChangeOfKnownResourceIsNotReported() throws Exception {
+        launch(2);
+        inventory.sync();
+
+        inventory.getKnown().get(0).getAmazonInstance().setInstanceType("changed.locally");
+
+        assertEquals(0, inventory.sync().size());
+    }
+
+    public void testListenersAreNotifiedOutsideOfLock() throws Exception {
+        launch(1);
+        final ExecutorService other = Executors.newSingleThreadExecutor();
+        final List<Integer> seen = Collections.synchronizedList(new ArrayList<Integer>());
+        inventory.addListener(new ResourceChangeListener<Ec2Instance>() {
+
+            @Override
+            public void resourceChanged(ResourceChangeEvent<Ec2Instance> event) {
+                try {
+                    seen.add(other.submit(new Callable<Integer>() {
+
+                        @Override
+                        public Integer call() throws Exception {
+                            return inventory.getKnown().size();
+                        }
+                    }).get(2, TimeUnit.SECONDS));
+                } catch (Exception e) {
+                    seen.add(-1);
+                }
+            }
+        });
+
+        inventory.sync();
+        other.shutdown();
+
+        assertEquals(Collections.singletonList(1), seen);
+    }
+
+}
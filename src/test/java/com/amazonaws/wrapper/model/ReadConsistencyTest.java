@@ -0,0 +1,121 @@
+package com.amazonaws.wrapper.model;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+
+import com.amazonaws.services.ec2.model.StopInstancesRequest;
+
+public class ReadConsistencyTest extends EmulationTestCase {
+
+    private final static ReadConsistency EVENTUAL = ReadConsistency.maxStaleness(60000);
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        recentInstances().clear();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        recentInstances().clear();
+        super.tearDown();
+    }
+
+    public void testAcceptsModelsYoungerThanMaxStaleness() throws Exception {
+        long now = System.currentTimeMillis();
+
+        assertFalse(ReadConsistency.STRONG.accepts(now));
+        assertTrue(ReadConsistency.CACHED_ONLY.accepts(0));
+        assertTrue(ReadConsistency.maxStaleness(1000).accepts(now - 500));
+        assertFalse(ReadConsistency.maxStaleness(1000).accepts(now - 1500));
+        try {
+            ReadConsistency.maxStaleness(-1);
+            fail("Negative staleness accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testRefreshDescribesOnlyStaleModels() throws Exception {
+        Ec2Instance instance = instance(launch(1).get(0).getId());
+        assertFalse(instance.isFresh(ReadConsistency.CACHED_ONLY));
+        long before = emulation().getRequestCount();
+
+        // never loaded, even cached read has to describe
+        instance.refresh(ReadConsistency.CACHED_ONLY);
+        instance.refresh(ReadConsistency.CACHED_ONLY);
+        instance.refresh(EVENTUAL);
+        assertEquals(1, emulation().getRequestCount() - before);
+        assertTrue(instance.isFresh(EVENTUAL));
+
+        instance.refresh(ReadConsistency.STRONG);
+        instance.refresh(ReadConsistency.STRONG);
+        assertEquals(3, emulation().getRequestCount() - before);
+        assertFalse(instance.isFresh(ReadConsistency.STRONG));
+
+        sleep(60);
+        instance.refresh(ReadConsistency.maxStaleness(50));
+        assertEquals(4, emulation().getRequestCount() - before);
+    }
+
+    public void testEventualReadsAreServedFromRecentInstances() throws Exception {
+        Ec2Instance instance = launch(1).get(0);
+        String id = instance.getId();
+        remember(instance);
+        ec2.stopInstances(new StopInstancesRequest().withInstanceIds(id));
+        long before = emulation().getRequestCount();
+
+        // remembered state is fresh enough, even though instance was stopped since
+        assertTrue(Ec2Instance.isRunning(id, EVENTUAL));
+        assertFalse(Ec2Instance.isStopped(id, EVENTUAL));
+        assertEquals(0, emulation().getRequestCount() - before);
+
+        // remembered state is too old
+        sleep(60);
+        assertFalse(Ec2Instance.isRunning(id, ReadConsistency.maxStaleness(50)));
+        assertEquals(1, emulation().getRequestCount() - before);
+        assertTrue(Ec2Instance.isStopped(id, EVENTUAL));
+        assertEquals(1, emulation().getRequestCount() - before);
+    }
+
+    public void testStrongReadsAlwaysDescribe() throws Exception {
+        Ec2Instance instance = launch(1).get(0);
+        String id = instance.getId();
+        remember(instance);
+        ec2.stopInstances(new StopInstancesRequest().withInstanceIds(id));
+        long before = emulation().getRequestCount();
+
+        assertTrue(Ec2Instance.isStopped(id, ReadConsistency.STRONG));
+        assertFalse(Ec2Instance.isRunning(id, ReadConsistency.STRONG));
+        assertTrue(instance(id).isStopped(ReadConsistency.STRONG));
+        assertEquals(3, emulation().getRequestCount() - before);
+
+        // strong reads don't update remembered instances
+        assertSame(instance, recentInstances().get(id));
+        assertTrue(Ec2Instance.isRunning(id, ReadConsistency.CACHED_ONLY));
+        assertEquals(3, emulation().getRequestCount() - before);
+    }
+
+    /*
+     * Instances remembered by static isRunning/isStopped(id, consistency). Wrappers created by them have no connector in tests, so remembered
+     * instance connected to emulation is put there and it is copied for describes
+     */
+    private static void remember(Ec2Instance instance) {
+        Map<String, Ec2Instance> recent = recentInstances();
+        synchronized (recent) {
+            recent.put(instance.getId(), instance);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Ec2Instance> recentInstances() {
+        try {
+            Field field = Ec2Instance.class.getDeclaredField("RECENT_INSTANCES");
+            field.setAccessible(true);
+            return (Map<String, Ec2Instance>) field.get(null);
+        } catch (Exception e) {
+            throw new IllegalStateException("Can't read recent instances", e);
+        }
+    }
+
+}
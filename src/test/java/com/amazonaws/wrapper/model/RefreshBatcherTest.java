@@ -0,0 +1,144 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.ec2.model.Instance;
+import com.amazonaws.wrapper.exception.ResourceDoesNotExistException;
+
+public class RefreshBatcherTest extends EmulationTestCase {
+
+    private RefreshBatcher batcher;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        batcher = new RefreshBatcher(200);
+        Ec2Resource.setRefreshBatcher(Ec2Instance.class, batcher);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Ec2Resource.setRefreshBatcher(Ec2Instance.class, null);
+        super.tearDown();
+    }
+
+    public void testConcurrentRefreshesShareOneRequest() throws Exception {
+        List<Ec2Instance> instances = launch(20);
+        long before = emulation().getRequestCount();
+
+        for (Future<String> state : runConcurrently(refreshes(instances))) {
+            assertEquals(Ec2Instance.STATE_RUNNING, state.get());
+        }
+
+        assertEquals(1, emulation().getRequestCount() - before);
+        assertEquals(1, batcher.getBatchCount());
+        assertEquals(19, batcher.getSavedCallCount());
+    }
+
+    public void testWrappersWithSameIdGetOwnModels() throws Exception {
+        String id = launch(1).get(0).getId();
+        List<Callable<Instance>> refreshes = new ArrayList<Callable<Instance>>();
+        for (int i = 0; i < 3; i++) {
+            final Ec2Instance instance = instance(id);
+            refreshes.add(new Callable<Instance>() {
+
+                @Override
+                public Instance call() throws Exception {
+                    instance.refresh();
+                    return instance.getResource();
+                }
+            });
+        }
+
+        List<Future<Instance>> models = runConcurrently(refreshes);
+
+        Set<Instance> distinct = Collections.newSetFromMap(new IdentityHashMap<Instance, Boolean>());
+        for (Future<Instance> model : models) {
+            assertEquals(id, model.get().getInstanceId());
+            distinct.add(model.get());
+        }
+        assertEquals(3, distinct.size());
+        assertEquals(1, batcher.getBatchCount());
+    }
+
+    public void testMissingIdFallsBackToSingleRequests() throws Exception {
+        List<Ec2Instance> instances = launch(5);
+        instances.add(instance("i-0000dead"));
+        long before = emulation().getRequestCount();
+
+        List<Future<String>> states = runConcurrently(refreshes(instances));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Ec2Instance.STATE_RUNNING, states.get(i).get());
+        }
+        try {
+            states.get(5).get();
+            fail("Missing instance was refreshed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ResourceDoesNotExistException);
+        }
+        // failed batch and one request per id
+        assertEquals(1 + 6, emulation().getRequestCount() - before);
+    }
+
+    public void testThrottlingFailsWholeBatchWithoutSingleRequests() throws Exception {
+        List<Ec2Instance> instances = launch(10);
+        profile.setThrottleRate(1);
+        long before = emulation().getRequestCount();
+
+        for (Future<String> state : runConcurrently(refreshes(instances))) {
+            try {
+                state.get();
+                fail("Throttled refresh succeeded");
+            } catch (ExecutionException e) {
+                assertEquals("RequestLimitExceeded", ((AmazonServiceException) e.getCause()).getErrorCode());
+            }
+        }
+        assertEquals(1, emulation().getRequestCount() - before);
+    }
+
+    public void testThrottlingDuringFallbackStopsSingleRequests() throws Exception {
+        final List<Ec2Instance> instances = launch(5);
+        instances.add(0, instance("i-0000dead"));
+        long before = emulation().getRequestCount();
+        // batch fails with NotFound, first single request throttles
+        profile.setRequestsPerSecond(1.5);
+
+        int throttled = 0;
+        for (Future<String> state : runConcurrently(refreshes(instances))) {
+            try {
+                state.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof AmazonServiceException
+                        && "RequestLimitExceeded".equals(((AmazonServiceException) e.getCause()).getErrorCode())) {
+                    throttled++;
+                }
+            }
+        }
+        assertTrue("Throttled refreshes: " + throttled, throttled > 0);
+        assertTrue(emulation().getRequestCount() - before < 1 + instances.size());
+    }
+
+    private static List<Callable<String>> refreshes(List<Ec2Instance> instances) {
+        List<Callable<String>> refreshes = new ArrayList<Callable<String>>();
+        for (final Ec2Instance instance : instances) {
+            refreshes.add(new Callable<String>() {
+
+                @Override
+                public String call() throws Exception {
+                    return instance.getState();
+                }
+            });
+        }
+        return refreshes;
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import com.amazonaws.services.ec2.model.Volume;
+
+public class ResourceListViewTest extends TestCase {
+
+    private final AtomicInteger wraps = new AtomicInteger();
+
+    private final Ec2Volume prototype = new Ec2Volume() {
+
+        @Override
+        protected Ec2Volume wrap(Volume model) {
+            wraps.incrementAndGet();
+            return super.wrap(model);
+        }
+    };
+
+    public void testIdsAndSizeDoNotWrapModels() throws Exception {
+        ResourceListView<Volume, Ec2Volume> list = view(3);
+
+        assertEquals(3, list.size());
+        assertEquals(Arrays.asList("vol-0", "vol-1", "vol-2"), list.ids());
+        assertEquals(Arrays.asList("vol-0", "vol-1", "vol-2"), Ec2Resource.idsOf(list));
+        assertEquals(0, wraps.get());
+
+        assertEquals("vol-1", list.get(1).getId());
+        assertEquals(1, wraps.get());
+    }
+
+    public void testConcurrentGetWrapsEveryModelOnce() throws Exception {
+        final ResourceListView<Volume, Ec2Volume> list = view(50);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Callable<List<Ec2Volume>>> readers = new ArrayList<Callable<List<Ec2Volume>>>();
+        for (int i = 0; i < 8; i++) {
+            readers.add(new Callable<List<Ec2Volume>>() {
+
+                @Override
+                public List<Ec2Volume> call() throws Exception {
+                    start.await();
+                    return new ArrayList<Ec2Volume>(list);
+                }
+            });
+        }
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<Ec2Volume>>> results = new ArrayList<Future<List<Ec2Volume>>>();
+            for (Callable<List<Ec2Volume>> reader : readers) {
+                results.add(threads.submit(reader));
+            }
+            start.countDown();
+            for (Future<List<Ec2Volume>> result : results) {
+                List<Ec2Volume> read = result.get();
+                for (int i = 0; i < list.size(); i++) {
+                    // every reader sees the same resource
+                    assertSame(list.get(i), read.get(i));
+                }
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+        assertEquals(50, wraps.get());
+    }
+
+    public void testDetachedListHasOwnResourcesAndModels() throws Exception {
+        ResourceListView<Volume, Ec2Volume> list = view(2);
+        Ec2Volume original = list.get(0);
+
+        List<Ec2Volume> detached = list.detached();
+        detached.get(0).getResource().setSize(100);
+
+        assertNotSame(original, detached.get(0));
+        assertEquals(Integer.valueOf(1), original.getResource().getSize());
+        assertEquals(Integer.valueOf(1), list.get(0).getResource().getSize());
+        assertEquals(Integer.valueOf(100), detached.get(0).getResource().getSize());
+        assertEquals(list.ids(), Ec2Resource.idsOf(detached));
+    }
+
+    public void testDetachedModifiedListHasOwnResourcesAndModels() throws Exception {
+        ResourceListView<Volume, Ec2Volume> list = view(3);
+        list.remove(1);
+
+        List<Ec2Volume> detached = list.detached();
+        detached.get(1).getResource().setSize(100);
+
+        assertEquals(Arrays.asList("vol-0", "vol-2"), Ec2Resource.idsOf(detached));
+        assertNotSame(list.get(1), detached.get(1));
+        assertEquals(Integer.valueOf(1), list.get(1).getResource().getSize());
+    }
+
+    public void testRegionReachesResourcesWrappedLater() throws Exception {
+        ResourceListView<Volume, Ec2Volume> list = view(3);
+        Ec2Volume early = list.get(0);
+
+        list.setRegion("eu-west-1");
+
+        assertEquals("eu-west-1", early.getRegion());
+        assertEquals("eu-west-1", list.get(2).getRegion());
+        assertEquals("eu-west-1", list.detached().get(1).getRegion());
+    }
+
+    private ResourceListView<Volume, Ec2Volume> view(int size) {
+        List<Volume> models = new ArrayList<Volume>();
+        for (int i = 0; i < size; i++) {
+            models.add(new Volume().withVolumeId("vol-" + i).withSize(1));
+        }
+        return new ResourceListView<Volume, Ec2Volume>(prototype, models);
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.amazonaws.services.ec2.model.CreateImageRequest;
+import com.amazonaws.services.ec2.model.CreateSnapshotRequest;
+import com.amazonaws.services.ec2.model.CreateVolumeRequest;
+import com.amazonaws.services.ec2.model.DescribeImagesRequest;
+import com.amazonaws.services.ec2.model.DescribeSnapshotsRequest;
+import com.amazonaws.services.ec2.model.Filter;
+import com.amazonaws.wrapper.events.ResourceVisitor;
+
+public class ResourceVisitorTest extends EmulationTestCase {
+
+    public void testForEachVisitsFilteredResources() throws Exception {
+        List<String> small = new ArrayList<String>();
+        for (int i = 0; i < 5; i++) {
+            String id = ec2.createVolume(new CreateVolumeRequest().withSize(i < 3 ? 1 : 2)).getVolume().getVolumeId();
+            if (i < 3) {
+                small.add(id);
+            }
+        }
+        Collector<Ec2Volume> collector = new Collector<Ec2Volume>(10);
+
+        connect(new Ec2Volume()).forEach(collector, new Filter("size", Arrays.asList("1")));
+
+        assertEquals(small, Ec2Resource.idsOf(collector.visited));
+    }
+
+    public void testForEachStopsWhenVisitorReturnsFalse() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            ec2.createVolume(new CreateVolumeRequest().withSize(1));
+        }
+        Collector<Ec2Volume> collector = new Collector<Ec2Volume>(2);
+
+        connect(new Ec2Volume()).forEach(collector);
+
+        assertEquals(2, collector.visited.size());
+    }
+
+    public void testForEachKeepsRegionOfPrototype() throws Exception {
+        ec2.createVolume(new CreateVolumeRequest().withSize(1));
+        Ec2Volume prototype = connect(new Ec2Volume());
+        prototype.setRegion(REGION);
+        Collector<Ec2Volume> collector = new Collector<Ec2Volume>(10);
+
+        prototype.forEach(collector);
+
+        assertEquals(1, collector.visited.size());
+        assertEquals(REGION, collector.visited.get(0).getRegion());
+    }
+
+    public void testSnapshotVisitorStopsEarly() throws Exception {
+        String volumeId = ec2.createVolume(new CreateVolumeRequest().withSize(1)).getVolume().getVolumeId();
+        List<String> snapshots = new ArrayList<String>();
+        for (int i = 0; i < 4; i++) {
+            snapshots.add(ec2.createSnapshot(new CreateSnapshotRequest(volumeId, "snapshot " + i)).getSnapshot().getSnapshotId());
+        }
+        Ec2Snapshot prototype = connect(new Ec2Snapshot());
+
+        Collector<Ec2Snapshot> all = new Collector<Ec2Snapshot>(10);
+        assertTrue(prototype.processDescribe(ec2, new DescribeSnapshotsRequest(), all));
+        assertEquals(snapshots, Ec2Resource.idsOf(all.visited));
+
+        Collector<Ec2Snapshot> first = new Collector<Ec2Snapshot>(1);
+        assertFalse(prototype.processDescribe(ec2, new DescribeSnapshotsRequest(), first));
+        assertEquals(snapshots.subList(0, 1), Ec2Resource.idsOf(first.visited));
+    }
+
+    public void testImageVisitorStopsEarly() throws Exception {
+        List<String> images = new ArrayList<String>();
+        for (Ec2Instance instance : launch(3)) {
+            images.add(ec2.createImage(new CreateImageRequest(instance.getId(), "image of " + instance.getId())).getImageId());
+        }
+        Ec2Image prototype = connect(new Ec2Image());
+
+        Collector<Ec2Image> all = new Collector<Ec2Image>(10);
+        assertTrue(prototype.processDescribe(ec2, new DescribeImagesRequest().withOwners("self"), all));
+        assertEquals(images, Ec2Resource.idsOf(all.visited));
+
+        Collector<Ec2Image> two = new Collector<Ec2Image>(2);
+        assertFalse(prototype.processDescribe(ec2, new DescribeImagesRequest().withImageIds(images), two));
+        assertEquals(images.subList(0, 2), Ec2Resource.idsOf(two.visited));
+    }
+
+    /*
+     * Collects visited resources, stops after limit of them
+     */
+    private static class Collector<O> implements ResourceVisitor<O> {
+
+        private final int limit;
+
+        private final List<O> visited = new ArrayList<O>();
+
+        Collector(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean visit(O resource) {
+            visited.add(resource);
+            return visited.size() < limit;
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.amazonaws.wrapper.model;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.ec2.model.DescribeInstancesRequest;
+import com.amazonaws.services.ec2.model.Instance;
+import com.amazonaws.services.ec2.model.RunInstancesRequest;
+import com.amazonaws.services.ec2.model.Tag;
+import com.amazonaws.wrapper.emulation.LatencyDistribution;
+
+public class TagWriterTest extends EmulationTestCase {
+
+    private final static String OTHER_REGION = "eu-west-1";
+
+    private TagWriter writer;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        // flushed only by tests
+        writer = new TagWriter(connector, 60000);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        profile.setThrottleRate(0);
+        writer.close();
+        super.tearDown();
+    }
+
+    public void testIdenticalChangesShareOneRequest() throws Exception {
+        List<Ec2Instance> instances = launch(10);
+        for (Ec2Instance instance : instances) {
+            writer.addTag(instance, "Role", "web");
+        }
+        long before = emulation().getRequestCount();
+
+        writer.flush();
+
+        assertEquals(1, emulation().getRequestCount() - before);
+        for (Ec2Instance instance : instances) {
+            assertEquals("web", tagsOf(REGION, instance.getId()).get("Role"));
+        }
+    }
+
+    public void testFailedFlushKeepsChanges() throws Exception {
+        List<Ec2Instance> instances = launch(3);
+        writer.addTag(instances.get(0), "Role", "web");
+        writer.addTag(instances.get(1), "Role", "db");
+        writer.deleteTag(instances.get(2), "Role", null);
+        profile.setThrottleRate(1);
+
+        try {
+            writer.flush();
+            fail("Throttled flush succeeded");
+        } catch (AmazonServiceException e) {
+            assertEquals("RequestLimitExceeded", e.getErrorCode());
+        }
+        profile.setThrottleRate(0);
+        writer.flush();
+
+        assertEquals("web", tagsOf(REGION, instances.get(0).getId()).get("Role"));
+        assertEquals("db", tagsOf(REGION, instances.get(1).getId()).get("Role"));
+    }
+
+    public void testChangeAfterFailedFlushWins() throws Exception {
+        Ec2Instance instance = launch(1).get(0);
+        writer.addTag(instance, "Role", "web");
+        profile.setThrottleRate(1);
+        try {
+            writer.flush();
+            fail("Throttled flush succeeded");
+        } catch (AmazonServiceException e) {
+            assertEquals("RequestLimitExceeded", e.getErrorCode());
+        }
+        profile.setThrottleRate(0);
+
+        writer.addTag(instance, "Role", "db");
+        writer.flush();
+
+        assertEquals("db", tagsOf(REGION, instance.getId()).get("Role"));
+    }
+
+    public void testChangesAreSentToRegionOfResource() throws Exception {
+        Ec2Instance local = launch(1).get(0);
+        Instance model = connector.getAmazonEC2(OTHER_REGION)
+                .runInstances(new RunInstancesRequest().withImageId("ami-00000001").withMinCount(1).withMaxCount(1)).getReservation()
+                .getInstances().get(0);
+        Ec2Instance remote = connect(new Ec2Instance(model));
+        remote.setRegion(OTHER_REGION);
+
+        writer.addTag(local, "Role", "web");
+        writer.addTag(remote, "Role", "web");
+        writer.flush();
+
+        assertEquals("web", tagsOf(REGION, local.getId()).get("Role"));
+        assertEquals("web", tagsOf(OTHER_REGION, remote.getId()).get("Role"));
+    }
+
+    public void testNewerFlushWaitsForScheduledFlush() throws Exception {
+        Ec2Instance instance = launch(1).get(0);
+        TagWriter scheduled = new TagWriter(connector, 50);
+        try {
+            profile.setLatency("createTags", LatencyDistribution.fixed(300));
+            scheduled.addTag(instance, "Name", "v1");
+            // scheduled flush is sending v1 now
+            sleep(150);
+            profile.setLatency("createTags", LatencyDistribution.none());
+
+            scheduled.addTag(instance, "Name", "v2");
+            scheduled.flush();
+
+            assertEquals("v2", tagsOf(REGION, instance.getId()).get("Name"));
+            sleep(300);
+            assertEquals("v2", tagsOf(REGION, instance.getId()).get("Name"));
+        } finally {
+            scheduled.close();
+        }
+    }
+
+    private Map<String, String> tagsOf(String region, String id) {
+        Map<String, String> tags = new HashMap<String, String>();
+        Instance instance = connector.getAmazonEC2(region).describeInstances(new DescribeInstancesRequest().withInstanceIds(id)).getReservations()
+                .get(0).getInstances().get(0);
+        for (Tag tag : instance.getTags()) {
+            tags.put(tag.getKey(), tag.getValue());
+        }
+        return tags;
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.amazonaws.wrapper.service;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.services.ec2.model.CreateVolumeRequest;
+import com.amazonaws.services.ec2.model.DescribeVolumesRequest;
+import com.amazonaws.wrapper.exception.RequestRateExceededException;
+import com.amazonaws.wrapper.service.Ec2RateLimiter.Category;
+
+public class Ec2RateLimiterTest extends TestCase {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    public void testCategoriesOfActions() {
+        assertEquals(Category.DESCRIBE, Ec2RateLimiter.categoryOf("describeInstances"));
+        assertEquals(Category.TAG, Ec2RateLimiter.categoryOf("createTags"));
+        assertEquals(Category.TAG, Ec2RateLimiter.categoryOf("deleteTags"));
+        assertEquals(Category.MUTATE, Ec2RateLimiter.categoryOf("runInstances"));
+    }
+
+    public void testNonBlockingLimiterRejectsRequestsOverBurst() {
+        Ec2RateLimiter limiter = new Ec2RateLimiter(false);
+        limiter.setLimit(Category.MUTATE, 0.1, 2);
+        AmazonEC2 ec2 = limiter.wrap(stub());
+
+        ec2.createVolume(new CreateVolumeRequest().withSize(1));
+        ec2.createVolume(new CreateVolumeRequest().withSize(1));
+        try {
+            ec2.createVolume(new CreateVolumeRequest().withSize(1));
+            fail("Request over burst was sent");
+        } catch (RequestRateExceededException e) {
+            // expected
+        }
+        // other categories are not limited
+        ec2.describeVolumes(new DescribeVolumesRequest());
+
+        assertEquals(3, calls.get());
+        assertEquals(2, limiter.getAcquiredCount(Category.MUTATE));
+        assertEquals(1, limiter.getRejectedCount(Category.MUTATE));
+        assertEquals(0, limiter.getAcquiredCount(Category.DESCRIBE));
+    }
+
+    public void testBlockingLimiterDelaysRequestsOverBurst() {
+        Ec2RateLimiter limiter = new Ec2RateLimiter(true);
+        limiter.setLimit(Category.DESCRIBE, 20, 1);
+        AmazonEC2 ec2 = limiter.wrap(stub());
+
+        for (int i = 0; i < 3; i++) {
+            ec2.describeVolumes(new DescribeVolumesRequest());
+        }
+
+        assertEquals(3, calls.get());
+        assertEquals(3, limiter.getAcquiredCount(Category.DESCRIBE));
+        assertEquals(2, limiter.getDelayedCount(Category.DESCRIBE));
+        assertEquals(0, limiter.getRejectedCount(Category.DESCRIBE));
+        // two tokens at 20 per second
+        assertTrue("Waited " + limiter.getTotalWaitMillis(Category.DESCRIBE), limiter.getTotalWaitMillis(Category.DESCRIBE) >= 80);
+    }
+
+    private AmazonEC2 stub() {
+        return (AmazonEC2) Proxy.newProxyInstance(AmazonEC2.class.getClassLoader(), new Class<?>[] { AmazonEC2.class }, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                calls.incrementAndGet();
+                return null;
+            }
+        });
+    }
+
+}
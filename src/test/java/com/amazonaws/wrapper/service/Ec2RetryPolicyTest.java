@@ -0,0 +1,172 @@
+package com.amazonaws.wrapper.service;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.services.ec2.model.DescribeRegionsResult;
+import com.amazonaws.services.ec2.model.RunInstancesRequest;
+import com.amazonaws.wrapper.exception.CircuitOpenException;
+import com.amazonaws.wrapper.exception.RequestRateExceededException;
+
+public class Ec2RetryPolicyTest extends TestCase {
+
+    private enum Answer {
+        OK, THROTTLE, REJECT, UNAVAILABLE
+    }
+
+    private volatile Answer answer;
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private CircuitBreaker breaker;
+
+    private AmazonEC2 client;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        breaker = new CircuitBreaker(1, 2, 50);
+        client = new Ec2RetryPolicy(2, 1, 5, breaker).wrap(stub());
+    }
+
+    public void testRetriesThrottledRequest() throws Exception {
+        answer = Answer.THROTTLE;
+        try {
+            client.describeRegions();
+            fail("Throttled request succeeded");
+        } catch (AmazonServiceException e) {
+            assertEquals("RequestLimitExceeded", e.getErrorCode());
+        }
+        // circuit opens after second failure, last retry is not sent
+        assertEquals(2, calls.get());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    public void testRetriesTransientFailureOfDescribe() throws Exception {
+        client = new Ec2RetryPolicy(2, 1, 5, null).wrap(stub());
+        answer = Answer.UNAVAILABLE;
+        try {
+            client.describeRegions();
+            fail("Failed request succeeded");
+        } catch (AmazonServiceException e) {
+            assertEquals("Unavailable", e.getErrorCode());
+        }
+        assertEquals(3, calls.get());
+    }
+
+    public void testDoesNotRetryTransientFailureOfMutation() throws Exception {
+        client = new Ec2RetryPolicy(2, 1, 5, null).wrap(stub());
+        answer = Answer.UNAVAILABLE;
+        try {
+            client.runInstances(new RunInstancesRequest());
+            fail("Failed request succeeded");
+        } catch (AmazonServiceException e) {
+            assertEquals("Unavailable", e.getErrorCode());
+        }
+        // amazon may have launched instances already
+        assertEquals(1, calls.get());
+
+        answer = Answer.THROTTLE;
+        try {
+            client.runInstances(new RunInstancesRequest());
+            fail("Throttled request succeeded");
+        } catch (AmazonServiceException e) {
+            assertEquals("RequestLimitExceeded", e.getErrorCode());
+        }
+        assertEquals(1 + 3, calls.get());
+    }
+
+    public void testClientRejectionIsNotRetriedNorCounted() throws Exception {
+        answer = Answer.REJECT;
+        for (int i = 0; i < 5; i++) {
+            try {
+                client.describeRegions();
+                fail("Rejected request succeeded");
+            } catch (RequestRateExceededException e) {
+                // expected
+            }
+        }
+        assertEquals(5, calls.get());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    public void testClientRejectionDoesNotCloseCircuit() throws Exception {
+        openCircuit();
+        Thread.sleep(60);
+
+        answer = Answer.REJECT;
+        try {
+            client.describeRegions();
+            fail("Rejected request succeeded");
+        } catch (RequestRateExceededException e) {
+            // expected
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // trial request is not blocked by rejected one
+        answer = Answer.OK;
+        client.describeRegions();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    public void testOpenCircuitRejectsRequests() throws Exception {
+        openCircuit();
+        int before = calls.get();
+        try {
+            client.describeRegions();
+            fail("Request passed open circuit");
+        } catch (CircuitOpenException e) {
+            // expected
+        }
+        assertEquals(before, calls.get());
+    }
+
+    public void testRecognizesRetryingClient() throws Exception {
+        assertTrue(Ec2RetryPolicy.isRetrying(client));
+        assertFalse(Ec2RetryPolicy.isRetrying(stub()));
+        assertFalse(Ec2RetryPolicy.isRetrying(new Ec2RateLimiter(false).wrap(stub())));
+    }
+
+    private void openCircuit() {
+        answer = Answer.THROTTLE;
+        try {
+            client.describeRegions();
+        } catch (AmazonServiceException e) {
+            // expected
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private AmazonEC2 stub() {
+        return (AmazonEC2) Proxy.newProxyInstance(AmazonEC2.class.getClassLoader(), new Class<?>[] { AmazonEC2.class }, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                calls.incrementAndGet();
+                if (answer == Answer.THROTTLE) {
+                    AmazonServiceException e = new AmazonServiceException("Request limit exceeded.");
+                    e.setErrorCode("RequestLimitExceeded");
+                    e.setStatusCode(503);
+                    throw e;
+                }
+                if (answer == Answer.UNAVAILABLE) {
+                    AmazonServiceException e = new AmazonServiceException("Service unavailable.");
+                    e.setErrorCode("Unavailable");
+                    e.setStatusCode(503);
+                    throw e;
+                }
+                if (answer == Answer.REJECT) {
+                    throw new RequestRateExceededException(method.getName());
+                }
+                return new DescribeRegionsResult();
+            }
+        });
+    }
+
+}
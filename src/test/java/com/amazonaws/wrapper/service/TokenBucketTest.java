@@ -0,0 +1,111 @@
+package com.amazonaws.wrapper.service;
+
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+public class TokenBucketTest extends TestCase {
+
+    public void testAllowsBurstUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(1, 3);
+
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    public void testRefillsWithRate() throws Exception {
+        TokenBucket bucket = new TokenBucket(100, 1);
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+
+        Thread.sleep(30);
+
+        assertTrue(bucket.tryAcquire());
+    }
+
+    public void testAcquireWaitsForToken() throws Exception {
+        TokenBucket bucket = new TokenBucket(20, 1);
+        assertEquals(0, bucket.acquire());
+
+        long start = System.nanoTime();
+        long waited = bucket.acquire();
+
+        // next token comes in 50ms
+        assertTrue("Waited " + waited, waited > TimeUnit.MILLISECONDS.toNanos(40));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40));
+    }
+
+    public void testConcurrentCallersQueueUp() throws Exception {
+        final TokenBucket bucket = new TokenBucket(20, 1);
+        bucket.acquire();
+        final long[] waits = new long[2];
+        Thread[] threads = new Thread[2];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        waits[index] = bucket.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // tokens are reserved one after another, second caller waits for two tokens
+        long longest = Math.max(waits[0], waits[1]);
+        assertTrue("Waited " + longest, longest > TimeUnit.MILLISECONDS.toNanos(90));
+    }
+
+    public void testInterruptedCallerReturnsReservation() throws Exception {
+        final TokenBucket bucket = new TokenBucket(10, 1);
+        bucket.acquire();
+        final boolean[] interrupted = new boolean[1];
+        Thread waiting = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    bucket.acquire();
+                } catch (InterruptedException e) {
+                    interrupted[0] = true;
+                }
+            }
+        });
+        waiting.start();
+        Thread.sleep(20);
+        waiting.interrupt();
+        waiting.join();
+
+        // next token comes 100ms after the first one, not after the abandoned reservation
+        long waited = bucket.acquire();
+
+        assertTrue(interrupted[0]);
+        assertTrue("Waited " + waited, waited < TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    public void testRejectsInvalidLimits() {
+        try {
+            new TokenBucket(0, 1);
+            fail("Zero rate accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new TokenBucket(1, 0.5);
+            fail("Capacity below one accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+}